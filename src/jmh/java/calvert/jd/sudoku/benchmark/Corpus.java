@@ -0,0 +1,85 @@
+package calvert.jd.sudoku.benchmark;
+
+import calvert.jd.sudoku.game.logic.LogicStageIdentifier;
+import calvert.jd.sudoku.game.rules.Rule.RuleIdentifier;
+import calvert.jd.sudoku.game.save.SaveGame;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static java.util.Objects.isNull;
+
+/**
+ * The puzzles in the saves folder, used as benchmark input. The folder can be changed with the system property "sudoku.saves", which needs passing to the forked benchmark JVMs
+ * with "-jvmArgs -Dsudoku.saves=...".
+ */
+public final class Corpus {
+
+    private static final String SAVES_FOLDER = System.getProperty("sudoku.saves", "src/main/resources/saves");
+
+    private Corpus() {
+    }
+
+    /**
+     * @return Every saved game in the saves folder, keyed by file name without the extension
+     */
+    public static Map<String, SaveGame> load() {
+        File[] saves = new File(SAVES_FOLDER).listFiles((dir, name) -> name.endsWith(".json"));
+        if (isNull(saves)) {
+            throw new IllegalStateException("No saves folder at " + new File(SAVES_FOLDER).getAbsolutePath());
+        }
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        Map<String, SaveGame> saveGames = new LinkedHashMap<>();
+        Arrays.stream(saves)
+            .sorted(Comparator.comparing(File::getName))
+            .forEach(save -> {
+                try {
+                    saveGames.put(save.getName().replace(".json", ""), objectMapper.readValue(save, SaveGame.class));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        return saveGames;
+    }
+
+    /**
+     * @param name The file name of the save, without the extension
+     * @return The saved game
+     */
+    public static SaveGame load(String name) {
+        SaveGame saveGame = load().get(name);
+        if (isNull(saveGame)) {
+            throw new IllegalArgumentException("No save called " + name + " in " + SAVES_FOLDER);
+        }
+        return saveGame;
+    }
+
+    /**
+     * The families of rules in the corpus, so that results can be compared between them.
+     */
+    public enum RuleSet {
+        STANDARD,
+        KNIGHTS_MOVE,
+        MAGIC_SQUARE,
+        MIRACLE;
+
+        public static RuleSet of(SaveGame saveGame) {
+            if (saveGame.getConstraints().contains(LogicStageIdentifier.CENTRE_REGION_MAGIC_SQUARE)) {
+                return MAGIC_SQUARE;
+            } else if (saveGame.getRules().contains(RuleIdentifier.ADJACENT_SEQUENTIAL_RULE)) {
+                return MIRACLE;
+            } else if (saveGame.getRules().contains(RuleIdentifier.KNIGHTS_MOVE_RULE)) {
+                return KNIGHTS_MOVE;
+            } else {
+                return STANDARD;
+            }
+        }
+    }
+}
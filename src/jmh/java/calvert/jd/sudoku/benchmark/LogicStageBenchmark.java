@@ -0,0 +1,111 @@
+package calvert.jd.sudoku.benchmark;
+
+import calvert.jd.sudoku.game.Cell;
+import calvert.jd.sudoku.game.GameParameters;
+import calvert.jd.sudoku.game.GameState;
+import calvert.jd.sudoku.game.logic.LogicConstraint;
+import calvert.jd.sudoku.game.logic.LogicStage;
+import calvert.jd.sudoku.game.logic.LogicStageIdentifier;
+import calvert.jd.sudoku.game.rules.Rule;
+import calvert.jd.sudoku.game.save.SaveGame;
+import calvert.jd.sudoku.game.util.PossibleValues;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static calvert.jd.sudoku.game.logic.LogicStageIdentifier.SINGLE_CELL_ELIMINATION;
+import static java.util.Collections.singletonList;
+
+/**
+ * Cost of one pass of a single logic stage over the whole board.
+ * <p>
+ * Before each invocation the puzzle is reset and solved with only single cell elimination, leaving a board with plenty of possibilities for the stage to work on. The stage
+ * is then run once for every constraint it could be queued with. The reset happens every invocation because the stage changes the board, so keep in mind that JMH's per
+ * invocation setup adds some noise at this timescale.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LogicStageBenchmark {
+
+    @Param
+    public LogicStageIdentifier logicStageIdentifier;
+
+    @Param({"7sudoku 20200608", "Magic Square Sudoku", "The Miracle Sudoku"})
+    public String puzzle;
+
+    private final GameState gameState = new GameState();
+
+    private SaveGame saveGame;
+    private GameParameters setUpParameters;
+    private LogicStage logicStage;
+    private List<LogicConstraint> constraints;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        this.gameState.setDoUpdates(false);
+
+        this.saveGame = Corpus.load(this.puzzle);
+        this.setUpParameters = new GameParameters(this.saveGame.getRules(), singletonList(SINGLE_CELL_ELIMINATION));
+        this.logicStage = this.logicStageIdentifier.getLogicStage();
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() {
+        this.gameState.setInitialValues(this.saveGame.getCells());
+        this.gameState.solve(this.setUpParameters);
+
+        this.constraints = buildConstraints();
+    }
+
+    @Benchmark
+    public int runLogic() {
+        int numRuns = 0;
+        for (LogicConstraint constraint : this.constraints) {
+            if (this.logicStage.isValidForCell(constraint)) {
+                this.logicStage.runLogic(this.gameState, constraint);
+                numRuns++;
+            }
+        }
+        return numRuns;
+    }
+
+    private List<LogicConstraint> buildConstraints() {
+        List<LogicConstraint> constraints = new ArrayList<>();
+        for (Cell cell : this.gameState.getCells()) {
+            switch (this.logicStageIdentifier) {
+                case MULTIPLE_CELL_ELIMINATION:
+                    for (Rule rule : getInclusiveRules(cell)) {
+                        for (int remaining = cell.getPossibleValues(); remaining != PossibleValues.NONE; remaining = PossibleValues.withoutLowest(remaining)) {
+                            constraints.add(LogicConstraint.builder().cell(cell).value(PossibleValues.lowest(remaining)).rule(rule).build());
+                        }
+                    }
+                    break;
+                case SHARED_POSSIBILITIES_ELIMINATION:
+                case SAME_POSSIBILITIES_ELIMINATION:
+                    for (Rule rule : getInclusiveRules(cell)) {
+                        constraints.add(LogicConstraint.builder().cell(cell).rule(rule).build());
+                    }
+                    break;
+                default:
+                    constraints.add(LogicConstraint.builder().cell(cell).build());
+            }
+        }
+        return constraints;
+    }
+
+    private List<Rule> getInclusiveRules(Cell cell) {
+        List<Rule> rules = new ArrayList<>();
+        for (Rule rule : this.gameState.getRules()) {
+            if (rule.isInclusive() && rule.appliesToCell(cell)) {
+                rules.add(rule);
+            }
+        }
+        return rules;
+    }
+}
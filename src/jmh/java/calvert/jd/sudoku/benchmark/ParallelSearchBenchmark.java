@@ -0,0 +1,58 @@
+package calvert.jd.sudoku.benchmark;
+
+import calvert.jd.sudoku.game.BoardSize;
+import calvert.jd.sudoku.game.save.SaveCell;
+import calvert.jd.sudoku.game.save.SaveGame;
+import calvert.jd.sudoku.game.solver.ParallelSolutionCounter;
+import calvert.jd.sudoku.game.solver.SolutionCounter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of counting every solution of a puzzle with too few givens, which needs a deep search, on one thread and split over the common fork/join pool. A split depth of 0
+ * searches the whole tree as a single subtree, so it shows the overhead of the parallel counter over the plain one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelSearchBenchmark {
+
+    private static final int NUM_GIVENS = 22;
+    private static final int LIMIT = Integer.MAX_VALUE;
+
+    @Param({"0", "2", "4", "6"})
+    public int splitDepth;
+
+    private int[] givens;
+    private SolutionCounter solutionCounter;
+    private ParallelSolutionCounter parallelSolutionCounter;
+
+    @Setup
+    public void setUp() {
+        SaveGame saveGame = Corpus.load("Pocket 001");
+        BoardSize boardSize = saveGame.getBoardSize();
+
+        List<SaveCell> cells = saveGame.getCells().subList(0, NUM_GIVENS);
+        this.givens = new int[boardSize.getNumCells()];
+        cells.forEach(saveCell -> this.givens[boardSize.getIndex(saveCell.getI(), saveCell.getJ())] = saveCell.getValue());
+
+        this.solutionCounter = new SolutionCounter(boardSize, saveGame.getRules(), saveGame.getConstraints());
+        this.parallelSolutionCounter = new ParallelSolutionCounter(boardSize, saveGame.getRules(), saveGame.getConstraints(), ForkJoinPool.commonPool(), this.splitDepth);
+    }
+
+    @Benchmark
+    public int sequential() {
+        return this.solutionCounter.countSolutions(this.givens, LIMIT);
+    }
+
+    @Benchmark
+    public int parallel() {
+        return this.parallelSolutionCounter.countSolutions(this.givens, LIMIT);
+    }
+}
@@ -0,0 +1,51 @@
+package calvert.jd.sudoku.benchmark;
+
+import calvert.jd.sudoku.game.Cell;
+import calvert.jd.sudoku.game.GameState;
+import calvert.jd.sudoku.game.rules.Rule;
+import calvert.jd.sudoku.game.rules.Rule.RuleIdentifier;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of finding the visible cells of every cell on the board for a single rule.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RuleBenchmark {
+
+    @Param
+    public RuleIdentifier ruleIdentifier;
+
+    private final GameState gameState = new GameState();
+
+    private Rule rule;
+    private List<Cell> cells;
+
+    @Setup
+    public void setUp() {
+        this.rule = this.ruleIdentifier.getRule();
+        this.cells = this.gameState.getCells();
+    }
+
+    @Benchmark
+    public void getVisibleCells(Blackhole blackhole) {
+        for (Cell cell : this.cells) {
+            blackhole.consume(this.gameState.getCells(this.rule.getVisibleCellIndices(cell)));
+        }
+    }
+
+    @Benchmark
+    public void getVisibleCellIndices(Blackhole blackhole) {
+        for (Cell cell : this.cells) {
+            blackhole.consume(this.rule.getVisibleCellIndices(cell));
+        }
+    }
+}
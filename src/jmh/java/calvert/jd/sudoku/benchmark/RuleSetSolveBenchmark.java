@@ -0,0 +1,44 @@
+package calvert.jd.sudoku.benchmark;
+
+import calvert.jd.sudoku.benchmark.Corpus.RuleSet;
+import calvert.jd.sudoku.game.save.SaveGame;
+import calvert.jd.sudoku.game.solver.SudokuSolver;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Time to solve every puzzle in the corpus that uses a family of rules. Each operation solves all of those puzzles once.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.AverageTime, Mode.Throughput})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RuleSetSolveBenchmark {
+
+    @Param
+    public RuleSet ruleSet;
+
+    private final SudokuSolver solver = new SudokuSolver();
+
+    private List<SaveGame> saveGames;
+
+    @Setup
+    public void setUp() {
+        this.saveGames = Corpus.load().values().stream()
+            .filter(saveGame -> RuleSet.of(saveGame) == this.ruleSet)
+            .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public void solveAll(Blackhole blackhole) {
+        for (SaveGame saveGame : this.saveGames) {
+            blackhole.consume(this.solver.solve(saveGame));
+        }
+    }
+}
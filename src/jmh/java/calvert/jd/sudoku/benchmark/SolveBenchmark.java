@@ -0,0 +1,64 @@
+package calvert.jd.sudoku.benchmark;
+
+import calvert.jd.sudoku.game.GameParameters;
+import calvert.jd.sudoku.game.save.SaveGame;
+import calvert.jd.sudoku.game.solver.SolveResult;
+import calvert.jd.sudoku.game.solver.SolveStatus;
+import calvert.jd.sudoku.game.solver.SudokuSolver;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to solve each puzzle in the corpus.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.AverageTime, Mode.Throughput})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolveBenchmark {
+
+    @Param({
+        "7sudoku 20200604",
+        "7sudoku 20200605",
+        "7sudoku 20200606",
+        "7sudoku 20200607",
+        "7sudoku 20200608",
+        "Knight's Move Sudoku",
+        "Magic Square Sudoku",
+        "Pocket 001",
+        "Pocket 002",
+        "Pocket 003",
+        "Pocket 004",
+        "Pocket 121",
+        "Pocket 122",
+        "Pocket 123",
+        "Pocket 124",
+        "The Miracle Sudoku",
+        "The New Miracle Sudoku"
+    })
+    public String puzzle;
+
+    private final SudokuSolver solver = new SudokuSolver();
+
+    private SaveGame saveGame;
+    private GameParameters gameParameters;
+
+    @Setup
+    public void setUp() {
+        this.saveGame = Corpus.load(this.puzzle);
+        this.gameParameters = GameParameters.forSaveGame(this.saveGame);
+
+        SolveResult result = this.solver.solve(this.saveGame, this.gameParameters);
+        if (result.getStatus() != SolveStatus.SOLVED) {
+            throw new IllegalStateException(this.puzzle + " did not solve: " + result);
+        }
+    }
+
+    @Benchmark
+    public SolveResult solve() {
+        return this.solver.solve(this.saveGame, this.gameParameters);
+    }
+}
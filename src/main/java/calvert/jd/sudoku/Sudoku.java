@@ -1,13 +1,29 @@
 package calvert.jd.sudoku;
 
+import calvert.jd.sudoku.batch.BatchGenerate;
+import calvert.jd.sudoku.batch.BatchSolve;
+import calvert.jd.sudoku.batch.CorpusConverter;
 import calvert.jd.sudoku.ui.SudokuFrame;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.Arrays;
 
 public class Sudoku {
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+        // "batch" runs headless over files of puzzles instead of opening the window, "convert" packs save files into a corpus, and "generate" writes new puzzles
+        if (args.length > 0 && args[0].equals("batch")) {
+            BatchSolve.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        } else if (args.length > 0 && args[0].equals("convert")) {
+            CorpusConverter.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        } else if (args.length > 0 && args[0].equals("generate")) {
+            BatchGenerate.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
         String windowsLAF=  "com.sun.java.swing.plaf.windows.WindowsLookAndFeel";
         try  {
             UIManager.setLookAndFeel(windowsLAF);
@@ -1,5 +1,7 @@
 package calvert.jd.sudoku.actioncontrol;
 
+import java.text.MessageFormat;
+
 /**
  * Interface for logging game data
  */
@@ -16,4 +18,24 @@ public interface GameLoggingListener {
      * @param text The line to log
      */
     void log(String text);
+
+    /**
+     * Accept a line of logging that has not been formatted yet. Messages are only formatted here, so that nothing is built for logging that no listener wants.
+     *
+     * @param level      The level of the line
+     * @param pattern    The message, as a {@link MessageFormat} pattern
+     * @param parameters The parameters for the pattern
+     */
+    default void log(LogLevel level, String pattern, Object... parameters) {
+        log(MessageFormat.format(pattern, parameters));
+    }
+
+    /**
+     * The most detailed level this listener wants. This is read when the listener is added to the game.
+     *
+     * @return The level of logging to send to this listener
+     */
+    default LogLevel getLogLevel() {
+        return LogLevel.TRACE;
+    }
 }
@@ -1,16 +1,20 @@
 package calvert.jd.sudoku.actioncontrol;
 
+import calvert.jd.sudoku.game.BoardSnapshot;
 import calvert.jd.sudoku.game.GameState;
 
 /**
- * Listener interface for updates from a {@link GameState} object.
+ * Listener interface for updates from a {@link GameState} object. Both methods are called on the thread doing the solving, so they must return quickly and must not touch the UI
+ * directly.
  */
 public interface GameStateListener {
 
     /**
      * This will be called when the GameState updates
+     *
+     * @param snapshot The state of the board at the time of the update
      */
-    void update();
+    void update(BoardSnapshot snapshot);
 
     /**
      * This will be called when the GameState has finished processing, either because of error or completion
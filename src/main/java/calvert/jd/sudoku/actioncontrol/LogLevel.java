@@ -0,0 +1,29 @@
+package calvert.jd.sudoku.actioncontrol;
+
+/**
+ * How much detail a line of logging contains. Each level includes all the levels before it.
+ */
+public enum LogLevel {
+    /**
+     * The start and end of solving, and a summary of what was done
+     */
+    INFO,
+
+    /**
+     * Each piece of logic as it is run, and each guess made while searching
+     */
+    DEBUG,
+
+    /**
+     * Every change to every cell
+     */
+    TRACE;
+
+    /**
+     * @param level The level of a line of logging
+     * @return Whether a line at the given level should be logged when logging at this level
+     */
+    public boolean includes(LogLevel level) {
+        return level.ordinal() <= ordinal();
+    }
+}
@@ -0,0 +1,157 @@
+package calvert.jd.sudoku.batch;
+
+import calvert.jd.sudoku.game.BoardSize;
+import calvert.jd.sudoku.game.GameParameters;
+import calvert.jd.sudoku.game.generator.PuzzleGenerator;
+import calvert.jd.sudoku.game.logic.LogicStageIdentifier;
+import calvert.jd.sudoku.game.rules.Rule.RuleIdentifier;
+import calvert.jd.sudoku.game.save.LinePuzzleReader;
+import calvert.jd.sudoku.game.save.SaveCell;
+import calvert.jd.sudoku.game.save.SaveGame;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static calvert.jd.sudoku.game.rules.Rule.RuleIdentifier.*;
+import static java.util.Arrays.asList;
+
+/**
+ * Generates puzzles from the command line, spread over a fixed pool of worker threads. Each worker has its own {@link PuzzleGenerator}.
+ * <p>
+ * Puzzles are written one per line in the format read by {@link LinePuzzleReader}, after a comment line giving the board size, rules and seed. Each puzzle gets its own seed,
+ * drawn in order from the seed for the batch, so the same seed gives the same puzzles in the same order however many threads there are.
+ */
+public class BatchGenerate {
+
+    private static final String USAGE = "Usage: generate [--threads N] [--output FILE] [--seed N] [--size N] [--rules RULE,...] [--logic] COUNT";
+
+    private final int numThreads;
+    private final PrintWriter output;
+    private final GameParameters gameParameters;
+    private final boolean requireLogic;
+
+    /**
+     * @param numThreads     The number of puzzles to generate at once
+     * @param output         Where to write the puzzles
+     * @param gameParameters The board size and rules of the puzzles, and the logic stages that must solve them if required
+     * @param requireLogic   Whether the logic stages must be able to solve every puzzle without search
+     */
+    public BatchGenerate(int numThreads, Writer output, GameParameters gameParameters, boolean requireLogic) {
+        this.numThreads = numThreads;
+        this.output = new PrintWriter(output);
+        this.gameParameters = gameParameters;
+        this.requireLogic = requireLogic;
+    }
+
+    /**
+     * Generate puzzles and write them out in order.
+     *
+     * @param numPuzzles The number of puzzles to generate
+     * @param seed       The seed that decides every puzzle
+     * @return The time taken, in nanoseconds
+     */
+    public long generate(long numPuzzles, long seed) throws InterruptedException, ExecutionException {
+        ThreadLocal<PuzzleGenerator> generators = ThreadLocal.withInitial(() -> new PuzzleGenerator(this.gameParameters, this.requireLogic));
+        ExecutorService executor = Executors.newFixedThreadPool(this.numThreads);
+
+        this.output.println("# size=" + this.gameParameters.getBoardSize() + " rules=" + this.gameParameters.getRules() + " seed=" + seed);
+
+        long start = System.nanoTime();
+        try {
+            // Keep a bounded window of puzzles in progress, and write each one once it and all those before it are done
+            Random seeds = new Random(seed);
+            Queue<Future<SaveGame>> inProgress = new ArrayDeque<>();
+            for (long puzzle = 0; puzzle < numPuzzles; puzzle++) {
+                long puzzleSeed = seeds.nextLong();
+                inProgress.add(executor.submit(() -> generators.get().generate(puzzleSeed)));
+
+                if (inProgress.size() >= this.numThreads * 4) {
+                    writePuzzle(inProgress.remove().get());
+                }
+            }
+
+            while (!inProgress.isEmpty()) {
+                writePuzzle(inProgress.remove().get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        this.output.flush();
+        return elapsedNanos;
+    }
+
+    private void writePuzzle(SaveGame saveGame) {
+        BoardSize boardSize = saveGame.getBoardSize();
+
+        char[] grid = new char[boardSize.getNumCells()];
+        Arrays.fill(grid, BoardSize.toChar(0));
+        for (SaveCell saveCell : saveGame.getCells()) {
+            grid[boardSize.getIndex(saveCell.getI(), saveCell.getJ())] = BoardSize.toChar(saveCell.getValue());
+        }
+        this.output.println(new String(grid));
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        int numThreads = Runtime.getRuntime().availableProcessors();
+        Writer output = null;
+        long seed = System.nanoTime();
+        BoardSize boardSize = BoardSize.NINE_BY_NINE;
+        List<RuleIdentifier> rules = asList(SUDOKU_ROW_RULE, SUDOKU_COLUMN_RULE, SUDOKU_REGION_RULE);
+        boolean requireLogic = false;
+        long numPuzzles = -1;
+
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--threads") && i + 1 < args.length) {
+                numThreads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--output") && i + 1 < args.length) {
+                output = Files.newBufferedWriter(Paths.get(args[++i]), StandardCharsets.UTF_8);
+            } else if (args[i].equals("--seed") && i + 1 < args.length) {
+                seed = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--size") && i + 1 < args.length) {
+                boardSize = BoardSize.forSize(Integer.parseInt(args[++i]));
+            } else if (args[i].equals("--rules") && i + 1 < args.length) {
+                rules = Arrays.stream(args[++i].split(",")).map(RuleIdentifier::valueOf).collect(Collectors.toList());
+            } else if (args[i].equals("--logic")) {
+                requireLogic = true;
+            } else {
+                numPuzzles = Long.parseLong(args[i]);
+            }
+        }
+
+        if (numPuzzles < 0 || numThreads < 1) {
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+
+        if (output == null) {
+            output = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        }
+
+        List<LogicStageIdentifier> logicStages = Arrays.stream(LogicStageIdentifier.values()).filter(logicStage -> !logicStage.isConstraint()).collect(Collectors.toList());
+
+        try (Writer writer = output) {
+            long elapsedNanos = new BatchGenerate(numThreads, writer, new GameParameters(boardSize, rules, logicStages, false), requireLogic).generate(numPuzzles, seed);
+
+            System.err.println(String.format(Locale.ROOT, "puzzles=%d seed=%d elapsed=%.3fs throughput=%.1f puzzles/s", numPuzzles, seed, elapsedNanos / 1e9, numPuzzles * 1e9 / elapsedNanos));
+        }
+    }
+}
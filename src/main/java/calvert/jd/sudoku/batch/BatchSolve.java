@@ -0,0 +1,448 @@
+package calvert.jd.sudoku.batch;
+
+import calvert.jd.sudoku.game.BoardSize;
+import calvert.jd.sudoku.game.GameParameters;
+import calvert.jd.sudoku.game.grader.DifficultyGrader;
+import calvert.jd.sudoku.game.grader.Grade;
+import calvert.jd.sudoku.game.logic.LogicStageIdentifier;
+import calvert.jd.sudoku.game.rules.Rule.RuleIdentifier;
+import calvert.jd.sudoku.game.save.LinePuzzleReader;
+import calvert.jd.sudoku.game.save.PuzzleCorpus;
+import calvert.jd.sudoku.game.save.SaveGame;
+import calvert.jd.sudoku.game.solver.SolutionCache;
+import calvert.jd.sudoku.game.solver.SolveResult;
+import calvert.jd.sudoku.game.solver.SolveStatus;
+import calvert.jd.sudoku.game.solver.SudokuSolver;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static calvert.jd.sudoku.game.rules.Rule.RuleIdentifier.*;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Solves many saved puzzles from the command line, spread over a fixed pool of worker threads. Each worker has its own {@link SudokuSolver}, so solves never share state.
+ * Puzzles can be JSON save files, packed {@link PuzzleCorpus} files, or text files with one puzzle per line read by {@link LinePuzzleReader}. Corpus and line files are read a
+ * puzzle at a time as workers become free, so they can be larger than memory.
+ * <p>
+ * One tab separated line is written per puzzle, in the order they finish: the puzzle (the file, followed by '#' and the index for puzzles in a corpus, or ':' and the line
+ * number for line files), the status, the final grid (with '.' for cells without a value) and the solve time in microseconds. With grading on, the difficulty and score
+ * from {@link DifficultyGrader} follow. A puzzle that can't be read or solved gets the status ERROR and the error message instead. A
+ * summary of throughput and latency is returned at the end.
+ */
+public class BatchSolve {
+
+    private static final String USAGE = "Usage: batch [--threads N] [--output FILE] [--search] [--search-limit N] [--cache N] [--grade] [--size N] [--rules RULE,...] PATH...";
+
+    static final String SAVE_FILE_EXTENSION = ".json";
+    static final String LINE_FILE_EXTENSION = ".txt";
+
+    private static final List<RuleIdentifier> STANDARD_RULES = asList(SUDOKU_ROW_RULE, SUDOKU_COLUMN_RULE, SUDOKU_REGION_RULE);
+
+    private final int numThreads;
+    private final PrintWriter output;
+    private final boolean useSearch;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Map<Path, List<RuleIdentifier>> lineFileRules = new HashMap<>();
+    private final Map<Path, List<LogicStageIdentifier>> lineFileConstraints = new HashMap<>();
+    private final Map<Path, BoardSize> lineFileBoardSizes = new HashMap<>();
+
+    private SolutionCache solutionCache; // Shared by every worker, or null to solve every puzzle
+    private boolean grading;
+    private int searchNodeLimit = GameParameters.NO_SEARCH_NODE_LIMIT;
+
+    public BatchSolve(int numThreads, Writer output) {
+        this(numThreads, output, false);
+    }
+
+    public BatchSolve(int numThreads, Writer output, boolean useSearch) {
+        if (numThreads < 1) {
+            throw new IllegalArgumentException("A batch needs at least one thread, not " + numThreads);
+        }
+
+        this.numThreads = numThreads;
+        this.output = new PrintWriter(output);
+        this.useSearch = useSearch;
+    }
+
+    /**
+     * Set the rules for the puzzles in a line file, or in every line file in a folder. Line files can't hold rules themselves, so they use standard sudoku rules unless set here.
+     *
+     * @param path        The file or folder, exactly as it will be passed to {@link #solve(List)}
+     * @param rules       The rules of the puzzles
+     * @param constraints The constraints of the puzzles
+     */
+    public void setLineFileRules(Path path, List<RuleIdentifier> rules, List<LogicStageIdentifier> constraints) {
+        this.lineFileRules.put(path, rules);
+        this.lineFileConstraints.put(path, constraints);
+    }
+
+    /**
+     * Set the size of board for the puzzles in a line file, or in every line file in a folder. Line files are read as 9x9 puzzles unless set here.
+     *
+     * @param path      The file or folder, exactly as it will be passed to {@link #solve(List)}
+     * @param boardSize The size of board of the puzzles
+     */
+    public void setLineFileBoardSize(Path path, BoardSize boardSize) {
+        this.lineFileBoardSizes.put(path, boardSize);
+    }
+
+    /**
+     * Share solve results between puzzles that are rearranged or relabelled copies of each other.
+     *
+     * @param solutionCache The cache to look up and store results in, or null to solve every puzzle
+     */
+    public void setSolutionCache(SolutionCache solutionCache) {
+        this.solutionCache = solutionCache;
+    }
+
+    /**
+     * Limit the number of guesses each search can make, so that no one puzzle can hold up the batch. Only used when searching.
+     *
+     * @param searchNodeLimit The most guesses a search can make, or {@link GameParameters#NO_SEARCH_NODE_LIMIT}
+     */
+    public void setSearchNodeLimit(int searchNodeLimit) {
+        this.searchNodeLimit = searchNodeLimit;
+    }
+
+    /**
+     * Grade each puzzle from the logic stages its solve needed, and write the grade after the solve time.
+     *
+     * @param grading Whether to grade puzzles
+     */
+    public void setGrading(boolean grading) {
+        this.grading = grading;
+    }
+
+    /**
+     * Solve all puzzles in the given files and folders. Folders are searched recursively for JSON, corpus and line files.
+     *
+     * @param paths The files and folders containing puzzles
+     * @return A summary of the solves
+     */
+    public BatchSummary solve(List<Path> paths) throws IOException, InterruptedException {
+
+        ThreadLocal<SudokuSolver> solvers = ThreadLocal.withInitial(SudokuSolver::new);
+        Tally tally = new Tally();
+
+        // Bound the queue so that a huge batch doesn't create a task per puzzle up front. When the queue is full the submitting thread solves the puzzle itself.
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            this.numThreads,
+            this.numThreads,
+            0,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(this.numThreads * 4),
+            new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+
+        long start = System.nanoTime();
+        for (Path path : paths) {
+            List<RuleIdentifier> rules = this.lineFileRules.getOrDefault(path, STANDARD_RULES);
+            List<LogicStageIdentifier> constraints = this.lineFileConstraints.getOrDefault(path, emptyList());
+            BoardSize boardSize = this.lineFileBoardSizes.getOrDefault(path, BoardSize.NINE_BY_NINE);
+
+            for (Path file : findPuzzles(singletonList(path), SAVE_FILE_EXTENSION, PuzzleCorpus.FILE_EXTENSION, LINE_FILE_EXTENSION)) {
+                String fileName = file.getFileName().toString();
+                if (fileName.endsWith(PuzzleCorpus.FILE_EXTENSION)) {
+                    try (PuzzleCorpus corpus = PuzzleCorpus.open(file)) {
+                        for (long index = 0; index < corpus.size(); index++) {
+                            long puzzleIndex = index;
+                            executor.execute(() -> solvePuzzle(file + "#" + puzzleIndex, () -> corpus.getSaveGame(puzzleIndex), solvers.get(), tally));
+                        }
+                    } catch (IOException e) {
+                        tally.recordError();
+                        writeError(file.toString(), e);
+                    }
+                } else if (fileName.endsWith(LINE_FILE_EXTENSION)) {
+                    try (LinePuzzleReader reader = LinePuzzleReader.open(file, boardSize, rules, constraints)) {
+                        while (reader.hasNext()) {
+                            SaveGame saveGame = reader.next();
+                            long lineNumber = reader.getLineNumber();
+                            executor.execute(() -> solvePuzzle(file + ":" + lineNumber, () -> saveGame, solvers.get(), tally));
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        tally.recordError();
+                        writeError(file.toString(), e);
+                    }
+                } else {
+                    executor.execute(() -> solvePuzzle(file.toString(), () -> this.objectMapper.readValue(file.toFile(), SaveGame.class), solvers.get(), tally));
+                }
+            }
+        }
+
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        long elapsedNanos = System.nanoTime() - start;
+
+        this.output.flush();
+
+        return tally.toSummary(elapsedNanos);
+    }
+
+    private void solvePuzzle(String name, Callable<SaveGame> loader, SudokuSolver solver, Tally tally) {
+        try {
+            SaveGame saveGame = loader.call();
+            GameParameters gameParameters = GameParameters.forSaveGame(saveGame);
+            if (this.useSearch) {
+                gameParameters = gameParameters.withSearch().withSearchNodeLimit(this.searchNodeLimit);
+            }
+
+            long solveStart = System.nanoTime();
+            SolveResult result = isNull(this.solutionCache) ? solver.solve(saveGame, gameParameters) : this.solutionCache.solve(saveGame, gameParameters, solver);
+            long solveNanos = System.nanoTime() - solveStart;
+
+            tally.record(result.getStatus(), solveNanos);
+            String line = name + "\t" + result.getStatus() + "\t" + toGrid(result.getValues()) + "\t" + solveNanos / 1000;
+            if (this.grading) {
+                Grade grade = DifficultyGrader.grade(result);
+                line += "\t" + grade.getDifficulty() + "\t" + grade.getScore();
+            }
+            writeLine(line);
+        } catch (Exception e) {
+            tally.recordError();
+            writeError(name, e);
+        }
+    }
+
+    private void writeError(String name, Exception e) {
+        writeLine(name + "\tERROR\t" + String.valueOf(e.getMessage()).replaceAll("\\s+", " "));
+    }
+
+    /**
+     * @param paths      Files, which are returned as they are, and folders, which are searched recursively
+     * @param extensions The extensions of the files to find in folders
+     * @return The files found, with the files in each folder sorted by name
+     */
+    static List<Path> findPuzzles(List<Path> paths, String... extensions) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (Path path : paths) {
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> walk = Files.walk(path)) {
+                    files.addAll(
+                        walk.filter(Files::isRegularFile)
+                            .filter(file -> Arrays.stream(extensions).anyMatch(file.getFileName().toString()::endsWith))
+                            .sorted()
+                            .collect(Collectors.toList())
+                    );
+                }
+            } else {
+                files.add(path);
+            }
+        }
+        return files;
+    }
+
+    private void writeLine(String line) {
+        synchronized (this.output) {
+            this.output.println(line);
+        }
+    }
+
+    /**
+     * Counts of each outcome, and the latency of each solve. Latencies are collected per worker thread and only combined at the end, so that recording them doesn't contend.
+     */
+    private static class Tally {
+        private final AtomicInteger numSolved = new AtomicInteger();
+        private final AtomicInteger numStuck = new AtomicInteger();
+        private final AtomicInteger numContradictions = new AtomicInteger();
+        private final AtomicInteger numSearchNodeLimits = new AtomicInteger();
+        private final AtomicInteger numErrors = new AtomicInteger();
+
+        private final Queue<LatencyBuffer> latencyBuffers = new ConcurrentLinkedQueue<>();
+        private final ThreadLocal<LatencyBuffer> latencyBuffer = ThreadLocal.withInitial(() -> {
+            LatencyBuffer buffer = new LatencyBuffer();
+            this.latencyBuffers.add(buffer);
+            return buffer;
+        });
+
+        void record(SolveStatus status, long latencyNanos) {
+            switch (status) {
+                case SOLVED:
+                    this.numSolved.incrementAndGet();
+                    break;
+                case STUCK:
+                    this.numStuck.incrementAndGet();
+                    break;
+                case CONTRADICTION:
+                    this.numContradictions.incrementAndGet();
+                    break;
+                case SEARCH_NODE_LIMIT:
+                    this.numSearchNodeLimits.incrementAndGet();
+                    break;
+            }
+            this.latencyBuffer.get().add(latencyNanos);
+        }
+
+        void recordError() {
+            this.numErrors.incrementAndGet();
+        }
+
+        // Only called once every task has finished, so the buffers are no longer being written
+        BatchSummary toSummary(long elapsedNanos) {
+            return new BatchSummary(
+                this.numSolved.get(),
+                this.numStuck.get(),
+                this.numContradictions.get(),
+                this.numSearchNodeLimits.get(),
+                this.numErrors.get(),
+                elapsedNanos,
+                this.latencyBuffers.stream().flatMapToLong(LatencyBuffer::stream).toArray()
+            );
+        }
+    }
+
+    private static class LatencyBuffer {
+        private long[] latencies = new long[1024];
+        private int size = 0;
+
+        void add(long latency) {
+            if (this.size == this.latencies.length) {
+                this.latencies = Arrays.copyOf(this.latencies, this.size * 2);
+            }
+            this.latencies[this.size++] = latency;
+        }
+
+        LongStream stream() {
+            return Arrays.stream(this.latencies, 0, this.size);
+        }
+    }
+
+    private static String toGrid(int[] values) {
+        char[] grid = new char[values.length];
+        for (int index = 0; index < values.length; index++) {
+            grid[index] = BoardSize.toChar(values[index]);
+        }
+        return new String(grid);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int numThreads = Runtime.getRuntime().availableProcessors();
+        Writer output = null;
+        boolean useSearch = false;
+        SolutionCache solutionCache = null;
+        boolean grading = false;
+        int searchNodeLimit = GameParameters.NO_SEARCH_NODE_LIMIT;
+        List<RuleIdentifier> rules = STANDARD_RULES;
+        List<LogicStageIdentifier> constraints = emptyList();
+        BoardSize boardSize = BoardSize.NINE_BY_NINE;
+        List<Path> paths = new ArrayList<>();
+        Map<Path, List<RuleIdentifier>> pathRules = new HashMap<>();
+        Map<Path, List<LogicStageIdentifier>> pathConstraints = new HashMap<>();
+        Map<Path, BoardSize> pathBoardSizes = new HashMap<>();
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--threads")) {
+                    numThreads = parseCount(args[i], getValue(args, ++i), 1);
+                } else if (args[i].equals("--output")) {
+                    output = Files.newBufferedWriter(Paths.get(getValue(args, ++i)), StandardCharsets.UTF_8);
+                } else if (args[i].equals("--search")) {
+                    useSearch = true;
+                } else if (args[i].equals("--search-limit")) {
+                    searchNodeLimit = parseCount(args[i], getValue(args, ++i), 0);
+                } else if (args[i].equals("--cache")) {
+                    solutionCache = new SolutionCache(parseCount(args[i], getValue(args, ++i), 1));
+                } else if (args[i].equals("--grade")) {
+                    grading = true;
+                } else if (args[i].equals("--size")) {
+                    // The number of rows in the puzzles of the line files that follow
+                    boardSize = BoardSize.forSize(parseCount(args[i], getValue(args, ++i), 1));
+                } else if (args[i].equals("--rules")) {
+                    // Rule and constraint names, applied to the line files that follow
+                    rules = new ArrayList<>();
+                    constraints = new ArrayList<>();
+                    for (String name : getValue(args, ++i).split(",")) {
+                        if (Arrays.stream(RuleIdentifier.values()).anyMatch(rule -> rule.name().equals(name))) {
+                            rules.add(RuleIdentifier.valueOf(name));
+                        } else if (Arrays.stream(LogicStageIdentifier.values()).anyMatch(logicStage -> logicStage.name().equals(name))) {
+                            constraints.add(LogicStageIdentifier.valueOf(name));
+                        } else {
+                            throw new IllegalArgumentException("Unknown rule or constraint " + name + ". Valid names are "
+                                + Stream.concat(Arrays.stream(RuleIdentifier.values()), Arrays.stream(LogicStageIdentifier.values()))
+                                .map(Enum::name)
+                                .collect(Collectors.joining(", ")));
+                        }
+                    }
+                } else {
+                    Path path = Paths.get(args[i]);
+                    paths.add(path);
+                    pathRules.put(path, rules);
+                    pathConstraints.put(path, constraints);
+                    pathBoardSizes.put(path, boardSize);
+                }
+            }
+
+            if (paths.isEmpty()) {
+                throw new IllegalArgumentException("No puzzles given");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+
+        if (isNull(output)) {
+            output = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        }
+
+        try (Writer writer = output) {
+            BatchSolve batchSolve = new BatchSolve(numThreads, writer, useSearch);
+            paths.forEach(path -> batchSolve.setLineFileRules(path, pathRules.get(path), pathConstraints.get(path)));
+            paths.forEach(path -> batchSolve.setLineFileBoardSize(path, pathBoardSizes.get(path)));
+            batchSolve.setSolutionCache(solutionCache);
+            batchSolve.setGrading(grading);
+            batchSolve.setSearchNodeLimit(searchNodeLimit);
+
+            BatchSummary summary = batchSolve.solve(paths);
+            System.err.println(summary);
+            if (nonNull(solutionCache)) {
+                System.err.println("cache " + solutionCache);
+            }
+        }
+    }
+
+    private static String getValue(String[] args, int i) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("Missing value after " + args[i - 1]);
+        }
+        return args[i];
+    }
+
+    private static int parseCount(String option, String value, int min) {
+        int count;
+        try {
+            count = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(option + " must be a number, not " + value);
+        }
+
+        if (count < min) {
+            throw new IllegalArgumentException(option + " must be at least " + min + ", not " + value);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,95 @@
+package calvert.jd.sudoku.batch;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Totals and latency percentiles for a batch of solves.
+ */
+public class BatchSummary {
+    private final int numPuzzles;
+    private final int numSolved;
+    private final int numStuck;
+    private final int numContradictions;
+    private final int numSearchNodeLimits;
+    private final int numErrors;
+    private final long elapsedNanos;
+    private final long[] latencyNanos; // Sorted latency of each solve
+
+    public BatchSummary(int numSolved, int numStuck, int numContradictions, int numSearchNodeLimits, int numErrors, long elapsedNanos, long[] latencyNanos) {
+        this.numPuzzles = numSolved + numStuck + numContradictions + numSearchNodeLimits + numErrors;
+        this.numSolved = numSolved;
+        this.numStuck = numStuck;
+        this.numContradictions = numContradictions;
+        this.numSearchNodeLimits = numSearchNodeLimits;
+        this.numErrors = numErrors;
+        this.elapsedNanos = elapsedNanos;
+        this.latencyNanos = latencyNanos.clone();
+
+        Arrays.sort(this.latencyNanos);
+    }
+
+    public int getNumPuzzles() {
+        return this.numPuzzles;
+    }
+
+    public int getNumSolved() {
+        return this.numSolved;
+    }
+
+    public int getNumStuck() {
+        return this.numStuck;
+    }
+
+    public int getNumContradictions() {
+        return this.numContradictions;
+    }
+
+    /**
+     * @return The number of puzzles whose search gave up at the search node limit
+     */
+    public int getNumSearchNodeLimits() {
+        return this.numSearchNodeLimits;
+    }
+
+    public int getNumErrors() {
+        return this.numErrors;
+    }
+
+    public long getElapsedNanos() {
+        return this.elapsedNanos;
+    }
+
+    /**
+     * @return The number of puzzles processed per second of wall clock time
+     */
+    public double getThroughput() {
+        return this.elapsedNanos == 0 ? 0 : this.numPuzzles * 1e9 / this.elapsedNanos;
+    }
+
+    /**
+     * @param percentile The percentile, from 0 to 100
+     * @return The latency at that percentile, using the nearest-rank method, or 0 if there were no solves
+     */
+    public long getLatencyNanos(double percentile) {
+        if (this.latencyNanos.length == 0) {
+            return 0;
+        }
+
+        int rank = (int) Math.ceil(percentile / 100 * this.latencyNanos.length);
+        return this.latencyNanos[Math.max(rank - 1, 0)];
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            Locale.ROOT,
+            "puzzles=%d solved=%d stuck=%d contradictions=%d searchLimits=%d errors=%d%n"
+                + "elapsed=%.3fs throughput=%.1f puzzles/s%n"
+                + "latency p50=%.3fms p90=%.3fms p99=%.3fms max=%.3fms",
+            this.numPuzzles, this.numSolved, this.numStuck, this.numContradictions, this.numSearchNodeLimits, this.numErrors,
+            this.elapsedNanos / 1e9, getThroughput(),
+            getLatencyNanos(50) / 1e6, getLatencyNanos(90) / 1e6, getLatencyNanos(99) / 1e6, getLatencyNanos(100) / 1e6
+        );
+    }
+}
@@ -0,0 +1,59 @@
+package calvert.jd.sudoku.batch;
+
+import calvert.jd.sudoku.game.BoardSize;
+import calvert.jd.sudoku.game.save.PuzzleCorpus;
+import calvert.jd.sudoku.game.save.PuzzleCorpusWriter;
+import calvert.jd.sudoku.game.save.SaveGame;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Packs JSON save files into a single {@link PuzzleCorpus} file, so that they can be solved without reading and parsing a file per puzzle.
+ */
+public class CorpusConverter {
+
+    private static final String USAGE = "Usage: convert OUTPUT" + PuzzleCorpus.FILE_EXTENSION + " PATH...";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Write all save files in the given files and folders to a corpus. Folders are searched recursively for JSON files. A corpus holds a single size of board, which is taken
+     * from the first save file.
+     *
+     * @param paths  The files and folders containing save files
+     * @param output The corpus file to write
+     * @return The number of puzzles written
+     */
+    public long convert(List<Path> paths, Path output) throws IOException {
+        List<Path> files = BatchSolve.findPuzzles(paths, BatchSolve.SAVE_FILE_EXTENSION);
+
+        BoardSize boardSize = files.isEmpty() ? BoardSize.NINE_BY_NINE : this.objectMapper.readValue(files.get(0).toFile(), SaveGame.class).getBoardSize();
+
+        try (PuzzleCorpusWriter writer = new PuzzleCorpusWriter(output, boardSize)) {
+            for (Path file : files) {
+                writer.write(this.objectMapper.readValue(file.toFile(), SaveGame.class));
+            }
+            return writer.size();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+
+        List<Path> paths = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            paths.add(Paths.get(args[i]));
+        }
+
+        long numPuzzles = new CorpusConverter().convert(paths, Paths.get(args[0]));
+        System.err.println("Wrote " + numPuzzles + " puzzles to " + args[0]);
+    }
+}
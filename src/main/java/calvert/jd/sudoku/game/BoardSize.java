@@ -0,0 +1,107 @@
+package calvert.jd.sudoku.game;
+
+import calvert.jd.sudoku.game.util.PossibleValues;
+
+import java.util.Arrays;
+
+/**
+ * The sizes of board that can be played. A board has as many rows and columns as there are values, and is split into regions that each hold every value once.
+ * <p>
+ * Values above 9 are written as letters, so 10 is 'A' and 25 is 'P'.
+ */
+public enum BoardSize {
+    SIX_BY_SIX(6, 3, 2),
+    NINE_BY_NINE(9, 3, 3),
+    SIXTEEN_BY_SIXTEEN(16, 4, 4),
+    TWENTY_FIVE_BY_TWENTY_FIVE(25, 5, 5);
+
+    private final int size; // The number of rows, columns, and values
+    private final int regionWidth;
+    private final int regionHeight;
+
+    BoardSize(int size, int regionWidth, int regionHeight) {
+        this.size = size;
+        this.regionWidth = regionWidth;
+        this.regionHeight = regionHeight;
+    }
+
+    /**
+     * @param size The number of rows and columns
+     * @return The board size with that many rows and columns
+     * @throws IllegalArgumentException If there is no board of that size
+     */
+    public static BoardSize forSize(int size) {
+        return Arrays.stream(values())
+            .filter(boardSize -> boardSize.size == size)
+            .findFirst()
+            .orElseThrow(() -> new IllegalArgumentException("No board has size " + size));
+    }
+
+    public int getSize() {
+        return this.size;
+    }
+
+    public int getRegionWidth() {
+        return this.regionWidth;
+    }
+
+    public int getRegionHeight() {
+        return this.regionHeight;
+    }
+
+    public int getNumCells() {
+        return this.size * this.size;
+    }
+
+    /**
+     * @return A mask containing every value that can be placed on the board, as described in {@link PossibleValues}
+     */
+    public int getAllValues() {
+        return PossibleValues.all(this.size);
+    }
+
+    /**
+     * @param i The column of the cell
+     * @param j The row of the cell
+     * @return The index of the cell (see {@link Cell#getIndex()})
+     */
+    public int getIndex(int i, int j) {
+        return j * this.size + i;
+    }
+
+    /**
+     * @param value A value from 1 to the size of the board, or 0 for no value
+     * @return The character to write the value as, or '.' for no value
+     */
+    public static char toChar(int value) {
+        if (value == 0) {
+            return '.';
+        }
+        return value <= 9 ? (char) ('0' + value) : (char) ('A' + value - 10);
+    }
+
+    /**
+     * @param character A character written by {@link #toChar(int)}, or '0' for no value. Letters can be upper or lower case.
+     * @return The value, 0 for no value, or -1 if the character isn't a value on this board
+     */
+    public int fromChar(char character) {
+        int value;
+        if (character == '.' || character == '0') {
+            return 0;
+        } else if (character >= '1' && character <= '9') {
+            value = character - '0';
+        } else if (character >= 'A' && character <= 'Z') {
+            value = character - 'A' + 10;
+        } else if (character >= 'a' && character <= 'z') {
+            value = character - 'a' + 10;
+        } else {
+            return -1;
+        }
+        return value <= this.size ? value : -1;
+    }
+
+    @Override
+    public String toString() {
+        return this.size + "x" + this.size;
+    }
+}
@@ -0,0 +1,127 @@
+package calvert.jd.sudoku.game;
+
+import calvert.jd.sudoku.game.util.PossibleValues;
+
+import java.util.BitSet;
+import java.util.List;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * An immutable copy of everything needed to draw the board at one moment. Snapshots are taken on the thread doing the solving, so they can be handed to another thread and drawn
+ * there while the solve carries on, without either thread waiting for the other.
+ */
+public final class BoardSnapshot {
+    private final BoardSize boardSize;
+    private final int[] values; // The value of each cell by index, or 0 if the cell has no value
+    private final int[] initialValues; // The initial value of each cell by index, or 0 if the cell has no initial value
+    private final int[] possibleValues;
+    private final BitSet errorCells;
+    private final BitSet selectedCells;
+    private final BitSet calculationCells;
+    private final int calculationValues;
+    private final boolean running;
+
+    BoardSnapshot(GameState gameState, boolean running) {
+        List<Cell> cells = gameState.getCells();
+
+        this.boardSize = gameState.getBoardSize();
+
+        this.values = new int[cells.size()];
+        this.initialValues = new int[cells.size()];
+        this.possibleValues = new int[cells.size()];
+        for (Cell cell : cells) {
+            if (nonNull(cell.getValue())) {
+                this.values[cell.getIndex()] = cell.getValue();
+            }
+            if (nonNull(cell.getInitialValue())) {
+                this.initialValues[cell.getIndex()] = cell.getInitialValue();
+            }
+            this.possibleValues[cell.getIndex()] = cell.getPossibleValues();
+        }
+
+        this.errorCells = toBitSet(gameState.getErrorCells());
+        this.selectedCells = toBitSet(gameState.getSelectedCells());
+        this.calculationCells = toBitSet(gameState.getCalculationCells());
+        this.calculationValues = gameState.getCalculationValues();
+        this.running = running;
+    }
+
+    /**
+     * Take a snapshot of a board that isn't being solved, such as one rebuilt from a solve journal. The arrays and cells are copied, so the caller can carry on changing them.
+     *
+     * @param boardSize      The size of the board
+     * @param values         The value of each cell by index, or 0 if the cell has no value
+     * @param initialValues  The initial value of each cell by index, or 0 if the cell has no initial value
+     * @param possibleValues The possible values of each cell by index, as masks
+     * @param selectedCells  The indices of the selected cells
+     */
+    public BoardSnapshot(BoardSize boardSize, int[] values, int[] initialValues, int[] possibleValues, BitSet selectedCells) {
+        this.boardSize = boardSize;
+        this.values = values.clone();
+        this.initialValues = initialValues.clone();
+        this.possibleValues = possibleValues.clone();
+        this.errorCells = new BitSet();
+        this.selectedCells = (BitSet) selectedCells.clone();
+        this.calculationCells = new BitSet();
+        this.calculationValues = PossibleValues.NONE;
+        this.running = false;
+    }
+
+    private static BitSet toBitSet(List<Cell> cells) {
+        BitSet bitSet = new BitSet();
+        cells.forEach(cell -> bitSet.set(cell.getIndex()));
+        return bitSet;
+    }
+
+    public BoardSize getBoardSize() {
+        return this.boardSize;
+    }
+
+    public int getNumCells() {
+        return this.values.length;
+    }
+
+    /**
+     * @param index The index of the cell (see {@link Cell#getIndex()})
+     * @return The value of the cell, or 0 if it has no value
+     */
+    public int getValue(int index) {
+        return this.values[index];
+    }
+
+    /**
+     * @param index The index of the cell (see {@link Cell#getIndex()})
+     * @return The initial value of the cell, or 0 if it has no initial value
+     */
+    public int getInitialValue(int index) {
+        return this.initialValues[index];
+    }
+
+    public int getPossibleValues(int index) {
+        return this.possibleValues[index];
+    }
+
+    public boolean isErrorCell(int index) {
+        return this.errorCells.get(index);
+    }
+
+    public boolean isSelectedCell(int index) {
+        return this.selectedCells.get(index);
+    }
+
+    public boolean isCalculationCell(int index) {
+        return this.calculationCells.get(index);
+    }
+
+    public int getCalculationValues() {
+        return this.calculationValues;
+    }
+
+    /**
+     * @return Whether the snapshot was taken part way through a solve, rather than when the game was paused, finished, or being set up
+     */
+    public boolean isRunning() {
+        return this.running;
+    }
+}
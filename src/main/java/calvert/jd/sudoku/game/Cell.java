@@ -1,33 +1,40 @@
 package calvert.jd.sudoku.game;
 
 import calvert.jd.sudoku.game.util.CellUpdate;
+import calvert.jd.sudoku.game.util.PossibleValues;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.Optional;
 
+import static calvert.jd.sudoku.actioncontrol.LogLevel.TRACE;
+import static calvert.jd.sudoku.game.util.PossibleValues.NONE;
 import static java.util.Arrays.asList;
-import static java.util.Collections.emptyList;
-import static java.util.Collections.singletonList;
+import static java.util.Objects.isNull;
 
 public class Cell implements Comparable<Cell> {
     private final int i;
     private final int j;
+    private final int index; // Position of the cell on the board, reading left to right then top to bottom
+    private final BoardSize boardSize;
 
     private final GameState gameState;
 
     private Integer value;
     private Integer initialValue;
 
-    private List<Integer> possibleValues;
+    private int possibleValues;
 
     public Cell(GameState gameState, int i, int j) {
         this.i = i;
         this.j = j;
+        this.boardSize = gameState.getBoardSize();
+        this.index = this.boardSize.getIndex(i, j);
 
         this.gameState = gameState;
 
         this.value = null;
-        this.possibleValues = emptyList();
+        this.possibleValues = NONE;
     }
 
     public Integer getValue() {
@@ -35,17 +42,27 @@ public class Cell implements Comparable<Cell> {
     }
 
     public void setValue(Integer value) {
-        logUpdate("set value=" + value);
+        this.gameState.log(TRACE, "Update cell={0} set value={1}", this, value);
 
-        List<Integer> possibleValuesRemoved = this.possibleValues.stream()
-            .filter(possibleValue -> !possibleValue.equals(value))
-            .collect(Collectors.toList());
+        int possibleValuesRemoved = isNull(value) ? this.possibleValues : this.possibleValues & ~PossibleValues.of(value);
 
+        Integer previousValue = this.value;
         this.value = value;
-        this.possibleValues = emptyList();
+        changePossibleValues(NONE);
+        this.gameState.handleValueChange(this, previousValue);
         this.gameState.handleCellUpdate(new CellUpdate(this, possibleValuesRemoved));
     }
 
+    /**
+     * Put the cell back to an earlier state, without any of the updates that would come from setting the value or removing possibilities.
+     */
+    void restore(Integer value, int possibleValues) {
+        Integer previousValue = this.value;
+        this.value = value;
+        changePossibleValues(possibleValues);
+        this.gameState.handleValueChange(this, previousValue);
+    }
+
     public Integer getInitialValue() {
         return this.initialValue;
     }
@@ -55,16 +72,21 @@ public class Cell implements Comparable<Cell> {
     }
 
     public void resetValue() {
+        Integer previousValue = this.value;
         this.value = null;
-        this.possibleValues = emptyList();
+        changePossibleValues(NONE);
+        this.gameState.handleValueChange(this, previousValue);
     }
 
-    public List<Integer> getPossibleValues() {
+    /**
+     * @return The possible values of this cell, as a mask as described in {@link PossibleValues}
+     */
+    public int getPossibleValues() {
         return this.possibleValues;
     }
 
     public void resetPossibleValues() {
-        this.possibleValues = new ArrayList<>(asList(1, 2, 3, 4, 5, 6, 7, 8, 9));
+        changePossibleValues(this.boardSize.getAllValues());
     }
 
     public int getI() {
@@ -75,30 +97,43 @@ public class Cell implements Comparable<Cell> {
         return this.j;
     }
 
-    public boolean hasAnyPossibility(List<Integer> possibleValues) {
-        return !Collections.disjoint(this.possibleValues, possibleValues);
+    public int getIndex() {
+        return this.index;
+    }
+
+    public BoardSize getBoardSize() {
+        return this.boardSize;
     }
 
-    public boolean removePossibleValue(Integer value) {
-        return removePossibleValues(singletonList(value));
+    public boolean hasPossibility(int value) {
+        return PossibleValues.contains(this.possibleValues, value);
     }
 
-    public boolean removePossibleValues(List<Integer> values) {
+    public boolean hasAnyPossibility(int possibleValues) {
+        return (this.possibleValues & possibleValues) != NONE;
+    }
+
+    public boolean removePossibleValue(int value) {
+        return removePossibleValues(PossibleValues.of(value));
+    }
+
+    public boolean removePossibleValues(int values) {
         // Filter to values that are actually possibilities currently.
-        List<Integer> valuesToRemove = values.stream()
-            .filter(this.possibleValues::contains)
-            .collect(Collectors.toList());
+        int valuesToRemove = this.possibleValues & values;
 
-        if (!valuesToRemove.isEmpty()) {
-            logUpdate("remove possibilities=" + valuesToRemove);
+        if (valuesToRemove != NONE) {
+            if (this.gameState.isLoggable(TRACE)) {
+                this.gameState.log(TRACE, "Update cell={0} remove possibilities={1}", this, PossibleValues.toString(valuesToRemove));
+            }
 
-            this.possibleValues.removeAll(valuesToRemove);
+            changePossibleValues(this.possibleValues & ~valuesToRemove);
+            this.gameState.handleEliminations(this, valuesToRemove);
             this.gameState.handleCellUpdate(new CellUpdate(this, valuesToRemove));
 
-            if (this.possibleValues.isEmpty()) {
+            if (this.possibleValues == NONE) {
                 this.gameState.setErrorCell(this);
-            } else if (this.possibleValues.size() == 1) {
-                setValue(this.possibleValues.get(0));
+            } else if (PossibleValues.isSingle(this.possibleValues)) {
+                setValue(PossibleValues.lowest(this.possibleValues));
             }
             return true;
         }
@@ -106,8 +141,10 @@ public class Cell implements Comparable<Cell> {
         return false;
     }
 
-    private void logUpdate(String update) {
-        this.gameState.log("Update cell=" + this + " " + update);
+    private void changePossibleValues(int possibleValues) {
+        int previousPossibleValues = this.possibleValues;
+        this.possibleValues = possibleValues;
+        this.gameState.handlePossibleValuesChange(this, previousPossibleValues);
     }
 
     @Override
@@ -122,7 +159,7 @@ public class Cell implements Comparable<Cell> {
             .append(" value=")
             .append(Optional.ofNullable(this.value).map(String::valueOf).orElse(""))
             .append(" possibleValues=")
-            .append(this.possibleValues)
+            .append(PossibleValues.toString(this.possibleValues))
             .toString();
     }
 }
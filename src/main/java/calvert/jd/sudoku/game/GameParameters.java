@@ -2,16 +2,62 @@ package calvert.jd.sudoku.game;
 
 import calvert.jd.sudoku.game.logic.LogicStageIdentifier;
 import calvert.jd.sudoku.game.rules.Rule.RuleIdentifier;
+import calvert.jd.sudoku.game.save.SaveGame;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class GameParameters {
+    public static final int NO_SEARCH_NODE_LIMIT = 0;
+
+    private final BoardSize boardSize;
     private final List<RuleIdentifier> rules;
     private final List<LogicStageIdentifier> logicStages;
+    private final boolean useSearch; // Whether to search by guessing values when the logic stages get stuck
+    private final int searchNodeLimit; // The most guesses a search can make before giving up, or NO_SEARCH_NODE_LIMIT
 
     public GameParameters(List<RuleIdentifier> rules, List<LogicStageIdentifier> logicStages) {
+        this(rules, logicStages, false);
+    }
+
+    public GameParameters(List<RuleIdentifier> rules, List<LogicStageIdentifier> logicStages, boolean useSearch) {
+        this(BoardSize.NINE_BY_NINE, rules, logicStages, useSearch);
+    }
+
+    public GameParameters(BoardSize boardSize, List<RuleIdentifier> rules, List<LogicStageIdentifier> logicStages, boolean useSearch) {
+        this(boardSize, rules, logicStages, useSearch, NO_SEARCH_NODE_LIMIT);
+    }
+
+    public GameParameters(BoardSize boardSize, List<RuleIdentifier> rules, List<LogicStageIdentifier> logicStages, boolean useSearch, int searchNodeLimit) {
+        this.boardSize = boardSize;
         this.rules = rules;
         this.logicStages = logicStages;
+        this.useSearch = useSearch;
+        this.searchNodeLimit = searchNodeLimit;
+    }
+
+    /**
+     * Build the parameters to solve a saved game with: its rules and constraints, plus every logic stage that isn't a constraint.
+     *
+     * @param saveGame The saved game
+     * @return The parameters to solve the saved game with
+     */
+    public static GameParameters forSaveGame(SaveGame saveGame) {
+        return new GameParameters(
+            saveGame.getBoardSize(),
+            saveGame.getRules(),
+            Stream.concat(
+                saveGame.getConstraints().stream(),
+                Arrays.stream(LogicStageIdentifier.values()).filter(logicStageIdentifier -> !logicStageIdentifier.isConstraint())
+            ).collect(Collectors.toList()),
+            false
+        );
+    }
+
+    public BoardSize getBoardSize() {
+        return this.boardSize;
     }
 
     public List<RuleIdentifier> getRules() {
@@ -21,4 +67,30 @@ public class GameParameters {
     public List<LogicStageIdentifier> getLogicStages() {
         return this.logicStages;
     }
+
+    public boolean isUseSearch() {
+        return this.useSearch;
+    }
+
+    /**
+     * @return The most guesses a search can make before giving up, or {@link #NO_SEARCH_NODE_LIMIT} if it carries on until it finds a solution or runs out of guesses
+     */
+    public int getSearchNodeLimit() {
+        return this.searchNodeLimit;
+    }
+
+    /**
+     * @return The same parameters, but searching when the logic stages get stuck
+     */
+    public GameParameters withSearch() {
+        return new GameParameters(this.boardSize, this.rules, this.logicStages, true, this.searchNodeLimit);
+    }
+
+    /**
+     * @param searchNodeLimit The most guesses a search can make before giving up, or {@link #NO_SEARCH_NODE_LIMIT}
+     * @return The same parameters, but with the search limited to the given number of guesses
+     */
+    public GameParameters withSearchNodeLimit(int searchNodeLimit) {
+        return new GameParameters(this.boardSize, this.rules, this.logicStages, this.useSearch, searchNodeLimit);
+    }
 }
@@ -2,63 +2,147 @@ package calvert.jd.sudoku.game;
 
 import calvert.jd.sudoku.actioncontrol.GameLoggingListener;
 import calvert.jd.sudoku.actioncontrol.GameStateListener;
+import calvert.jd.sudoku.actioncontrol.LogLevel;
+import calvert.jd.sudoku.game.journal.SolveJournal;
 import calvert.jd.sudoku.game.logic.LogicConstraint;
 import calvert.jd.sudoku.game.logic.LogicStage;
 import calvert.jd.sudoku.game.logic.LogicStageIdentifier;
+import calvert.jd.sudoku.game.metrics.LogicStageMetrics;
+import calvert.jd.sudoku.game.rules.ConstraintGraph;
 import calvert.jd.sudoku.game.rules.Rule;
-import calvert.jd.sudoku.game.rules.Rule.RuleIdentifier;
+import calvert.jd.sudoku.game.save.SaveCell;
 import calvert.jd.sudoku.game.util.CellUpdate;
 import calvert.jd.sudoku.game.util.LogicQueue;
 import calvert.jd.sudoku.game.util.LogicQueue.LogicQueueEntry;
+import calvert.jd.sudoku.game.util.PossibleValues;
 
-import java.text.MessageFormat;
+import java.util.AbstractList;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
 import java.util.List;
+import java.util.Objects;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
+import static calvert.jd.sudoku.actioncontrol.LogLevel.DEBUG;
+import static calvert.jd.sudoku.actioncontrol.LogLevel.INFO;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
+import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
+import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 
 public class GameState {
 
+    private BoardSize boardSize = BoardSize.NINE_BY_NINE;
     private final List<Cell> cells = new ArrayList<>();
 
     private List<Cell> errorCells = emptyList();
+    private int numSolvedCells = 0;
 
-    private boolean running = false;
-    private boolean shouldPause = false;
-    private boolean shouldStop = false;
+    /**
+     * Whether the game is being solved. Any thread can ask for a pause or stop, and the solving thread picks it up before running the next piece of logic.
+     */
+    private enum RunState {
+        IDLE,
+        RUNNING,
+        PAUSING,
+        PAUSED,
+        STOPPING
+    }
+
+    private final Executor executor;
+    private final AtomicReference<RunState> runState = new AtomicReference<>(RunState.IDLE);
+    private volatile CompletableFuture<Void> solveFuture = CompletableFuture.completedFuture(null);
 
-    private boolean doUpdates = true;
-    private long updateDelay = 100;
+    private volatile boolean doUpdates = true;
 
     private int numQueueProcesses = 0;
     private int numUpdates = 0;
+    private int numSearchNodes = 0;
+    private int numBacktracks = 0;
+
+    private final LogicStageMetrics logicStageMetrics = new LogicStageMetrics();
+    private LogicStageIdentifier runningLogicStage = null; // The logic stage currently being run, to attribute cell updates to
+    private int stepWidth = 1; // How many cells the running logic stage considered together
+    private SolveJournal journal = null; // Where to record every change to the board, or null to not record them
 
     private final Queue<LogicQueueEntry> processQueue = new LogicQueue();
 
-    private List<Rule> rules = new ArrayList<>();
+    private ConstraintGraph constraintGraph; // The rules in play, compiled for the size of the board
+    private UnitPositions unitPositions; // Where each value can still go in each unit of the constraint graph
     private List<LogicStage> logicStages = new ArrayList<>();
+    private boolean useSearch = false;
+    private int searchNodeLimit = GameParameters.NO_SEARCH_NODE_LIMIT;
+    private boolean searchNodeLimitReached = false;
+    private final Deque<SearchFrame> searchFrames = new ArrayDeque<>(); // The guesses the search is part way through, most recent first
 
     private List<Cell> selectedCells = emptyList();
     private List<Cell> calculationCells = emptyList();
-    private List<Integer> calculationValues = emptyList();
+    private int calculationValues = PossibleValues.NONE;
 
     private final List<GameStateListener> gameStateListeners = new ArrayList<>();
     private final List<GameLoggingListener> gameLoggingListeners = new ArrayList<>();
+    private LogLevel logLevel = null; // The most detailed level any listener wants, or null if there are none
 
     public GameState() {
-        for (int i = 0; i < 9; i++) {
-            for (int j = 0; j < 9; j++) {
+        this(SolveExecutors.defaultExecutor());
+    }
+
+    /**
+     * @param executor The executor to run solves started with {@link #start(GameParameters)} on
+     */
+    public GameState(Executor executor) {
+        this.executor = executor;
+
+        createCells();
+    }
+
+    private void createCells() {
+        this.cells.clear();
+        for (int j = 0; j < this.boardSize.getSize(); j++) {
+            for (int i = 0; i < this.boardSize.getSize(); i++) {
                 this.cells.add(new Cell(this, i, j));
             }
         }
 
-        this.cells.sort(Cell::compareTo);
+        this.constraintGraph = ConstraintGraph.forRules(this.boardSize, emptyList());
+        this.unitPositions = new UnitPositions(this.constraintGraph, this.cells);
+    }
+
+    public BoardSize getBoardSize() {
+        return this.boardSize;
+    }
+
+    /**
+     * Change the size of the board. If the size is different, every cell is replaced by a blank one.
+     *
+     * @param boardSize The new size of the board
+     * @throws IllegalStateException If the game is being solved
+     */
+    public void setBoardSize(BoardSize boardSize) {
+        if (boardSize == this.boardSize) {
+            return;
+        } else if (this.runState.get() != RunState.IDLE) {
+            throw new IllegalStateException("The board can't change size while the game is being solved");
+        }
+
+        this.boardSize = boardSize;
+        createCells();
+
+        this.numSolvedCells = 0;
+        this.errorCells = emptyList();
+        this.selectedCells = emptyList();
+        this.calculationCells = emptyList();
+        this.processQueue.clear();
     }
 
     public int getNumQueueProcesses() {
@@ -69,49 +153,183 @@ public class GameState {
         return this.numUpdates;
     }
 
+    public int getNumSearchNodes() {
+        return this.numSearchNodes;
+    }
+
+    public int getNumBacktracks() {
+        return this.numBacktracks;
+    }
+
+    /**
+     * @return Whether the current or most recent solve gave up searching because it made as many guesses as the search node limit allows
+     */
+    public boolean isSearchNodeLimitReached() {
+        return this.searchNodeLimitReached;
+    }
+
+    /**
+     * @return What each logic stage has done in the current or most recent solve
+     */
+    public LogicStageMetrics getLogicStageMetrics() {
+        return this.logicStageMetrics;
+    }
+
     public void addToProcessQueue(LogicStageIdentifier logicStageIdentifier, LogicConstraint logicConstraint) {
-        this.processQueue.add(new LogicQueueEntry(logicStageIdentifier, logicConstraint));
+        boolean added = this.processQueue.add(new LogicQueueEntry(logicStageIdentifier, logicConstraint));
+        this.logicStageMetrics.recordEnqueue(logicStageIdentifier, added);
+    }
+
+    /**
+     * Start solving the puzzle on the game's executor, reporting progress to the listeners.
+     *
+     * @param gameParameters The rules and logic stages to solve with
+     * @return A future that completes when the solve is done, but not when it is paused. Cancelling it stops the solve.
+     * @throws IllegalArgumentException If the parameters are for a different size of board
+     * @throws IllegalStateException    If the game is already being solved
+     */
+    public CompletableFuture<Void> start(GameParameters gameParameters) {
+        checkBoardSize(gameParameters);
+        claimForSolving();
+        initialise(gameParameters);
+
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        future.whenComplete((result, throwable) -> {
+            if (future.isCancelled()) {
+                stop();
+            }
+        });
+        this.solveFuture = future;
+
+        submit(this::run);
+        return future;
     }
 
-    public void start(GameParameters gameParameters) {
-        this.rules = gameParameters.getRules().stream()
-            .sorted()
-            .map(RuleIdentifier::getRule)
-            .collect(Collectors.toList());
+    /**
+     * Solve the puzzle on the calling thread, returning once the puzzle is complete, has an error, or no more logic can be applied.
+     *
+     * @param gameParameters The rules and logic stages to solve with
+     * @throws IllegalArgumentException If the parameters are for a different size of board
+     * @throws IllegalStateException    If the game is already being solved
+     */
+    public void solve(GameParameters gameParameters) {
+        checkBoardSize(gameParameters);
+        claimForSolving();
+        initialise(gameParameters);
+
+        this.solveFuture = new CompletableFuture<>();
+        runGuarded(this::run);
+    }
+
+    private void checkBoardSize(GameParameters gameParameters) {
+        if (gameParameters.getBoardSize() != this.boardSize) {
+            throw new IllegalArgumentException("The parameters are for a " + gameParameters.getBoardSize() + " board, but the board is " + this.boardSize);
+        }
+    }
+
+    private void claimForSolving() {
+        if (!this.runState.compareAndSet(RunState.IDLE, RunState.RUNNING) && !this.runState.compareAndSet(RunState.PAUSED, RunState.RUNNING)) {
+            throw new IllegalStateException("The game is already being solved");
+        }
+    }
+
+    private void submit(Runnable task) {
+        try {
+            this.executor.execute(() -> runGuarded(task));
+        } catch (RejectedExecutionException e) {
+            failed(e);
+            throw e;
+        }
+    }
+
+    private void runGuarded(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            failed(e);
+            throw e;
+        }
+    }
+
+    private void failed(Exception e) {
+        this.runState.set(RunState.IDLE);
+        this.solveFuture.completeExceptionally(e);
+    }
+
+    private void initialise(GameParameters gameParameters) {
+        this.constraintGraph = ConstraintGraph.forRules(this.boardSize, gameParameters.getRules());
+        this.unitPositions = new UnitPositions(this.constraintGraph, this.cells);
 
         this.logicStages = gameParameters.getLogicStages().stream()
             .sorted()
             .map(LogicStageIdentifier::getLogicStage)
             .collect(Collectors.toList());
+        this.useSearch = gameParameters.isUseSearch();
+        this.searchNodeLimit = gameParameters.getSearchNodeLimit();
+        this.searchNodeLimitReached = false;
+        this.searchFrames.clear();
 
         reinitialise();
         this.numQueueProcesses = 0;
         this.numUpdates = 0;
-
-        new Thread(this::start).start();
+        this.numSearchNodes = 0;
+        this.numBacktracks = 0;
+        this.logicStageMetrics.reset();
+    }
+
+    /**
+     * Ask the solve to pause. It pauses before running the next piece of logic, or while searching, before making the next guess.
+     *
+     * @return Whether the solve was running, and so will pause
+     */
+    public boolean pause() {
+        return this.runState.compareAndSet(RunState.RUNNING, RunState.PAUSING);
+    }
+
+    /**
+     * Carry on with a paused solve, or cancel a pause that hasn't happened yet.
+     *
+     * @return Whether the solve was paused or pausing, and so will carry on
+     */
+    public boolean resume() {
+        if (this.runState.compareAndSet(RunState.PAUSING, RunState.RUNNING)) {
+            return true;
+        } else if (this.runState.compareAndSet(RunState.PAUSED, RunState.RUNNING)) {
+            submit(this::processCells);
+            return true;
+        }
+        return false;
     }
 
     public void togglePause() {
-        if (this.running) {
-            this.shouldPause = true;
-        } else {
-            this.running = true;
-            this.shouldPause = false;
-            new Thread(this::processCells).start();
+        if (!pause()) {
+            resume();
         }
     }
 
-    private void start() {
-        this.running = true;
-        this.shouldPause = false;
-        this.shouldStop = false;
+    /**
+     * @return Whether the game is being solved, including if a pause or stop has been asked for but hasn't happened yet
+     */
+    public boolean isRunning() {
+        RunState state = this.runState.get();
+        return state == RunState.RUNNING || state == RunState.PAUSING || state == RunState.STOPPING;
+    }
+
+    public boolean isPaused() {
+        return this.runState.get() == RunState.PAUSED;
+    }
+
+    private boolean isStopping() {
+        return this.runState.get() == RunState.STOPPING;
+    }
 
+    private void run() {
         this.processQueue.clear();
 
         setErrorCells(emptyList());
 
         clearLogging();
-        log("Initialising...");
+        log(INFO, "Initialising...");
 
         // Build initial list of cells to process, and reset possible values for blank cells.
         this.cells.forEach(cell -> {
@@ -122,85 +340,278 @@ public class GameState {
             }
         });
 
+        if (nonNull(this.journal)) {
+            this.journal.start(this.boardSize, this.cells.stream().mapToInt(cell -> isNull(cell.getInitialValue()) ? 0 : cell.getInitialValue()).toArray());
+        }
+
         processCells();
     }
 
     private void processCells() {
+        while (this.searchFrames.isEmpty()) {
+            if (processQueue(true)) {
+                if (!isError() && !isComplete() && !isStopping()) {
+                    // Processing stopped for a pause, but a resume can cancel it before it takes effect, in which case carry on with the queue
+                    log(DEBUG, "Pausing after {0,number,#} queue entries", this.numQueueProcesses);
+                    if (this.runState.compareAndSet(RunState.PAUSING, RunState.PAUSED)) {
+                        paused();
+                        return;
+                    }
+                    continue;
+                }
+            } else if (this.useSearch && !isError() && !isComplete()) {
+                log(INFO, "Logic stages are stuck, searching...");
+                this.searchFrames.push(new SearchFrame());
+            }
+            break;
+        }
+
+        if (!this.searchFrames.isEmpty() && search()) {
+            paused();
+            return;
+        }
+
+        done();
+    }
+
+    /**
+     * Run the logic in the process queue until it is empty, or until there's a reason to finish early.
+     *
+     * @param canPause Whether a pause request should finish processing
+     * @return Whether processing finished early, because the game was stopped, paused, has an error, or is complete
+     */
+    private boolean processQueue(boolean canPause) {
         while (!this.processQueue.isEmpty()) {
             LogicQueueEntry logicQueueEntry = this.processQueue.poll();
 
-            LogicStage logicStage = logicQueueEntry.getLogicStageIdentifier().getLogicStage();
+            LogicStageIdentifier logicStageIdentifier = logicQueueEntry.getLogicStageIdentifier();
+            LogicStage logicStage = logicStageIdentifier.getLogicStage();
             LogicConstraint logicConstraint = logicQueueEntry.getLogicConstraint();
 
             if (logicStage.isValidForCell(logicConstraint)) {
-                List<String> logFields = new ArrayList<>();
-                appendLogValue(logFields, "logic", logicQueueEntry.getLogicStageIdentifier());
-                appendLogValue(logFields, "cell", logicConstraint.getCell());
-                appendLogValue(logFields, "value", logicConstraint.getValue());
-                appendLogValue(logFields, "rule", logicConstraint.getRule());
-
-                this.log("About to process " + String.join(", ", logFields));
+                log(DEBUG, "About to process {0}", logicQueueEntry);
 
+                this.runningLogicStage = logicStageIdentifier;
+                this.stepWidth = 1;
+                long progressBefore = getProgress(logicStageIdentifier);
+                if (nonNull(this.journal)) {
+                    this.journal.startLogicStep(logicStageIdentifier, getJournalCellIndex(logicConstraint), getJournalValue(logicConstraint));
+                }
+                long startNanos = System.nanoTime();
                 logicStage.runLogic(this, logicConstraint);
+                this.logicStageMetrics.recordRun(logicStageIdentifier, System.nanoTime() - startNanos);
+                if (nonNull(this.journal)) {
+                    this.journal.endLogicStep();
+                }
+                if (getProgress(logicStageIdentifier) != progressBefore) {
+                    this.logicStageMetrics.recordProgress(logicStageIdentifier, this.stepWidth);
+                }
+                this.runningLogicStage = null;
+
                 setSelectedCells(emptyList());
                 setCalculationCells(emptyList());
                 this.numQueueProcesses++;
 
-                if (checkStatus()) {
-                    return;
+                RunState state = this.runState.get();
+                if (state == RunState.STOPPING || isError() || isComplete() || (canPause && state == RunState.PAUSING)) {
+                    return true;
                 }
+            } else {
+                this.logicStageMetrics.recordSkip(logicStageIdentifier);
             }
         }
 
-        done();
+        return false;
     }
 
-    private void appendLogValue(List<String> logFields, String fieldName, Object value) {
-        if (nonNull(value)) {
-            logFields.add(fieldName + "=" + value);
+    /**
+     * Depth first search for when the logic stages get stuck. Guess a value for the cell with the fewest possible values, then run the logic stages again to see what follows
+     * from it. If that leads to an error, undo the guess and try the next value. If it gets stuck again, search again from there.
+     * <p>
+     * The guesses being tried are kept in {@link #searchFrames}, rather than on the call stack, so that the search can pause before any guess and carry on from the same place
+     * when resumed. If the parameters limit the number of guesses, the search gives up once it has made that many, and puts the board back to where the logic stages first got
+     * stuck.
+     *
+     * @return Whether the search paused. If not, it is finished, and the game is either complete, stopped, out of guesses, or left with the error found by the last guess.
+     */
+    private boolean search() {
+        while (!this.searchFrames.isEmpty()) {
+            SearchFrame frame = this.searchFrames.peek();
+            if (frame.remaining == PossibleValues.NONE) {
+                // Every value of this cell failed, so the guess that led here failed too
+                this.searchFrames.pop();
+                if (!this.searchFrames.isEmpty()) {
+                    guessFailed(this.searchFrames.peek());
+                }
+                continue;
+            }
+
+            if (isStopping()) {
+                this.searchFrames.clear();
+                return false;
+            } else if (this.runState.compareAndSet(RunState.PAUSING, RunState.PAUSED)) {
+                return true;
+            } else if (this.searchNodeLimit != GameParameters.NO_SEARCH_NODE_LIMIT && this.numSearchNodes >= this.searchNodeLimit) {
+                log(INFO, "Search node limit of {0,number,#} reached, giving up", this.searchNodeLimit);
+                this.searchNodeLimitReached = true;
+                restore(this.searchFrames.peekLast());
+                this.searchFrames.clear();
+                return false;
+            }
+
+            int value = PossibleValues.lowest(frame.remaining);
+            frame.remaining = PossibleValues.withoutLowest(frame.remaining);
+            frame.value = value;
+
+            this.numSearchNodes++;
+            log(DEBUG, "Search guess cell={0} value={1}", frame.cell, value);
+            setSelectedCell(frame.cell);
+            if (nonNull(this.journal)) {
+                this.journal.recordGuess(frame.cell.getIndex(), value);
+            }
+            frame.cell.setValue(value);
+            update();
+
+            processQueue(false);
+            if (isStopping() || (!isError() && isComplete())) {
+                this.searchFrames.clear();
+                return false;
+            } else if (!isError()) {
+                this.searchFrames.push(new SearchFrame());
+            } else {
+                guessFailed(frame);
+            }
         }
+
+        return false;
     }
 
-    private boolean checkStatus() {
-        if (this.shouldStop || isError() || isComplete()) {
-            done();
-            return true;
-        } else if (this.shouldPause) {
-            paused();
-            return true;
+    // Undo the last guess of the frame if it has other values to try. If not, the frame is popped next time round, leaving the error for the frame below to undo.
+    private void guessFailed(SearchFrame frame) {
+        this.numBacktracks++;
+        if (frame.remaining != PossibleValues.NONE) {
+            log(DEBUG, "Search backtrack cell={0} value={1}", frame.cell, frame.value);
+            restore(frame);
         }
-        return false;
+    }
+
+    // Put the board back to its state before the frame's first guess
+    private void restore(SearchFrame frame) {
+        if (nonNull(this.journal)) {
+            recordBacktrack(frame.values, frame.possibleValues);
+        }
+        this.cells.forEach(cell -> cell.restore(frame.values[cell.getIndex()], frame.possibleValues[cell.getIndex()]));
+        this.processQueue.clear();
+        setErrorCells(emptyList());
+        update();
+    }
+
+    // Record each cell the backtrack is about to put back to its state before the guess
+    private void recordBacktrack(Integer[] values, int[] possibleValues) {
+        this.journal.recordBacktrack();
+        for (Cell cell : this.cells) {
+            Integer value = values[cell.getIndex()];
+            if (!Objects.equals(cell.getValue(), value) || cell.getPossibleValues() != possibleValues[cell.getIndex()]) {
+                this.journal.recordRestore(cell.getIndex(), isNull(value) ? 0 : value, possibleValues[cell.getIndex()]);
+            }
+        }
+    }
+
+    private static int getJournalCellIndex(LogicConstraint logicConstraint) {
+        return isNull(logicConstraint.getCell()) ? -1 : logicConstraint.getCell().getIndex();
+    }
+
+    private static int getJournalValue(LogicConstraint logicConstraint) {
+        return isNull(logicConstraint.getValue()) ? 0 : logicConstraint.getValue();
+    }
+
+    private Cell getCellWithFewestPossibleValues() {
+        Cell fewestCell = null;
+        int fewest = Integer.MAX_VALUE;
+        for (Cell cell : this.cells) {
+            int count = PossibleValues.count(cell.getPossibleValues());
+            if (count > 0 && count < fewest) {
+                fewestCell = cell;
+                fewest = count;
+            }
+        }
+        return fewestCell;
     }
 
     public boolean isComplete() {
-        return this.cells.stream().allMatch(cell -> nonNull(cell.getValue()));
+        return this.numSolvedCells == this.cells.size();
     }
 
     public boolean isError() {
-        if (this.errorCells.isEmpty()) {
-            this.errorCells = this.cells.stream()
-                .filter(cell -> nonNull(cell.getValue()))
-                .filter(cell ->
-                    this.rules.stream()
-                        .filter(rule -> rule.appliesToCell(cell))
-                        .anyMatch(rule -> {
-                                List<Integer> illegalValues = rule.getPossibilitiesToEliminate(cell.getValue());
-                                return rule.getVisibleCells(this, cell).stream()
-                                    .filter(visibleCell -> visibleCell != cell)
-                                    .filter(visibleCell -> nonNull(visibleCell.getValue()))
-                                    .anyMatch(visibleCell -> illegalValues.contains(visibleCell.getValue()));
-                            }
-                        )
-                )
-                .collect(Collectors.toList());
-        }
         return !this.errorCells.isEmpty();
     }
 
+    /**
+     * Keep the count of solved cells up to date, and check the cell against the cells it can see, so that completion and errors can be checked without scanning the board.
+     * <p>
+     * Every rule is symmetric, so checking just the cell whose value has changed finds any conflict as soon as it's made.
+     *
+     * @param cell          The cell whose value has changed
+     * @param previousValue The value the cell had before the change
+     */
+    void handleValueChange(Cell cell, Integer previousValue) {
+        Integer value = cell.getValue();
+        if (isNull(previousValue) && nonNull(value)) {
+            this.numSolvedCells++;
+            if (nonNull(this.runningLogicStage)) {
+                this.logicStageMetrics.recordPlacement(this.runningLogicStage);
+            }
+            if (nonNull(this.journal)) {
+                this.journal.recordPlacement(cell.getIndex(), value);
+            }
+        } else if (nonNull(previousValue) && isNull(value)) {
+            this.numSolvedCells--;
+        }
+
+        if (nonNull(value)) {
+            Cell conflictingCell = findConflictingCell(cell, value);
+            if (nonNull(conflictingCell)) {
+                setErrorCells(asList(conflictingCell, cell));
+            }
+        }
+    }
+
+    private Cell findConflictingCell(Cell cell, int value) {
+        for (int peer : this.constraintGraph.getPeers(cell.getIndex())) {
+            if (Objects.equals(this.cells.get(peer).getValue(), value)) {
+                return this.cells.get(peer);
+            }
+        }
+
+        int[] relatedCells = this.constraintGraph.getRelatedCells(cell.getIndex());
+        int[][] relatedEliminations = this.constraintGraph.getRelatedEliminations(cell.getIndex());
+        for (int k = 0; k < relatedCells.length; k++) {
+            Integer relatedValue = this.cells.get(relatedCells[k]).getValue();
+            if (nonNull(relatedValue) && PossibleValues.contains(relatedEliminations[k][value], relatedValue)) {
+                return this.cells.get(relatedCells[k]);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Ask the solve to stop. A running solve stops before running the next piece of logic, or before the next guess if it is searching. A paused solve stops straight away.
+     */
     public void stop() {
-        this.shouldStop = true;
-        if (!this.running) {
-            done();
+        while (true) {
+            RunState state = this.runState.get();
+            if (state == RunState.RUNNING || state == RunState.PAUSING) {
+                if (this.runState.compareAndSet(state, RunState.STOPPING)) {
+                    return;
+                }
+            } else if (state == RunState.PAUSED) {
+                if (this.runState.compareAndSet(state, RunState.STOPPING)) {
+                    done();
+                    return;
+                }
+            } else {
+                return;
+            }
         }
     }
 
@@ -208,25 +619,63 @@ public class GameState {
         this.numUpdates++;
         if (this.doUpdates) {
             sendUpdate();
-            try {
-                Thread.sleep(this.updateDelay);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
+        }
+    }
+
+    /**
+     * Send the current board to the listeners, for example after the initial values have been edited. This does nothing while solving, as the board is being changed by another
+     * thread and the solve sends its own updates.
+     */
+    public void refresh() {
+        if (!isRunning()) {
+            sendUpdate();
         }
     }
 
     private void sendUpdate() {
-        this.gameStateListeners.forEach(GameStateListener::update);
+        if (!this.gameStateListeners.isEmpty()) {
+            BoardSnapshot snapshot = new BoardSnapshot(this, isRunning());
+            this.gameStateListeners.forEach(listener -> listener.update(snapshot));
+        }
     }
 
     public void clearLogging() {
         this.gameLoggingListeners.forEach(GameLoggingListener::clear);
     }
 
-    public void log(String text, Object... parameters) {
-        String log = MessageFormat.format(text, parameters);
-        this.gameLoggingListeners.forEach(listener -> listener.log(log));
+    /**
+     * @param level The level of a line of logging
+     * @return Whether any listener wants logging at the given level. Check this before doing any work to build parameters for {@link #log}.
+     */
+    public boolean isLoggable(LogLevel level) {
+        return nonNull(this.logLevel) && this.logLevel.includes(level);
+    }
+
+    public void log(LogLevel level, String pattern) {
+        if (isLoggable(level)) {
+            sendLog(level, pattern);
+        }
+    }
+
+    public void log(LogLevel level, String pattern, Object parameter) {
+        if (isLoggable(level)) {
+            sendLog(level, pattern, parameter);
+        }
+    }
+
+    public void log(LogLevel level, String pattern, Object parameter1, Object parameter2) {
+        if (isLoggable(level)) {
+            sendLog(level, pattern, parameter1, parameter2);
+        }
+    }
+
+    // The fixed arity versions of log avoid creating the parameter array unless something is going to be logged
+    private void sendLog(LogLevel level, String pattern, Object... parameters) {
+        for (GameLoggingListener listener : this.gameLoggingListeners) {
+            if (listener.getLogLevel().includes(level)) {
+                listener.log(level, pattern, parameters);
+            }
+        }
     }
 
     public void reset() {
@@ -243,7 +692,6 @@ public class GameState {
     }
 
     private void paused() {
-        this.running = false;
         setSelectedCells(emptyList());
         setCalculationCells(emptyList());
 
@@ -251,15 +699,71 @@ public class GameState {
     }
 
     public void done() {
-        log("Total queue entries processed: " + this.numQueueProcesses);
-        log("Total updates: " + this.numUpdates);
+        // Every solve finishes here exactly once, whether it ran to the end or was stopped while paused
+        this.logicStageMetrics.publish();
+
+        log(INFO, "Total queue entries processed: {0,number,#}", this.numQueueProcesses);
+        log(INFO, "Total updates: {0,number,#}", this.numUpdates);
+        if (this.useSearch) {
+            log(INFO, "Total search nodes: {0,number,#}", this.numSearchNodes);
+            log(INFO, "Total backtracks: {0,number,#}", this.numBacktracks);
+        }
 
-        this.running = false;
+        this.runState.set(RunState.IDLE);
         setSelectedCells(emptyList());
         setCalculationCells(emptyList());
 
         this.gameStateListeners.forEach(GameStateListener::done);
         sendUpdate();
+
+        this.solveFuture.complete(null);
+    }
+
+    private long getProgress(LogicStageIdentifier logicStageIdentifier) {
+        return this.logicStageMetrics.getEliminations(logicStageIdentifier) + this.logicStageMetrics.getPlacements(logicStageIdentifier);
+    }
+
+    /**
+     * Record how many cells the running logic stage is considering together, such as the size of a subset of cells that share possibilities. It is recorded in the metrics if
+     * the run makes progress, and is 1 unless set.
+     *
+     * @param stepWidth The number of cells
+     */
+    public void setStepWidth(int stepWidth) {
+        this.stepWidth = stepWidth;
+    }
+
+    /**
+     * Record every change each solve makes to the board in a journal, so that it can be replayed after the solve instead of watched as it happens. Each solve starts the journal
+     * again.
+     *
+     * @param journal The journal to record in, or null to stop recording
+     */
+    public void setJournal(SolveJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Keep the positions of each value in the cell's units up to date. Called whenever a cell's possible values change, whether values are removed or added back.
+     *
+     * @param cell                   The cell whose possible values have just changed
+     * @param previousPossibleValues The possible values of the cell before the change, as a mask
+     */
+    void handlePossibleValuesChange(Cell cell, int previousPossibleValues) {
+        this.unitPositions.update(cell.getIndex(), previousPossibleValues, cell.getPossibleValues());
+    }
+
+    /**
+     * @param cell          The cell whose possible values have just been removed
+     * @param valuesRemoved The possible values removed, as a mask
+     */
+    void handleEliminations(Cell cell, int valuesRemoved) {
+        if (nonNull(this.runningLogicStage)) {
+            this.logicStageMetrics.recordEliminations(this.runningLogicStage, PossibleValues.count(valuesRemoved));
+        }
+        if (nonNull(this.journal)) {
+            this.journal.recordElimination(cell.getIndex(), valuesRemoved);
+        }
     }
 
     public void handleCellUpdate(CellUpdate cellUpdate) {
@@ -270,6 +774,69 @@ public class GameState {
         return this.cells;
     }
 
+    /**
+     * Get the cells at the given indices, such as those from the {@link ConstraintGraph}, as a view rather than a copy, so logic stages can show the cells they are looking at
+     * without building a list for every step.
+     *
+     * @param indices The indices (see {@link Cell#getIndex()}) of the cells, which must not be modified while the view is in use
+     * @return The cells at the given indices, in the same order
+     */
+    public List<Cell> getCells(int[] indices) {
+        return new AbstractList<Cell>() {
+            @Override
+            public Cell get(int index) {
+                return GameState.this.cells.get(indices[index]);
+            }
+
+            @Override
+            public int size() {
+                return indices.length;
+            }
+        };
+    }
+
+    /**
+     * Set the initial values of all cells from the given saved cells. Any cell not in the list is left blank.
+     *
+     * @param saveCells The cells with initial values
+     */
+    public void setInitialValues(List<SaveCell> saveCells) {
+        this.cells.forEach(cell -> cell.setInitialValue(null));
+        saveCells.forEach(saveCell -> this.cells.get(this.boardSize.getIndex(saveCell.getI(), saveCell.getJ())).setInitialValue(saveCell.getValue()));
+    }
+
+    /**
+     * Find all the cells that are visible to this cell via any rule.
+     *
+     * @param cell The cell for which to find all visible cells
+     * @return A list of cells visible to the cell passed in
+     */
+    public List<Cell> getVisibleCellsForAllRules(Cell cell) {
+        int[] indices = this.constraintGraph.getVisibleCells(cell.getIndex());
+
+        List<Cell> visibleCells = new ArrayList<>(indices.length);
+        for (int index : indices) {
+            visibleCells.add(this.cells.get(index));
+        }
+        return visibleCells;
+    }
+
+    /**
+     * Find all the cells that every one of the given cells can see via any rule.
+     *
+     * @param cells The cells that must all be able to see the returned cells
+     * @return A list of cells visible to all the cells passed in
+     */
+    public List<Cell> getCellsVisibleToAll(List<Cell> cells) {
+        BitSet indices = this.constraintGraph.getCellsVisibleToAll(cells);
+
+        List<Cell> visibleCells = new ArrayList<>(indices.cardinality());
+        for (int index = indices.nextSetBit(0); index >= 0; index = indices.nextSetBit(index + 1)) {
+            visibleCells.add(this.cells.get(index));
+        }
+        return visibleCells;
+    }
+
     public List<Cell> getSelectedCells() {
         return this.selectedCells;
     }
@@ -290,15 +857,15 @@ public class GameState {
         this.calculationCells = calculationCells;
     }
 
-    public List<Integer> getCalculationValues() {
+    public int getCalculationValues() {
         return this.calculationValues;
     }
 
-    public void setCalculationValue(Integer calculationValue) {
-        setCalculationValues(singletonList(calculationValue));
+    public void setCalculationValue(int calculationValue) {
+        setCalculationValues(PossibleValues.of(calculationValue));
     }
 
-    public void setCalculationValues(List<Integer> calculationValues) {
+    public void setCalculationValues(int calculationValues) {
         this.calculationValues = calculationValues;
     }
 
@@ -315,15 +882,25 @@ public class GameState {
     }
 
     public List<Rule> getRules() {
-        return this.rules;
+        return this.constraintGraph.getRules();
     }
 
-    public void setDoUpdates(boolean doUpdates) {
-        this.doUpdates = doUpdates;
+    /**
+     * @return The rules in play, compiled into arrays of cell indices
+     */
+    public ConstraintGraph getConstraintGraph() {
+        return this.constraintGraph;
+    }
+
+    /**
+     * @return Where each value can still go in each unit of the {@link #getConstraintGraph() constraint graph}
+     */
+    public UnitPositions getUnitPositions() {
+        return this.unitPositions;
     }
 
-    public void setUpdateDelay(long updateDelay) {
-        this.updateDelay = updateDelay;
+    public void setDoUpdates(boolean doUpdates) {
+        this.doUpdates = doUpdates;
     }
 
     public void moveSelectedCellUp() {
@@ -346,14 +923,9 @@ public class GameState {
         if (this.selectedCells.isEmpty()) {
             setSelectedCell(this.cells.get(0));
         } else {
+            int maxPosition = this.boardSize.getSize() - 1;
             this.selectedCells = this.selectedCells.stream()
-                .map(cell -> this.cells.stream()
-                    .filter(
-                        newCell -> newCell.getI() == min(max(cell.getI() + iDiff, 0), 8)
-                            && newCell.getJ() == min(max(cell.getJ() + jDiff, 0), 8))
-                    .findFirst()
-                    .orElse(null)
-                )
+                .map(cell -> this.cells.get(this.boardSize.getIndex(min(max(cell.getI() + iDiff, 0), maxPosition), min(max(cell.getJ() + jDiff, 0), maxPosition))))
                 .collect(Collectors.toList());
         }
     }
@@ -371,5 +943,29 @@ public class GameState {
 
     public void addGameLoggingListener(GameLoggingListener listener) {
         this.gameLoggingListeners.add(listener);
+
+        LogLevel listenerLogLevel = listener.getLogLevel();
+        if (isNull(this.logLevel) || listenerLogLevel.includes(this.logLevel)) {
+            this.logLevel = listenerLogLevel;
+        }
+    }
+
+    /**
+     * A cell the search is guessing values for, and the state of the board from before its first guess so that failed guesses can be undone.
+     */
+    private class SearchFrame {
+        private final Cell cell = getCellWithFewestPossibleValues();
+        private final Integer[] values = new Integer[GameState.this.cells.size()];
+        private final int[] possibleValues = new int[GameState.this.cells.size()];
+        private int remaining; // The values not yet guessed
+        private int value; // The value being guessed
+
+        SearchFrame() {
+            GameState.this.cells.forEach(cell -> {
+                this.values[cell.getIndex()] = cell.getValue();
+                this.possibleValues[cell.getIndex()] = cell.getPossibleValues();
+            });
+            this.remaining = this.cell.getPossibleValues();
+        }
     }
 }
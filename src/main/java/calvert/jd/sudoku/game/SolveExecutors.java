@@ -0,0 +1,51 @@
+package calvert.jd.sudoku.game;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors to run solves on. A {@link GameState} created without an executor uses the default one, which is chosen by the {@code sudoku.executor} system property: {@code
+ * platform} (the default) for a pool of daemon threads that grows as needed and reuses idle threads, or {@code virtual} for a virtual thread per solve.
+ */
+public final class SolveExecutors {
+
+    private SolveExecutors() {
+    }
+
+    /**
+     * @return An executor that runs each task on a pooled daemon thread, creating threads as needed and reusing idle ones
+     */
+    public static ExecutorService platformThreads() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "sudoku-solve-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newCachedThreadPool(threadFactory);
+    }
+
+    /**
+     * Virtual threads are only available from Java 21, so they are looked up when needed rather than compiled against.
+     *
+     * @return An executor that runs each task on a new virtual thread, or {@link #platformThreads()} if virtual threads aren't available
+     */
+    public static ExecutorService virtualThreads() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return platformThreads();
+        }
+    }
+
+    static ExecutorService defaultExecutor() {
+        return DefaultExecutorHolder.DEFAULT_EXECUTOR;
+    }
+
+    // Holder so the default executor is only created when a game is first started
+    private static class DefaultExecutorHolder {
+        private static final ExecutorService DEFAULT_EXECUTOR = "virtual".equals(System.getProperty("sudoku.executor")) ? virtualThreads() : platformThreads();
+    }
+}
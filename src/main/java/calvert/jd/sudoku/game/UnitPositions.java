@@ -0,0 +1,67 @@
+package calvert.jd.sudoku.game;
+
+import calvert.jd.sudoku.game.rules.ConstraintGraph;
+import calvert.jd.sudoku.game.util.PossibleValues;
+
+import java.util.List;
+
+/**
+ * Where each value can still go in each unit of a {@link ConstraintGraph}, kept as a mask of positions in the unit (bit n for the cell at position n) for each unit and value,
+ * so the number of places left for a value is a bit count. The masks are updated as each cell's possible values change, rather than by looking at the cells of the unit
+ * again, so logic such as hidden singles and pointing only needs to look at a unit once a value's places in it have changed.
+ */
+public class UnitPositions {
+
+    private final ConstraintGraph constraintGraph;
+    private final int size;
+    private final int[] positions; // For each unit and value, by unit * size + value - 1, the positions in the unit that can hold the value
+
+    /**
+     * @param constraintGraph The graph giving the units
+     * @param cells           Every cell on the board, to take the current possible values from
+     */
+    public UnitPositions(ConstraintGraph constraintGraph, List<Cell> cells) {
+        this.constraintGraph = constraintGraph;
+        this.size = constraintGraph.getBoardSize().getSize();
+        this.positions = new int[constraintGraph.getUnits().length * this.size];
+
+        cells.forEach(cell -> update(cell.getIndex(), PossibleValues.NONE, cell.getPossibleValues()));
+    }
+
+    /**
+     * Update the positions of the values that a cell has gained or lost.
+     *
+     * @param index          The index of the cell
+     * @param possibleValues The possible values of the cell before the change
+     * @param newValues      The possible values of the cell after the change
+     */
+    public void update(int index, int possibleValues, int newValues) {
+        int removed = possibleValues & ~newValues;
+        int added = newValues & ~possibleValues;
+        if (removed == PossibleValues.NONE && added == PossibleValues.NONE) {
+            return;
+        }
+
+        int[] units = this.constraintGraph.getUnitsOfCell(index);
+        int[] positionsInUnits = this.constraintGraph.getPositionsInUnits(index);
+        for (int k = 0; k < units.length; k++) {
+            int offset = units[k] * this.size - 1;
+            int position = 1 << positionsInUnits[k];
+            for (int remaining = removed; remaining != PossibleValues.NONE; remaining = PossibleValues.withoutLowest(remaining)) {
+                this.positions[offset + PossibleValues.lowest(remaining)] &= ~position;
+            }
+            for (int remaining = added; remaining != PossibleValues.NONE; remaining = PossibleValues.withoutLowest(remaining)) {
+                this.positions[offset + PossibleValues.lowest(remaining)] |= position;
+            }
+        }
+    }
+
+    /**
+     * @param unit  The index of a unit in {@link ConstraintGraph#getUnits()}
+     * @param value A value
+     * @return The positions in the unit of the cells that can hold the value, as a mask
+     */
+    public int getPositions(int unit, int value) {
+        return this.positions[unit * this.size + value - 1];
+    }
+}
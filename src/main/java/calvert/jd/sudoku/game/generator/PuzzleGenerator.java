@@ -0,0 +1,103 @@
+package calvert.jd.sudoku.game.generator;
+
+import calvert.jd.sudoku.game.BoardSize;
+import calvert.jd.sudoku.game.GameParameters;
+import calvert.jd.sudoku.game.logic.LogicStageIdentifier;
+import calvert.jd.sudoku.game.save.SaveCell;
+import calvert.jd.sudoku.game.save.SaveGame;
+import calvert.jd.sudoku.game.solver.SolutionCounter;
+import calvert.jd.sudoku.game.solver.SolveStatus;
+import calvert.jd.sudoku.game.solver.SudokuSolver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static java.util.Collections.emptyList;
+import static java.util.Objects.isNull;
+
+/**
+ * Generates puzzles with a unique solution. A random grid is filled in following the rules, then givens are removed in a random order, each one only if the puzzle still has a
+ * single solution without it. Optionally, a given is also kept if the logic stages can't solve the puzzle without it, so that every puzzle can be solved without search.
+ * <p>
+ * The same seed always gives the same puzzle. A generator reuses its solver and counter between puzzles, so it is not thread safe. Use one generator per thread.
+ */
+public class PuzzleGenerator {
+
+    private final GameParameters gameParameters;
+    private final boolean requireLogic;
+    private final SolutionCounter solutionCounter;
+    private final SudokuSolver solver = new SudokuSolver();
+
+    /**
+     * @param gameParameters The board size and rules of the puzzles, and the logic stages that must solve them if required. Constraints can't be generated for.
+     * @param requireLogic   Whether the logic stages must be able to solve every puzzle without search
+     * @throws IllegalArgumentException If the logic stages include a constraint
+     */
+    public PuzzleGenerator(GameParameters gameParameters, boolean requireLogic) {
+        if (gameParameters.getLogicStages().stream().anyMatch(LogicStageIdentifier::isConstraint)) {
+            throw new IllegalArgumentException("Puzzles can't be generated with constraints");
+        }
+
+        this.gameParameters = new GameParameters(gameParameters.getBoardSize(), gameParameters.getRules(), gameParameters.getLogicStages(), false);
+        this.requireLogic = requireLogic;
+        this.solutionCounter = new SolutionCounter(gameParameters.getBoardSize(), gameParameters.getRules());
+    }
+
+    /**
+     * @param seed The seed for the random choices, which decides the puzzle
+     * @return A puzzle with a unique solution
+     * @throws IllegalStateException If no grid can be filled in following the rules
+     */
+    public SaveGame generate(long seed) {
+        BoardSize boardSize = this.gameParameters.getBoardSize();
+        Random random = new Random(seed);
+
+        int[] givens = this.solutionCounter.findSolution(new int[boardSize.getNumCells()], random);
+        if (isNull(givens)) {
+            throw new IllegalStateException("No grid can be filled in following the rules " + this.gameParameters.getRules());
+        }
+
+        for (int index : shuffledIndices(boardSize.getNumCells(), random)) {
+            int value = givens[index];
+            givens[index] = 0;
+
+            if (this.solutionCounter.countSolutions(givens, 2) != 1 || (this.requireLogic && !isSolvedByLogic(givens))) {
+                givens[index] = value;
+            }
+        }
+
+        return new SaveGame(boardSize, toSaveCells(givens), this.gameParameters.getRules(), emptyList());
+    }
+
+    private boolean isSolvedByLogic(int[] givens) {
+        return this.solver.solve(toSaveCells(givens), this.gameParameters).getStatus() == SolveStatus.SOLVED;
+    }
+
+    private List<SaveCell> toSaveCells(int[] givens) {
+        int size = this.gameParameters.getBoardSize().getSize();
+
+        List<SaveCell> saveCells = new ArrayList<>();
+        for (int index = 0; index < givens.length; index++) {
+            if (givens[index] != 0) {
+                saveCells.add(new SaveCell(index % size, index / size, givens[index]));
+            }
+        }
+        return saveCells;
+    }
+
+    private static int[] shuffledIndices(int numCells, Random random) {
+        int[] indices = new int[numCells];
+        for (int index = 0; index < numCells; index++) {
+            indices[index] = index;
+        }
+
+        for (int index = numCells - 1; index > 0; index--) {
+            int swapIndex = random.nextInt(index + 1);
+            int swap = indices[index];
+            indices[index] = indices[swapIndex];
+            indices[swapIndex] = swap;
+        }
+        return indices;
+    }
+}
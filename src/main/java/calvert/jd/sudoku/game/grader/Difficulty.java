@@ -0,0 +1,13 @@
+package calvert.jd.sudoku.game.grader;
+
+/**
+ * Difficulty bands, from the hardest step a puzzle needed. See {@link DifficultyGrader} for how steps are rated.
+ */
+public enum Difficulty {
+    EASY, // Only singles
+    MEDIUM, // Subsets of two cells
+    HARD, // Subsets of three cells
+    FIENDISH, // Subsets of four or more cells, or the magic square
+    NEEDS_SEARCH, // The logic stages got stuck, and search finished the puzzle
+    UNSOLVED // The puzzle wasn't solved, because it got stuck or has a contradiction
+}
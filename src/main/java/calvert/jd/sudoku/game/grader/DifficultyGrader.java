@@ -0,0 +1,103 @@
+package calvert.jd.sudoku.game.grader;
+
+import calvert.jd.sudoku.game.logic.LogicStageIdentifier;
+import calvert.jd.sudoku.game.metrics.LogicStageMetrics;
+import calvert.jd.sudoku.game.solver.SolveResult;
+import calvert.jd.sudoku.game.solver.SolveStatus;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static calvert.jd.sudoku.game.logic.LogicStageIdentifier.*;
+
+/**
+ * Grades puzzles from the logic stage metrics of their solves, so grading costs nothing beyond the solve itself.
+ * <p>
+ * Each step is rated by its logic stage and width. Singles rate 1 for a cell with a single possibility and 2 for a value with a single cell. A subset rates two more for each
+ * extra cell in it, and a subset of cells sharing possibilities with others rates one more than a subset of cells with exactly the same possibilities, as it is harder to
+ * spot. So a pair of cells with the same two possibilities rates 3, and a subset of four cells sharing four possibilities rates 8. The difficulty band comes from the
+ * hardest step the puzzle needed, and the score adds the rating of every step that made progress, so puzzles with the same hardest step are ordered by how much work they
+ * needed.
+ */
+public final class DifficultyGrader {
+
+    private static final Map<LogicStageIdentifier, Integer> SINGLE_CELL_RATINGS = new EnumMap<>(LogicStageIdentifier.class);
+    private static final Map<LogicStageIdentifier, Integer> EXTRA_CELL_RATINGS = new EnumMap<>(LogicStageIdentifier.class);
+
+    static {
+        SINGLE_CELL_RATINGS.put(SINGLE_CELL_ELIMINATION, 1);
+        SINGLE_CELL_RATINGS.put(MULTIPLE_CELL_ELIMINATION, 2);
+        SINGLE_CELL_RATINGS.put(SAME_POSSIBILITIES_ELIMINATION, 1);
+        SINGLE_CELL_RATINGS.put(SHARED_POSSIBILITIES_ELIMINATION, 2);
+        SINGLE_CELL_RATINGS.put(CENTRE_REGION_MAGIC_SQUARE, 7);
+
+        EXTRA_CELL_RATINGS.put(SAME_POSSIBILITIES_ELIMINATION, 2);
+        EXTRA_CELL_RATINGS.put(SHARED_POSSIBILITIES_ELIMINATION, 2);
+    }
+
+    // Any step outranks any amount of work with easier steps, and search outranks any step
+    private static final long HARDEST_STEP_SCORE = 1_000_000;
+    private static final long SEARCH_SCORE = 100 * HARDEST_STEP_SCORE;
+
+    private DifficultyGrader() {
+    }
+
+    /**
+     * @param result The result of solving a puzzle
+     * @return The grade of the puzzle
+     */
+    public static Grade grade(SolveResult result) {
+        LogicStageMetrics metrics = result.getLogicStageMetrics();
+
+        LogicStageIdentifier hardestLogicStage = null;
+        int hardestStepWidth = 0;
+        int hardestRating = 0;
+        long work = 0;
+        for (LogicStageIdentifier logicStageIdentifier : LogicStageIdentifier.values()) {
+            int widestStep = metrics.getWidestStep(logicStageIdentifier);
+            if (widestStep == 0) {
+                continue;
+            }
+
+            int rating = getRating(logicStageIdentifier, widestStep);
+            if (rating > hardestRating) {
+                hardestLogicStage = logicStageIdentifier;
+                hardestStepWidth = widestStep;
+                hardestRating = rating;
+            }
+            work += getRating(logicStageIdentifier, 1) * metrics.getProgressRuns(logicStageIdentifier);
+        }
+
+        long score = hardestRating * HARDEST_STEP_SCORE + work;
+        if (result.getNumSearchNodes() > 0) {
+            score += SEARCH_SCORE + result.getNumSearchNodes();
+        }
+
+        return new Grade(getDifficulty(result, hardestRating), score, hardestLogicStage, hardestStepWidth);
+    }
+
+    /**
+     * @param logicStageIdentifier The logic stage of a step
+     * @param width                How many cells the step considered together
+     * @return How hard the step is
+     */
+    public static int getRating(LogicStageIdentifier logicStageIdentifier, int width) {
+        return SINGLE_CELL_RATINGS.getOrDefault(logicStageIdentifier, 1) + EXTRA_CELL_RATINGS.getOrDefault(logicStageIdentifier, 0) * (width - 1);
+    }
+
+    private static Difficulty getDifficulty(SolveResult result, int hardestRating) {
+        if (result.getStatus() != SolveStatus.SOLVED) {
+            return Difficulty.UNSOLVED;
+        } else if (result.getNumSearchNodes() > 0) {
+            return Difficulty.NEEDS_SEARCH;
+        } else if (hardestRating <= getRating(MULTIPLE_CELL_ELIMINATION, 1)) {
+            return Difficulty.EASY;
+        } else if (hardestRating <= getRating(SHARED_POSSIBILITIES_ELIMINATION, 2)) {
+            return Difficulty.MEDIUM;
+        } else if (hardestRating <= getRating(SHARED_POSSIBILITIES_ELIMINATION, 3)) {
+            return Difficulty.HARD;
+        } else {
+            return Difficulty.FIENDISH;
+        }
+    }
+}
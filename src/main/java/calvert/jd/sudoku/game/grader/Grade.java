@@ -0,0 +1,52 @@
+package calvert.jd.sudoku.game.grader;
+
+import calvert.jd.sudoku.game.logic.LogicStageIdentifier;
+
+/**
+ * The difficulty of a solved puzzle, as given by {@link DifficultyGrader}.
+ */
+public class Grade {
+
+    private final Difficulty difficulty;
+    private final long score;
+    private final LogicStageIdentifier hardestLogicStage;
+    private final int hardestStepWidth;
+
+    public Grade(Difficulty difficulty, long score, LogicStageIdentifier hardestLogicStage, int hardestStepWidth) {
+        this.difficulty = difficulty;
+        this.score = score;
+        this.hardestLogicStage = hardestLogicStage;
+        this.hardestStepWidth = hardestStepWidth;
+    }
+
+    public Difficulty getDifficulty() {
+        return this.difficulty;
+    }
+
+    /**
+     * @return A score that orders puzzles by difficulty. Puzzles that needed a harder step always score higher, and puzzles whose hardest step was the same score higher the more
+     * work they needed.
+     */
+    public long getScore() {
+        return this.score;
+    }
+
+    /**
+     * @return The logic stage of the hardest step the puzzle needed, or null if no logic stage made progress
+     */
+    public LogicStageIdentifier getHardestLogicStage() {
+        return this.hardestLogicStage;
+    }
+
+    /**
+     * @return How many cells the hardest step considered together, or 0 if no logic stage made progress
+     */
+    public int getHardestStepWidth() {
+        return this.hardestStepWidth;
+    }
+
+    @Override
+    public String toString() {
+        return this.difficulty + " score=" + this.score + " hardest=" + this.hardestLogicStage + " width=" + this.hardestStepWidth;
+    }
+}
@@ -0,0 +1,210 @@
+package calvert.jd.sudoku.game.journal;
+
+import calvert.jd.sudoku.game.BoardSize;
+import calvert.jd.sudoku.game.BoardSnapshot;
+import calvert.jd.sudoku.game.journal.JournalStep.Kind;
+import calvert.jd.sudoku.game.logic.LogicStageIdentifier;
+import calvert.jd.sudoku.game.util.PossibleValues;
+
+import java.util.BitSet;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Replays a {@link SolveJournal}, so the board can be shown as it was after any step of the solve, moving forwards or backwards a step at a time or jumping straight to a step.
+ * <p>
+ * The journal is read once when the replay is created, to find where each step starts and to keep a copy of the board every {@link #KEYFRAME_INTERVAL} steps. Seeking starts
+ * from the nearest copy before the step, or from the current step if that is nearer, and applies the changes from there, so it never reads more than that many steps. A new replay shows the board at the end of the solve.
+ */
+public class JournalReplay {
+
+    static final int KEYFRAME_INTERVAL = 64;
+
+    private final SolveJournal.Cursor cursor;
+    private final BoardSize boardSize;
+    private final int numCells;
+
+    private final int[] stepPositions; // Where each step's header starts, so stepPositions[0] is the first step
+    private final int[][] keyframeValues; // The values after every KEYFRAME_INTERVAL steps
+    private final int[][] keyframePossibleValues;
+
+    private final int[] initialValues;
+    private final int[] values;
+    private final int[] possibleValues;
+    private int step;
+
+    /**
+     * @param journal The journal of a finished solve
+     */
+    public JournalReplay(SolveJournal journal) {
+        this.cursor = journal.new Cursor();
+        this.boardSize = journal.getBoardSize();
+        this.numCells = this.boardSize.getNumCells();
+
+        this.initialValues = new int[this.numCells];
+        for (int index = 0; index < this.numCells; index++) {
+            this.initialValues[index] = journal.getInitialValue(index);
+        }
+        this.values = new int[this.numCells];
+        this.possibleValues = new int[this.numCells];
+        resetToStart();
+        applyChanges();
+
+        int numSteps = journal.getNumSteps();
+        this.stepPositions = new int[numSteps];
+        this.keyframeValues = new int[numSteps / KEYFRAME_INTERVAL + 1][];
+        this.keyframePossibleValues = new int[numSteps / KEYFRAME_INTERVAL + 1][];
+        this.keyframeValues[0] = this.values.clone();
+        this.keyframePossibleValues[0] = this.possibleValues.clone();
+
+        for (int nextStep = 0; nextStep < numSteps; nextStep++) {
+            this.stepPositions[nextStep] = this.cursor.getPosition();
+            applyStep();
+
+            if (this.step % KEYFRAME_INTERVAL == 0) {
+                this.keyframeValues[this.step / KEYFRAME_INTERVAL] = this.values.clone();
+                this.keyframePossibleValues[this.step / KEYFRAME_INTERVAL] = this.possibleValues.clone();
+            }
+        }
+    }
+
+    public BoardSize getBoardSize() {
+        return this.boardSize;
+    }
+
+    public int getNumSteps() {
+        return this.stepPositions.length;
+    }
+
+    /**
+     * @return The number of steps applied to the board, from 0 before the first step to {@link #getNumSteps()} at the end of the solve
+     */
+    public int getStep() {
+        return this.step;
+    }
+
+    /**
+     * Show the board as it was after the given number of steps.
+     *
+     * @param step The number of steps, from 0 to {@link #getNumSteps()}
+     * @throws IllegalArgumentException If there aren't that many steps
+     */
+    public void seek(int step) {
+        if (step < 0 || step > getNumSteps()) {
+            throw new IllegalArgumentException("Step " + step + " is not between 0 and " + getNumSteps());
+        }
+
+        int keyframe = step / KEYFRAME_INTERVAL;
+        if (step < this.step || keyframe * KEYFRAME_INTERVAL > this.step) {
+            System.arraycopy(this.keyframeValues[keyframe], 0, this.values, 0, this.numCells);
+            System.arraycopy(this.keyframePossibleValues[keyframe], 0, this.possibleValues, 0, this.numCells);
+            this.step = keyframe * KEYFRAME_INTERVAL;
+        }
+
+        while (this.step < step) {
+            this.cursor.setPosition(this.stepPositions[this.step]);
+            applyStep();
+        }
+    }
+
+    /**
+     * @return The step that was applied last, or null before the first step
+     */
+    public JournalStep getLastStep() {
+        return this.step == 0 ? null : readStep(this.step - 1);
+    }
+
+    /**
+     * @param step The index of a step, from 0 for the first step
+     * @return The step
+     */
+    public JournalStep readStep(int step) {
+        int position = this.cursor.getPosition();
+        try {
+            this.cursor.setPosition(this.stepPositions[step]);
+            byte kind = this.cursor.readKind();
+            if (kind == SolveJournal.LOGIC_STEP) {
+                LogicStageIdentifier logicStageIdentifier = this.cursor.readLogicStage();
+                int cellIndex = this.cursor.readNumber() - 1;
+                return new JournalStep(Kind.LOGIC_STAGE, logicStageIdentifier, cellIndex, this.cursor.readNumber(), this.boardSize);
+            } else if (kind == SolveJournal.GUESS) {
+                int cellIndex = this.cursor.readNumber();
+                return new JournalStep(Kind.GUESS, null, cellIndex, this.cursor.readNumber(), this.boardSize);
+            } else {
+                return new JournalStep(Kind.BACKTRACK, null, -1, 0, this.boardSize);
+            }
+        } finally {
+            this.cursor.setPosition(position);
+        }
+    }
+
+    /**
+     * @param index The index of a cell
+     * @return The value of the cell after the current step, or 0 if it has no value
+     */
+    public int getValue(int index) {
+        return this.values[index];
+    }
+
+    /**
+     * @param index The index of a cell
+     * @return The possible values of the cell after the current step, as a mask
+     */
+    public int getPossibleValues(int index) {
+        return this.possibleValues[index];
+    }
+
+    /**
+     * @return The board after the current step, with the cell of the last step selected
+     */
+    public BoardSnapshot toSnapshot() {
+        BitSet selectedCells = new BitSet();
+        JournalStep lastStep = getLastStep();
+        if (nonNull(lastStep) && lastStep.getCellIndex() >= 0) {
+            selectedCells.set(lastStep.getCellIndex());
+        }
+        return new BoardSnapshot(this.boardSize, this.values, this.initialValues, this.possibleValues, selectedCells);
+    }
+
+    private void resetToStart() {
+        int allValues = this.boardSize.getAllValues();
+        for (int index = 0; index < this.numCells; index++) {
+            this.values[index] = this.initialValues[index];
+            this.possibleValues[index] = this.initialValues[index] == 0 ? allValues : PossibleValues.NONE;
+        }
+        this.step = 0;
+    }
+
+    // Apply the step at the cursor, leaving the cursor at the start of the next step
+    private void applyStep() {
+        byte kind = this.cursor.readKind();
+        if (kind == SolveJournal.LOGIC_STEP) {
+            this.cursor.readNumber();
+            this.cursor.readNumber();
+            this.cursor.readNumber();
+        } else if (kind == SolveJournal.GUESS) {
+            this.cursor.readNumber();
+            this.cursor.readNumber();
+        }
+
+        applyChanges();
+        this.step++;
+    }
+
+    // Apply the changes at the cursor, up to the start of the next step
+    private void applyChanges() {
+        while (this.cursor.hasNext() && !this.cursor.isAtStep()) {
+            byte kind = this.cursor.readKind();
+            int index = this.cursor.readNumber();
+            if (kind == SolveJournal.ELIMINATION) {
+                this.possibleValues[index] &= ~this.cursor.readNumber();
+            } else if (kind == SolveJournal.PLACEMENT) {
+                this.values[index] = this.cursor.readNumber();
+                this.possibleValues[index] = PossibleValues.NONE;
+            } else {
+                this.values[index] = this.cursor.readNumber();
+                this.possibleValues[index] = this.cursor.readNumber();
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package calvert.jd.sudoku.game.journal;
+
+import calvert.jd.sudoku.game.BoardSize;
+import calvert.jd.sudoku.game.logic.LogicStageIdentifier;
+
+/**
+ * A step of a solve read from a {@link SolveJournal}: a run of a logic stage that changed the board, a search guess, or a search backtrack.
+ */
+public class JournalStep {
+
+    public enum Kind {
+        LOGIC_STAGE,
+        GUESS,
+        BACKTRACK
+    }
+
+    private final Kind kind;
+    private final LogicStageIdentifier logicStageIdentifier;
+    private final int cellIndex;
+    private final int value;
+    private final BoardSize boardSize;
+
+    JournalStep(Kind kind, LogicStageIdentifier logicStageIdentifier, int cellIndex, int value, BoardSize boardSize) {
+        this.kind = kind;
+        this.logicStageIdentifier = logicStageIdentifier;
+        this.cellIndex = cellIndex;
+        this.value = value;
+        this.boardSize = boardSize;
+    }
+
+    public Kind getKind() {
+        return this.kind;
+    }
+
+    /**
+     * @return The logic stage that was run, or null if the step isn't a run of a logic stage
+     */
+    public LogicStageIdentifier getLogicStageIdentifier() {
+        return this.logicStageIdentifier;
+    }
+
+    /**
+     * @return The index of the cell the logic stage was run for or the guess was made in, or -1 if none
+     */
+    public int getCellIndex() {
+        return this.cellIndex;
+    }
+
+    /**
+     * @return The value the logic stage was run for or the guess was, or 0 if none
+     */
+    public int getValue() {
+        return this.value;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(40).append(this.kind == Kind.LOGIC_STAGE ? this.logicStageIdentifier : this.kind);
+        if (this.cellIndex >= 0) {
+            builder.append(" cell=[").append(this.cellIndex % this.boardSize.getSize()).append(", ").append(this.cellIndex / this.boardSize.getSize()).append("]");
+        }
+        if (this.value > 0) {
+            builder.append(" value=").append(BoardSize.toChar(this.value));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,280 @@
+package calvert.jd.sudoku.game.journal;
+
+import calvert.jd.sudoku.game.BoardSize;
+import calvert.jd.sudoku.game.logic.LogicStageIdentifier;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import static java.util.Objects.isNull;
+
+/**
+ * An append-only record of every change a solve makes to the board, so that the solve can run at full speed and be replayed afterwards with a {@link JournalReplay}.
+ * <p>
+ * The journal starts with the board size and the initial values. Each step that changes the board follows as a header, then the changes it made. A step is a run of a logic
+ * stage (with the cell and value it was run for), a search guess, or a search backtrack. A change is a possibility elimination (cell and mask of values), a value placement
+ * (cell and value), or a cell put back to an earlier state by a backtrack (cell, value and mask of possibilities). Most runs of logic stages change nothing, so the header of a
+ * logic step is only written once it makes its first change. Numbers are written as variable length integers of seven bits per byte, so a change usually takes three or
+ * four bytes.
+ * <p>
+ * A journal is written by the thread doing the solving, and must not be read until the solve is done.
+ */
+public class SolveJournal {
+
+    public static final String FILE_EXTENSION = ".journal";
+
+    private static final int MAGIC = 0x534A4E4C; // "SJNL"
+    private static final int VERSION = 1;
+
+    // The first byte of each entry
+    static final byte LOGIC_STEP = 1;
+    static final byte GUESS = 2;
+    static final byte BACKTRACK = 3;
+    static final byte ELIMINATION = 4;
+    static final byte PLACEMENT = 5;
+    static final byte RESTORE = 6;
+
+    private static final LogicStageIdentifier[] LOGIC_STAGES = LogicStageIdentifier.values();
+
+    private BoardSize boardSize = BoardSize.NINE_BY_NINE;
+    private int[] initialValues = new int[BoardSize.NINE_BY_NINE.getNumCells()];
+
+    private byte[] bytes = new byte[256];
+    private int size;
+    private int numSteps;
+
+    // The logic step that has been started but not yet written, as it hasn't changed anything yet
+    private LogicStageIdentifier pendingLogicStage;
+    private int pendingCellIndex;
+    private int pendingValue;
+
+    /**
+     * Clear the journal, ready to record a new solve.
+     *
+     * @param boardSize     The size of the board
+     * @param initialValues The initial value of each cell by index, or 0 for cells without one
+     */
+    public void start(BoardSize boardSize, int[] initialValues) {
+        this.boardSize = boardSize;
+        this.initialValues = initialValues.clone();
+        this.size = 0;
+        this.numSteps = 0;
+        this.pendingLogicStage = null;
+    }
+
+    /**
+     * Start a run of a logic stage. Nothing is written unless the run changes the board.
+     *
+     * @param logicStageIdentifier The logic stage
+     * @param cellIndex            The index of the cell the logic stage is run for, or -1 if none
+     * @param value                The value the logic stage is run for, or 0 if none
+     */
+    public void startLogicStep(LogicStageIdentifier logicStageIdentifier, int cellIndex, int value) {
+        this.pendingLogicStage = logicStageIdentifier;
+        this.pendingCellIndex = cellIndex;
+        this.pendingValue = value;
+    }
+
+    /**
+     * Finish a run of a logic stage, so that later changes aren't put down to it.
+     */
+    public void endLogicStep() {
+        this.pendingLogicStage = null;
+    }
+
+    public void recordGuess(int cellIndex, int value) {
+        this.pendingLogicStage = null;
+        this.numSteps++;
+        writeByte(GUESS);
+        writeNumber(cellIndex);
+        writeNumber(value);
+    }
+
+    /**
+     * Record a backtrack, which should be followed by a restore for each cell it changes.
+     */
+    public void recordBacktrack() {
+        this.pendingLogicStage = null;
+        this.numSteps++;
+        writeByte(BACKTRACK);
+    }
+
+    public void recordElimination(int cellIndex, int possibleValues) {
+        writePendingLogicStep();
+        writeByte(ELIMINATION);
+        writeNumber(cellIndex);
+        writeNumber(possibleValues);
+    }
+
+    public void recordPlacement(int cellIndex, int value) {
+        writePendingLogicStep();
+        writeByte(PLACEMENT);
+        writeNumber(cellIndex);
+        writeNumber(value);
+    }
+
+    /**
+     * @param cellIndex      The index of the cell being put back to an earlier state
+     * @param value          The value the cell is put back to, or 0 for no value
+     * @param possibleValues The possible values the cell is put back to
+     */
+    public void recordRestore(int cellIndex, int value, int possibleValues) {
+        writeByte(RESTORE);
+        writeNumber(cellIndex);
+        writeNumber(value);
+        writeNumber(possibleValues);
+    }
+
+    private void writePendingLogicStep() {
+        if (isNull(this.pendingLogicStage)) {
+            return;
+        }
+
+        this.numSteps++;
+        writeByte(LOGIC_STEP);
+        writeNumber(this.pendingLogicStage.ordinal());
+        writeNumber(this.pendingCellIndex + 1);
+        writeNumber(this.pendingValue);
+        this.pendingLogicStage = null;
+    }
+
+    private void writeNumber(int number) {
+        while ((number & ~0x7F) != 0) {
+            writeByte((byte) ((number & 0x7F) | 0x80));
+            number >>>= 7;
+        }
+        writeByte((byte) number);
+    }
+
+    private void writeByte(byte b) {
+        if (this.size == this.bytes.length) {
+            this.bytes = Arrays.copyOf(this.bytes, this.size * 2);
+        }
+        this.bytes[this.size++] = b;
+    }
+
+    public BoardSize getBoardSize() {
+        return this.boardSize;
+    }
+
+    /**
+     * @param index The index of a cell
+     * @return The initial value of the cell, or 0 if it has no initial value
+     */
+    public int getInitialValue(int index) {
+        return this.initialValues[index];
+    }
+
+    /**
+     * @return The number of steps that changed the board
+     */
+    public int getNumSteps() {
+        return this.numSteps;
+    }
+
+    /**
+     * @return The number of bytes of entries, not counting the board size and initial values
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Write the journal to a stream, in a form read by {@link #read(InputStream)}.
+     *
+     * @param outputStream The stream to write to, which is left open
+     */
+    public void write(OutputStream outputStream) throws IOException {
+        DataOutputStream output = new DataOutputStream(outputStream);
+        output.writeInt(MAGIC);
+        output.writeByte(VERSION);
+        output.writeByte(this.boardSize.getSize());
+        for (int initialValue : this.initialValues) {
+            output.writeByte(initialValue);
+        }
+        output.writeInt(this.numSteps);
+        output.writeInt(this.size);
+        output.write(this.bytes, 0, this.size);
+        output.flush();
+    }
+
+    /**
+     * @param inputStream The stream to read from, which is left open
+     * @return The journal read from the stream
+     * @throws IOException If the stream isn't a journal
+     */
+    public static SolveJournal read(InputStream inputStream) throws IOException {
+        DataInputStream input = new DataInputStream(inputStream);
+        if (input.readInt() != MAGIC) {
+            throw new IOException("Not a solve journal");
+        }
+
+        int version = input.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported solve journal version " + version);
+        }
+
+        SolveJournal journal = new SolveJournal();
+        journal.boardSize = BoardSize.forSize(input.readUnsignedByte());
+        journal.initialValues = new int[journal.boardSize.getNumCells()];
+        for (int index = 0; index < journal.initialValues.length; index++) {
+            journal.initialValues[index] = input.readUnsignedByte();
+        }
+        journal.numSteps = input.readInt();
+        journal.size = input.readInt();
+        journal.bytes = new byte[Math.max(journal.size, 1)];
+        input.readFully(journal.bytes, 0, journal.size);
+        return journal;
+    }
+
+    /**
+     * Reads the entries of a journal in order.
+     */
+    class Cursor {
+
+        private int position;
+
+        boolean hasNext() {
+            return this.position < SolveJournal.this.size;
+        }
+
+        /**
+         * @return Whether the next entry is the header of a step
+         */
+        boolean isAtStep() {
+            byte kind = SolveJournal.this.bytes[this.position];
+            return kind == LOGIC_STEP || kind == GUESS || kind == BACKTRACK;
+        }
+
+        byte readKind() {
+            return SolveJournal.this.bytes[this.position++];
+        }
+
+        int readNumber() {
+            int number = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = SolveJournal.this.bytes[this.position++];
+                number |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return number;
+                }
+            }
+        }
+
+        LogicStageIdentifier readLogicStage() {
+            return LOGIC_STAGES[readNumber()];
+        }
+
+        int getPosition() {
+            return this.position;
+        }
+
+        void setPosition(int position) {
+            this.position = position;
+        }
+    }
+}
@@ -2,8 +2,8 @@ package calvert.jd.sudoku.game.logic;
 
 import calvert.jd.sudoku.game.Cell;
 import calvert.jd.sudoku.game.rules.Rule;
-import org.apache.commons.lang3.builder.EqualsBuilder;
-import org.apache.commons.lang3.builder.HashCodeBuilder;
+
+import java.util.Objects;
 
 /**
  * Constraint to put on a piece of logic.
@@ -47,20 +47,14 @@ public class LogicConstraint {
 
         LogicConstraint that = (LogicConstraint) o;
 
-        return new EqualsBuilder()
-            .append(this.cell, that.cell)
-            .append(this.value, that.value)
-            .append(this.rule, that.rule)
-            .isEquals();
+        return this.cell == that.cell
+            && Objects.equals(this.value, that.value)
+            && this.rule == that.rule;
     }
 
     @Override
     public int hashCode() {
-        return new HashCodeBuilder()
-            .append(this.cell)
-            .append(this.value)
-            .append(this.rule)
-            .toHashCode();
+        return Objects.hash(this.cell, this.value, this.rule);
     }
 
     public static class LogicConstraintBuilder {
@@ -1,5 +1,6 @@
 package calvert.jd.sudoku.game.logic.logicstages;
 
+import calvert.jd.sudoku.game.BoardSize;
 import calvert.jd.sudoku.game.Cell;
 import calvert.jd.sudoku.game.GameState;
 import calvert.jd.sudoku.game.logic.LogicConstraint;
@@ -7,40 +8,48 @@ import calvert.jd.sudoku.game.logic.LogicStage;
 import calvert.jd.sudoku.game.rules.Rule;
 import calvert.jd.sudoku.game.rules.Rule.RuleIdentifier;
 import calvert.jd.sudoku.game.util.CellUpdate;
+import calvert.jd.sudoku.game.util.PossibleValues;
+import calvert.jd.sudoku.game.util.SumLine;
 
-import java.util.*;
+import java.util.Arrays;
+import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static calvert.jd.sudoku.game.logic.LogicStageIdentifier.CENTRE_REGION_MAGIC_SQUARE;
 import static calvert.jd.sudoku.game.rules.Rule.RuleIdentifier.*;
-import static java.util.Arrays.asList;
-import static java.util.Collections.singletonList;
 import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 
 /**
  * The centre region is a magic square, meaning that all values are distinct, and each row, column, and leading diagonal add up to the same number. Since the numbers must be
  * 1 to 9, each row, column, and leading diagonal must add up to 15.
  * <p>
- * First, we enumerate how many ways there are to make 15 using three distinct numbers from 1 to 9. Each cell can then only contain possibilities where that possibility appears
- * in the same number of ways to make 15 as the number of rows, columns, and diagonals it appears in (for example, a corner square is in a row, a column, and one leading diagonal,
- * so it can only contain possibilities that appear in exactly three of the ways to make 15.
+ * First, we count the ways there are to make 15 using three distinct numbers from 1 to 9. Each cell can then only contain possibilities where that possibility appears in the
+ * same number of ways to make 15 as the number of rows, columns, and diagonals it appears in (for example, a corner square is in a row, a column, and one leading diagonal, so
+ * it can only contain possibilities that appear in exactly three of the ways to make 15.
  * <p>
- * Also, if a cell has a set value then we can eliminate any possibilities in cells that cannot add up to 15.
+ * Also, we can eliminate any possibilities that cannot add up to 15 with the possibilities (or values) of the other cells in each row, column and diagonal. Both are looked up
+ * from the tables of a {@link SumLine}, which are built once and shared by every game.
  */
 public class CentreRegionMagicSquare extends LogicStage {
 
-    public final List<List<Integer>> enumerations = new ArrayList<>();
+    public static final SumLine MAGIC_SQUARE_LINE = new SumLine(3, 15, 9);
 
-    public CentreRegionMagicSquare() {
-        for (int i = 1; i <= 9; i++) {
-            for (int j = i + 1; j <= 9; j++) {
-                for (int k = j + 1; k <= 9; k++) {
-                    if (i + j + k == 15) {
-                        this.enumerations.add(asList(i, j, k));
-                    }
-                }
-            }
+    private static final List<Rule> LINE_RULES = Stream.of(SUDOKU_ROW_RULE, SUDOKU_COLUMN_RULE, LEADING_DIAGONAL_DOWN_RULE, LEADING_DIAGONAL_UP_RULE)
+        .map(RuleIdentifier::getRule)
+        .collect(Collectors.toList());
+
+    // For each cell index, the cells of the magic square seen by any of the line rules, in order, which are looked at again when the cell changes
+    private static final int[][] CELLS_TO_CHECK = new int[BoardSize.NINE_BY_NINE.getNumCells()][];
+
+    // For each cell index, the other cells of the magic square in each row, column, and leading diagonal that applies to the cell
+    private static final int[][][] LINES = new int[BoardSize.NINE_BY_NINE.getNumCells()][][];
+
+    static {
+        for (int index = 0; index < BoardSize.NINE_BY_NINE.getNumCells(); index++) {
+            CELLS_TO_CHECK[index] = buildCellsToCheck(index);
+            LINES[index] = buildLines(index);
         }
     }
 
@@ -48,13 +57,9 @@ public class CentreRegionMagicSquare extends LogicStage {
     public void processCellUpdate(GameState gameState, CellUpdate cellUpdate) {
         Cell cell = cellUpdate.getCell();
         if (cellInMagicSquare(cell)) {
-            Stream.of(SUDOKU_ROW_RULE, SUDOKU_COLUMN_RULE, LEADING_DIAGONAL_DOWN_RULE, LEADING_DIAGONAL_UP_RULE)
-                .map(RuleIdentifier::getRule)
-                .map(rule -> rule.getVisibleCells(gameState, cell))
-                .flatMap(Collection::stream)
-                .distinct()
-                .filter(this::cellInMagicSquare)
-                .forEach(magicSquareCell -> gameState.addToProcessQueue(CENTRE_REGION_MAGIC_SQUARE, LogicConstraint.builder().cell(magicSquareCell).build()));
+            for (int index : CELLS_TO_CHECK[cell.getIndex()]) {
+                gameState.addToProcessQueue(CENTRE_REGION_MAGIC_SQUARE, LogicConstraint.builder().cell(gameState.getCells().get(index)).build());
+            }
         }
     }
 
@@ -67,73 +72,61 @@ public class CentreRegionMagicSquare extends LogicStage {
     @Override
     public void runLogic(GameState gameState, LogicConstraint logicConstraint) {
         Cell cell = logicConstraint.getCell();
+        List<Cell> cells = gameState.getCells();
 
         gameState.setSelectedCell(cell);
         gameState.update();
 
-        // Find the rules that apply to this cell
-        List<Rule> rules = Stream.of(SUDOKU_ROW_RULE, SUDOKU_COLUMN_RULE, LEADING_DIAGONAL_DOWN_RULE, LEADING_DIAGONAL_UP_RULE)
-            .map(RuleIdentifier::getRule)
-            .filter(rule -> rule.appliesToCell(cell))
-            .collect(Collectors.toList());
+        // Find the lines that this cell is in
+        int[][] lines = LINES[cell.getIndex()];
 
-
-        // Remove any possibilities that don't appear in the same number of enumerations as rules
-        List<Integer> possibilitiesToRemove = cell.getPossibleValues().stream()
-            .filter(possibleValue -> this.enumerations.stream().filter(enumeration -> enumeration.contains(possibleValue)).count() != rules.size())
-            .collect(Collectors.toList());
-
-        if (cell.removePossibleValues(possibilitiesToRemove)) {
+        // Remove any possibilities that don't appear in the same number of ways to make 15 as lines
+        if (cell.removePossibleValues(~MAGIC_SQUARE_LINE.getValuesInCombinations(lines.length))) {
             gameState.update();
         }
 
-        // For each rule, check the possibilities (or value) in the other cells within the rule. We can eliminate any possibilities from this cell that cannot be used to add up
-        // to 15 with any of the other cells in the rule.
-        List<Integer> possibilitiesThatCannotAddUp = rules.stream()
-            .flatMap(rule -> {
-                    List<Cell> visibleCells = rule.getVisibleCells(gameState, cell).stream()
-                        .filter(this::cellInMagicSquare)
-                        .collect(Collectors.toList());
-
-                    gameState.setCalculationCells(visibleCells);
-                    gameState.update();
-
-                    List<List<Integer>> visibleCellsPossibilities = visibleCells.stream()
-                        .map(visibleCell ->
-                            Optional.ofNullable(visibleCell.getValue())
-                                .map(Collections::singletonList)
-                                .orElse(visibleCell.getPossibleValues())
-                        )
-                        .collect(Collectors.toList());
-
-                    return cell.getPossibleValues().stream()
-                        .filter(possibleValue -> {
-                            // Start with one possibility, zero. For each visible cell, and for each possible value in that cell, create a new total which is the previous total
-                            // plus the visible cell possibility. This gives us a list of all the possible totals of those cells, so we can eliminate any possibilities from this
-                            // cell that cannot make 15 when added to any of those possible totals.
-                            List<Integer> totals = singletonList(0);
-                            for (List<Integer> visibleCellPossibilities : visibleCellsPossibilities) {
-                                List<Integer> newTotals = new ArrayList<>();
-                                for (Integer totalAddition : totals) {
-                                    for (Integer visibleCellPossibility : visibleCellPossibilities) {
-                                        newTotals.add(totalAddition + visibleCellPossibility);
-                                    }
-                                }
-                                totals = newTotals;
-                            }
-
-                            return totals.stream().distinct().noneMatch(totalAddition -> totalAddition + possibleValue == 15);
-                        });
-                }
-            )
-            .collect(Collectors.toList());
+        // For each line, check the possibilities (or value) in the other cells within the line. We can eliminate any possibilities from this cell that cannot be used to add up
+        // to 15 with any of the other cells in the line.
+        int possibilitiesThatCannotAddUp = PossibleValues.NONE;
+        for (int[] line : lines) {
+            gameState.setCalculationCells(gameState.getCells(line));
+            gameState.update();
+
+            int[] linePossibilities = new int[line.length];
+            for (int k = 0; k < line.length; k++) {
+                Cell lineCell = cells.get(line[k]);
+                linePossibilities[k] = nonNull(lineCell.getValue()) ? PossibleValues.of(lineCell.getValue()) : lineCell.getPossibleValues();
+            }
+            possibilitiesThatCannotAddUp |= cell.getPossibleValues() & ~MAGIC_SQUARE_LINE.getPossibleValues(linePossibilities);
+        }
 
         if (cell.removePossibleValues(possibilitiesThatCannotAddUp)) {
             gameState.update();
         }
     }
 
+    private static int[] buildCellsToCheck(int index) {
+        return LINE_RULES.stream()
+            .flatMapToInt(rule -> Arrays.stream(rule.getVisibleCellIndices(BoardSize.NINE_BY_NINE, index)))
+            .distinct()
+            .filter(CentreRegionMagicSquare::indexInMagicSquare)
+            .toArray();
+    }
+
+    private static int[][] buildLines(int index) {
+        BoardSize boardSize = BoardSize.NINE_BY_NINE;
+        return LINE_RULES.stream()
+            .filter(rule -> rule.appliesToCell(boardSize, index % boardSize.getSize(), index / boardSize.getSize()))
+            .map(rule -> Arrays.stream(rule.getVisibleCellIndices(boardSize, index)).filter(CentreRegionMagicSquare::indexInMagicSquare).toArray())
+            .toArray(int[][]::new);
+    }
+
+    // The sums only work for the values 1 to 9, so there's only a magic square on a 9x9 board
     private boolean cellInMagicSquare(Cell cell) {
-        return cell.getI() / 3 == 1 && cell.getJ() / 3 == 1;
+        return cell.getBoardSize() == BoardSize.NINE_BY_NINE && indexInMagicSquare(cell.getIndex());
+    }
+
+    private static boolean indexInMagicSquare(int index) {
+        return index % 9 / 3 == 1 && index / 9 / 3 == 1;
     }
 }
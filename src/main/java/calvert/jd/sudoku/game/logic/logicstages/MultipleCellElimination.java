@@ -2,142 +2,132 @@ package calvert.jd.sudoku.game.logic.logicstages;
 
 import calvert.jd.sudoku.game.Cell;
 import calvert.jd.sudoku.game.GameState;
+import calvert.jd.sudoku.game.UnitPositions;
 import calvert.jd.sudoku.game.logic.LogicConstraint;
 import calvert.jd.sudoku.game.logic.LogicStage;
+import calvert.jd.sudoku.game.rules.ConstraintGraph;
 import calvert.jd.sudoku.game.rules.Rule;
 import calvert.jd.sudoku.game.util.CellUpdate;
+import calvert.jd.sudoku.game.util.PossibleValues;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import static calvert.jd.sudoku.game.logic.LogicStageIdentifier.MULTIPLE_CELL_ELIMINATION;
 import static java.util.Collections.emptyList;
-import static java.util.Collections.singletonList;
 
 /**
  * For an inclusive rule, find all the cells that share a possible value. That possible value can be eliminated from
  * cells that all those cells can see (via all rules).
+ * <p>
+ * The cells of the rule that share each value are kept by the game state as a mask of positions in the rule's unit (see
+ * {@link UnitPositions}), so when a value is removed from a cell, the unit only needs to be looked at again if the value
+ * has a single place left, or if its places left can all be seen by some cell outside the unit, as when they are confined
+ * to the intersection of a row and a region.
  */
 public class MultipleCellElimination extends LogicStage {
 
     @Override
     public void processCellUpdate(GameState gameState, CellUpdate cellUpdate) {
         Cell cell = cellUpdate.getCell();
-        gameState.getRules().stream()
-            .filter(rule -> rule.appliesToCell(cell))
-            .filter(Rule::isInclusive)
-            .forEach(rule -> {
-                List<Cell> visibleCells = rule.getVisibleCells(gameState, cell);
-
-                cellUpdate.getRemovedPossibilities().forEach(possibleValue ->
-                    visibleCells.stream()
-                        .filter(visibleCell -> visibleCell.getPossibleValues().contains(possibleValue))
-                        .findFirst()
-                        .ifPresent(visibleCell ->
-                            gameState.addToProcessQueue(
-                                MULTIPLE_CELL_ELIMINATION,
-                                LogicConstraint.builder()
-                                    .cell(visibleCell)
-                                    .value(possibleValue)
-                                    .rule(rule)
-                                    .build()
-                            ))
-                );
-            });
+        ConstraintGraph constraintGraph = gameState.getConstraintGraph();
+        UnitPositions unitPositions = gameState.getUnitPositions();
+
+        for (Rule rule : gameState.getRules()) {
+            int unit = constraintGraph.getUnit(rule, cell.getIndex());
+            if (unit == -1) {
+                continue;
+            }
+
+            for (int removed = cellUpdate.getRemovedPossibilities(); removed != PossibleValues.NONE; removed = PossibleValues.withoutLowest(removed)) {
+                int possibleValue = PossibleValues.lowest(removed);
+                int positions = unitPositions.getPositions(unit, possibleValue);
+                if (positions != 0 && (PossibleValues.isSingle(positions) || constraintGraph.hasCellsVisibleToAll(unit, positions))) {
+                    gameState.addToProcessQueue(
+                        MULTIPLE_CELL_ELIMINATION,
+                        LogicConstraint.builder()
+                            .cell(gameState.getCells().get(constraintGraph.getUnits()[unit][Integer.numberOfTrailingZeros(positions)]))
+                            .value(possibleValue)
+                            .rule(rule)
+                            .build()
+                    );
+                }
+            }
+        }
     }
 
     @Override
     public boolean isValidForCell(LogicConstraint constraint) {
-        return constraint.getCell().getPossibleValues().contains(constraint.getValue());
+        return constraint.getCell().hasPossibility(constraint.getValue());
     }
 
     @Override
     public void runLogic(GameState gameState, LogicConstraint constraint) {
         Cell cell = constraint.getCell();
-        Integer possibleValue = constraint.getValue();
+        int possibleValue = constraint.getValue();
         Rule rule = constraint.getRule();
-
-        List<Cell> cellsInRule = rule.getVisibleCells(gameState, cell);
+        ConstraintGraph constraintGraph = gameState.getConstraintGraph();
 
         gameState.setSelectedCell(cell);
-        gameState.setCalculationCells(cellsInRule);
+        gameState.setCalculationCells(gameState.getCells(constraintGraph.getVisibleCells(rule, cell.getIndex())));
         gameState.setCalculationValue(possibleValue);
         gameState.update();
 
-        List<Cell> cellsSharingPossibleValue = getCellsSharingValue(cellsInRule, possibleValue);
+        List<Cell> cellsSharingPossibleValue = getCellsSharingValue(gameState, cell, rule, possibleValue);
 
         if (cellsSharingPossibleValue.isEmpty()) {
             cell.setValue(possibleValue);
             gameState.update();
-        } else if (cellsSharingPossibleValue.stream().allMatch(visibleCell -> cell.compareTo(visibleCell) < 0)) {
-            cellsSharingPossibleValue = Stream.of(cellsSharingPossibleValue, singletonList(cell))
-                .flatMap(Collection::stream)
-                .collect(Collectors.toList());
+        } else if (cellsSharingPossibleValue.get(0).getIndex() > cell.getIndex()) {
+            // The cells sharing the value are in index order, which is the order cells compare in, so this cell comes before all of them
+            cellsSharingPossibleValue.add(cell);
 
             gameState.setSelectedCells(cellsSharingPossibleValue);
             gameState.setCalculationCells(emptyList());
             gameState.update();
 
-            List<Cell> cellsVisibleByAll = cellsSharingPossibleValue.stream()
-                .map(visibleCell -> getVisibleCellsForAllRules(gameState, visibleCell))
-                .map(visibleCells ->
-                    visibleCells.stream()
-                        .filter(visibleCell -> !cellsInRule.contains(visibleCell))
-                        .collect(Collectors.toList())
-                )
-                .reduce(
-                    new ArrayList<>(gameState.getCells()),
-                    (allCells, someCells) -> {
-                        allCells.retainAll(someCells);
-                        return allCells;
-                    }
-                );
+            int[] unitCells = constraintGraph.getUnits()[constraintGraph.getUnit(rule, cell.getIndex())];
+            List<Cell> cellsVisibleByAll = gameState.getCellsVisibleToAll(cellsSharingPossibleValue);
+            cellsVisibleByAll.removeIf(visibleCell -> Arrays.binarySearch(unitCells, visibleCell.getIndex()) >= 0);
 
             if (!cellsVisibleByAll.isEmpty()) {
                 gameState.setCalculationCells(cellsVisibleByAll);
                 gameState.update();
 
-                Boolean updated = cellsVisibleByAll.stream()
-                    .map(cellToRemovePossibility -> cellToRemovePossibility.removePossibleValue(possibleValue))
-                    .reduce(false, (a, b) -> a || b);
+                boolean updated = false;
+                for (Cell cellToRemovePossibility : cellsVisibleByAll) {
+                    updated |= cellToRemovePossibility.removePossibleValue(possibleValue);
+                }
                 if (updated) {
                     gameState.update();
                 }
             }
         }
 
-        gameState.setCalculationValues(emptyList());
+        gameState.setCalculationValues(PossibleValues.NONE);
     }
 
     /**
      * Find the cells that share the possible value.
      *
-     * @param cellsInRule   The cell that is visible to the process cell by a particular rule
+     * @param gameState     The current game state
+     * @param cell          The cell being processed
+     * @param rule          The rule whose unit to look in
      * @param possibleValue The possible value to join on
-     * @return A list of cells that all have the required possible value, including the cell being processed
+     * @return A list of the other cells of the rule's unit that have the required possible value, in order
      */
-    private List<Cell> getCellsSharingValue(List<Cell> cellsInRule, Integer possibleValue) {
-        return cellsInRule.stream()
-            .filter(visibleCell -> visibleCell.getPossibleValues().contains(possibleValue))
-            .collect(Collectors.toList());
-    }
-
-    /**
-     * Find all the cells that are visible to this cell via any rule.
-     *
-     * @param gameState The current state of the game
-     * @param cell      The cell for which to find all visible cells
-     * @return A list of cells visible to the cell passed in
-     */
-    private List<Cell> getVisibleCellsForAllRules(GameState gameState, Cell cell) {
-        return gameState.getRules().stream()
-            .filter(rule -> rule.appliesToCell(cell))
-            .map(rule -> rule.getVisibleCells(gameState, cell))
-            .flatMap(Collection::stream)
-            .distinct()
-            .collect(Collectors.toList());
+    private List<Cell> getCellsSharingValue(GameState gameState, Cell cell, Rule rule, int possibleValue) {
+        int unit = gameState.getConstraintGraph().getUnit(rule, cell.getIndex());
+        int[] unitCells = gameState.getConstraintGraph().getUnits()[unit];
+
+        List<Cell> cellsSharingValue = new ArrayList<>();
+        for (int positions = gameState.getUnitPositions().getPositions(unit, possibleValue); positions != 0; positions &= positions - 1) {
+            int index = unitCells[Integer.numberOfTrailingZeros(positions)];
+            if (index != cell.getIndex()) {
+                cellsSharingValue.add(gameState.getCells().get(index));
+            }
+        }
+        return cellsSharingValue;
     }
 }
@@ -4,18 +4,16 @@ import calvert.jd.sudoku.game.Cell;
 import calvert.jd.sudoku.game.GameState;
 import calvert.jd.sudoku.game.logic.LogicConstraint;
 import calvert.jd.sudoku.game.logic.LogicStage;
+import calvert.jd.sudoku.game.rules.ConstraintGraph;
 import calvert.jd.sudoku.game.rules.Rule;
 import calvert.jd.sudoku.game.util.CellUpdate;
+import calvert.jd.sudoku.game.util.PossibleValues;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import static calvert.jd.sudoku.game.logic.LogicStageIdentifier.SHARED_POSSIBILITIES_ELIMINATION;
 import static java.util.Collections.emptyList;
-import static java.util.Collections.singletonList;
 import static java.util.Objects.isNull;
 
 /**
@@ -28,18 +26,24 @@ public class SharedPossibilitiesElimination extends LogicStage {
     @Override
     public void processCellUpdate(GameState gameState, CellUpdate cellUpdate) {
         Cell cell = cellUpdate.getCell();
+        ConstraintGraph constraintGraph = gameState.getConstraintGraph();
+        List<Cell> cells = gameState.getCells();
 
-        gameState.getRules().stream()
-            .filter(rule -> rule.appliesToCell(cell))
-            .filter(Rule::isInclusive)
-            .forEach(rule -> {
-                gameState.addToProcessQueue(SHARED_POSSIBILITIES_ELIMINATION, LogicConstraint.builder().cell(cell).rule(rule).build());
+        for (Rule rule : gameState.getRules()) {
+            int[] visibleCells = constraintGraph.getVisibleCells(rule, cell.getIndex());
+            if (!rule.isInclusive() || isNull(visibleCells)) {
+                continue;
+            }
 
-                rule.getVisibleCells(gameState, cell).stream()
-                    .filter(visibleCell -> visibleCell.hasAnyPossibility(cellUpdate.getRemovedPossibilities()))
-                    .forEach(visibleCell -> gameState.addToProcessQueue(SHARED_POSSIBILITIES_ELIMINATION, LogicConstraint.builder().cell(visibleCell).rule(rule).build()));
-            });
+            gameState.addToProcessQueue(SHARED_POSSIBILITIES_ELIMINATION, LogicConstraint.builder().cell(cell).rule(rule).build());
 
+            for (int index : visibleCells) {
+                Cell visibleCell = cells.get(index);
+                if (visibleCell.hasAnyPossibility(cellUpdate.getRemovedPossibilities())) {
+                    gameState.addToProcessQueue(SHARED_POSSIBILITIES_ELIMINATION, LogicConstraint.builder().cell(visibleCell).rule(rule).build());
+                }
+            }
+        }
     }
 
     @Override
@@ -51,76 +55,63 @@ public class SharedPossibilitiesElimination extends LogicStage {
     public void runLogic(GameState gameState, LogicConstraint constraint) {
         Cell cell = constraint.getCell();
         Rule rule = constraint.getRule();
+        int possibleValues = cell.getPossibleValues();
+        List<Cell> cells = gameState.getCells();
 
-        List<Cell> cellsInRule = rule.getVisibleCells(gameState, cell);
+        int[] cellsInRule = gameState.getConstraintGraph().getVisibleCells(rule, cell.getIndex());
 
         gameState.setSelectedCell(cell);
-        gameState.setCalculationCells(cellsInRule);
+        gameState.setCalculationCells(gameState.getCells(cellsInRule));
         gameState.update();
 
         // For this rule, find all cells that have all the same possibilities of this cell (even if they have more possibilities)
-        List<Cell> cellsSharingPossibilities = getCellsSharingPossibilities(cell, cellsInRule);
+        // If the number of cells we find (including this cell) equals the number of possibilities we have, then those possibilities must exist in these cells. The cells of
+        // the rule are in index order, which is the order cells compare in, so stop as soon as there are too many, or if a cell before this one has them, as it does the work.
+        int numOtherCells = PossibleValues.count(possibleValues) - 1;
+        List<Cell> cellsSharingPossibilities = new ArrayList<>();
+        for (int index : cellsInRule) {
+            Cell cellInRule = cells.get(index);
+            if (cellInRule.hasAnyPossibility(possibleValues)) {
+                if (index < cell.getIndex() || cellsSharingPossibilities.size() == numOtherCells) {
+                    return;
+                }
+                cellsSharingPossibilities.add(cellInRule);
+            }
+        }
+        if (cellsSharingPossibilities.size() != numOtherCells) {
+            return;
+        }
+        cellsSharingPossibilities.add(cell);
+
+        gameState.setStepWidth(cellsSharingPossibilities.size());
+        gameState.setSelectedCells(cellsSharingPossibilities);
+        gameState.setCalculationCells(emptyList());
+        gameState.update();
+
+        // Remove all other possibilities from these cells
+        boolean updatedCellsSharing = false;
+        for (Cell cellSharingPossibilities : cellsSharingPossibilities) {
+            updatedCellsSharing |= cellSharingPossibilities.removePossibleValues(~possibleValues);
+        }
 
-        // If the number of cells we found (including this cell) equals the number of possibilities we have, then those possibilities must exist in these cells
-        if (cellsSharingPossibilities.size() == cell.getPossibleValues().size() && cellsSharingPossibilities.stream().allMatch(visibleCell -> cell.compareTo(visibleCell) <= 0)) {
-            gameState.setSelectedCells(cellsSharingPossibilities);
-            gameState.setCalculationCells(emptyList());
+        if (updatedCellsSharing) {
             gameState.update();
+        }
 
-            // Remove all other possibilities from these cells
-            Boolean updatedCellsSharing = cellsSharingPossibilities.stream().map(visibleCell -> {
-                List<Integer> possibleValuesToRemove = visibleCell.getPossibleValues().stream()
-                    .filter(possibleValue -> !cell.getPossibleValues().contains(possibleValue))
-                    .collect(Collectors.toList());
-                return visibleCell.removePossibleValues(possibleValuesToRemove);
-            })
-                .reduce(false, (a, b) -> a || b);
+        // Find any other cells that all these cells can see, and remove our possibilities from them
+        List<Cell> cellsVisibleByAll = gameState.getCellsVisibleToAll(cellsSharingPossibilities);
 
-            if (updatedCellsSharing) {
-                gameState.update();
-            }
+        if (!cellsVisibleByAll.isEmpty()) {
+            gameState.setCalculationCells(cellsVisibleByAll);
+            gameState.update();
 
-            // Find any other cells that all these cells can see, and remove our possibilities from them
-            List<Cell> cellsVisibleByAll = cellsSharingPossibilities.stream()
-                .map(visibleCell -> getVisibleCellsForAllRules(gameState, visibleCell))
-                .reduce(
-                    new ArrayList<>(gameState.getCells()),
-                    (allCells, someCells) -> {
-                        allCells.retainAll(someCells);
-                        return allCells;
-                    }
-                );
-
-            if (!cellsVisibleByAll.isEmpty()) {
-                gameState.setCalculationCells(cellsVisibleByAll);
+            boolean updated = false;
+            for (Cell visibleCell : cellsVisibleByAll) {
+                updated |= visibleCell.removePossibleValues(possibleValues);
+            }
+            if (updated) {
                 gameState.update();
-
-                boolean updated = cellsVisibleByAll.stream()
-                    .map(visibleCell -> visibleCell.removePossibleValues(cell.getPossibleValues()))
-                    .reduce(false, (a, b) -> a || b);
-                if (updated) {
-                    gameState.update();
-                }
             }
         }
     }
-
-    private List<Cell> getCellsSharingPossibilities(Cell cell, List<Cell> cellsInRule) {
-        List<Cell> visibleCellsWithSamePossibilities = cellsInRule.stream()
-            .filter(cellInRule -> cell.getPossibleValues().stream().anyMatch(possibleValue -> cellInRule.getPossibleValues().contains(possibleValue)))
-            .collect(Collectors.toList());
-
-        return Stream.of(visibleCellsWithSamePossibilities, singletonList(cell))
-            .flatMap(Collection::stream)
-            .collect(Collectors.toList());
-    }
-
-    private List<Cell> getVisibleCellsForAllRules(GameState gameState, Cell cell) {
-        return gameState.getRules().stream()
-            .filter(rule -> rule.appliesToCell(cell))
-            .map(rule -> rule.getVisibleCells(gameState, cell))
-            .flatMap(Collection::stream)
-            .distinct()
-            .collect(Collectors.toList());
-    }
 }
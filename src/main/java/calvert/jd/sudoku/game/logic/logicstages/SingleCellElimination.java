@@ -4,12 +4,15 @@ import calvert.jd.sudoku.game.Cell;
 import calvert.jd.sudoku.game.GameState;
 import calvert.jd.sudoku.game.logic.LogicConstraint;
 import calvert.jd.sudoku.game.logic.LogicStage;
+import calvert.jd.sudoku.game.rules.ConstraintGraph;
+import calvert.jd.sudoku.game.rules.Rule;
 import calvert.jd.sudoku.game.util.CellUpdate;
 
 import java.util.List;
 
 import static calvert.jd.sudoku.game.logic.LogicStageIdentifier.SINGLE_CELL_ELIMINATION;
 import static java.util.Collections.emptyList;
+import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 
 /**
@@ -36,21 +39,28 @@ public class SingleCellElimination extends LogicStage {
 
         gameState.setSelectedCell(cell);
 
-        gameState.getRules().stream()
-            .filter(rule -> rule.appliesToCell(cell))
-            .forEach(rule -> {
-                List<Cell> visibleCells = rule.getVisibleCells(gameState, cell);
-                gameState.setCalculationCells(visibleCells);
-                gameState.update();
+        ConstraintGraph constraintGraph = gameState.getConstraintGraph();
+        List<Cell> cells = gameState.getCells();
+
+        for (Rule rule : gameState.getRules()) {
+            int[] visibleCells = constraintGraph.getVisibleCells(rule, cell.getIndex());
+            if (isNull(visibleCells)) {
+                continue;
+            }
+
+            gameState.setCalculationCells(gameState.getCells(visibleCells));
+            gameState.update();
 
-                boolean updatedCells = visibleCells.stream()
-                    .map(visibleCell -> visibleCell.removePossibleValues(rule.getPossibilitiesToEliminate(cell.getValue())))
-                    .reduce(false, (a, b) -> a || b);
+            int possibilitiesToEliminate = rule.getPossibilitiesToEliminateForValue(cell.getValue());
+            boolean updatedCells = false;
+            for (int visibleCell : visibleCells) {
+                updatedCells |= cells.get(visibleCell).removePossibleValues(possibilitiesToEliminate);
+            }
 
-                if (updatedCells) {
-                    gameState.update();
-                }
-            });
+            if (updatedCells) {
+                gameState.update();
+            }
+        }
 
         gameState.setCalculationCells(emptyList());
     }
@@ -0,0 +1,208 @@
+package calvert.jd.sudoku.game.metrics;
+
+import calvert.jd.sudoku.game.logic.LogicStageIdentifier;
+
+import java.util.Arrays;
+
+/**
+ * Counts of what each logic stage did during a single solve. Recording is just incrementing a field, so it is always on.
+ * <p>
+ * Each game has its own metrics, so they are not thread safe. At the end of each solve they are added to the {@link LogicStageTotals} for the whole process.
+ */
+public class LogicStageMetrics {
+
+    private static final LogicStageIdentifier[] LOGIC_STAGES = LogicStageIdentifier.values();
+
+    private final long[] enqueues;
+    private final long[] duplicateEnqueues;
+    private final long[] skips;
+    private final long[] runs;
+    private final long[] eliminations;
+    private final long[] placements;
+    private final long[] progressRuns;
+    private final int[] widestSteps;
+    private final long[] nanos;
+
+    public LogicStageMetrics() {
+        this.enqueues = new long[LOGIC_STAGES.length];
+        this.duplicateEnqueues = new long[LOGIC_STAGES.length];
+        this.skips = new long[LOGIC_STAGES.length];
+        this.runs = new long[LOGIC_STAGES.length];
+        this.eliminations = new long[LOGIC_STAGES.length];
+        this.placements = new long[LOGIC_STAGES.length];
+        this.progressRuns = new long[LOGIC_STAGES.length];
+        this.widestSteps = new int[LOGIC_STAGES.length];
+        this.nanos = new long[LOGIC_STAGES.length];
+    }
+
+    /**
+     * Copy another set of metrics, so that they can be kept after the original is reset.
+     *
+     * @param other The metrics to copy
+     */
+    public LogicStageMetrics(LogicStageMetrics other) {
+        this.enqueues = other.enqueues.clone();
+        this.duplicateEnqueues = other.duplicateEnqueues.clone();
+        this.skips = other.skips.clone();
+        this.runs = other.runs.clone();
+        this.eliminations = other.eliminations.clone();
+        this.placements = other.placements.clone();
+        this.progressRuns = other.progressRuns.clone();
+        this.widestSteps = other.widestSteps.clone();
+        this.nanos = other.nanos.clone();
+    }
+
+    /**
+     * @param logicStageIdentifier The logic stage that was added to the queue
+     * @param added                Whether it was added, or rejected because the same entry was already waiting
+     */
+    public void recordEnqueue(LogicStageIdentifier logicStageIdentifier, boolean added) {
+        if (added) {
+            this.enqueues[logicStageIdentifier.ordinal()]++;
+        } else {
+            this.duplicateEnqueues[logicStageIdentifier.ordinal()]++;
+        }
+    }
+
+    /**
+     * @param logicStageIdentifier The logic stage that was taken off the queue but was no longer valid for its cell
+     */
+    public void recordSkip(LogicStageIdentifier logicStageIdentifier) {
+        this.skips[logicStageIdentifier.ordinal()]++;
+    }
+
+    /**
+     * @param logicStageIdentifier The logic stage that was run
+     * @param nanos                How long it took to run
+     */
+    public void recordRun(LogicStageIdentifier logicStageIdentifier, long nanos) {
+        this.runs[logicStageIdentifier.ordinal()]++;
+        this.nanos[logicStageIdentifier.ordinal()] += nanos;
+    }
+
+    /**
+     * @param logicStageIdentifier The logic stage that removed the possibilities
+     * @param count                The number of possibilities removed
+     */
+    public void recordEliminations(LogicStageIdentifier logicStageIdentifier, int count) {
+        this.eliminations[logicStageIdentifier.ordinal()] += count;
+    }
+
+    /**
+     * @param logicStageIdentifier The logic stage that caused a cell's value to be set
+     */
+    public void recordPlacement(LogicStageIdentifier logicStageIdentifier) {
+        this.placements[logicStageIdentifier.ordinal()]++;
+    }
+
+    /**
+     * @param logicStageIdentifier The logic stage whose run removed possibilities or set values
+     * @param width                How many cells the step had to consider together, such as the size of a subset, or 1 for a step about a single cell
+     */
+    public void recordProgress(LogicStageIdentifier logicStageIdentifier, int width) {
+        this.progressRuns[logicStageIdentifier.ordinal()]++;
+        this.widestSteps[logicStageIdentifier.ordinal()] = Math.max(this.widestSteps[logicStageIdentifier.ordinal()], width);
+    }
+
+    public long getEnqueues(LogicStageIdentifier logicStageIdentifier) {
+        return this.enqueues[logicStageIdentifier.ordinal()];
+    }
+
+    public long getDuplicateEnqueues(LogicStageIdentifier logicStageIdentifier) {
+        return this.duplicateEnqueues[logicStageIdentifier.ordinal()];
+    }
+
+    public long getSkips(LogicStageIdentifier logicStageIdentifier) {
+        return this.skips[logicStageIdentifier.ordinal()];
+    }
+
+    public long getRuns(LogicStageIdentifier logicStageIdentifier) {
+        return this.runs[logicStageIdentifier.ordinal()];
+    }
+
+    /**
+     * @param logicStageIdentifier The logic stage
+     * @return The number of possibilities removed while running the logic stage, including any that followed directly from values it set
+     */
+    public long getEliminations(LogicStageIdentifier logicStageIdentifier) {
+        return this.eliminations[logicStageIdentifier.ordinal()];
+    }
+
+    /**
+     * @param logicStageIdentifier The logic stage
+     * @return The number of cells whose value was set while running the logic stage
+     */
+    public long getPlacements(LogicStageIdentifier logicStageIdentifier) {
+        return this.placements[logicStageIdentifier.ordinal()];
+    }
+
+    /**
+     * @param logicStageIdentifier The logic stage
+     * @return The number of runs of the logic stage that removed possibilities or set values
+     */
+    public long getProgressRuns(LogicStageIdentifier logicStageIdentifier) {
+        return this.progressRuns[logicStageIdentifier.ordinal()];
+    }
+
+    /**
+     * @param logicStageIdentifier The logic stage
+     * @return The width of the widest run of the logic stage that removed possibilities or set values, or 0 if none did
+     */
+    public int getWidestStep(LogicStageIdentifier logicStageIdentifier) {
+        return this.widestSteps[logicStageIdentifier.ordinal()];
+    }
+
+    public long getNanos(LogicStageIdentifier logicStageIdentifier) {
+        return this.nanos[logicStageIdentifier.ordinal()];
+    }
+
+    public void reset() {
+        Arrays.fill(this.enqueues, 0);
+        Arrays.fill(this.duplicateEnqueues, 0);
+        Arrays.fill(this.skips, 0);
+        Arrays.fill(this.runs, 0);
+        Arrays.fill(this.eliminations, 0);
+        Arrays.fill(this.placements, 0);
+        Arrays.fill(this.progressRuns, 0);
+        Arrays.fill(this.widestSteps, 0);
+        Arrays.fill(this.nanos, 0);
+    }
+
+    /**
+     * Add these metrics to the totals for the whole process.
+     */
+    public void publish() {
+        for (LogicStageIdentifier logicStageIdentifier : LOGIC_STAGES) {
+            int stage = logicStageIdentifier.ordinal();
+            LogicStageTotals.forStage(logicStageIdentifier).add(
+                this.enqueues[stage],
+                this.duplicateEnqueues[stage],
+                this.skips[stage],
+                this.runs[stage],
+                this.eliminations[stage],
+                this.placements[stage],
+                this.nanos[stage]
+            );
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder stringBuilder = new StringBuilder();
+        for (LogicStageIdentifier logicStageIdentifier : LOGIC_STAGES) {
+            int stage = logicStageIdentifier.ordinal();
+            stringBuilder.append(logicStageIdentifier)
+                .append(": enqueues=").append(this.enqueues[stage])
+                .append(" duplicateEnqueues=").append(this.duplicateEnqueues[stage])
+                .append(" skips=").append(this.skips[stage])
+                .append(" runs=").append(this.runs[stage])
+                .append(" eliminations=").append(this.eliminations[stage])
+                .append(" placements=").append(this.placements[stage])
+                .append(" progressRuns=").append(this.progressRuns[stage])
+                .append(" widestStep=").append(this.widestSteps[stage])
+                .append(" nanos=").append(this.nanos[stage])
+                .append(System.lineSeparator());
+        }
+        return stringBuilder.toString();
+    }
+}
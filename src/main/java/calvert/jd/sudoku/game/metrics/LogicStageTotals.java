@@ -0,0 +1,111 @@
+package calvert.jd.sudoku.game.metrics;
+
+import calvert.jd.sudoku.game.logic.LogicStageIdentifier;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Totals of what a logic stage has done across every solve in the process. Any number of games can add to the totals at once.
+ * <p>
+ * The totals for each logic stage are registered with the platform MBean server, under {@code calvert.jd.sudoku:type=LogicStageTotals,name=<logic stage>}.
+ */
+public class LogicStageTotals implements LogicStageTotalsMXBean {
+
+    private static final LogicStageTotals[] TOTALS = new LogicStageTotals[LogicStageIdentifier.values().length];
+
+    static {
+        for (LogicStageIdentifier logicStageIdentifier : LogicStageIdentifier.values()) {
+            LogicStageTotals totals = new LogicStageTotals();
+            TOTALS[logicStageIdentifier.ordinal()] = totals;
+
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(
+                    totals,
+                    new ObjectName("calvert.jd.sudoku:type=LogicStageTotals,name=" + logicStageIdentifier.name())
+                );
+            } catch (JMException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private final LongAdder enqueues = new LongAdder();
+    private final LongAdder duplicateEnqueues = new LongAdder();
+    private final LongAdder skips = new LongAdder();
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder eliminations = new LongAdder();
+    private final LongAdder placements = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+
+    private LogicStageTotals() {
+    }
+
+    public static LogicStageTotals forStage(LogicStageIdentifier logicStageIdentifier) {
+        return TOTALS[logicStageIdentifier.ordinal()];
+    }
+
+    void add(long enqueues, long duplicateEnqueues, long skips, long runs, long eliminations, long placements, long nanos) {
+        this.enqueues.add(enqueues);
+        this.duplicateEnqueues.add(duplicateEnqueues);
+        this.skips.add(skips);
+        this.runs.add(runs);
+        this.eliminations.add(eliminations);
+        this.placements.add(placements);
+        this.nanos.add(nanos);
+    }
+
+    @Override
+    public long getEnqueues() {
+        return this.enqueues.sum();
+    }
+
+    @Override
+    public long getDuplicateEnqueues() {
+        return this.duplicateEnqueues.sum();
+    }
+
+    @Override
+    public long getSkips() {
+        return this.skips.sum();
+    }
+
+    @Override
+    public long getRuns() {
+        return this.runs.sum();
+    }
+
+    @Override
+    public long getEliminations() {
+        return this.eliminations.sum();
+    }
+
+    @Override
+    public long getPlacements() {
+        return this.placements.sum();
+    }
+
+    @Override
+    public long getTotalNanos() {
+        return this.nanos.sum();
+    }
+
+    @Override
+    public double getMeanNanosPerRun() {
+        long runs = getRuns();
+        return runs == 0 ? 0 : (double) getTotalNanos() / runs;
+    }
+
+    @Override
+    public void reset() {
+        this.enqueues.reset();
+        this.duplicateEnqueues.reset();
+        this.skips.reset();
+        this.runs.reset();
+        this.eliminations.reset();
+        this.placements.reset();
+        this.nanos.reset();
+    }
+}
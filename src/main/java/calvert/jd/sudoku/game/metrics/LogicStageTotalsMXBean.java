@@ -0,0 +1,31 @@
+package calvert.jd.sudoku.game.metrics;
+
+/**
+ * Management interface for the totals of what a logic stage has done across every solve in the process.
+ */
+public interface LogicStageTotalsMXBean {
+
+    long getEnqueues();
+
+    long getDuplicateEnqueues();
+
+    long getSkips();
+
+    long getRuns();
+
+    long getEliminations();
+
+    long getPlacements();
+
+    long getTotalNanos();
+
+    /**
+     * @return The mean time taken by each run of the logic stage, or 0 if it hasn't run
+     */
+    double getMeanNanosPerRun();
+
+    /**
+     * Set all the totals back to zero
+     */
+    void reset();
+}
@@ -1,11 +1,6 @@
 package calvert.jd.sudoku.game.rules;
 
-import calvert.jd.sudoku.game.Cell;
-import calvert.jd.sudoku.game.GameState;
-
-import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import calvert.jd.sudoku.game.BoardSize;
 
 import static calvert.jd.sudoku.game.rules.Rule.RuleIdentifier.ADJACENT_SEQUENTIAL_RULE;
 import static java.lang.Math.abs;
@@ -13,14 +8,10 @@ import static java.lang.Math.abs;
 public class AdjacentNonSequentialRule extends Rule {
 
     @Override
-    public List<Cell> getVisibleCells(GameState gameState, Cell cell) {
-        return gameState.getCells().stream()
-            .filter(visibleCell -> {
-                int iDiff = abs(visibleCell.getI() - cell.getI());
-                int jDiff = abs(visibleCell.getJ() - cell.getJ());
-                return (iDiff == 1 && jDiff == 0) || (jDiff == 1 && iDiff == 0);
-            })
-            .collect(Collectors.toList());
+    protected boolean isVisible(BoardSize boardSize, int i, int j, int visibleI, int visibleJ) {
+        int iDiff = abs(visibleI - i);
+        int jDiff = abs(visibleJ - j);
+        return (iDiff == 1 && jDiff == 0) || (jDiff == 1 && iDiff == 0);
     }
 
     @Override
@@ -29,7 +20,7 @@ public class AdjacentNonSequentialRule extends Rule {
     }
 
     @Override
-    public boolean appliesToCell(Cell cell) {
+    public boolean appliesToCell(BoardSize boardSize, int i, int j) {
         return true;
     }
 
@@ -39,11 +30,9 @@ public class AdjacentNonSequentialRule extends Rule {
     }
 
     @Override
-    public List<Integer> getPossibilitiesToEliminate(List<Integer> valuesToCheck) {
-        return valuesToCheck.stream()
-            .flatMap(value -> Stream.of(value - 1, value + 1))
-            .distinct()
-            .filter(value -> value >= 1 && value <= 9)
-            .collect(Collectors.toList());
+    public int getPossibilitiesToEliminate(int valuesToCheck) {
+        // Shifting the mask by one in each direction gives the values one below and one above each value to check. The value above the largest value on the board can never
+        // be a possibility, so it doesn't need masking off.
+        return (valuesToCheck << 1) | (valuesToCheck >>> 1);
     }
 }
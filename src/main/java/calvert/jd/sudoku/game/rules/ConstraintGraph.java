@@ -0,0 +1,362 @@
+package calvert.jd.sudoku.game.rules;
+
+import calvert.jd.sudoku.game.BoardSize;
+import calvert.jd.sudoku.game.Cell;
+import calvert.jd.sudoku.game.rules.Rule.RuleIdentifier;
+import calvert.jd.sudoku.game.util.PossibleValues;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static java.util.Objects.isNull;
+
+/**
+ * A set of rules compiled into arrays of cell indices (see {@link Cell#getIndex()}), so that solving doesn't need to ask each rule which cells it applies to and what it
+ * eliminates.
+ * <p>
+ * Rules that stop visible cells sharing a value give each cell a list of peers. Rules that eliminate other values, such as the adjacent non-sequential rule, give each cell a
+ * list of related cells, along with a table of the values each value eliminates from each related cell, so that placing a value prunes its related cells with one lookup each,
+ * and narrowing down a cell's possible values prunes them with one lookup for each possible value. Inclusive rules also give units of cells, such as rows and regions, that must hold every value, and each cell
+ * knows the units it is in and its position in each, so that where each value can still go in a unit can be kept as a mask of positions.
+ * <p>
+ * The graph only depends on the rules and the size of the board, so it is built once per distinct set of rules on each size of board and then shared, read-only, by every game
+ * and solution counter using those rules. The returned arrays are shared, so must not be modified.
+ */
+public class ConstraintGraph {
+
+    private static final Map<BoardSize, Map<Set<RuleIdentifier>, ConstraintGraph>> GRAPHS = new EnumMap<>(BoardSize.class);
+
+    static {
+        for (BoardSize boardSize : BoardSize.values()) {
+            GRAPHS.put(boardSize, new ConcurrentHashMap<>());
+        }
+    }
+
+    private final BoardSize boardSize;
+    private final List<Rule> rules;
+
+    private final int[][] peers;
+    private final int[][] relatedCells;
+    private final int[][][] relatedEliminations; // For each cell and related cell, the candidates each value eliminates from the related cell
+    private final int[][] units;
+    private final int[][] ruleUnits; // For each rule, by the ordinal of its identifier, and each cell, the unit the rule gives the cell, or -1 if none
+    private final int[][][] ruleVisibleCells; // For each rule, by the ordinal of its identifier, and each cell, the cells visible to it by the rule, or null if it doesn't apply
+    private final int[][] unitsOfCell;
+    private final int[][] positionsInUnits; // For each cell and each of its units, the position of the cell in the unit
+    private final int[][] visibleCells; // For each cell, the cells visible to it by any rule, in order of index
+    private final long[][] visibleCellWords; // For each cell, the cells visible to it by any rule, as the words of a bit set of cell indices
+    private final long[][] unitCellWords; // For each unit, its cells as the words of a bit set of cell indices
+
+    private ConstraintGraph(BoardSize boardSize, Set<RuleIdentifier> ruleIdentifiers) {
+        this.boardSize = boardSize;
+
+        List<Rule> rules = new ArrayList<>();
+        ruleIdentifiers.forEach(ruleIdentifier -> rules.add(ruleIdentifier.getRule()));
+        this.rules = Collections.unmodifiableList(rules);
+
+        List<Rule> uniqueRules = new ArrayList<>();
+        List<Rule> relationRules = new ArrayList<>();
+        for (Rule rule : rules) {
+            if (eliminatesOnlyItsOwnValue(rule)) {
+                uniqueRules.add(rule);
+            } else {
+                relationRules.add(rule);
+            }
+        }
+
+        int[][] eliminationTables = relationRules.stream().map(this::eliminationTable).toArray(int[][]::new);
+
+        int numCells = boardSize.getNumCells();
+        this.ruleVisibleCells = new int[RuleIdentifier.values().length][][];
+        for (Rule rule : rules) {
+            int[][] ruleVisibleCells = new int[numCells][];
+            for (int index = 0; index < numCells; index++) {
+                if (rule.appliesToCell(boardSize, index % boardSize.getSize(), index / boardSize.getSize())) {
+                    ruleVisibleCells[index] = rule.getVisibleCellIndices(boardSize, index);
+                }
+            }
+            this.ruleVisibleCells[rule.getRuleIdentifier().ordinal()] = ruleVisibleCells;
+        }
+
+        this.peers = new int[numCells][];
+        this.relatedCells = new int[numCells][];
+        this.relatedEliminations = new int[numCells][][];
+        for (int index = 0; index < numCells; index++) {
+            int i = index % boardSize.getSize();
+            int j = index / boardSize.getSize();
+
+            BitSet peers = new BitSet(numCells);
+            for (Rule rule : uniqueRules) {
+                if (rule.appliesToCell(boardSize, i, j)) {
+                    Arrays.stream(rule.getVisibleCellIndices(boardSize, index)).forEach(peers::set);
+                }
+            }
+            this.peers[index] = peers.stream().toArray();
+
+            List<Integer> related = new ArrayList<>();
+            List<int[]> eliminations = new ArrayList<>();
+            for (int r = 0; r < relationRules.size(); r++) {
+                Rule rule = relationRules.get(r);
+                if (rule.appliesToCell(boardSize, i, j)) {
+                    int[] eliminationTable = eliminationTables[r];
+                    for (int visibleIndex : rule.getVisibleCellIndices(boardSize, index)) {
+                        related.add(visibleIndex);
+                        eliminations.add(eliminationTable);
+                    }
+                }
+            }
+            this.relatedCells[index] = related.stream().mapToInt(Integer::intValue).toArray();
+            this.relatedEliminations[index] = eliminations.toArray(new int[0][]);
+        }
+
+        this.ruleUnits = new int[RuleIdentifier.values().length][];
+        this.units = buildUnits(uniqueRules);
+
+        List<List<Integer>> unitsOfCell = new ArrayList<>();
+        List<List<Integer>> positionsInUnits = new ArrayList<>();
+        for (int index = 0; index < numCells; index++) {
+            unitsOfCell.add(new ArrayList<>());
+            positionsInUnits.add(new ArrayList<>());
+        }
+        this.unitCellWords = new long[this.units.length][];
+        for (int unit = 0; unit < this.units.length; unit++) {
+            for (int position = 0; position < this.units[unit].length; position++) {
+                unitsOfCell.get(this.units[unit][position]).add(unit);
+                positionsInUnits.get(this.units[unit][position]).add(position);
+            }
+            this.unitCellWords[unit] = toWords(this.units[unit]);
+        }
+        this.unitsOfCell = unitsOfCell.stream().map(units -> units.stream().mapToInt(Integer::intValue).toArray()).toArray(int[][]::new);
+        this.positionsInUnits = positionsInUnits.stream().map(positions -> positions.stream().mapToInt(Integer::intValue).toArray()).toArray(int[][]::new);
+
+        this.visibleCells = new int[numCells][];
+        this.visibleCellWords = new long[numCells][];
+        for (int index = 0; index < numCells; index++) {
+            this.visibleCells[index] = IntStream.concat(Arrays.stream(this.peers[index]), Arrays.stream(this.relatedCells[index])).sorted().distinct().toArray();
+            this.visibleCellWords[index] = toWords(this.visibleCells[index]);
+        }
+    }
+
+    /**
+     * Get the graph for the given rules, compiling it if this is the first time these rules have been used on this size of board.
+     *
+     * @param boardSize The size of the board
+     * @param rules     The rules in play, in any order
+     * @return The shared graph for the given rules
+     */
+    public static ConstraintGraph forRules(BoardSize boardSize, Collection<RuleIdentifier> rules) {
+        Set<RuleIdentifier> ruleIdentifiers = EnumSet.noneOf(RuleIdentifier.class);
+        ruleIdentifiers.addAll(rules);
+
+        return GRAPHS.get(boardSize).computeIfAbsent(ruleIdentifiers, key -> new ConstraintGraph(boardSize, ruleIdentifiers));
+    }
+
+    public BoardSize getBoardSize() {
+        return this.boardSize;
+    }
+
+    /**
+     * @return The rules the graph was compiled from, in the order of {@link RuleIdentifier}
+     */
+    public List<Rule> getRules() {
+        return this.rules;
+    }
+
+    /**
+     * @param index The index of a cell
+     * @return The indices of the cells that can't share a value with the cell
+     */
+    public int[] getPeers(int index) {
+        return this.peers[index];
+    }
+
+    /**
+     * @param index The index of a cell
+     * @return The indices of the cells whose candidates depend on the value of the cell in some other way. A cell can be related to the same cell by more than one rule.
+     */
+    public int[] getRelatedCells(int index) {
+        return this.relatedCells[index];
+    }
+
+    /**
+     * @param index The index of a cell
+     * @return For each of the cell's related cells, in the same order as {@link #getRelatedCells(int)}, a table from each value of the cell to the mask of possible values it
+     * eliminates from the related cell. Use {@link #getEliminations(int[], int)} to look up what a mask of possible values eliminates.
+     */
+    public int[][] getRelatedEliminations(int index) {
+        return this.relatedEliminations[index];
+    }
+
+    /**
+     * Look up what a cell eliminates from a related cell whichever of its possible values it turns out to have, as in
+     * {@link Rule#getPossibilitiesToEliminateForPossibleValues(int)}.
+     *
+     * @param eliminations   A table from {@link #getRelatedEliminations(int)}
+     * @param possibleValues The possible values of the cell, as a mask
+     * @return The possible values eliminated from the related cell, as a mask
+     */
+    public static int getEliminations(int[] eliminations, int possibleValues) {
+        if (possibleValues == PossibleValues.NONE) {
+            return PossibleValues.NONE;
+        }
+
+        int eliminated = ~PossibleValues.NONE;
+        for (int remaining = possibleValues; remaining != PossibleValues.NONE && eliminated != PossibleValues.NONE; remaining = PossibleValues.withoutLowest(remaining)) {
+            eliminated &= eliminations[PossibleValues.lowest(remaining)];
+        }
+        return eliminated;
+    }
+
+    /**
+     * @param index The index of a cell
+     * @return The indices of the cells visible to the cell by any rule, either as peers or as related cells, in order
+     */
+    public int[] getVisibleCells(int index) {
+        return this.visibleCells[index];
+    }
+
+    /**
+     * @param rule  One of the graph's rules
+     * @param index The index of a cell
+     * @return The indices of the cells visible to the cell by the rule, in order, or null if the rule doesn't apply to the cell
+     */
+    public int[] getVisibleCells(Rule rule, int index) {
+        return this.ruleVisibleCells[rule.getRuleIdentifier().ordinal()][index];
+    }
+
+    /**
+     * @param cells The cells to be processed
+     * @return The set of indices of cells that are visible to all the given cells by any rule
+     */
+    public BitSet getCellsVisibleToAll(Collection<Cell> cells) {
+        long[] visibleToAll = new long[(this.boardSize.getNumCells() + Long.SIZE - 1) / Long.SIZE];
+        Arrays.fill(visibleToAll, -1L);
+        for (Cell cell : cells) {
+            long[] visibleCellWords = this.visibleCellWords[cell.getIndex()];
+            for (int word = 0; word < visibleToAll.length; word++) {
+                visibleToAll[word] &= visibleCellWords[word];
+            }
+        }
+
+        BitSet visibleCells = BitSet.valueOf(visibleToAll);
+        visibleCells.clear(this.boardSize.getNumCells(), visibleToAll.length * Long.SIZE);
+        return visibleCells;
+    }
+
+    /**
+     * @return The indices of the cells of each unit, in order, where a unit is as many cells as there are values, all of which can see each other by one inclusive rule, so
+     * each value must be in one of them
+     */
+    public int[][] getUnits() {
+        return this.units;
+    }
+
+    /**
+     * @param rule  A rule
+     * @param index The index of a cell
+     * @return The index in {@link #getUnits()} of the unit the rule gives the cell, or -1 if the rule doesn't give the cell a unit
+     */
+    public int getUnit(Rule rule, int index) {
+        int[] ruleUnits = this.ruleUnits[rule.getRuleIdentifier().ordinal()];
+        return isNull(ruleUnits) ? -1 : ruleUnits[index];
+    }
+
+    /**
+     * @param index The index of a cell
+     * @return The indices in {@link #getUnits()} of the units the cell is in
+     */
+    public int[] getUnitsOfCell(int index) {
+        return this.unitsOfCell[index];
+    }
+
+    /**
+     * @param index The index of a cell
+     * @return The position of the cell in each of its units, in the same order as {@link #getUnitsOfCell(int)}
+     */
+    public int[] getPositionsInUnits(int index) {
+        return this.positionsInUnits[index];
+    }
+
+    /**
+     * Whether any cell outside a unit can see every cell at the given positions in the unit, by any rule. If a value can only go in those cells, it can be eliminated from
+     * such cells, as with pointing and claiming, where the positions are all in the intersection of a row or column with a region.
+     *
+     * @param unit      The index of a unit in {@link #getUnits()}
+     * @param positions The positions in the unit, as a mask with bit n for position n
+     * @return Whether there are any cells outside the unit that can see all those cells
+     */
+    public boolean hasCellsVisibleToAll(int unit, int positions) {
+        long[] unitWords = this.unitCellWords[unit];
+        for (int word = 0; word < unitWords.length; word++) {
+            long visibleToAll = ~unitWords[word];
+            for (int remaining = positions; remaining != 0 && visibleToAll != 0; remaining &= remaining - 1) {
+                visibleToAll &= this.visibleCellWords[this.units[unit][Integer.numberOfTrailingZeros(remaining)]][word];
+            }
+            if (visibleToAll != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long[] toWords(int[] indices) {
+        BitSet cells = new BitSet(this.boardSize.getNumCells());
+        Arrays.stream(indices).forEach(cells::set);
+        return Arrays.copyOf(cells.toLongArray(), (this.boardSize.getNumCells() + Long.SIZE - 1) / Long.SIZE);
+    }
+
+    private int[][] buildUnits(List<Rule> uniqueRules) {
+        Map<List<Integer>, Integer> units = new LinkedHashMap<>();
+        for (Rule rule : uniqueRules) {
+            if (rule.isInclusive()) {
+                int[] ruleUnits = new int[this.boardSize.getNumCells()];
+                Arrays.fill(ruleUnits, -1);
+                this.ruleUnits[rule.getRuleIdentifier().ordinal()] = ruleUnits;
+
+                for (int index = 0; index < this.boardSize.getNumCells(); index++) {
+                    int[] visibleCellIndices = rule.getVisibleCellIndices(this.boardSize, index);
+                    if (rule.appliesToCell(this.boardSize, index % this.boardSize.getSize(), index / this.boardSize.getSize())
+                        && visibleCellIndices.length == this.boardSize.getSize() - 1) {
+                        List<Integer> unit = new ArrayList<>();
+                        unit.add(index);
+                        Arrays.stream(visibleCellIndices).forEach(unit::add);
+                        Collections.sort(unit);
+                        ruleUnits[index] = units.computeIfAbsent(unit, key -> units.size());
+                    }
+                }
+            }
+        }
+
+        return units.keySet().stream()
+            .map(unit -> unit.stream().mapToInt(Integer::intValue).toArray())
+            .toArray(int[][]::new);
+    }
+
+    private boolean eliminatesOnlyItsOwnValue(Rule rule) {
+        for (int value = 1; value <= this.boardSize.getSize(); value++) {
+            if (rule.getPossibilitiesToEliminateForValue(value) != PossibleValues.of(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int[] eliminationTable(Rule rule) {
+        int[] eliminations = new int[this.boardSize.getSize() + 1];
+        for (int value = 1; value <= this.boardSize.getSize(); value++) {
+            eliminations[value] = rule.getPossibilitiesToEliminateForValue(value) & this.boardSize.getAllValues();
+        }
+        return eliminations;
+    }
+}
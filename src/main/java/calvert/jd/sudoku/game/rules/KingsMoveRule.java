@@ -1,10 +1,6 @@
 package calvert.jd.sudoku.game.rules;
 
-import calvert.jd.sudoku.game.Cell;
-import calvert.jd.sudoku.game.GameState;
-
-import java.util.List;
-import java.util.stream.Collectors;
+import calvert.jd.sudoku.game.BoardSize;
 
 import static calvert.jd.sudoku.game.rules.Rule.RuleIdentifier.KINGS_MOVE_RULE;
 import static java.lang.Math.abs;
@@ -12,15 +8,10 @@ import static java.lang.Math.abs;
 public class KingsMoveRule extends Rule {
 
     @Override
-    public List<Cell> getVisibleCells(GameState gameState, Cell cell) {
-        return gameState.getCells().stream()
-            .filter(possibleCell -> possibleCell != cell)
-            .filter(possibleCell -> {
-                int iDiff = abs(cell.getI() - possibleCell.getI());
-                int jDiff = abs(cell.getJ() - possibleCell.getJ());
-                return iDiff <= 1 && jDiff <= 1;
-            })
-            .collect(Collectors.toList());
+    protected boolean isVisible(BoardSize boardSize, int i, int j, int visibleI, int visibleJ) {
+        int iDiff = abs(i - visibleI);
+        int jDiff = abs(j - visibleJ);
+        return iDiff <= 1 && jDiff <= 1;
     }
 
     @Override
@@ -29,7 +20,7 @@ public class KingsMoveRule extends Rule {
     }
 
     @Override
-    public boolean appliesToCell(Cell cell) {
+    public boolean appliesToCell(BoardSize boardSize, int i, int j) {
         return true;
     }
 
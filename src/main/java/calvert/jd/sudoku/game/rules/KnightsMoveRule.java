@@ -1,10 +1,6 @@
 package calvert.jd.sudoku.game.rules;
 
-import calvert.jd.sudoku.game.Cell;
-import calvert.jd.sudoku.game.GameState;
-
-import java.util.List;
-import java.util.stream.Collectors;
+import calvert.jd.sudoku.game.BoardSize;
 
 import static calvert.jd.sudoku.game.rules.Rule.RuleIdentifier.KNIGHTS_MOVE_RULE;
 import static java.lang.Math.abs;
@@ -12,14 +8,10 @@ import static java.lang.Math.abs;
 public class KnightsMoveRule extends Rule {
 
     @Override
-    public List<Cell> getVisibleCells(GameState gameState, Cell cell) {
-        return gameState.getCells().stream()
-            .filter(someCell -> {
-                int iDiff = abs(cell.getI() - someCell.getI());
-                int jDiff = abs(cell.getJ() - someCell.getJ());
-                return iDiff * jDiff == 2;
-            })
-            .collect(Collectors.toList());
+    protected boolean isVisible(BoardSize boardSize, int i, int j, int visibleI, int visibleJ) {
+        int iDiff = abs(i - visibleI);
+        int jDiff = abs(j - visibleJ);
+        return iDiff * jDiff == 2;
     }
 
     @Override
@@ -28,7 +20,7 @@ public class KnightsMoveRule extends Rule {
     }
 
     @Override
-    public boolean appliesToCell(Cell cell) {
+    public boolean appliesToCell(BoardSize boardSize, int i, int j) {
         return true;
     }
 
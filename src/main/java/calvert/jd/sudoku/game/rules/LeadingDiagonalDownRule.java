@@ -1,23 +1,14 @@
 package calvert.jd.sudoku.game.rules;
 
-import calvert.jd.sudoku.game.Cell;
-import calvert.jd.sudoku.game.GameState;
-
-import java.util.List;
-import java.util.stream.Collectors;
+import calvert.jd.sudoku.game.BoardSize;
 
 import static calvert.jd.sudoku.game.rules.Rule.RuleIdentifier.LEADING_DIAGONAL_DOWN_RULE;
 
 public class LeadingDiagonalDownRule extends Rule {
 
     @Override
-    public List<Cell> getVisibleCells(GameState gameState, Cell cell) {
-        List<Cell> visibleCells = gameState.getCells().stream()
-            .filter(visibleCell -> visibleCell.getI() == visibleCell.getJ())
-            .collect(Collectors.toList());
-
-        visibleCells.remove(cell);
-        return visibleCells;
+    protected boolean isVisible(BoardSize boardSize, int i, int j, int visibleI, int visibleJ) {
+        return visibleI == visibleJ;
     }
 
     @Override
@@ -26,8 +17,8 @@ public class LeadingDiagonalDownRule extends Rule {
     }
 
     @Override
-    public boolean appliesToCell(Cell cell) {
-        return cell.getI() == cell.getJ();
+    public boolean appliesToCell(BoardSize boardSize, int i, int j) {
+        return i == j;
     }
 
     @Override
@@ -1,22 +1,81 @@
 package calvert.jd.sudoku.game.rules;
 
+import calvert.jd.sudoku.game.BoardSize;
 import calvert.jd.sudoku.game.Cell;
-import calvert.jd.sudoku.game.GameState;
+import calvert.jd.sudoku.game.util.PossibleValues;
 
-import java.util.List;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
-import static java.util.Collections.singletonList;
+import static java.util.Objects.isNull;
 
 public abstract class Rule {
 
+    // For each board size, and each cell index, the indices of the cells visible to it by this rule. Built on first use and then shared by every game.
+    private final AtomicReferenceArray<int[][]> visibleCellIndices = new AtomicReferenceArray<>(BoardSize.values().length);
+
+    // For each value on the largest board, the possibilities it eliminates from visible cells. Built on first use and then shared by every game.
+    private volatile int[] possibilitiesToEliminateForValue;
+
+    /**
+     * Find the indices of the cells visible to the given cell by this rule. The returned array is shared, so must not be modified.
+     *
+     * @param cell The cell to be processed
+     * @return The indices (see {@link Cell#getIndex()}) of the cells visible to the cell being processed by this rule
+     */
+    public final int[] getVisibleCellIndices(Cell cell) {
+        return getVisibleCellIndices(cell.getBoardSize(), cell.getIndex());
+    }
+
+    /**
+     * Find the indices of the cells visible to the cell at the given index by this rule. The returned array is shared, so must not be modified.
+     *
+     * @param boardSize The size of the board
+     * @param index     The index (see {@link Cell#getIndex()}) of the cell to be processed
+     * @return The indices of the cells visible to the cell being processed by this rule
+     */
+    public final int[] getVisibleCellIndices(BoardSize boardSize, int index) {
+        int[][] visibleCellIndices = this.visibleCellIndices.get(boardSize.ordinal());
+        if (isNull(visibleCellIndices)) {
+            visibleCellIndices = buildVisibleCellIndices(boardSize);
+            this.visibleCellIndices.set(boardSize.ordinal(), visibleCellIndices);
+        }
+        return visibleCellIndices[index];
+    }
+
+    private int[][] buildVisibleCellIndices(BoardSize boardSize) {
+        int size = boardSize.getSize();
+        int numCells = boardSize.getNumCells();
+
+        int[][] visibleCellIndices = new int[numCells][];
+        for (int index = 0; index < numCells; index++) {
+            int i = index % size;
+            int j = index / size;
+
+            int[] visible = new int[numCells];
+            int numVisible = 0;
+            for (int visibleIndex = 0; visibleIndex < numCells; visibleIndex++) {
+                if (visibleIndex != index && isVisible(boardSize, i, j, visibleIndex % size, visibleIndex / size)) {
+                    visible[numVisible++] = visibleIndex;
+                }
+            }
+            visibleCellIndices[index] = Arrays.copyOf(visible, numVisible);
+        }
+        return visibleCellIndices;
+    }
+
     /**
-     * Find the cells visible to the given cell by this rule
+     * Whether the cell at one position can see the cell at another position by this rule. This is only used to build the index of visible cells, so doesn't need to be fast. A
+     * cell is never considered to see itself.
      *
-     * @param gameState The current game state
-     * @param cell      The cell to be processed
-     * @return A list of cells visible to the cell being processed by this rule
+     * @param boardSize The size of the board
+     * @param i         The column of the cell being processed
+     * @param j         The row of the cell being processed
+     * @param visibleI  The column of the cell that might be visible
+     * @param visibleJ  The row of the cell that might be visible
+     * @return Whether the second cell is visible to the first
      */
-    public abstract List<Cell> getVisibleCells(GameState gameState, Cell cell);
+    protected abstract boolean isVisible(BoardSize boardSize, int i, int j, int visibleI, int visibleJ);
 
     /**
      * Whether the rule is inclusive. It is inclusive if, from any given cell, any cell visible by this rule can see all other visible cells.
@@ -31,23 +90,77 @@ public abstract class Rule {
      * @param cell The cell being processed
      * @return Whether the rule applies to the given cell
      */
-    public abstract boolean appliesToCell(Cell cell);
+    public final boolean appliesToCell(Cell cell) {
+        return appliesToCell(cell.getBoardSize(), cell.getI(), cell.getJ());
+    }
+
+    /**
+     * Whether the rule applies to the cell at the given position.
+     *
+     * @param boardSize The size of the board
+     * @param i         The column of the cell being processed
+     * @param j         The row of the cell being processed
+     * @return Whether the rule applies to the cell
+     */
+    public abstract boolean appliesToCell(BoardSize boardSize, int i, int j);
 
     public abstract RuleIdentifier getRuleIdentifier();
 
     /**
-     * Calculate the possibilities to be eliminated by this rule.
+     * Calculate the possibilities to be eliminated by this rule. This is only used to build the table behind {@link #getPossibilitiesToEliminateForValue(int)}, so doesn't
+     * need to be fast.
      * By default, this is the same as the values passed in (i.e. a cell should not be able to see any cell with the same value). This can be overridden for rules that differ,
      *
-     * @param valuesToCheck The values to check the rule against.
-     * @return Which possibilities should be eliminated from visible cells
+     * @param valuesToCheck The values to check the rule against, as a mask as described in {@link PossibleValues}
+     * @return Which possibilities should be eliminated from visible cells, as a mask
      */
-    public List<Integer> getPossibilitiesToEliminate(List<Integer> valuesToCheck) {
+    public int getPossibilitiesToEliminate(int valuesToCheck) {
         return valuesToCheck;
     }
 
-    public final List<Integer> getPossibilitiesToEliminate(Integer valueToCheck) {
-        return getPossibilitiesToEliminate(singletonList(valueToCheck));
+    /**
+     * Look up the possibilities to be eliminated from visible cells by a cell with the given value.
+     *
+     * @param valueToCheck The value of the cell being processed
+     * @return Which possibilities should be eliminated from visible cells, as a mask
+     */
+    public final int getPossibilitiesToEliminateForValue(int valueToCheck) {
+        int[] possibilitiesToEliminateForValue = this.possibilitiesToEliminateForValue;
+        if (isNull(possibilitiesToEliminateForValue)) {
+            possibilitiesToEliminateForValue = buildPossibilitiesToEliminateForValue();
+            this.possibilitiesToEliminateForValue = possibilitiesToEliminateForValue;
+        }
+        return possibilitiesToEliminateForValue[valueToCheck];
+    }
+
+    /**
+     * Calculate the possibilities to be eliminated from visible cells by a cell that doesn't have a value yet: those that would be eliminated whichever of its possible values
+     * it turns out to have. For rules that only stop visible cells sharing a value, this is nothing unless the cell has a single possibility, but for the adjacent
+     * non-sequential rule, for example, a cell that can only be 4 or 6 means no adjacent cell can be 5.
+     *
+     * @param possibleValues The possible values of the cell being processed, as a mask
+     * @return Which possibilities should be eliminated from visible cells, as a mask
+     */
+    public final int getPossibilitiesToEliminateForPossibleValues(int possibleValues) {
+        if (possibleValues == PossibleValues.NONE) {
+            return PossibleValues.NONE;
+        }
+
+        int possibilitiesToEliminate = ~PossibleValues.NONE;
+        for (int remaining = possibleValues; remaining != PossibleValues.NONE; remaining = PossibleValues.withoutLowest(remaining)) {
+            possibilitiesToEliminate &= getPossibilitiesToEliminateForValue(PossibleValues.lowest(remaining));
+        }
+        return possibilitiesToEliminate;
+    }
+
+    private int[] buildPossibilitiesToEliminateForValue() {
+        int maxValue = Arrays.stream(BoardSize.values()).mapToInt(BoardSize::getSize).max().orElse(0);
+
+        int[] possibilitiesToEliminateForValue = new int[maxValue + 1];
+        for (int value = 1; value <= maxValue; value++) {
+            possibilitiesToEliminateForValue[value] = getPossibilitiesToEliminate(PossibleValues.of(value));
+        }
+        return possibilitiesToEliminateForValue;
     }
 
     @Override
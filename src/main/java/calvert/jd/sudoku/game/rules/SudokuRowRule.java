@@ -1,10 +1,6 @@
 package calvert.jd.sudoku.game.rules;
 
-import calvert.jd.sudoku.game.Cell;
-import calvert.jd.sudoku.game.GameState;
-
-import java.util.List;
-import java.util.stream.Collectors;
+import calvert.jd.sudoku.game.BoardSize;
 
 import static calvert.jd.sudoku.game.rules.Rule.RuleIdentifier.SUDOKU_ROW_RULE;
 
@@ -14,11 +10,8 @@ import static calvert.jd.sudoku.game.rules.Rule.RuleIdentifier.SUDOKU_ROW_RULE;
 public class SudokuRowRule extends SudokuRule {
 
     @Override
-    public List<Cell> getVisibleCells(GameState gameState, Cell cell) {
-        return gameState.getCells().stream()
-            .filter(possibleCell -> possibleCell != cell)
-            .filter(possibleCell -> possibleCell.getJ() == cell.getJ())
-            .collect(Collectors.toList());
+    protected boolean isVisible(BoardSize boardSize, int i, int j, int visibleI, int visibleJ) {
+        return visibleJ == j;
     }
 
     @Override
@@ -1,6 +1,6 @@
 package calvert.jd.sudoku.game.rules;
 
-import calvert.jd.sudoku.game.Cell;
+import calvert.jd.sudoku.game.BoardSize;
 
 /**
  * Abstract class for standard Sudoku rules. These rules are inclusive and eliminate possible values with the same value
@@ -14,7 +14,7 @@ public abstract class SudokuRule extends Rule {
     }
 
     @Override
-    public boolean appliesToCell(Cell cell) {
+    public boolean appliesToCell(BoardSize boardSize, int i, int j) {
         return true;
     }
 }
@@ -0,0 +1,210 @@
+package calvert.jd.sudoku.game.save;
+
+import calvert.jd.sudoku.game.BoardSize;
+import calvert.jd.sudoku.game.logic.LogicStageIdentifier;
+import calvert.jd.sudoku.game.rules.Rule.RuleIdentifier;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Reads puzzles from text with one puzzle per line, as used by most published puzzle collections. The first 81 characters of a line are the cells in reading order, with '1' to
+ * '9' for a given and '.' or '0' for a blank cell. Anything after that, such as a rating, is ignored, as are blank lines and lines starting with '#'. Other sizes of board work
+ * the same way, with a character for each cell and letters for values above 9 (see {@link BoardSize#toChar(int)}).
+ * <p>
+ * Puzzles are read one at a time as they are asked for, through a fixed size character buffer, so files of any size can be read in constant memory. Every puzzle from a reader
+ * is given the same rules and constraints.
+ */
+public class LinePuzzleReader implements Iterator<SaveGame>, Closeable {
+
+    private static final int END_OF_INPUT = -1;
+
+    private final Reader reader;
+    private final BoardSize boardSize;
+    private final int numCells;
+    private final List<RuleIdentifier> rules;
+    private final List<LogicStageIdentifier> constraints;
+
+    private final char[] buffer = new char[8192];
+    private int position = 0;
+    private int limit = 0;
+
+    private final char[] line;
+    private long lineNumber = 0;
+    private long puzzleLineNumber = 0;
+
+    private SaveGame next = null;
+
+    /**
+     * @param reader      The text to read. It is read in blocks, so does not need to be buffered.
+     * @param rules       The rules to give every puzzle
+     * @param constraints The constraints to give every puzzle
+     */
+    public LinePuzzleReader(Reader reader, List<RuleIdentifier> rules, List<LogicStageIdentifier> constraints) {
+        this(reader, BoardSize.NINE_BY_NINE, rules, constraints);
+    }
+
+    /**
+     * @param reader      The text to read. It is read in blocks, so does not need to be buffered.
+     * @param boardSize   The size of every puzzle
+     * @param rules       The rules to give every puzzle
+     * @param constraints The constraints to give every puzzle
+     */
+    public LinePuzzleReader(Reader reader, BoardSize boardSize, List<RuleIdentifier> rules, List<LogicStageIdentifier> constraints) {
+        this.reader = reader;
+        this.boardSize = boardSize;
+        this.numCells = boardSize.getNumCells();
+        this.line = new char[this.numCells];
+        this.rules = rules;
+        this.constraints = constraints;
+    }
+
+    public static LinePuzzleReader open(Path path, List<RuleIdentifier> rules, List<LogicStageIdentifier> constraints) throws IOException {
+        return open(path, BoardSize.NINE_BY_NINE, rules, constraints);
+    }
+
+    public static LinePuzzleReader open(Path path, BoardSize boardSize, List<RuleIdentifier> rules, List<LogicStageIdentifier> constraints) throws IOException {
+        return new LinePuzzleReader(new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8), boardSize, rules, constraints);
+    }
+
+    /**
+     * @throws UncheckedIOException     If the text can't be read
+     * @throws IllegalArgumentException If the next line isn't a puzzle
+     */
+    @Override
+    public boolean hasNext() {
+        if (isNull(this.next)) {
+            try {
+                this.next = readPuzzle();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return nonNull(this.next);
+    }
+
+    @Override
+    public SaveGame next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        SaveGame saveGame = this.next;
+        this.next = null;
+        return saveGame;
+    }
+
+    /**
+     * @return The line number, starting from 1, of the puzzle last returned by {@link #next()}
+     */
+    public long getLineNumber() {
+        return this.puzzleLineNumber;
+    }
+
+    /**
+     * @return The remaining puzzles as a sequential stream. Closing the stream closes the reader.
+     */
+    public Stream<SaveGame> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+            .onClose(() -> {
+                try {
+                    close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+    }
+
+    private SaveGame readPuzzle() throws IOException {
+        while (true) {
+            int length = readLine();
+            if (length == END_OF_INPUT) {
+                return null;
+            }
+
+            if (length == 0 || this.line[0] == '#') {
+                continue;
+            }
+
+            if (length < this.numCells) {
+                throw new IllegalArgumentException("Line " + this.lineNumber + " has " + length + " cells instead of " + this.numCells);
+            }
+
+            int size = this.boardSize.getSize();
+            List<SaveCell> cells = new ArrayList<>();
+            for (int cellIndex = 0; cellIndex < this.numCells; cellIndex++) {
+                char character = this.line[cellIndex];
+                int value = this.boardSize.fromChar(character);
+                if (value > 0) {
+                    cells.add(new SaveCell(cellIndex % size, cellIndex / size, value));
+                } else if (value < 0) {
+                    throw new IllegalArgumentException("Line " + this.lineNumber + " has '" + character + "' at position " + (cellIndex + 1));
+                }
+            }
+
+            this.puzzleLineNumber = this.lineNumber;
+            return new SaveGame(this.boardSize, cells, this.rules, this.constraints);
+        }
+    }
+
+    /**
+     * Read the next line into the line buffer, keeping only as many characters as there are cells and skipping the rest of the line.
+     *
+     * @return The number of characters kept, or {@link #END_OF_INPUT} if there are no more lines
+     */
+    private int readLine() throws IOException {
+        int length = 0;
+        boolean readAnything = false;
+
+        for (int character = nextChar(); character != END_OF_INPUT; character = nextChar()) {
+            readAnything = true;
+            if (character == '\n') {
+                break;
+            }
+            if (character != '\r' && length < this.numCells) {
+                this.line[length++] = (char) character;
+            }
+        }
+
+        if (!readAnything) {
+            return END_OF_INPUT;
+        }
+
+        this.lineNumber++;
+        return length;
+    }
+
+    private int nextChar() throws IOException {
+        if (this.position == this.limit) {
+            this.limit = this.reader.read(this.buffer);
+            this.position = 0;
+            if (this.limit <= 0) {
+                this.limit = 0;
+                return END_OF_INPUT;
+            }
+        }
+        return this.buffer[this.position++];
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.reader.close();
+    }
+}
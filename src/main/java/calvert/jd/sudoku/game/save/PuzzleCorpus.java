@@ -0,0 +1,207 @@
+package calvert.jd.sudoku.game.save;
+
+import calvert.jd.sudoku.game.BoardSize;
+import calvert.jd.sudoku.game.logic.LogicStageIdentifier;
+import calvert.jd.sudoku.game.rules.Rule.RuleIdentifier;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read-only view of a packed binary file of puzzles, which is memory-mapped so that any puzzle can be read directly without parsing the rest of the file. Files are written by
+ * {@link PuzzleCorpusWriter}.
+ * <p>
+ * The file starts with a header:
+ * <pre>
+ *  0  int    magic number, "SDKC"
+ *  4  short  format version
+ *  6  byte   board size, the number of cells along each side
+ *  7  byte   reserved
+ *  8  int    record size in bytes
+ * 12  long   number of puzzles
+ * 20  ...    reserved up to the header size
+ * </pre>
+ * Followed by one fixed size record per puzzle, so puzzle {@code n} starts at {@code HEADER_SIZE + n * recordSize}:
+ * <pre>
+ *  0  short  rules, with bit n set for the rule whose {@link RuleIdentifier} ordinal is n
+ *  2  byte   constraints, with bit n set for the logic stage whose {@link LogicStageIdentifier} ordinal is n
+ *  3  ...    the initial value of each cell in reading order, with 0 for a blank cell
+ * </pre>
+ * Values are stored as 4 bit nibbles, high nibble first, on boards with at most 15 values, and as a byte each on larger boards.
+ * The flags use enum ordinals, so the format version must be increased if the enums are reordered.
+ * <p>
+ * Reads use absolute positions only, so a corpus can be read by any number of threads at once.
+ */
+public class PuzzleCorpus implements Closeable {
+
+    public static final String FILE_EXTENSION = ".corpus";
+
+    static final int MAGIC = 0x53444B43;
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int FLAGS_SIZE = 3;
+
+    private static final RuleIdentifier[] RULES = RuleIdentifier.values();
+    private static final LogicStageIdentifier[] LOGIC_STAGES = LogicStageIdentifier.values();
+
+    private final FileChannel channel;
+    private final BoardSize boardSize;
+    private final int numCells;
+    private final int recordSize;
+    private final long size;
+
+    // A single mapping can't be larger than 2GB, so large files are mapped as several segments of whole records
+    private final MappedByteBuffer[] segments;
+    private final long recordsPerSegment;
+
+    private PuzzleCorpus(FileChannel channel) throws IOException {
+        this.channel = channel;
+
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+        if (header.getInt(0) != MAGIC) {
+            throw new IOException("Not a puzzle corpus");
+        }
+        if (header.getShort(4) != VERSION) {
+            throw new IOException("Unsupported puzzle corpus version " + header.getShort(4));
+        }
+
+        try {
+            this.boardSize = BoardSize.forSize(header.get(6));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unsupported board size " + header.get(6), e);
+        }
+        this.numCells = this.boardSize.getNumCells();
+        this.recordSize = header.getInt(8);
+        this.size = header.getLong(12);
+
+        if (this.recordSize != recordSize(this.boardSize) || channel.size() < HEADER_SIZE + this.size * this.recordSize) {
+            throw new IOException("Puzzle corpus is truncated or corrupt");
+        }
+
+        this.recordsPerSegment = Integer.MAX_VALUE / this.recordSize;
+        this.segments = new MappedByteBuffer[(int) ((this.size + this.recordsPerSegment - 1) / this.recordsPerSegment)];
+        for (int segment = 0; segment < this.segments.length; segment++) {
+            long firstRecord = segment * this.recordsPerSegment;
+            long numRecords = Math.min(this.recordsPerSegment, this.size - firstRecord);
+            this.segments[segment] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + firstRecord * this.recordSize, numRecords * this.recordSize);
+        }
+    }
+
+    /**
+     * @param path The corpus file
+     * @return The corpus, mapped into memory
+     * @throws IOException If the file can't be read, or isn't a puzzle corpus
+     */
+    public static PuzzleCorpus open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new PuzzleCorpus(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    static int recordSize(BoardSize boardSize) {
+        return FLAGS_SIZE + (usesNibbles(boardSize) ? (boardSize.getNumCells() + 1) / 2 : boardSize.getNumCells());
+    }
+
+    static boolean usesNibbles(BoardSize boardSize) {
+        return boardSize.getSize() <= 0xF;
+    }
+
+    /**
+     * @return The number of puzzles in the corpus
+     */
+    public long size() {
+        return this.size;
+    }
+
+    public BoardSize getBoardSize() {
+        return this.boardSize;
+    }
+
+    /**
+     * @param puzzle    The index of the puzzle in the corpus
+     * @param cellIndex The index of the cell (see {@link calvert.jd.sudoku.game.Cell#getIndex()})
+     * @return The initial value of the cell, or 0 if it is blank
+     */
+    public int getValue(long puzzle, int cellIndex) {
+        if (!usesNibbles(this.boardSize)) {
+            return segment(puzzle).get(offset(puzzle) + FLAGS_SIZE + cellIndex) & 0xFF;
+        }
+
+        byte packed = segment(puzzle).get(offset(puzzle) + FLAGS_SIZE + cellIndex / 2);
+        return cellIndex % 2 == 0 ? (packed >> 4) & 0xF : packed & 0xF;
+    }
+
+    /**
+     * @param puzzle The index of the puzzle in the corpus
+     * @return The cells with initial values
+     */
+    public List<SaveCell> getCells(long puzzle) {
+        int size = this.boardSize.getSize();
+        List<SaveCell> cells = new ArrayList<>();
+        for (int cellIndex = 0; cellIndex < this.numCells; cellIndex++) {
+            int value = getValue(puzzle, cellIndex);
+            if (value != 0) {
+                cells.add(new SaveCell(cellIndex % size, cellIndex / size, value));
+            }
+        }
+        return cells;
+    }
+
+    public List<RuleIdentifier> getRules(long puzzle) {
+        int flags = segment(puzzle).getShort(offset(puzzle)) & 0xFFFF;
+
+        List<RuleIdentifier> rules = new ArrayList<>();
+        for (RuleIdentifier rule : RULES) {
+            if ((flags & (1 << rule.ordinal())) != 0) {
+                rules.add(rule);
+            }
+        }
+        return rules;
+    }
+
+    public List<LogicStageIdentifier> getConstraints(long puzzle) {
+        int flags = segment(puzzle).get(offset(puzzle) + 2) & 0xFF;
+
+        List<LogicStageIdentifier> constraints = new ArrayList<>();
+        for (LogicStageIdentifier logicStage : LOGIC_STAGES) {
+            if ((flags & (1 << logicStage.ordinal())) != 0) {
+                constraints.add(logicStage);
+            }
+        }
+        return constraints;
+    }
+
+    public SaveGame getSaveGame(long puzzle) {
+        return new SaveGame(this.boardSize, getCells(puzzle), getRules(puzzle), getConstraints(puzzle));
+    }
+
+    private MappedByteBuffer segment(long puzzle) {
+        if (puzzle < 0 || puzzle >= this.size) {
+            throw new IndexOutOfBoundsException("Puzzle " + puzzle + " is not in a corpus of " + this.size);
+        }
+        return this.segments[(int) (puzzle / this.recordsPerSegment)];
+    }
+
+    private int offset(long puzzle) {
+        return (int) (puzzle % this.recordsPerSegment) * this.recordSize;
+    }
+
+    /**
+     * Close the file. Puzzles can still be read afterwards, as the mapping stays valid until it is garbage collected.
+     */
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
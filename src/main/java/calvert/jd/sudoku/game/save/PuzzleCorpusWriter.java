@@ -0,0 +1,135 @@
+package calvert.jd.sudoku.game.save;
+
+import calvert.jd.sudoku.game.BoardSize;
+import calvert.jd.sudoku.game.logic.LogicStageIdentifier;
+import calvert.jd.sudoku.game.rules.Rule.RuleIdentifier;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes puzzles to a packed binary file in the format described in {@link PuzzleCorpus}. The number of puzzles is written to the header when the writer is closed.
+ */
+public class PuzzleCorpusWriter implements Closeable {
+
+    private static final int RECORDS_PER_WRITE = 4096;
+
+    private final FileChannel channel;
+    private final BoardSize boardSize;
+    private final int recordSize;
+    private final ByteBuffer buffer;
+    private final byte[] record;
+    private long size = 0;
+
+    public PuzzleCorpusWriter(Path path) throws IOException {
+        this(path, BoardSize.NINE_BY_NINE);
+    }
+
+    /**
+     * @param path      The file to write
+     * @param boardSize The size of every puzzle that will be written
+     */
+    public PuzzleCorpusWriter(Path path, BoardSize boardSize) throws IOException {
+        this.boardSize = boardSize;
+        this.recordSize = PuzzleCorpus.recordSize(boardSize);
+        this.buffer = ByteBuffer.allocate(this.recordSize * RECORDS_PER_WRITE);
+        this.record = new byte[this.recordSize];
+
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        this.channel.write(header(), 0);
+        this.channel.position(PuzzleCorpus.HEADER_SIZE);
+    }
+
+    /**
+     * @param saveGame The puzzle to write
+     * @throws IllegalArgumentException If the puzzle is a different size to the corpus
+     */
+    public void write(SaveGame saveGame) throws IOException {
+        if (saveGame.getBoardSize() != this.boardSize) {
+            throw new IllegalArgumentException("A " + saveGame.getBoardSize() + " puzzle can't be written to a " + this.boardSize + " corpus");
+        }
+        write(saveGame.getCells(), saveGame.getRules(), saveGame.getConstraints());
+    }
+
+    /**
+     * @param cells       The cells with initial values
+     * @param rules       The rules of the puzzle
+     * @param constraints The constraints of the puzzle
+     */
+    public void write(List<SaveCell> cells, List<RuleIdentifier> rules, List<LogicStageIdentifier> constraints) throws IOException {
+        int ruleFlags = 0;
+        for (RuleIdentifier rule : rules) {
+            ruleFlags |= 1 << rule.ordinal();
+        }
+
+        int constraintFlags = 0;
+        for (LogicStageIdentifier constraint : constraints) {
+            constraintFlags |= 1 << constraint.ordinal();
+        }
+
+        Arrays.fill(this.record, (byte) 0);
+        this.record[0] = (byte) (ruleFlags >> 8);
+        this.record[1] = (byte) ruleFlags;
+        this.record[2] = (byte) constraintFlags;
+        for (SaveCell cell : cells) {
+            if (cell.getValue() < 1 || cell.getValue() > this.boardSize.getSize()) {
+                throw new IllegalArgumentException("Value " + cell.getValue() + " can't be stored in a cell");
+            }
+
+            int cellIndex = this.boardSize.getIndex(cell.getI(), cell.getJ());
+            if (PuzzleCorpus.usesNibbles(this.boardSize)) {
+                int shift = cellIndex % 2 == 0 ? 4 : 0;
+                this.record[PuzzleCorpus.FLAGS_SIZE + cellIndex / 2] |= (byte) (cell.getValue() << shift);
+            } else {
+                this.record[PuzzleCorpus.FLAGS_SIZE + cellIndex] = (byte) cell.getValue();
+            }
+        }
+
+        if (this.buffer.remaining() < this.recordSize) {
+            flush();
+        }
+        this.buffer.put(this.record);
+        this.size++;
+    }
+
+    private void flush() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) {
+            this.channel.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+
+    private ByteBuffer header() {
+        ByteBuffer header = ByteBuffer.allocate(PuzzleCorpus.HEADER_SIZE);
+        header.putInt(0, PuzzleCorpus.MAGIC);
+        header.putShort(4, PuzzleCorpus.VERSION);
+        header.put(6, (byte) this.boardSize.getSize());
+        header.putInt(8, this.recordSize);
+        header.putLong(12, this.size);
+        return header;
+    }
+
+    /**
+     * @return The number of puzzles written so far
+     */
+    public long size() {
+        return this.size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+            this.channel.write(header(), 0);
+        } finally {
+            this.channel.close();
+        }
+    }
+}
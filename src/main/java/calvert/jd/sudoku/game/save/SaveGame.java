@@ -1,5 +1,6 @@
 package calvert.jd.sudoku.game.save;
 
+import calvert.jd.sudoku.game.BoardSize;
 import calvert.jd.sudoku.game.logic.LogicStageIdentifier;
 import calvert.jd.sudoku.game.rules.Rule.RuleIdentifier;
 import com.fasterxml.jackson.annotation.JsonCreator;
@@ -8,21 +9,38 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import java.util.List;
 
 public class SaveGame {
+    private final BoardSize boardSize;
     private final List<SaveCell> cells;
     private final List<RuleIdentifier> rules;
     private final List<LogicStageIdentifier> constraints;
 
+    public SaveGame(List<SaveCell> cells, List<RuleIdentifier> rules, List<LogicStageIdentifier> constraints) {
+        this(BoardSize.NINE_BY_NINE, cells, rules, constraints);
+    }
+
+    /**
+     * @param boardSize   The size of the board. Saves from before other sizes were supported don't have one, so it defaults to 9x9.
+     * @param cells       The cells with initial values
+     * @param rules       The rules of the puzzle
+     * @param constraints The constraints of the puzzle
+     */
     @JsonCreator
     public SaveGame(
+        @JsonProperty("boardSize") BoardSize boardSize,
         @JsonProperty("cells") List<SaveCell> cells,
         @JsonProperty("rules") List<RuleIdentifier> rules,
         @JsonProperty("constraints") List<LogicStageIdentifier> constraints
     ) {
+        this.boardSize = boardSize == null ? BoardSize.NINE_BY_NINE : boardSize;
         this.cells = cells;
         this.rules = rules;
         this.constraints = constraints;
     }
 
+    public BoardSize getBoardSize() {
+        return this.boardSize;
+    }
+
     public List<SaveCell> getCells() {
         return this.cells;
     }
@@ -0,0 +1,171 @@
+package calvert.jd.sudoku.game.solver;
+
+import calvert.jd.sudoku.game.BoardSize;
+import calvert.jd.sudoku.game.logic.LogicStageIdentifier;
+import calvert.jd.sudoku.game.rules.Rule.RuleIdentifier;
+import calvert.jd.sudoku.game.save.SaveGame;
+import calvert.jd.sudoku.game.solver.SolutionCounter.SearchState;
+import calvert.jd.sudoku.game.util.PossibleValues;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Counts the solutions of a single puzzle on many threads, for puzzles that need a deep search. The search is split into a subtree for each guess down to the split depth, and
+ * the subtrees are spread over a {@link ForkJoinPool}, where idle threads steal them from busy ones. Below the split depth, each subtree is searched by its thread's own
+ * {@link SolutionCounter} on its own copy of the board.
+ * <p>
+ * Every subtree adds to one shared count of solutions, so once the limit is reached the subtrees still running stop at their next guess, and those not yet started don't start.
+ * When finding a single solution on a puzzle with many, which solution is found depends on which thread gets there first.
+ * <p>
+ * A parallel counter can be used by many threads at once.
+ */
+public class ParallelSolutionCounter {
+
+    public static final int DEFAULT_SPLIT_DEPTH = 4;
+
+    private final ForkJoinPool pool;
+    private final int splitDepth;
+    private final SolutionCounter prototype;
+    private final ThreadLocal<SolutionCounter> counters;
+
+    /**
+     * @param boardSize   The size of the board
+     * @param rules       The rules the solutions must follow
+     * @param constraints The constraints the solutions must follow, as for {@link SolutionCounter}
+     * @param pool        The pool to search in
+     * @param splitDepth  The number of guesses to split the search at. Each guess at this depth or less starts a new subtree.
+     */
+    public ParallelSolutionCounter(BoardSize boardSize, List<RuleIdentifier> rules, List<LogicStageIdentifier> constraints, ForkJoinPool pool, int splitDepth) {
+        this.pool = pool;
+        this.splitDepth = splitDepth;
+        this.prototype = new SolutionCounter(boardSize, rules, constraints);
+        this.counters = ThreadLocal.withInitial(() -> new SolutionCounter(this.prototype));
+    }
+
+    /**
+     * Count the solutions of a saved puzzle, following its rules and constraints, up to the given limit, in the common pool.
+     *
+     * @param saveGame The puzzle
+     * @param limit    The number of solutions to stop at
+     * @return The number of solutions, or the limit if there are at least that many
+     */
+    public static int countSolutions(SaveGame saveGame, int limit) {
+        ParallelSolutionCounter counter = new ParallelSolutionCounter(
+            saveGame.getBoardSize(),
+            saveGame.getRules(),
+            saveGame.getConstraints(),
+            ForkJoinPool.commonPool(),
+            DEFAULT_SPLIT_DEPTH
+        );
+        return counter.countSolutions(counter.prototype.toValues(saveGame.getCells()), limit);
+    }
+
+    /**
+     * Count the solutions of a puzzle, up to the given limit.
+     *
+     * @param givens The value of each cell by index, or 0 for cells without a value
+     * @param limit  The number of solutions to stop at
+     * @return The number of solutions, or the limit if there are at least that many
+     */
+    public int countSolutions(int[] givens, int limit) {
+        return Math.min(search(givens, limit).numSolutions.get(), limit);
+    }
+
+    /**
+     * Find a solution of a puzzle, stopping every subtree as soon as one is found.
+     *
+     * @param givens The value of each cell by index, or 0 for cells without a value
+     * @return The value of each cell in the solution, or null if there are no solutions
+     */
+    public int[] findSolution(int[] givens) {
+        return search(givens, 1).solution.get();
+    }
+
+    private Search search(int[] givens, int limit) {
+        Search search = new Search(limit);
+
+        SearchState start = this.counters.get().startSearch(givens);
+        if (nonNull(start)) {
+            this.pool.invoke(new SubtreeTask(search, start, 0));
+        }
+        return search;
+    }
+
+    /**
+     * The progress of a search, shared by all of its subtrees.
+     */
+    private static class Search {
+
+        private final int limit;
+        private final AtomicInteger numSolutions = new AtomicInteger();
+        private final AtomicReference<int[]> solution = new AtomicReference<>();
+
+        private Search(int limit) {
+            this.limit = limit;
+        }
+
+        private boolean isDone() {
+            return this.numSolutions.get() >= this.limit;
+        }
+
+        private void addSolution(int[] values) {
+            this.solution.compareAndSet(null, values);
+            this.numSolutions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Search below a state, splitting into a subtree for each guess if the state isn't yet at the split depth.
+     */
+    private class SubtreeTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Search search;
+        private final SearchState state;
+        private final int depth;
+
+        private SubtreeTask(Search search, SearchState state, int depth) {
+            this.search = search;
+            this.state = state;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.search.isDone()) {
+                return;
+            }
+
+            SolutionCounter counter = ParallelSolutionCounter.this.counters.get();
+            if (this.depth >= ParallelSolutionCounter.this.splitDepth) {
+                if (counter.countFrom(this.state, this.search.limit, this.search.numSolutions) > 0) {
+                    this.search.solution.compareAndSet(null, counter.getSolution());
+                }
+                return;
+            }
+
+            int index = counter.chooseCell(this.state);
+            if (index == -1) {
+                this.search.addSolution(this.state.getValues());
+                return;
+            }
+
+            List<SubtreeTask> subtrees = new ArrayList<>();
+            for (int remaining = this.state.getCandidates(index); remaining != PossibleValues.NONE; remaining = PossibleValues.withoutLowest(remaining)) {
+                SearchState next = counter.guess(this.state, index, PossibleValues.lowest(remaining));
+                if (nonNull(next)) {
+                    subtrees.add(new SubtreeTask(this.search, next, this.depth + 1));
+                }
+            }
+            invokeAll(subtrees);
+        }
+    }
+}
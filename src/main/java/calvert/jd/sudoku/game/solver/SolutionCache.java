@@ -0,0 +1,594 @@
+package calvert.jd.sudoku.game.solver;
+
+import calvert.jd.sudoku.game.BoardSize;
+import calvert.jd.sudoku.game.GameParameters;
+import calvert.jd.sudoku.game.logic.LogicStageIdentifier;
+import calvert.jd.sudoku.game.metrics.LogicStageMetrics;
+import calvert.jd.sudoku.game.rules.Rule.RuleIdentifier;
+import calvert.jd.sudoku.game.save.SaveCell;
+import calvert.jd.sudoku.game.save.SaveGame;
+import calvert.jd.sudoku.game.util.PossibleValues;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Cache of solve results, shared between any number of solvers. Puzzles that are copies of each other, rotated, reflected, with bands or stacks swapped, or with their values
+ * relabelled, share a single entry, so only the first of them is solved.
+ * <p>
+ * Each puzzle is keyed by its canonical form: the smallest grid, read in reading order, that any of the symmetries allowed by its rules can turn it into. A symmetry is only
+ * allowed if it maps the rules onto themselves, though it may swap rules that behave the same way, as transposing swaps rows and columns. So knight's move and king's move rules
+ * allow rotations and reflections but not swapping bands, and a single leading diagonal rule only allows symmetries that keep its diagonal in place. Values can be relabelled freely unless a rule or constraint depends on the values themselves, such as the adjacent
+ * sequential rule, in which case only reversing the values (swapping 1 and 9, 2 and 8, and so on) is allowed. Swapping rows within a band is not included, so some equivalent
+ * puzzles still get entries of their own.
+ * <p>
+ * Bands and stacks are only reordered on boards with at most three of each, as on larger boards there are too many orders to try them all for every puzzle.
+ * <p>
+ * Results are stored in the canonical orientation, and turned back into the orientation of each puzzle that is looked up. When the cache is full, the least recently used entry
+ * is evicted.
+ */
+public class SolutionCache {
+
+    private static final int MAX_BOXES_TO_REORDER = 3;
+
+    private static final Map<SymmetryKey, SymmetryGroup> SYMMETRY_GROUPS = new ConcurrentHashMap<>();
+
+    private final int maxEntries;
+    private final Map<CanonicalPuzzle, SolveResult> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxEntries The most results to keep before evicting the least recently used
+     */
+    public SolutionCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<CanonicalPuzzle, SolveResult>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CanonicalPuzzle, SolveResult> eldest) {
+                if (size() > SolutionCache.this.maxEntries) {
+                    SolutionCache.this.evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Solve a saved game using the given parameters, or look up the result if an equivalent puzzle has already been solved.
+     *
+     * @param saveGame       The puzzle to solve
+     * @param gameParameters The rules and logic stages to solve with
+     * @param solver         The solver to use if the result isn't cached
+     * @return The result of the solve, in the orientation of the given puzzle
+     */
+    public SolveResult solve(SaveGame saveGame, GameParameters gameParameters, SudokuSolver solver) {
+        return solve(saveGame.getCells(), gameParameters, solver);
+    }
+
+    /**
+     * Solve a puzzle from the given initial values, or look up the result if an equivalent puzzle has already been solved.
+     *
+     * @param givens         The cells with initial values
+     * @param gameParameters The rules and logic stages to solve with
+     * @param solver         The solver to use if the result isn't cached
+     * @return The result of the solve, in the orientation of the given puzzle
+     */
+    public SolveResult solve(List<SaveCell> givens, GameParameters gameParameters, SudokuSolver solver) {
+        CanonicalPuzzle canonicalPuzzle = canonicalise(givens, gameParameters);
+
+        SolveResult cached;
+        synchronized (this.entries) {
+            cached = this.entries.get(canonicalPuzzle);
+        }
+
+        if (nonNull(cached)) {
+            this.hits.increment();
+            return canonicalPuzzle.fromCanonical(cached);
+        }
+
+        this.misses.increment();
+        SolveResult result = solver.solve(givens, gameParameters);
+
+        SolveResult canonicalResult = canonicalPuzzle.toCanonical(result);
+        synchronized (this.entries) {
+            this.entries.put(canonicalPuzzle, canonicalResult);
+        }
+        return result;
+    }
+
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    public long getMisses() {
+        return this.misses.sum();
+    }
+
+    public long getEvictions() {
+        return this.evictions.sum();
+    }
+
+    /**
+     * @return The proportion of lookups that were found in the cache, or 0 if there haven't been any
+     */
+    public double getHitRate() {
+        long hits = getHits();
+        long lookups = hits + getMisses();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    public int size() {
+        synchronized (this.entries) {
+            return this.entries.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (this.entries) {
+            this.entries.clear();
+        }
+    }
+
+    /**
+     * @param gameParameters The rules and logic stages
+     * @return The number of ways to rearrange the cells of a puzzle with the given rules that keep it equivalent
+     */
+    static int getNumSymmetries(GameParameters gameParameters) {
+        return getSymmetryGroup(gameParameters).cellsAt.length;
+    }
+
+    @Override
+    public String toString() {
+        return "hits=" + getHits() + " misses=" + getMisses() + " evictions=" + getEvictions() + " size=" + size();
+    }
+
+    private static CanonicalPuzzle canonicalise(List<SaveCell> givens, GameParameters gameParameters) {
+        BoardSize boardSize = gameParameters.getBoardSize();
+        int numCells = boardSize.getNumCells();
+
+        byte[] grid = new byte[numCells];
+        for (SaveCell saveCell : givens) {
+            grid[boardSize.getIndex(saveCell.getI(), saveCell.getJ())] = (byte) saveCell.getValue();
+        }
+
+        SymmetryGroup symmetryGroup = getSymmetryGroup(gameParameters);
+
+        byte[] best = null;
+        byte[] candidate = new byte[numCells];
+        int[] bestCellsAt = null;
+        int[] bestValueMap = null;
+
+        int[] firstSeenValueMap = new int[boardSize.getSize() + 1];
+
+        for (int[] cellsAt : symmetryGroup.cellsAt) {
+            for (int[] fixedValueMap : symmetryGroup.valueMaps) {
+                // With free relabelling, values are numbered in the order they're first seen, which gives the smallest grid for this arrangement of cells
+                int[] valueMap = fixedValueMap;
+                if (isNull(valueMap)) {
+                    Arrays.fill(firstSeenValueMap, 0);
+                    valueMap = firstSeenValueMap;
+                }
+                int nextValue = 1;
+
+                int comparison = isNull(best) ? -1 : 0;
+                for (int position = 0; position < numCells && comparison <= 0; position++) {
+                    int value = grid[cellsAt[position]];
+                    if (value != 0 && valueMap[value] == 0) {
+                        valueMap[value] = nextValue++;
+                    }
+
+                    byte mappedValue = (byte) valueMap[value];
+                    if (comparison == 0) {
+                        comparison = Integer.compare(mappedValue, best[position]);
+                    }
+                    candidate[position] = mappedValue;
+                }
+
+                if (comparison < 0) {
+                    byte[] previousBest = best;
+                    best = candidate;
+                    candidate = isNull(previousBest) ? new byte[numCells] : previousBest;
+                    bestCellsAt = cellsAt;
+                    bestValueMap = isNull(fixedValueMap) ? completeValueMap(valueMap, nextValue, boardSize) : fixedValueMap;
+                }
+            }
+        }
+
+        return new CanonicalPuzzle(best, symmetryGroup.key, gameParameters, bestCellsAt, bestValueMap);
+    }
+
+    // Give the values that aren't in the puzzle the remaining labels, in order, so that the solution can be relabelled too
+    private static int[] completeValueMap(int[] valueMap, int nextValue, BoardSize boardSize) {
+        int[] completeValueMap = valueMap.clone();
+        for (int value = 1; value <= boardSize.getSize(); value++) {
+            if (completeValueMap[value] == 0) {
+                completeValueMap[value] = nextValue++;
+            }
+        }
+        return completeValueMap;
+    }
+
+    private static SymmetryGroup getSymmetryGroup(GameParameters gameParameters) {
+        Set<RuleIdentifier> rules = EnumSet.noneOf(RuleIdentifier.class);
+        rules.addAll(gameParameters.getRules());
+        Set<LogicStageIdentifier> constraints = EnumSet.noneOf(LogicStageIdentifier.class);
+        gameParameters.getLogicStages().stream().filter(LogicStageIdentifier::isConstraint).forEach(constraints::add);
+
+        return SYMMETRY_GROUPS.computeIfAbsent(new SymmetryKey(gameParameters.getBoardSize(), rules, constraints), SymmetryGroup::new);
+    }
+
+    /**
+     * The board size, rules and constraints of a puzzle, which decide which symmetries are allowed.
+     */
+    private static class SymmetryKey {
+        private final BoardSize boardSize;
+        private final Set<RuleIdentifier> rules;
+        private final Set<LogicStageIdentifier> constraints;
+
+        SymmetryKey(BoardSize boardSize, Set<RuleIdentifier> rules, Set<LogicStageIdentifier> constraints) {
+            this.boardSize = boardSize;
+            this.rules = rules;
+            this.constraints = constraints;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof SymmetryKey)) {
+                return false;
+            }
+
+            SymmetryKey that = (SymmetryKey) o;
+            return this.boardSize == that.boardSize && this.rules.equals(that.rules) && this.constraints.equals(that.constraints);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.boardSize, this.rules, this.constraints);
+        }
+    }
+
+    /**
+     * The symmetries allowed by a set of rules and constraints. Each arrangement of cells gives, for each position in the rearranged grid, the index of the cell that moves
+     * there. Each value map gives the new label of each value, or is null if values can be relabelled freely.
+     */
+    private static class SymmetryGroup {
+        private final SymmetryKey key;
+        private final BoardSize boardSize;
+        private final int size;
+        private final int numCells;
+        private final int[][] cellsAt;
+        private final int[][] valueMaps;
+
+        SymmetryGroup(SymmetryKey key) {
+            this.key = key;
+            this.boardSize = key.boardSize;
+            this.size = this.boardSize.getSize();
+            this.numCells = this.boardSize.getNumCells();
+
+            List<int[]> allowedCellsAt = new ArrayList<>();
+            for (int[] cellsAt : allArrangements()) {
+                if (preservesRules(cellsAt, key.rules) && key.constraints.stream().allMatch(constraint -> preservesConstraint(cellsAt, constraint))) {
+                    allowedCellsAt.add(cellsAt);
+                }
+            }
+            this.cellsAt = allowedCellsAt.toArray(new int[0][]);
+
+            boolean relabelFreely = key.rules.stream().allMatch(this::allowsRelabelling) && key.constraints.isEmpty();
+            boolean reverse = key.rules.stream().allMatch(this::allowsReversal)
+                && key.constraints.stream().allMatch(constraint -> constraint == LogicStageIdentifier.CENTRE_REGION_MAGIC_SQUARE);
+
+            if (relabelFreely) {
+                this.valueMaps = new int[][]{null};
+            } else if (reverse) {
+                this.valueMaps = new int[][]{identityValueMap(), reversedValueMap()};
+            } else {
+                this.valueMaps = new int[][]{identityValueMap()};
+            }
+        }
+
+        // The rotations and reflections of the board, each combined with every order of the bands and of the stacks. Transposing a board with regions that aren't square
+        // moves the regions, so that's left for the region rule to rule out.
+        private List<int[]> allArrangements() {
+            int regionWidth = this.boardSize.getRegionWidth();
+            int regionHeight = this.boardSize.getRegionHeight();
+            List<int[]> bandOrders = boxOrders(this.size / regionHeight);
+            List<int[]> stackOrders = boxOrders(this.size / regionWidth);
+
+            List<int[]> arrangements = new ArrayList<>();
+            for (int dihedral = 0; dihedral < 8; dihedral++) {
+                for (int[] bandOrder : bandOrders) {
+                    for (int[] stackOrder : stackOrders) {
+                        int[] cellsAt = new int[this.numCells];
+                        for (int j = 0; j < this.size; j++) {
+                            for (int i = 0; i < this.size; i++) {
+                                int sourceI = stackOrder[i / regionWidth] * regionWidth + i % regionWidth;
+                                int sourceJ = bandOrder[j / regionHeight] * regionHeight + j % regionHeight;
+
+                                if ((dihedral & 1) != 0) {
+                                    sourceI = this.size - 1 - sourceI;
+                                }
+                                if ((dihedral & 2) != 0) {
+                                    sourceJ = this.size - 1 - sourceJ;
+                                }
+                                if ((dihedral & 4) != 0) {
+                                    int swap = sourceI;
+                                    sourceI = sourceJ;
+                                    sourceJ = swap;
+                                }
+
+                                cellsAt[this.boardSize.getIndex(i, j)] = this.boardSize.getIndex(sourceI, sourceJ);
+                            }
+                        }
+                        arrangements.add(cellsAt);
+                    }
+                }
+            }
+            return arrangements;
+        }
+
+        // Every order of the given number of bands or stacks, or only the order they're already in if there are too many
+        private static List<int[]> boxOrders(int numBoxes) {
+            int[] boxOrder = new int[numBoxes];
+            for (int box = 0; box < numBoxes; box++) {
+                boxOrder[box] = box;
+            }
+
+            List<int[]> boxOrders = new ArrayList<>();
+            if (numBoxes > MAX_BOXES_TO_REORDER) {
+                boxOrders.add(boxOrder);
+            } else {
+                addBoxOrders(boxOrder, 0, boxOrders);
+            }
+            return boxOrders;
+        }
+
+        private static void addBoxOrders(int[] boxOrder, int from, List<int[]> boxOrders) {
+            if (from == boxOrder.length) {
+                boxOrders.add(boxOrder.clone());
+                return;
+            }
+
+            for (int box = from; box < boxOrder.length; box++) {
+                swap(boxOrder, from, box);
+                addBoxOrders(boxOrder, from + 1, boxOrders);
+                swap(boxOrder, from, box);
+            }
+        }
+
+        private static void swap(int[] array, int first, int second) {
+            int swap = array[first];
+            array[first] = array[second];
+            array[second] = swap;
+        }
+
+        // Each rule must be mapped onto a rule in the set that behaves the same way, without two rules being mapped onto the same one. A transposition, for example, swaps the
+        // row and column rules.
+        private boolean preservesRules(int[] cellsAt, Set<RuleIdentifier> rules) {
+            int[] positionOf = new int[this.numCells];
+            for (int position = 0; position < this.numCells; position++) {
+                positionOf[cellsAt[position]] = position;
+            }
+
+            Set<RuleIdentifier> mappedOnto = EnumSet.noneOf(RuleIdentifier.class);
+            for (RuleIdentifier ruleIdentifier : rules) {
+                boolean mapped = false;
+                for (RuleIdentifier target : rules) {
+                    if (!mappedOnto.contains(target) && behavesTheSame(ruleIdentifier, target) && mapsRuleOnto(positionOf, ruleIdentifier, target)) {
+                        mappedOnto.add(target);
+                        mapped = true;
+                        break;
+                    }
+                }
+
+                if (!mapped) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Every pair of cells that see each other by the rule must see each other by the target once moved. The rules see the same number of pairs, so this is enough to show
+        // one is mapped onto the other.
+        private boolean mapsRuleOnto(int[] positionOf, RuleIdentifier ruleIdentifier, RuleIdentifier target) {
+            int numPairs = 0;
+            int numTargetPairs = 0;
+            for (int index = 0; index < this.numCells; index++) {
+                int[] visible = ruleIdentifier.getRule().getVisibleCellIndices(this.boardSize, index);
+                int[] movedVisible = target.getRule().getVisibleCellIndices(this.boardSize, positionOf[index]);
+                for (int visibleIndex : visible) {
+                    if (Arrays.binarySearch(movedVisible, positionOf[visibleIndex]) < 0) {
+                        return false;
+                    }
+                }
+                numPairs += visible.length;
+                numTargetPairs += movedVisible.length;
+            }
+            return numPairs == numTargetPairs;
+        }
+
+        private boolean behavesTheSame(RuleIdentifier ruleIdentifier, RuleIdentifier target) {
+            if (ruleIdentifier == target) {
+                return true;
+            }
+
+            if (ruleIdentifier.getRule().isInclusive() != target.getRule().isInclusive()) {
+                return false;
+            }
+
+            for (int value = 1; value <= this.size; value++) {
+                if (ruleIdentifier.getRule().getPossibilitiesToEliminateForValue(value) != target.getRule().getPossibilitiesToEliminateForValue(value)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean preservesConstraint(int[] cellsAt, LogicStageIdentifier constraint) {
+            if (constraint != LogicStageIdentifier.CENTRE_REGION_MAGIC_SQUARE || this.boardSize != BoardSize.NINE_BY_NINE) {
+                // Nothing is known about other constraints, so only leave the puzzle as it is
+                for (int position = 0; position < this.numCells; position++) {
+                    if (cellsAt[position] != position) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            // Bands and stacks only move as a whole, so if the centre region stays in the centre, it has only been rotated or reflected, which keeps it a magic square
+            for (int j = 3; j < 6; j++) {
+                for (int i = 3; i < 6; i++) {
+                    int index = cellsAt[this.boardSize.getIndex(i, j)];
+                    int sourceI = index % this.size;
+                    int sourceJ = index / this.size;
+                    if (sourceI < 3 || sourceI >= 6 || sourceJ < 3 || sourceJ >= 6) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        private boolean allowsRelabelling(RuleIdentifier ruleIdentifier) {
+            for (int value = 1; value <= this.size; value++) {
+                if (ruleIdentifier.getRule().getPossibilitiesToEliminateForValue(value) != PossibleValues.of(value)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean allowsReversal(RuleIdentifier ruleIdentifier) {
+            int[] reversed = reversedValueMap();
+            for (int value = 1; value <= this.size; value++) {
+                int eliminated = ruleIdentifier.getRule().getPossibilitiesToEliminateForValue(value);
+                int reversedEliminated = ruleIdentifier.getRule().getPossibilitiesToEliminateForValue(reversed[value]);
+                if (Integer.reverse(eliminated) >>> (Integer.SIZE - this.size) != reversedEliminated) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int[] identityValueMap() {
+            int[] valueMap = new int[this.size + 1];
+            for (int value = 1; value <= this.size; value++) {
+                valueMap[value] = value;
+            }
+            return valueMap;
+        }
+
+        private int[] reversedValueMap() {
+            int[] valueMap = new int[this.size + 1];
+            for (int value = 1; value <= this.size; value++) {
+                valueMap[value] = this.size + 1 - value;
+            }
+            return valueMap;
+        }
+    }
+
+    /**
+     * A puzzle in its canonical form, along with the parameters it's solved with. Two puzzles are equal if they have the same canonical form and parameters. The symmetry that
+     * turned the puzzle into its canonical form is kept to turn results back, but isn't part of the key.
+     */
+    private static class CanonicalPuzzle {
+        private final byte[] grid;
+        private final SymmetryKey symmetryKey;
+        private final Set<LogicStageIdentifier> logicStages;
+        private final boolean useSearch;
+        private final int searchNodeLimit;
+        private final int hashCode;
+
+        private final int[] cellsAt;
+        private final int[] valueMap;
+
+        CanonicalPuzzle(byte[] grid, SymmetryKey symmetryKey, GameParameters gameParameters, int[] cellsAt, int[] valueMap) {
+            this.grid = grid;
+            this.symmetryKey = symmetryKey;
+            this.logicStages = EnumSet.noneOf(LogicStageIdentifier.class);
+            this.logicStages.addAll(gameParameters.getLogicStages());
+            this.useSearch = gameParameters.isUseSearch();
+            this.searchNodeLimit = gameParameters.getSearchNodeLimit();
+            this.hashCode = Objects.hash(Arrays.hashCode(grid), symmetryKey, this.logicStages, this.useSearch, this.searchNodeLimit);
+
+            this.cellsAt = cellsAt;
+            this.valueMap = valueMap;
+        }
+
+        SolveResult toCanonical(SolveResult result) {
+            int[] values = result.getValues();
+            int[] canonicalValues = new int[values.length];
+            for (int position = 0; position < values.length; position++) {
+                canonicalValues[position] = this.valueMap[values[this.cellsAt[position]]];
+            }
+            return withValues(result, canonicalValues);
+        }
+
+        SolveResult fromCanonical(SolveResult canonicalResult) {
+            int[] originalValue = new int[this.valueMap.length];
+            for (int value = 1; value < this.valueMap.length; value++) {
+                originalValue[this.valueMap[value]] = value;
+            }
+
+            int[] canonicalValues = canonicalResult.getValues();
+            int[] values = new int[canonicalValues.length];
+            for (int position = 0; position < canonicalValues.length; position++) {
+                values[this.cellsAt[position]] = originalValue[canonicalValues[position]];
+            }
+            return withValues(canonicalResult, values);
+        }
+
+        private static SolveResult withValues(SolveResult result, int[] values) {
+            return new SolveResult(
+                result.getStatus(),
+                values,
+                result.getNumQueueProcesses(),
+                result.getNumUpdates(),
+                result.getNumSearchNodes(),
+                result.getNumBacktracks(),
+                new LogicStageMetrics(result.getLogicStageMetrics())
+            );
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof CanonicalPuzzle)) {
+                return false;
+            }
+
+            CanonicalPuzzle that = (CanonicalPuzzle) o;
+            return this.useSearch == that.useSearch
+                && this.searchNodeLimit == that.searchNodeLimit
+                && Arrays.equals(this.grid, that.grid)
+                && this.symmetryKey.equals(that.symmetryKey)
+                && this.logicStages.equals(that.logicStages);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+    }
+}
@@ -0,0 +1,549 @@
+package calvert.jd.sudoku.game.solver;
+
+import calvert.jd.sudoku.game.BoardSize;
+import calvert.jd.sudoku.game.Cell;
+import calvert.jd.sudoku.game.logic.LogicStageIdentifier;
+import calvert.jd.sudoku.game.rules.ConstraintGraph;
+import calvert.jd.sudoku.game.rules.Rule.RuleIdentifier;
+import calvert.jd.sudoku.game.save.SaveCell;
+import calvert.jd.sudoku.game.save.SaveGame;
+import calvert.jd.sudoku.game.util.PossibleValues;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static calvert.jd.sudoku.game.logic.LogicStageIdentifier.CENTRE_REGION_MAGIC_SQUARE;
+import static calvert.jd.sudoku.game.logic.logicstages.CentreRegionMagicSquare.MAGIC_SQUARE_LINE;
+import static java.util.Collections.emptyList;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Counts the solutions of a puzzle, stopping as soon as a limit is reached, without a game state or any logic stages. It is much faster than solving with search, so it can be
+ * called many times for each puzzle, for example to check that a puzzle is still unique after removing a given.
+ * <p>
+ * The rules are taken from their shared {@link ConstraintGraph}, so creating a counter doesn't compile them again. Candidates are masks, as described in
+ * {@link PossibleValues}. Placing a value eliminates it from the cell's peers and related cells, and any cell left with a single candidate is placed straight away. Rules
+ * like the adjacent non-sequential rule also prune related cells of a cell that is only narrowed down, by whatever all of its remaining candidates would eliminate. A value with
+ * only one place left in a unit, such as a row or region, is placed too. When nothing more follows, each candidate of the cell with the fewest candidates is tried in turn.
+ * <p>
+ * The centre region magic square is the only constraint that is checked. It limits the centre cell to 5, the corners of the region to even values and its edges to odd
+ * values before the search starts, and the search backs out as soon as the candidates of a line of the region can no longer add up to 15, which is looked up from the
+ * tables of a {@link calvert.jd.sudoku.game.util.SumLine}. A counter reuses its working arrays between counts, so it is not thread safe. Use one counter per thread, made with
+ * {@link #SolutionCounter(SolutionCounter)} to share the compiled rules, or a {@link ParallelSolutionCounter} to search a single puzzle on many threads.
+ */
+public class SolutionCounter {
+
+    // A random search that has guessed this many times without finding a solution starts again with new guesses, allowing twice as many each time, as a few unlucky early
+    // guesses can otherwise take far longer than starting again
+    private static final int FIRST_RESTART_GUESSES = 100;
+
+    private final BoardSize boardSize;
+    private final int numCells;
+
+    private final int[][] peers;
+    private final int[][] relatedCells;
+    private final int[][][] relatedEliminations; // For each cell and related cell, the candidates each value eliminates from the related cell
+    private final int[][] units;
+    private final int[] startingCandidates;
+    private final int[][] magicSquareLines; // The rows, columns and diagonals of the centre region, or null if it isn't a magic square
+
+    // One copy of the candidates and values for each depth of the search, so that backtracking is just returning to the previous copy
+    private final int[][] candidatesAt;
+    private final int[][] valuesAt;
+
+    private final int[] singles;
+    private int numSingles;
+
+    private int limit;
+    private long maxGuesses;
+    private long numGuesses;
+    private int numSolutions;
+    private int[] solution;
+    private Random random;
+    private AtomicInteger sharedSolutions; // The solutions found by every counter searching part of the same puzzle, or null when searching alone
+
+    /**
+     * @param boardSize The size of the board
+     * @param rules     The rules the solutions must follow
+     */
+    public SolutionCounter(BoardSize boardSize, List<RuleIdentifier> rules) {
+        this(boardSize, rules, emptyList());
+    }
+
+    /**
+     * @param boardSize   The size of the board
+     * @param rules       The rules the solutions must follow
+     * @param constraints The constraints the solutions must follow. Only {@link LogicStageIdentifier#CENTRE_REGION_MAGIC_SQUARE} is checked, and only on 9x9 boards.
+     */
+    public SolutionCounter(BoardSize boardSize, List<RuleIdentifier> rules, List<LogicStageIdentifier> constraints) {
+        this.boardSize = boardSize;
+        this.numCells = boardSize.getNumCells();
+
+        ConstraintGraph constraintGraph = ConstraintGraph.forRules(boardSize, rules);
+        this.peers = new int[this.numCells][];
+        this.relatedCells = new int[this.numCells][];
+        this.relatedEliminations = new int[this.numCells][][];
+        for (int index = 0; index < this.numCells; index++) {
+            this.peers[index] = constraintGraph.getPeers(index);
+            this.relatedCells[index] = constraintGraph.getRelatedCells(index);
+            this.relatedEliminations[index] = constraintGraph.getRelatedEliminations(index);
+        }
+        this.units = constraintGraph.getUnits();
+
+        this.startingCandidates = new int[this.numCells];
+        Arrays.fill(this.startingCandidates, boardSize.getAllValues());
+        this.magicSquareLines = constraints.contains(CENTRE_REGION_MAGIC_SQUARE) && boardSize == BoardSize.NINE_BY_NINE ? buildMagicSquare() : null;
+
+        this.candidatesAt = new int[this.numCells + 1][];
+        this.valuesAt = new int[this.numCells + 1][];
+        this.singles = new int[this.numCells];
+    }
+
+    /**
+     * Create a counter for another thread, sharing the compiled rules of an existing counter.
+     *
+     * @param other The counter to share the rules of
+     */
+    public SolutionCounter(SolutionCounter other) {
+        this.boardSize = other.boardSize;
+        this.numCells = other.numCells;
+        this.peers = other.peers;
+        this.relatedCells = other.relatedCells;
+        this.relatedEliminations = other.relatedEliminations;
+        this.units = other.units;
+        this.startingCandidates = other.startingCandidates;
+        this.magicSquareLines = other.magicSquareLines;
+
+        this.candidatesAt = new int[this.numCells + 1][];
+        this.valuesAt = new int[this.numCells + 1][];
+        this.singles = new int[this.numCells];
+    }
+
+    /**
+     * Count the solutions of a puzzle, up to the given limit.
+     *
+     * @param givens The value of each cell by index (see {@link Cell#getIndex()}), or 0 for cells without a value
+     * @param limit  The number of solutions to stop at
+     * @return The number of solutions, or the limit if there are at least that many
+     */
+    public int countSolutions(int[] givens, int limit) {
+        return run(givens, limit, null, Long.MAX_VALUE);
+    }
+
+    /**
+     * Count the solutions of a puzzle, up to the given limit.
+     *
+     * @param givens The cells with initial values
+     * @param limit  The number of solutions to stop at
+     * @return The number of solutions, or the limit if there are at least that many
+     */
+    public int countSolutions(List<SaveCell> givens, int limit) {
+        return countSolutions(toValues(givens), limit);
+    }
+
+    /**
+     * Count the solutions of a saved puzzle, following its rules and constraints, up to the given limit.
+     *
+     * @param saveGame The puzzle
+     * @param limit    The number of solutions to stop at, typically 2 to check that a puzzle has a unique solution
+     * @return The number of solutions, or the limit if there are at least that many
+     */
+    public static int countSolutions(SaveGame saveGame, int limit) {
+        return new SolutionCounter(saveGame.getBoardSize(), saveGame.getRules(), saveGame.getConstraints()).countSolutions(saveGame.getCells(), limit);
+    }
+
+    /**
+     * Find a solution of a puzzle, trying the candidates of each cell in a random order, so that an empty board gives a random filled grid.
+     *
+     * @param givens The value of each cell by index, or 0 for cells without a value
+     * @param random The source of the order to try candidates in
+     * @return The value of each cell in the solution, or null if there are no solutions
+     */
+    public int[] findSolution(int[] givens, Random random) {
+        for (long maxGuesses = FIRST_RESTART_GUESSES; ; maxGuesses *= 2) {
+            if (run(givens, 1, random, maxGuesses) > 0) {
+                return this.solution;
+            } else if (this.numGuesses <= maxGuesses) {
+                // The whole search finished without running out of guesses, so there is no solution
+                return null;
+            }
+        }
+    }
+
+    private int run(int[] givens, int limit, Random random, long maxGuesses) {
+        this.limit = limit;
+        this.maxGuesses = maxGuesses;
+        this.numGuesses = 0;
+        this.numSolutions = 0;
+        this.solution = null;
+        this.random = random;
+
+        if (start(givens)) {
+            search(0);
+        }
+        return this.numSolutions;
+    }
+
+    // Place the givens, and everything that follows from them, at the first depth of the search. Returns false if the givens contradict each other.
+    private boolean start(int[] givens) {
+        int[] candidates = candidatesAt(0);
+        int[] values = valuesAt(0);
+        this.numSingles = 0;
+        for (int index = 0; index < this.numCells; index++) {
+            candidates[index] = this.startingCandidates[index];
+            values[index] = 0;
+            if (PossibleValues.isSingle(candidates[index])) {
+                this.singles[this.numSingles++] = index;
+            }
+        }
+
+        for (int index = 0; index < this.numCells; index++) {
+            if (givens[index] != 0 && !place(candidates, values, index, givens[index])) {
+                return false;
+            }
+        }
+        return propagate(candidates, values);
+    }
+
+    /**
+     * Place the givens of a puzzle, and everything that follows from them, so that the search can be split from there.
+     *
+     * @param givens The value of each cell by index, or 0 for cells without a value
+     * @return The state to search from, or null if the givens contradict each other
+     */
+    SearchState startSearch(int[] givens) {
+        if (!start(givens) || (nonNull(this.magicSquareLines) && !isMagicSquarePossible(this.candidatesAt[0]))) {
+            return null;
+        }
+        return new SearchState(this.candidatesAt[0].clone(), this.valuesAt[0].clone());
+    }
+
+    /**
+     * @param state A state of the search
+     * @return The index of the cell to guess next, the one with the fewest candidates, or -1 if every cell has a value
+     */
+    int chooseCell(SearchState state) {
+        return chooseCell(state.candidates, state.values);
+    }
+
+    /**
+     * Guess a value for a cell, and place everything that follows from it.
+     *
+     * @param state The state to guess from, which is left unchanged
+     * @param index The index of the cell to guess
+     * @param value The value to guess
+     * @return The state after the guess, or null if the guess leads to a contradiction
+     */
+    SearchState guess(SearchState state, int index, int value) {
+        int[] candidates = state.candidates.clone();
+        int[] values = state.values.clone();
+        this.numSingles = 0;
+
+        if (!place(candidates, values, index, value) || !propagate(candidates, values) || (nonNull(this.magicSquareLines) && !isMagicSquarePossible(candidates))) {
+            return null;
+        }
+        return new SearchState(candidates, values);
+    }
+
+    /**
+     * Count the solutions that follow from a state of the search, along with other counters searching other parts of the same puzzle.
+     *
+     * @param state           The state to search from
+     * @param limit           The number of solutions, between all the counters, to stop at
+     * @param sharedSolutions The number of solutions found by all the counters, which this counter adds to
+     * @return The number of solutions this counter found
+     */
+    int countFrom(SearchState state, int limit, AtomicInteger sharedSolutions) {
+        this.limit = limit;
+        this.maxGuesses = Long.MAX_VALUE;
+        this.numGuesses = 0;
+        this.numSolutions = 0;
+        this.solution = null;
+        this.random = null;
+        this.sharedSolutions = sharedSolutions;
+
+        System.arraycopy(state.candidates, 0, candidatesAt(0), 0, this.numCells);
+        System.arraycopy(state.values, 0, valuesAt(0), 0, this.numCells);
+        try {
+            search(0);
+        } finally {
+            this.sharedSolutions = null;
+        }
+        return this.numSolutions;
+    }
+
+    /**
+     * @return The value of each cell in the first solution found by the last count, or null if it found none
+     */
+    int[] getSolution() {
+        return this.solution;
+    }
+
+    /**
+     * Guess each candidate of the cell with the fewest, and follow on from each guess.
+     *
+     * @return Whether the limit of solutions or guesses has been reached
+     */
+    private boolean search(int depth) {
+        int[] candidates = this.candidatesAt[depth];
+        int[] values = this.valuesAt[depth];
+
+        if (nonNull(this.sharedSolutions) && this.sharedSolutions.get() >= this.limit) {
+            // Another counter has found the last solution needed
+            return true;
+        } else if (nonNull(this.magicSquareLines) && !isMagicSquarePossible(candidates)) {
+            return false;
+        }
+
+        int searchIndex = chooseCell(candidates, values);
+        if (searchIndex == -1) {
+            this.numSolutions++;
+            if (isNull(this.solution)) {
+                this.solution = values.clone();
+            }
+            return isNull(this.sharedSolutions) ? this.numSolutions >= this.limit : this.sharedSolutions.incrementAndGet() >= this.limit;
+        }
+
+        int[] nextCandidates = candidatesAt(depth + 1);
+        int[] nextValues = valuesAt(depth + 1);
+        for (int remaining = candidates[searchIndex]; remaining != PossibleValues.NONE; ) {
+            int value = isNull(this.random) ? PossibleValues.lowest(remaining) : randomValue(remaining);
+            remaining &= ~PossibleValues.of(value);
+
+            if (++this.numGuesses > this.maxGuesses) {
+                return true;
+            }
+
+            System.arraycopy(candidates, 0, nextCandidates, 0, this.numCells);
+            System.arraycopy(values, 0, nextValues, 0, this.numCells);
+            this.numSingles = 0;
+
+            if (place(nextCandidates, nextValues, searchIndex, value) && propagate(nextCandidates, nextValues) && search(depth + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int chooseCell(int[] candidates, int[] values) {
+        int searchIndex = -1;
+        int fewestCandidates = Integer.MAX_VALUE;
+        for (int index = 0; index < this.numCells && fewestCandidates > 2; index++) {
+            if (values[index] == 0 && PossibleValues.count(candidates[index]) < fewestCandidates) {
+                searchIndex = index;
+                fewestCandidates = PossibleValues.count(candidates[index]);
+            }
+        }
+        return searchIndex;
+    }
+
+    // Place every cell that has been left with a single candidate, and every value left with a single cell in a unit, until nothing more follows
+    private boolean propagate(int[] candidates, int[] values) {
+        while (true) {
+            while (this.numSingles > 0) {
+                int index = this.singles[--this.numSingles];
+                if (values[index] == 0 && (candidates[index] == PossibleValues.NONE || !place(candidates, values, index, PossibleValues.lowest(candidates[index])))) {
+                    return false;
+                }
+            }
+
+            int numPlaced = placeHiddenSingles(candidates, values);
+            if (numPlaced < 0) {
+                return false;
+            } else if (numPlaced == 0) {
+                return true;
+            }
+        }
+    }
+
+    // Returns the number of values placed, or -1 if a unit has no cell left for one of its values
+    private int placeHiddenSingles(int[] candidates, int[] values) {
+        int allValues = this.boardSize.getAllValues();
+
+        int numPlaced = 0;
+        for (int[] unit : this.units) {
+            int atLeastOnce = PossibleValues.NONE;
+            int moreThanOnce = PossibleValues.NONE;
+            int placed = PossibleValues.NONE;
+            for (int index : unit) {
+                moreThanOnce |= atLeastOnce & candidates[index];
+                atLeastOnce |= candidates[index];
+                if (values[index] != 0) {
+                    placed |= candidates[index];
+                }
+            }
+
+            if (atLeastOnce != allValues) {
+                return -1;
+            }
+
+            for (int once = atLeastOnce & ~moreThanOnce & ~placed; once != PossibleValues.NONE; once = PossibleValues.withoutLowest(once)) {
+                int value = PossibleValues.lowest(once);
+                for (int index : unit) {
+                    // Placing an earlier value may have taken this value's only cell, which the next pass finds
+                    if (values[index] == 0 && PossibleValues.contains(candidates[index], value)) {
+                        if (!place(candidates, values, index, value)) {
+                            return -1;
+                        }
+                        numPlaced++;
+                        break;
+                    }
+                }
+            }
+        }
+        return numPlaced;
+    }
+
+    // Returns false if the value can't go in the cell, or if placing it leaves another cell without any candidates
+    private boolean place(int[] candidates, int[] values, int index, int value) {
+        int mask = PossibleValues.of(value);
+        if ((candidates[index] & mask) == PossibleValues.NONE) {
+            return false;
+        }
+
+        values[index] = value;
+        candidates[index] = mask;
+
+        for (int peer : this.peers[index]) {
+            if (!eliminate(candidates, values, peer, mask)) {
+                return false;
+            }
+        }
+
+        int[] related = this.relatedCells[index];
+        for (int k = 0; k < related.length; k++) {
+            if (!eliminate(candidates, values, related[k], this.relatedEliminations[index][k][value])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean eliminate(int[] candidates, int[] values, int index, int mask) {
+        if (values[index] != 0) {
+            return (candidates[index] & mask) == PossibleValues.NONE;
+        }
+
+        int before = candidates[index];
+        int after = before & ~mask;
+        if (after != before) {
+            if (after == PossibleValues.NONE) {
+                return false;
+            }
+
+            candidates[index] = after;
+            if (PossibleValues.isSingle(after)) {
+                this.singles[this.numSingles++] = index;
+            } else {
+                return pruneRelatedCells(candidates, values, index, after);
+            }
+        }
+        return true;
+    }
+
+    // Eliminate from the related cells whatever every remaining candidate of the cell would eliminate. A cell left with a single candidate is pruned when it is placed.
+    private boolean pruneRelatedCells(int[] candidates, int[] values, int index, int cellCandidates) {
+        int[] related = this.relatedCells[index];
+        for (int k = 0; k < related.length; k++) {
+            int eliminated = ConstraintGraph.getEliminations(this.relatedEliminations[index][k], cellCandidates);
+            if (eliminated != PossibleValues.NONE && !eliminate(candidates, values, related[k], eliminated)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Each line of the magic square must still be able to add up to 15 with the candidates of its cells, which is a single lookup for a line of three
+    private boolean isMagicSquarePossible(int[] candidates) {
+        for (int[] line : this.magicSquareLines) {
+            if ((candidates[line[0]] & MAGIC_SQUARE_LINE.getPossibleValues(candidates[line[1]], candidates[line[2]])) == PossibleValues.NONE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int randomValue(int candidates) {
+        int remaining = candidates;
+        for (int skip = this.random.nextInt(PossibleValues.count(candidates)); skip > 0; skip--) {
+            remaining = PossibleValues.withoutLowest(remaining);
+        }
+        return PossibleValues.lowest(remaining);
+    }
+
+    private int[] candidatesAt(int depth) {
+        if (isNull(this.candidatesAt[depth])) {
+            this.candidatesAt[depth] = new int[this.numCells];
+        }
+        return this.candidatesAt[depth];
+    }
+
+    private int[] valuesAt(int depth) {
+        if (isNull(this.valuesAt[depth])) {
+            this.valuesAt[depth] = new int[this.numCells];
+        }
+        return this.valuesAt[depth];
+    }
+
+    int[] toValues(List<SaveCell> givens) {
+        int[] values = new int[this.numCells];
+        for (SaveCell saveCell : givens) {
+            values[this.boardSize.getIndex(saveCell.getI(), saveCell.getJ())] = saveCell.getValue();
+        }
+        return values;
+    }
+
+    // Each cell of a 3x3 magic square of 1 to 9 can only hold the values in as many ways to make 15 as it has lines, so the middle is 5, the corners are even and the edges
+    // are odd
+    private int[][] buildMagicSquare() {
+        int[][] lines = new int[8][];
+        for (int k = 0; k < 3; k++) {
+            lines[k] = new int[]{this.boardSize.getIndex(3, 3 + k), this.boardSize.getIndex(4, 3 + k), this.boardSize.getIndex(5, 3 + k)};
+            lines[3 + k] = new int[]{this.boardSize.getIndex(3 + k, 3), this.boardSize.getIndex(3 + k, 4), this.boardSize.getIndex(3 + k, 5)};
+        }
+        lines[6] = new int[]{this.boardSize.getIndex(3, 3), this.boardSize.getIndex(4, 4), this.boardSize.getIndex(5, 5)};
+        lines[7] = new int[]{this.boardSize.getIndex(3, 5), this.boardSize.getIndex(4, 4), this.boardSize.getIndex(5, 3)};
+
+        int[] numLines = new int[this.numCells];
+        for (int[] line : lines) {
+            for (int index : line) {
+                numLines[index]++;
+            }
+        }
+        for (int index = 0; index < this.numCells; index++) {
+            if (numLines[index] > 0) {
+                this.startingCandidates[index] = MAGIC_SQUARE_LINE.getValuesInCombinations(numLines[index]);
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * The candidates and values of every cell at some point in the search.
+     */
+    static class SearchState {
+
+        private final int[] candidates;
+        private final int[] values;
+
+        private SearchState(int[] candidates, int[] values) {
+            this.candidates = candidates;
+            this.values = values;
+        }
+
+        /**
+         * @param index The index of a cell
+         * @return The candidates of the cell, as a mask
+         */
+        int getCandidates(int index) {
+            return this.candidates[index];
+        }
+
+        int[] getValues() {
+            return this.values;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package calvert.jd.sudoku.game.solver;
+
+import calvert.jd.sudoku.game.BoardSize;
+import calvert.jd.sudoku.game.metrics.LogicStageMetrics;
+
+/**
+ * The outcome of solving a single puzzle with {@link SudokuSolver}.
+ */
+public class SolveResult {
+    private final SolveStatus status;
+    private final int[] values; // The value of each cell by index, or 0 if the cell has no value
+    private final int numQueueProcesses;
+    private final int numUpdates;
+    private final int numSearchNodes;
+    private final int numBacktracks;
+    private final LogicStageMetrics logicStageMetrics;
+
+    public SolveResult(SolveStatus status, int[] values, int numQueueProcesses, int numUpdates, int numSearchNodes, int numBacktracks, LogicStageMetrics logicStageMetrics) {
+        this.status = status;
+        this.values = values;
+        this.numQueueProcesses = numQueueProcesses;
+        this.numUpdates = numUpdates;
+        this.numSearchNodes = numSearchNodes;
+        this.numBacktracks = numBacktracks;
+        this.logicStageMetrics = logicStageMetrics;
+    }
+
+    public SolveStatus getStatus() {
+        return this.status;
+    }
+
+    /**
+     * @return The final value of each cell, in reading order (see {@link calvert.jd.sudoku.game.Cell#getIndex()}), with 0 for cells that have no value
+     */
+    public int[] getValues() {
+        return this.values;
+    }
+
+    /**
+     * @param i The column of the cell
+     * @param j The row of the cell
+     * @return The final value of the cell, or 0 if the cell has no value
+     */
+    public int getValue(int i, int j) {
+        int size = (int) Math.sqrt(this.values.length);
+        return this.values[j * size + i];
+    }
+
+    public int getNumQueueProcesses() {
+        return this.numQueueProcesses;
+    }
+
+    public int getNumUpdates() {
+        return this.numUpdates;
+    }
+
+    /**
+     * @return The number of guesses made by searching, or 0 if searching wasn't needed or wasn't enabled
+     */
+    public int getNumSearchNodes() {
+        return this.numSearchNodes;
+    }
+
+    /**
+     * @return The number of guesses that were undone because they led to an error
+     */
+    public int getNumBacktracks() {
+        return this.numBacktracks;
+    }
+
+    /**
+     * @return What each logic stage did during the solve
+     */
+    public LogicStageMetrics getLogicStageMetrics() {
+        return this.logicStageMetrics;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder grid = new StringBuilder(this.values.length);
+        for (int value : this.values) {
+            grid.append(BoardSize.toChar(value));
+        }
+
+        return this.status + " " + grid + " numQueueProcesses=" + this.numQueueProcesses + " numUpdates=" + this.numUpdates
+            + " numSearchNodes=" + this.numSearchNodes + " numBacktracks=" + this.numBacktracks;
+    }
+}
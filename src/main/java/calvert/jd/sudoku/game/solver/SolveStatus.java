@@ -0,0 +1,11 @@
+package calvert.jd.sudoku.game.solver;
+
+/**
+ * How a solve finished.
+ */
+public enum SolveStatus {
+    SOLVED, // Every cell has a value
+    STUCK, // No cells are in error, but the logic stages ran out of things to do before every cell had a value
+    CONTRADICTION, // A cell has no possible values, or two cells break a rule. When searching, this means the puzzle has no solution.
+    SEARCH_NODE_LIMIT // The search made as many guesses as it was allowed without finding a solution, so the board is left where the logic stages got stuck
+}
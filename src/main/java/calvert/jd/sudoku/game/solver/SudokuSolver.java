@@ -0,0 +1,105 @@
+package calvert.jd.sudoku.game.solver;
+
+import calvert.jd.sudoku.game.Cell;
+import calvert.jd.sudoku.game.GameParameters;
+import calvert.jd.sudoku.game.GameState;
+import calvert.jd.sudoku.game.journal.SolveJournal;
+import calvert.jd.sudoku.game.metrics.LogicStageMetrics;
+import calvert.jd.sudoku.game.save.SaveCell;
+import calvert.jd.sudoku.game.save.SaveGame;
+
+import java.util.List;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Solves puzzles on the calling thread, without any UI. No threads are started, there are no pauses between updates, and no listeners are called, so a solve takes only as long
+ * as the logic itself.
+ * <p>
+ * A solver reuses its game state between solves, so it is not thread safe. Use one solver per thread.
+ */
+public class SudokuSolver {
+
+    private final GameState gameState = new GameState();
+
+    public SudokuSolver() {
+        this.gameState.setDoUpdates(false);
+    }
+
+    /**
+     * Record every change the following solves make to the board, so that they can be replayed. Each solve starts the journal again.
+     *
+     * @param journal The journal to record in, or null to stop recording
+     */
+    public void setJournal(SolveJournal journal) {
+        this.gameState.setJournal(journal);
+    }
+
+    /**
+     * Solve a saved game using its own rules and constraints, along with every logic stage.
+     *
+     * @param saveGame The puzzle to solve
+     * @return The result of the solve
+     */
+    public SolveResult solve(SaveGame saveGame) {
+        return solve(saveGame.getCells(), GameParameters.forSaveGame(saveGame));
+    }
+
+    /**
+     * Solve a saved game using the given parameters, ignoring the rules and constraints in the save.
+     *
+     * @param saveGame       The puzzle to solve
+     * @param gameParameters The rules and logic stages to solve with
+     * @return The result of the solve
+     */
+    public SolveResult solve(SaveGame saveGame, GameParameters gameParameters) {
+        return solve(saveGame.getCells(), gameParameters);
+    }
+
+    /**
+     * Solve a puzzle from the given initial values.
+     *
+     * @param givens         The cells with initial values
+     * @param gameParameters The rules and logic stages to solve with
+     * @return The result of the solve
+     */
+    public SolveResult solve(List<SaveCell> givens, GameParameters gameParameters) {
+        this.gameState.setBoardSize(gameParameters.getBoardSize());
+        this.gameState.setInitialValues(givens);
+        this.gameState.solve(gameParameters);
+
+        return new SolveResult(
+            getStatus(),
+            getValues(),
+            this.gameState.getNumQueueProcesses(),
+            this.gameState.getNumUpdates(),
+            this.gameState.getNumSearchNodes(),
+            this.gameState.getNumBacktracks(),
+            new LogicStageMetrics(this.gameState.getLogicStageMetrics())
+        );
+    }
+
+    private SolveStatus getStatus() {
+        if (this.gameState.isError()) {
+            return SolveStatus.CONTRADICTION;
+        } else if (this.gameState.isComplete()) {
+            return SolveStatus.SOLVED;
+        } else if (this.gameState.isSearchNodeLimitReached()) {
+            return SolveStatus.SEARCH_NODE_LIMIT;
+        } else {
+            return SolveStatus.STUCK;
+        }
+    }
+
+    private int[] getValues() {
+        List<Cell> cells = this.gameState.getCells();
+
+        int[] values = new int[cells.size()];
+        for (Cell cell : cells) {
+            if (nonNull(cell.getValue())) {
+                values[cell.getIndex()] = cell.getValue();
+            }
+        }
+        return values;
+    }
+}
@@ -2,13 +2,11 @@ package calvert.jd.sudoku.game.util;
 
 import calvert.jd.sudoku.game.Cell;
 
-import java.util.List;
-
 public class CellUpdate {
     private final Cell cell;
-    private final List<Integer> removedPossibilities;
+    private final int removedPossibilities; // Mask of the values removed, as described in PossibleValues
 
-    public CellUpdate(Cell cell, List<Integer> removedPossibilities) {
+    public CellUpdate(Cell cell, int removedPossibilities) {
         this.cell = cell;
         this.removedPossibilities = removedPossibilities;
     }
@@ -17,7 +15,7 @@ public class CellUpdate {
         return this.cell;
     }
 
-    public List<Integer> getRemovedPossibilities() {
+    public int getRemovedPossibilities() {
         return this.removedPossibilities;
     }
 }
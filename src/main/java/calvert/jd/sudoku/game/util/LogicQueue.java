@@ -2,38 +2,114 @@ package calvert.jd.sudoku.game.util;
 
 import calvert.jd.sudoku.game.logic.LogicConstraint;
 import calvert.jd.sudoku.game.logic.LogicStageIdentifier;
-import org.apache.commons.lang3.builder.EqualsBuilder;
-import org.apache.commons.lang3.builder.HashCodeBuilder;
 
-import java.util.Comparator;
-import java.util.LinkedList;
-import java.util.ListIterator;
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Objects;
+import java.util.Set;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 
 /**
  * Queue to keep track of which pieces of logic should be run on which cells. Prioritises by logic stage, but otherwise
- * keeps cells in the same order they were inserted.
+ * keeps cells in the same order they were inserted. An entry that is already waiting in the queue is not added again.
+ * <p>
+ * Each logic stage has its own first-in-first-out bucket, and a set of the waiting entries is kept alongside, so adding
+ * and polling take constant time however long the queue gets.
  */
-public class LogicQueue extends LinkedList<LogicQueue.LogicQueueEntry> {
+public class LogicQueue extends AbstractQueue<LogicQueue.LogicQueueEntry> {
+
+    private static final LogicStageIdentifier[] LOGIC_STAGES = LogicStageIdentifier.values();
+
+    private final ArrayDeque<LogicQueueEntry>[] buckets;
+    private final Set<LogicQueueEntry> entries = new HashSet<>();
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public LogicQueue() {
+        this.buckets = new ArrayDeque[LOGIC_STAGES.length];
+        for (int i = 0; i < this.buckets.length; i++) {
+            this.buckets[i] = new ArrayDeque<>();
+        }
+    }
+
+    @Override
+    public boolean offer(LogicQueueEntry logicQueueEntry) {
+        if (!this.entries.add(logicQueueEntry)) {
+            return false;
+        }
+
+        this.buckets[logicQueueEntry.getLogicStageIdentifier().ordinal()].addLast(logicQueueEntry);
+        return true;
+    }
 
+    // A duplicate entry is not an error, so return false rather than throwing as AbstractQueue would
     @Override
     public boolean add(LogicQueueEntry logicQueueEntry) {
-        // Traverse through the elements in the list. If the new element is already in the list, then don't add it. If
-        // we reach an element with a later logic stage, then add the new entry before it.
-        ListIterator<LogicQueueEntry> it = listIterator();
-        while (it.hasNext()) {
-            LogicQueueEntry next = it.next();
-            if (Objects.equals(next, logicQueueEntry)) {
-                return false;
-            } else if (Objects.compare(logicQueueEntry, next, Comparator.comparing(LogicQueueEntry::getLogicStageIdentifier)) < 0) {
-                it.previous();
-                it.add(logicQueueEntry);
-                return true;
+        return offer(logicQueueEntry);
+    }
+
+    @Override
+    public LogicQueueEntry poll() {
+        ArrayDeque<LogicQueueEntry> bucket = firstNonEmptyBucket();
+        if (isNull(bucket)) {
+            return null;
+        }
+
+        LogicQueueEntry logicQueueEntry = bucket.pollFirst();
+        this.entries.remove(logicQueueEntry);
+        return logicQueueEntry;
+    }
+
+    @Override
+    public LogicQueueEntry peek() {
+        ArrayDeque<LogicQueueEntry> bucket = firstNonEmptyBucket();
+        return isNull(bucket) ? null : bucket.peekFirst();
+    }
+
+    private ArrayDeque<LogicQueueEntry> firstNonEmptyBucket() {
+        for (ArrayDeque<LogicQueueEntry> bucket : this.buckets) {
+            if (!bucket.isEmpty()) {
+                return bucket;
             }
         }
+        return null;
+    }
 
-        it.add(logicQueueEntry);
-        return true;
+    @Override
+    public int size() {
+        return this.entries.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.entries.isEmpty();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return this.entries.contains(o);
+    }
+
+    @Override
+    public void clear() {
+        for (ArrayDeque<LogicQueueEntry> bucket : this.buckets) {
+            bucket.clear();
+        }
+        this.entries.clear();
+    }
+
+    /**
+     * @return An iterator over the entries in the order they would be polled. It does not support removal.
+     */
+    @Override
+    public Iterator<LogicQueueEntry> iterator() {
+        return Arrays.stream(this.buckets)
+            .flatMap(ArrayDeque::stream)
+            .iterator();
     }
 
     public static class LogicQueueEntry {
@@ -65,19 +141,28 @@ public class LogicQueue extends LinkedList<LogicQueue.LogicQueueEntry> {
 
             LogicQueueEntry that = (LogicQueueEntry) o;
 
-            return new EqualsBuilder()
-                .append(this.logicStageIdentifier, that.logicStageIdentifier)
-                .append(this.logicConstraint, that.logicConstraint)
-                .build();
-
+            return this.logicStageIdentifier == that.logicStageIdentifier
+                && Objects.equals(this.logicConstraint, that.logicConstraint);
         }
 
         @Override
         public int hashCode() {
-            return new HashCodeBuilder()
-                .append(this.logicStageIdentifier)
-                .append(this.logicConstraint)
-                .toHashCode();
+            return 31 * this.logicStageIdentifier.hashCode() + Objects.hashCode(this.logicConstraint);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder stringBuilder = new StringBuilder(160).append("logic=").append(this.logicStageIdentifier);
+            appendField(stringBuilder, "cell", this.logicConstraint.getCell());
+            appendField(stringBuilder, "value", this.logicConstraint.getValue());
+            appendField(stringBuilder, "rule", this.logicConstraint.getRule());
+            return stringBuilder.toString();
+        }
+
+        private static void appendField(StringBuilder stringBuilder, String fieldName, Object value) {
+            if (nonNull(value)) {
+                stringBuilder.append(", ").append(fieldName).append("=").append(value);
+            }
         }
     }
 }
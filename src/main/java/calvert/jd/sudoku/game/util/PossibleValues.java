@@ -0,0 +1,88 @@
+package calvert.jd.sudoku.game.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Helpers for working with sets of possible values stored as bitmasks. The value {@code v} is represented by bit
+ * {@code v - 1}, so a mask of {@code 0b101} contains the values 1 and 3, and an empty mask contains no values.
+ */
+public final class PossibleValues {
+
+    public static final int NONE = 0;
+
+    private PossibleValues() {
+    }
+
+    /**
+     * @param maxValue The largest value that can be placed in a cell
+     * @return A mask containing every value from 1 to maxValue
+     */
+    public static int all(int maxValue) {
+        return (1 << maxValue) - 1;
+    }
+
+    /**
+     * @param value The value to convert
+     * @return A mask containing only the given value
+     */
+    public static int of(int value) {
+        return 1 << (value - 1);
+    }
+
+    /**
+     * @param values The values to convert
+     * @return A mask containing all the given values
+     */
+    public static int of(int... values) {
+        int mask = NONE;
+        for (int value : values) {
+            mask |= of(value);
+        }
+        return mask;
+    }
+
+    public static boolean contains(int mask, int value) {
+        return (mask & of(value)) != 0;
+    }
+
+    public static boolean isEmpty(int mask) {
+        return mask == NONE;
+    }
+
+    public static int count(int mask) {
+        return Integer.bitCount(mask);
+    }
+
+    public static boolean isSingle(int mask) {
+        return mask != NONE && (mask & (mask - 1)) == 0;
+    }
+
+    /**
+     * @param mask A non-empty mask
+     * @return The smallest value in the mask. For a mask with a single value, this is that value.
+     */
+    public static int lowest(int mask) {
+        return Integer.numberOfTrailingZeros(mask) + 1;
+    }
+
+    /**
+     * @param mask A non-empty mask
+     * @return The mask with its smallest value removed, to allow iterating over values without boxing
+     */
+    public static int withoutLowest(int mask) {
+        return mask & (mask - 1);
+    }
+
+    public static List<Integer> toList(int mask) {
+        List<Integer> values = new ArrayList<>(count(mask));
+        for (int remaining = mask; remaining != NONE; remaining = withoutLowest(remaining)) {
+            values.add(lowest(remaining));
+        }
+        return values;
+    }
+
+    public static String toString(int mask) {
+        return toList(mask).toString();
+    }
+}
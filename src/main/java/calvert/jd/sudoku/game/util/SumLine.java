@@ -0,0 +1,135 @@
+package calvert.jd.sudoku.game.util;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * A line of cells whose values must add up to a total, such as a row of a magic square, with what each cell can hold worked out from tables built when the line is created.
+ * <p>
+ * The possible values of a cell are those that can make the total with some possible value of each of the other cells. This doesn't check that the values are distinct, which
+ * is left to the rules. For a line of three cells on a board of up to nine values, a table gives the possible values of the third cell for every pair of masks of the other
+ * two, so it is a single lookup. Longer lines add up the possible totals of the other cells, one cell at a time. The distinct sets of values that make the total are also
+ * counted, to find the values that appear in a given number of them.
+ * <p>
+ * A sum line only depends on its length, total and largest value, so it can be shared between games and threads.
+ */
+public class SumLine {
+
+    private static final int MAX_PAIR_TABLE_VALUE = 9; // Beyond this, the table of pairs would take too much memory
+
+    private final int numCells;
+    private final int total;
+    private final int maxValue;
+
+    private final int[] valuesInCombinations; // For each number of distinct sets of values making the total, the values in exactly that many sets
+    private final char[] pairTable; // For a line of three cells, the possible values of a cell indexed by the masks of the other two, or null for other lines
+
+    /**
+     * @param numCells The number of cells in the line
+     * @param total    The total the values must add up to
+     * @param maxValue The largest value a cell can hold
+     * @throws IllegalArgumentException If the total is too large to work with
+     */
+    public SumLine(int numCells, int total, int maxValue) {
+        if (total >= Long.SIZE - 1) {
+            throw new IllegalArgumentException("A sum line can't add up to " + total);
+        }
+
+        this.numCells = numCells;
+        this.total = total;
+        this.maxValue = maxValue;
+
+        int[] numCombinations = new int[maxValue + 1];
+        countCombinations(numCombinations, numCells, total, 1, PossibleValues.NONE);
+        int maxCombinations = 0;
+        for (int value = 1; value <= maxValue; value++) {
+            maxCombinations = Math.max(maxCombinations, numCombinations[value]);
+        }
+        this.valuesInCombinations = new int[maxCombinations + 1];
+        for (int value = 1; value <= maxValue; value++) {
+            this.valuesInCombinations[numCombinations[value]] |= PossibleValues.of(value);
+        }
+
+        this.pairTable = numCells == 3 && maxValue <= MAX_PAIR_TABLE_VALUE ? buildPairTable() : null;
+    }
+
+    public int getNumCells() {
+        return this.numCells;
+    }
+
+    public int getTotal() {
+        return this.total;
+    }
+
+    /**
+     * @param numCombinations A number of distinct sets of values
+     * @return The values that appear in exactly that many of the distinct sets of values that make the total, as a mask. For a row of a magic square of 1 to 9, these are the
+     * even values for 3, the odd values other than 5 for 2, and 5 for 4.
+     */
+    public int getValuesInCombinations(int numCombinations) {
+        return numCombinations < this.valuesInCombinations.length ? this.valuesInCombinations[numCombinations] : PossibleValues.NONE;
+    }
+
+    /**
+     * @param otherPossibleValues The possible values of each of the other cells in the line, as masks. A cell with a value has a mask of only that value.
+     * @return The values the remaining cell can hold that make the total with some possible value of each of the other cells, as a mask
+     */
+    public int getPossibleValues(int... otherPossibleValues) {
+        if (otherPossibleValues.length == 2 && nonNull(this.pairTable)) {
+            return this.pairTable[(otherPossibleValues[0] << this.maxValue) | otherPossibleValues[1]];
+        }
+
+        long totals = 1; // Bit n is set if the cells so far can add up to n
+        long totalsMask = (1L << (this.total + 1)) - 1;
+        for (int possibleValues : otherPossibleValues) {
+            long newTotals = 0;
+            for (int remaining = possibleValues; remaining != PossibleValues.NONE; remaining = PossibleValues.withoutLowest(remaining)) {
+                newTotals |= totals << PossibleValues.lowest(remaining);
+            }
+            totals = newTotals & totalsMask;
+        }
+
+        int possibleValues = PossibleValues.NONE;
+        for (int value = 1; value <= Math.min(this.maxValue, this.total); value++) {
+            if ((totals & (1L << (this.total - value))) != 0) {
+                possibleValues |= PossibleValues.of(value);
+            }
+        }
+        return possibleValues;
+    }
+
+    private void countCombinations(int[] numCombinations, int cellsLeft, int totalLeft, int smallestValue, int combination) {
+        if (cellsLeft == 0) {
+            if (totalLeft == 0) {
+                for (int remaining = combination; remaining != PossibleValues.NONE; remaining = PossibleValues.withoutLowest(remaining)) {
+                    numCombinations[PossibleValues.lowest(remaining)]++;
+                }
+            }
+            return;
+        }
+
+        for (int value = smallestValue; value <= Math.min(this.maxValue, totalLeft); value++) {
+            countCombinations(numCombinations, cellsLeft - 1, totalLeft - value, value + 1, combination | PossibleValues.of(value));
+        }
+    }
+
+    // Each entry is made from entries already filled in: a mask of more than one value allows whatever its lowest value or the rest of its values allow
+    private char[] buildPairTable() {
+        int numMasks = 1 << this.maxValue;
+        char[] pairTable = new char[numMasks * numMasks];
+        for (int first = 1; first < numMasks; first++) {
+            for (int second = 1; second < numMasks; second++) {
+                int possibleValues;
+                if (!PossibleValues.isSingle(second)) {
+                    possibleValues = pairTable[(first << this.maxValue) | Integer.lowestOneBit(second)] | pairTable[(first << this.maxValue) | PossibleValues.withoutLowest(second)];
+                } else if (!PossibleValues.isSingle(first)) {
+                    possibleValues = pairTable[(Integer.lowestOneBit(first) << this.maxValue) | second] | pairTable[(PossibleValues.withoutLowest(first) << this.maxValue) | second];
+                } else {
+                    int value = this.total - PossibleValues.lowest(first) - PossibleValues.lowest(second);
+                    possibleValues = value >= 1 && value <= this.maxValue ? PossibleValues.of(value) : PossibleValues.NONE;
+                }
+                pairTable[(first << this.maxValue) | second] = (char) possibleValues;
+            }
+        }
+        return pairTable;
+    }
+}
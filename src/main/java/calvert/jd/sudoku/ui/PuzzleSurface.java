@@ -1,121 +1,159 @@
 package calvert.jd.sudoku.ui;
 
-import calvert.jd.sudoku.game.Cell;
-import calvert.jd.sudoku.game.GameState;
+import calvert.jd.sudoku.game.BoardSize;
+import calvert.jd.sudoku.game.BoardSnapshot;
+import calvert.jd.sudoku.game.util.PossibleValues;
 
 import javax.swing.*;
 import java.awt.*;
-import java.util.Collection;
-import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.function.IntPredicate;
 
 import static java.awt.Color.*;
 import static java.util.Objects.nonNull;
 
 public class PuzzleSurface extends JPanel {
 
-    public static final int CELL_SIZE = 50;
+    public static final int SIZE = 450; // The width and height of the board. Cells are as large as will fit, so smaller on bigger boards.
     private static final int MAIN_BORDER_WIDTH = 3;
     private static final int REGION_BORDER_WIDTH = 2;
     private static final int CELL_BORDER_WIDTH = 1;
 
-    private static final int SIZE = CELL_SIZE * 9;
+    private static final int MIN_POSSIBLE_VALUE_SIZE = 8; // Possible values aren't drawn if they'd be smaller than this
 
     private static final Color LIGHT_YELLOW = new Color(255, 255, 192);
     private static final Color LIGHT_RED = new Color(255, 192, 192);
     private static final Color DARK_BLUE = new Color(0, 0, 128);
 
-    private final GameState gameState;
-
-    public PuzzleSurface(GameState gameState) {
-        this.gameState = gameState;
+    private BoardSnapshot snapshot = null;
 
+    public PuzzleSurface() {
         setPreferredSize(new Dimension(SIZE + 10, SIZE + 10));
         setBackground(WHITE);
     }
 
+    /**
+     * Show a snapshot of the board. Must be called on the event dispatch thread.
+     *
+     * @param snapshot The board to show
+     */
+    public void show(BoardSnapshot snapshot) {
+        this.snapshot = snapshot;
+        repaint();
+    }
+
     private void doDrawing(Graphics g) {
         Graphics2D g2d = (Graphics2D) g;
 
+        BoardSize boardSize = nonNull(this.snapshot) ? this.snapshot.getBoardSize() : BoardSize.NINE_BY_NINE;
+        int cellSize = SIZE / boardSize.getSize();
+        int boardPixels = cellSize * boardSize.getSize();
+
         g2d.setColor(BLACK);
 
         //Highlight selected cells
-        highlightCells(g2d, this.gameState.getErrorCells(), LIGHT_RED);
-        highlightCells(g2d, this.gameState.getCalculationCells(), LIGHT_YELLOW);
-        highlightCells(g2d, this.gameState.getSelectedCells(), YELLOW);
+        if (nonNull(this.snapshot)) {
+            highlightCells(g2d, cellSize, this.snapshot::isErrorCell, LIGHT_RED);
+            highlightCells(g2d, cellSize, this.snapshot::isCalculationCell, LIGHT_YELLOW);
+            highlightCells(g2d, cellSize, this.snapshot::isSelectedCell, YELLOW);
+        }
 
         //Outline
         g2d.setColor(BLACK);
         g2d.setStroke(new BasicStroke(MAIN_BORDER_WIDTH));
-        g2d.drawRect(5, 5, SIZE, SIZE);
+        g2d.drawRect(5, 5, boardPixels, boardPixels);
 
         //Regions
+        int regionWidth = cellSize * boardSize.getRegionWidth();
+        int regionHeight = cellSize * boardSize.getRegionHeight();
         g2d.setStroke(new BasicStroke(REGION_BORDER_WIDTH));
-        for (int i = 0; i < 3; i++) {
-            for (int j = 0; j < 3; j++) {
-                g2d.drawRect(5 + i * (CELL_SIZE * 3), 5 + j * (CELL_SIZE * 3), CELL_SIZE * 3, CELL_SIZE * 3);
+        for (int i = 0; i < boardSize.getSize() / boardSize.getRegionWidth(); i++) {
+            for (int j = 0; j < boardSize.getSize() / boardSize.getRegionHeight(); j++) {
+                g2d.drawRect(5 + i * regionWidth, 5 + j * regionHeight, regionWidth, regionHeight);
             }
         }
 
         //Cells
         g2d.setStroke(new BasicStroke(CELL_BORDER_WIDTH));
-        for (int i = 0; i < 9; i++) {
-            for (int j = 0; j < 9; j++) {
-                g2d.drawRect(5 + i * CELL_SIZE, 5 + j * CELL_SIZE, CELL_SIZE, CELL_SIZE);
+        for (int i = 0; i < boardSize.getSize(); i++) {
+            for (int j = 0; j < boardSize.getSize(); j++) {
+                g2d.drawRect(5 + i * cellSize, 5 + j * cellSize, cellSize, cellSize);
             }
         }
 
-        List<Cell> selectedAndCalculationCells = Stream.of(this.gameState.getSelectedCells(), this.gameState.getCalculationCells()).flatMap(Collection::stream).collect(Collectors.toList());
+        if (nonNull(this.snapshot)) {
+            drawNumbers(g2d, this.snapshot, cellSize);
+        }
+    }
+
+    private void drawNumbers(Graphics2D g2d, BoardSnapshot snapshot, int cellSize) {
+        int size = snapshot.getBoardSize().getSize();
+
+        // Possible values are laid out in a square grid within the cell
+        int possibleValueColumns = (int) Math.ceil(Math.sqrt(size));
+        int possibleValueSize = cellSize / possibleValueColumns;
 
-        //Numbers
-        this.gameState.getCells().forEach(cell -> {
-            int cellPositionX = 5 + cell.getI() * CELL_SIZE;
-            int cellPositionY = 5 + cell.getJ() * CELL_SIZE;
+        Font valueFont = g2d.getFont().deriveFont(cellSize * 0.8f);
+        Font possibleValueFont = g2d.getFont().deriveFont(possibleValueSize * 0.625f);
 
-            if (nonNull(cell.getInitialValue())) {
+        for (int index = 0; index < snapshot.getNumCells(); index++) {
+            int cellPositionX = 5 + (index % size) * cellSize;
+            int cellPositionY = 5 + (index / size) * cellSize;
+
+            int initialValue = snapshot.getInitialValue(index);
+            if (initialValue != 0) {
                 g2d.setColor(BLACK);
             } else {
                 g2d.setColor(DARK_BLUE);
             }
 
-            g2d.setFont(g2d.getFont().deriveFont(40.0f));
-            Integer value = Optional.ofNullable(cell.getInitialValue()).orElse(cell.getValue());
-            if (nonNull(value)) {
+            g2d.setFont(valueFont);
+            int value = initialValue != 0 ? initialValue : snapshot.getValue(index);
+            if (value != 0) {
+                String text = String.valueOf(BoardSize.toChar(value));
+                FontMetrics fontMetrics = g2d.getFontMetrics();
                 g2d.drawString(
-                    value.toString(),
-                    cellPositionX + CELL_SIZE / 2 - 10,
-                    cellPositionY + CELL_SIZE / 2 + 15
+                    text,
+                    cellPositionX + (cellSize - fontMetrics.stringWidth(text)) / 2,
+                    cellPositionY + (cellSize + fontMetrics.getAscent() - fontMetrics.getDescent()) / 2
                 );
             }
 
-            boolean isSelected = selectedAndCalculationCells.contains(cell);
+            if (possibleValueSize < MIN_POSSIBLE_VALUE_SIZE) {
+                continue;
+            }
+
+            boolean isSelected = snapshot.isSelectedCell(index) || snapshot.isCalculationCell(index);
 
             g2d.setColor(GRAY);
-            g2d.setFont(g2d.getFont().deriveFont(10.0f));
-            cell.getPossibleValues().forEach(possibleValue -> {
-                Font originalFont = g2d.getFont();
-                if (isSelected && this.gameState.getCalculationValues().contains(possibleValue)) {
-                    g2d.setFont(originalFont.deriveFont(Font.BOLD));
+            g2d.setFont(possibleValueFont);
+            int possibleValues = snapshot.getPossibleValues(index);
+            for (int remaining = possibleValues; remaining != PossibleValues.NONE; remaining = PossibleValues.withoutLowest(remaining)) {
+                int possibleValue = PossibleValues.lowest(remaining);
+
+                if (isSelected && PossibleValues.contains(snapshot.getCalculationValues(), possibleValue)) {
+                    g2d.setFont(possibleValueFont.deriveFont(Font.BOLD));
                 }
 
                 g2d.drawString(
-                    possibleValue.toString(),
-                    cellPositionX + 20 * ((possibleValue - 1) % 3) + 3,
-                    cellPositionY + 16 * ((possibleValue - 1) / 3) + 13
+                    String.valueOf(BoardSize.toChar(possibleValue)),
+                    cellPositionX + possibleValueSize * ((possibleValue - 1) % possibleValueColumns) + 3,
+                    cellPositionY + possibleValueSize * ((possibleValue - 1) / possibleValueColumns) + possibleValueSize - 3
                 );
 
-                g2d.setFont(originalFont);
-            });
-        });
+                g2d.setFont(possibleValueFont);
+            }
+        }
     }
 
-    private void highlightCells(Graphics2D g2d, List<Cell> calculationCells, Color colour) {
+    private void highlightCells(Graphics2D g2d, int cellSize, IntPredicate isHighlighted, Color colour) {
+        int size = this.snapshot.getBoardSize().getSize();
+
         g2d.setColor(colour);
-        calculationCells.forEach(cell -> {
-            g2d.fillRect(5 + cell.getI() * CELL_SIZE, 5 + cell.getJ() * CELL_SIZE, CELL_SIZE, CELL_SIZE);
-        });
+        for (int index = 0; index < this.snapshot.getNumCells(); index++) {
+            if (isHighlighted.test(index)) {
+                g2d.fillRect(5 + (index % size) * cellSize, 5 + (index / size) * cellSize, cellSize, cellSize);
+            }
+        }
     }
 
     @Override
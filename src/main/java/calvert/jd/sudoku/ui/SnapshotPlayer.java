@@ -0,0 +1,117 @@
+package calvert.jd.sudoku.ui;
+
+import calvert.jd.sudoku.actioncontrol.GameStateListener;
+import calvert.jd.sudoku.game.BoardSnapshot;
+
+import javax.swing.*;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Hands snapshots of the board from the solving thread to the puzzle surface. The solver adds snapshots to a lock-free queue and carries straight on, and a timer on the event
+ * dispatch thread shows them one at a time, with a delay between snapshots taken part way through a solve so that the solve can be followed.
+ * <p>
+ * The solver can take snapshots much faster than they are shown, so only the most recent few are kept, and older ones are dropped as new ones arrive. The last snapshot of a
+ * solve is never dropped, so the board always ends up showing where the solve finished.
+ */
+public class SnapshotPlayer implements GameStateListener {
+
+    private static final int TICK_MILLIS = 20;
+    private static final int MAX_PENDING_SNAPSHOTS = 16;
+
+    private final PuzzleSurface puzzleSurface;
+    private final Runnable onDone;
+
+    private final Queue<BoardSnapshot> snapshots = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger numSnapshots = new AtomicInteger(0); // The size of the queue, which the queue itself can only count by walking it
+    private final AtomicBoolean donePending = new AtomicBoolean(false);
+
+    private volatile long delayNanos = TimeUnit.MILLISECONDS.toNanos(100);
+    private boolean paused = false;
+    private long lastShownNanos = 0;
+
+    /**
+     * @param puzzleSurface The surface to show the snapshots on
+     * @param onDone        Run on the event dispatch thread once the solve is done and every snapshot from it has been shown
+     */
+    public SnapshotPlayer(PuzzleSurface puzzleSurface, Runnable onDone) {
+        this.puzzleSurface = puzzleSurface;
+        this.onDone = onDone;
+
+        new Timer(TICK_MILLIS, e -> tick()).start();
+    }
+
+    @Override
+    public void update(BoardSnapshot snapshot) {
+        this.snapshots.add(snapshot);
+        if (this.numSnapshots.incrementAndGet() > MAX_PENDING_SNAPSHOTS) {
+            poll();
+        }
+    }
+
+    @Override
+    public void done() {
+        this.donePending.set(true);
+    }
+
+    private void tick() {
+        BoardSnapshot snapshot = this.snapshots.peek();
+        if (isNull(snapshot)) {
+            if (this.donePending.compareAndSet(true, false)) {
+                this.onDone.run();
+            }
+            return;
+        }
+
+        long now = System.nanoTime();
+        if (!snapshot.isRunning() || (!this.paused && now - this.lastShownNanos >= this.delayNanos)) {
+            // The solver may have dropped this snapshot since it was looked at, in which case the next tick shows whatever has replaced it
+            if (this.snapshots.remove(snapshot)) {
+                this.numSnapshots.decrementAndGet();
+                this.lastShownNanos = now;
+                this.puzzleSurface.show(snapshot);
+            }
+        }
+    }
+
+    private BoardSnapshot poll() {
+        BoardSnapshot snapshot = this.snapshots.poll();
+        if (nonNull(snapshot)) {
+            this.numSnapshots.decrementAndGet();
+        }
+        return snapshot;
+    }
+
+    public void setDelay(long delayMillis) {
+        this.delayNanos = TimeUnit.MILLISECONDS.toNanos(delayMillis);
+    }
+
+    /**
+     * Stop or start showing snapshots taken part way through a solve. Must be called on the event dispatch thread.
+     *
+     * @param paused Whether to stop showing snapshots
+     */
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+    }
+
+    /**
+     * Skip straight to the most recent snapshot. Must be called on the event dispatch thread.
+     */
+    public void skipToLatest() {
+        BoardSnapshot latest = null;
+        for (BoardSnapshot snapshot = poll(); nonNull(snapshot); snapshot = poll()) {
+            latest = snapshot;
+        }
+
+        if (nonNull(latest)) {
+            this.puzzleSurface.show(latest);
+        }
+    }
+}
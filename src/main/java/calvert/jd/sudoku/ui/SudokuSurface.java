@@ -1,12 +1,16 @@
 package calvert.jd.sudoku.ui;
 
-import calvert.jd.sudoku.actioncontrol.GameStateListener;
+import calvert.jd.sudoku.game.BoardSize;
 import calvert.jd.sudoku.game.GameParameters;
 import calvert.jd.sudoku.game.GameState;
+import calvert.jd.sudoku.game.journal.JournalReplay;
+import calvert.jd.sudoku.game.journal.JournalStep;
+import calvert.jd.sudoku.game.journal.SolveJournal;
 import calvert.jd.sudoku.game.logic.LogicStageIdentifier;
 import calvert.jd.sudoku.game.rules.Rule.RuleIdentifier;
 import calvert.jd.sudoku.game.save.SaveCell;
 import calvert.jd.sudoku.game.save.SaveGame;
+import calvert.jd.sudoku.game.solver.ParallelSolutionCounter;
 import calvert.jd.sudoku.ui.components.LinkedCheckBox;
 import calvert.jd.sudoku.ui.components.LoggingPane;
 import calvert.jd.sudoku.ui.components.NumberSpinner;
@@ -27,28 +31,35 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
+import static calvert.jd.sudoku.actioncontrol.LogLevel.INFO;
 import static calvert.jd.sudoku.game.logic.LogicStageIdentifier.*;
 import static calvert.jd.sudoku.game.rules.Rule.RuleIdentifier.*;
 import static java.awt.Color.LIGHT_GRAY;
 import static java.util.Arrays.asList;
+import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 import static javax.swing.GroupLayout.DEFAULT_SIZE;
 import static javax.swing.GroupLayout.PREFERRED_SIZE;
 import static javax.swing.ScrollPaneConstants.HORIZONTAL_SCROLLBAR_NEVER;
 import static javax.swing.ScrollPaneConstants.VERTICAL_SCROLLBAR_ALWAYS;
 
-public class SudokuSurface extends JPanel implements ActionListener, KeyListener, GameStateListener {
+public class SudokuSurface extends JPanel implements ActionListener, KeyListener {
 
-    private static final int SIZE = PuzzleSurface.CELL_SIZE * 9 + 10;
+    private static final int SIZE = PuzzleSurface.SIZE + 10;
 
     private final GameState gameState;
 
     private PuzzleSurface puzzleSurface;
+    private SnapshotPlayer snapshotPlayer;
     private JPanel controlPanel;
     private LoggingPane loggingPane;
 
+    private JPanel boardPanel;
+    private JComboBox<BoardSize> boardSizeComboBox;
+
     private JPanel rulesPanel;
     private JCheckBox standardRulesCheckbox;
     private JCheckBox leadingDiagonalsRuleCheckbox;
@@ -64,6 +75,7 @@ public class SudokuSurface extends JPanel implements ActionListener, KeyListener
     private JCheckBox sharedPossibilitiesEliminationCheckbox;
     private JCheckBox samePossibilitiesEliminationCheckbox;
     private JCheckBox multipleCellEliminationCheckbox;
+    private JCheckBox searchCheckbox;
 
     private JPanel inputPanel;
     private JButton upButton;
@@ -79,18 +91,30 @@ public class SudokuSurface extends JPanel implements ActionListener, KeyListener
     private JButton stopButton;
     private JButton resetButton;
     private JButton clearAllButton;
+    private JButton checkButton;
+    private boolean checking = false; // Whether a check for solutions is running, so the check button stays disabled until it is done
     private JButton saveSetupButton;
     private JButton loadSetupButton;
     private JCheckBox doUpdatesCheckbox;
     private JSpinner updateDelaySpinner;
 
+    private JPanel replayPanel;
+    private JSlider replaySlider;
+    private JLabel replayStepLabel;
+    private JButton stepBackButton;
+    private JButton stepForwardButton;
+    private JButton playButton;
+    private Timer replayTimer;
+
+    private SolveJournal solveJournal; // Recorded by the latest solve
+    private JournalReplay journalReplay; // Replays the latest finished solve, or null if there hasn't been one
+
     private JFileChooser fileChooser;
     private final ObjectMapper objectMapper;
     private final ObjectWriter objectWriter;
 
     public SudokuSurface() {
         this.gameState = new GameState();
-        this.gameState.addGameStateListener(this);
 
         this.objectMapper = new ObjectMapper();
         this.objectWriter = this.objectMapper.writer(new DefaultPrettyPrinter().withArrayIndenter(new DefaultIndenter()));
@@ -105,7 +129,9 @@ public class SudokuSurface extends JPanel implements ActionListener, KeyListener
         GroupLayout mainLayout = createGroupLayout(this);
         setBackground(LIGHT_GRAY);
 
-        this.puzzleSurface = new PuzzleSurface(this.gameState);
+        this.puzzleSurface = new PuzzleSurface();
+        this.snapshotPlayer = new SnapshotPlayer(this.puzzleSurface, this::solveDone);
+        this.gameState.addGameStateListener(this.snapshotPlayer);
         this.puzzleSurface.setLocation(20, 20);
         this.puzzleSurface.setSize(SIZE, SIZE);
 
@@ -117,6 +143,23 @@ public class SudokuSurface extends JPanel implements ActionListener, KeyListener
 
         GroupLayout controlPanelLayout = createGroupLayout(this.controlPanel);
 
+        this.boardPanel = new JPanel();
+        this.boardPanel.setBorder(BorderFactory.createTitledBorder("Board"));
+        GroupLayout boardPanelLayout = createGroupLayout(this.boardPanel);
+
+        this.boardSizeComboBox = new JComboBox<>(BoardSize.values());
+        this.boardSizeComboBox.setSelectedItem(this.gameState.getBoardSize());
+        this.boardSizeComboBox.addActionListener(this);
+
+        boardPanelLayout.setHorizontalGroup(
+            boardPanelLayout.createParallelGroup()
+                .addComponent(this.boardSizeComboBox, DEFAULT_SIZE, DEFAULT_SIZE, Short.MAX_VALUE)
+        );
+        boardPanelLayout.setVerticalGroup(
+            boardPanelLayout.createSequentialGroup()
+                .addComponent(this.boardSizeComboBox, PREFERRED_SIZE, PREFERRED_SIZE, PREFERRED_SIZE)
+        );
+
         this.rulesPanel = new JPanel();
         this.rulesPanel.setBorder(BorderFactory.createTitledBorder("Rules"));
         GroupLayout rulesPanelLayout = createGroupLayout(this.rulesPanel);
@@ -170,6 +213,7 @@ public class SudokuSurface extends JPanel implements ActionListener, KeyListener
         this.sharedPossibilitiesEliminationCheckbox = new JCheckBox("Shared Possibilities");
         this.samePossibilitiesEliminationCheckbox = new JCheckBox("Same Possibilities");
         this.multipleCellEliminationCheckbox = new JCheckBox("Multiple Cell Elimination");
+        this.searchCheckbox = new JCheckBox("Search When Stuck");
 
         this.singleCellEliminationCheckbox.setSelected(true);
         this.sharedPossibilitiesEliminationCheckbox.setSelected(true);
@@ -182,6 +226,7 @@ public class SudokuSurface extends JPanel implements ActionListener, KeyListener
                 .addComponent(this.sharedPossibilitiesEliminationCheckbox, DEFAULT_SIZE, DEFAULT_SIZE, Short.MAX_VALUE)
                 .addComponent(this.samePossibilitiesEliminationCheckbox, DEFAULT_SIZE, DEFAULT_SIZE, Short.MAX_VALUE)
                 .addComponent(this.multipleCellEliminationCheckbox, DEFAULT_SIZE, DEFAULT_SIZE, Short.MAX_VALUE)
+                .addComponent(this.searchCheckbox, DEFAULT_SIZE, DEFAULT_SIZE, Short.MAX_VALUE)
         );
         logicStagesGroupLayout.setVerticalGroup(
             logicStagesGroupLayout.createSequentialGroup()
@@ -189,6 +234,7 @@ public class SudokuSurface extends JPanel implements ActionListener, KeyListener
                 .addComponent(this.sharedPossibilitiesEliminationCheckbox)
                 .addComponent(this.samePossibilitiesEliminationCheckbox)
                 .addComponent(this.multipleCellEliminationCheckbox)
+                .addComponent(this.searchCheckbox)
         );
 
         this.inputPanel = new JPanel();
@@ -287,10 +333,12 @@ public class SudokuSurface extends JPanel implements ActionListener, KeyListener
         this.stopButton = createButton("Stop");
         this.resetButton = createButton("Reset");
         this.clearAllButton = createButton("Clear All");
+        this.checkButton = createButton("Check");
         this.saveSetupButton = createButton("Save");
         this.loadSetupButton = createButton("Load");
         this.doUpdatesCheckbox = new LinkedCheckBox("Pause Between Updates", this.gameState::setDoUpdates);
-        this.updateDelaySpinner = new NumberSpinner(this.gameState::setUpdateDelay, new SpinnerNumberModel(100, 100, 1000, 100));
+        this.replayTimer = new Timer(100, e -> replayNextStep());
+        this.updateDelaySpinner = new NumberSpinner(this::setUpdateDelay, new SpinnerNumberModel(100, 100, 1000, 100));
 
         this.doUpdatesCheckbox.setSelected(true);
 
@@ -309,6 +357,7 @@ public class SudokuSurface extends JPanel implements ActionListener, KeyListener
                             buttonPanelLayout.createParallelGroup()
                                 .addComponent(this.pauseButton, DEFAULT_SIZE, DEFAULT_SIZE, Short.MAX_VALUE)
                                 .addComponent(this.resetButton, DEFAULT_SIZE, DEFAULT_SIZE, Short.MAX_VALUE)
+                                .addComponent(this.checkButton, DEFAULT_SIZE, DEFAULT_SIZE, Short.MAX_VALUE)
                                 .addComponent(this.loadSetupButton, DEFAULT_SIZE, DEFAULT_SIZE, Short.MAX_VALUE)
                         )
                 )
@@ -335,6 +384,7 @@ public class SudokuSurface extends JPanel implements ActionListener, KeyListener
                         .addGroup(
                             buttonPanelLayout.createParallelGroup()
                                 .addComponent(this.clearAllButton)
+                                .addComponent(this.checkButton)
                         )
                         .addGroup(
                             buttonPanelLayout.createParallelGroup()
@@ -346,21 +396,59 @@ public class SudokuSurface extends JPanel implements ActionListener, KeyListener
                 )
         );
 
+        this.replayPanel = new JPanel();
+        this.replayPanel.setBorder(BorderFactory.createTitledBorder("Replay"));
+        GroupLayout replayPanelLayout = createGroupLayout(this.replayPanel);
+
+        this.replaySlider = new JSlider(0, 0, 0);
+        this.replaySlider.addChangeListener(e -> showReplayStep());
+        this.replayStepLabel = new JLabel(" ");
+        this.stepBackButton = createButton("Back");
+        this.stepForwardButton = createButton("Forward");
+        this.playButton = createButton("Play");
+
+        replayPanelLayout.setHorizontalGroup(
+            replayPanelLayout.createParallelGroup()
+                .addComponent(this.replaySlider, DEFAULT_SIZE, DEFAULT_SIZE, Short.MAX_VALUE)
+                .addComponent(this.replayStepLabel, DEFAULT_SIZE, DEFAULT_SIZE, Short.MAX_VALUE)
+                .addGroup(
+                    replayPanelLayout.createSequentialGroup()
+                        .addComponent(this.stepBackButton, DEFAULT_SIZE, DEFAULT_SIZE, Short.MAX_VALUE)
+                        .addComponent(this.playButton, DEFAULT_SIZE, DEFAULT_SIZE, Short.MAX_VALUE)
+                        .addComponent(this.stepForwardButton, DEFAULT_SIZE, DEFAULT_SIZE, Short.MAX_VALUE)
+                )
+        );
+        replayPanelLayout.setVerticalGroup(
+            replayPanelLayout.createSequentialGroup()
+                .addComponent(this.replaySlider)
+                .addComponent(this.replayStepLabel)
+                .addGroup(
+                    replayPanelLayout.createParallelGroup()
+                        .addComponent(this.stepBackButton)
+                        .addComponent(this.playButton)
+                        .addComponent(this.stepForwardButton)
+                )
+        );
+
         controlPanelLayout.setHorizontalGroup(
             controlPanelLayout.createParallelGroup()
+                .addComponent(this.boardPanel, DEFAULT_SIZE, DEFAULT_SIZE, Short.MAX_VALUE)
                 .addComponent(this.rulesPanel, DEFAULT_SIZE, DEFAULT_SIZE, Short.MAX_VALUE)
                 .addComponent(this.constraintsPanel, DEFAULT_SIZE, DEFAULT_SIZE, Short.MAX_VALUE)
                 .addComponent(this.logicStagesPanel, DEFAULT_SIZE, DEFAULT_SIZE, Short.MAX_VALUE)
                 .addComponent(this.inputPanel, DEFAULT_SIZE, DEFAULT_SIZE, Short.MAX_VALUE)
                 .addComponent(this.buttonPanel, DEFAULT_SIZE, DEFAULT_SIZE, Short.MAX_VALUE)
+                .addComponent(this.replayPanel, DEFAULT_SIZE, DEFAULT_SIZE, Short.MAX_VALUE)
         );
         controlPanelLayout.setVerticalGroup(
             controlPanelLayout.createSequentialGroup()
+                .addComponent(this.boardPanel)
                 .addComponent(this.rulesPanel)
                 .addComponent(this.constraintsPanel)
                 .addComponent(this.logicStagesPanel)
                 .addComponent(this.inputPanel)
                 .addComponent(this.buttonPanel)
+                .addComponent(this.replayPanel)
         );
 
         this.loggingPane = new LoggingPane();
@@ -388,6 +476,8 @@ public class SudokuSurface extends JPanel implements ActionListener, KeyListener
 
         makeNotFocusable(this.controlPanel);
         enablePanelsForStopped();
+
+        this.gameState.refresh();
     }
 
     private GroupLayout createGroupLayout(JPanel panel) {
@@ -416,7 +506,7 @@ public class SudokuSurface extends JPanel implements ActionListener, KeyListener
     private GameParameters buildGameParameters() {
         List<RuleIdentifier> rules = buildRules();
         List<LogicStageIdentifier> logicStages = buildLogicStages();
-        return new GameParameters(rules, logicStages);
+        return new GameParameters(this.gameState.getBoardSize(), rules, logicStages, this.searchCheckbox.isSelected());
     }
 
     private List<RuleIdentifier> buildRules() {
@@ -465,6 +555,8 @@ public class SudokuSurface extends JPanel implements ActionListener, KeyListener
     }
 
     private void enablePanelsForStarted() {
+        setComponentEnabled(this.boardPanel, false);
+        setComponentEnabled(this.replayPanel, false);
         setComponentEnabled(this.rulesPanel, false);
         setComponentEnabled(this.constraintsPanel, false);
         setComponentEnabled(this.logicStagesPanel, false);
@@ -475,11 +567,14 @@ public class SudokuSurface extends JPanel implements ActionListener, KeyListener
         setComponentEnabled(this.stopButton, true);
         setComponentEnabled(this.resetButton, false);
         setComponentEnabled(this.clearAllButton, false);
+        setComponentEnabled(this.checkButton, false);
         setComponentEnabled(this.saveSetupButton, false);
         setComponentEnabled(this.loadSetupButton, false);
     }
 
     private void enablePanelsForStopped() {
+        setComponentEnabled(this.boardPanel, true);
+        setComponentEnabled(this.replayPanel, nonNull(this.journalReplay));
         setComponentEnabled(this.rulesPanel, true);
         setComponentEnabled(this.constraintsPanel, true);
         setComponentEnabled(this.logicStagesPanel, true);
@@ -490,10 +585,78 @@ public class SudokuSurface extends JPanel implements ActionListener, KeyListener
         setComponentEnabled(this.stopButton, false);
         setComponentEnabled(this.resetButton, true);
         setComponentEnabled(this.clearAllButton, true);
+        setComponentEnabled(this.checkButton, !this.checking);
         setComponentEnabled(this.saveSetupButton, true);
         setComponentEnabled(this.loadSetupButton, true);
     }
 
+    private void setUpdateDelay(int delayMillis) {
+        this.snapshotPlayer.setDelay(delayMillis);
+        this.replayTimer.setDelay(delayMillis);
+    }
+
+    private void startSolve() {
+        stopReplay();
+        this.journalReplay = null;
+        this.solveJournal = new SolveJournal();
+        this.gameState.setJournal(this.solveJournal);
+
+        enablePanelsForStarted();
+        this.gameState.start(buildGameParameters());
+    }
+
+    // The solve has finished and every snapshot from it has been shown, so its journal can be replayed from the end
+    private void solveDone() {
+        if (nonNull(this.solveJournal)) {
+            this.journalReplay = new JournalReplay(this.solveJournal);
+            this.replaySlider.setMaximum(this.journalReplay.getNumSteps());
+            this.replaySlider.setValue(this.journalReplay.getNumSteps());
+            this.solveJournal = null;
+        }
+        enablePanelsForStopped();
+    }
+
+    private void showReplayStep() {
+        if (isNull(this.journalReplay)) {
+            return;
+        }
+
+        this.journalReplay.seek(this.replaySlider.getValue());
+        this.puzzleSurface.show(this.journalReplay.toSnapshot());
+
+        JournalStep lastStep = this.journalReplay.getLastStep();
+        this.replayStepLabel.setText("Step " + this.journalReplay.getStep() + " of " + this.journalReplay.getNumSteps() + (nonNull(lastStep) ? ": " + lastStep : ""));
+    }
+
+    private void replayActionPerformed(Object source) {
+        if (source == this.stepBackButton) {
+            this.replaySlider.setValue(this.replaySlider.getValue() - 1);
+        } else if (source == this.stepForwardButton) {
+            this.replaySlider.setValue(this.replaySlider.getValue() + 1);
+        } else if (this.replayTimer.isRunning()) {
+            stopReplay();
+        } else {
+            if (this.replaySlider.getValue() == this.replaySlider.getMaximum()) {
+                this.replaySlider.setValue(0);
+            }
+            this.playButton.setText("Pause");
+            this.replayTimer.start();
+        }
+    }
+
+    private void replayNextStep() {
+        if (this.replaySlider.getValue() < this.replaySlider.getMaximum()) {
+            this.replaySlider.setValue(this.replaySlider.getValue() + 1);
+        } else {
+            stopReplay();
+        }
+    }
+
+    private void stopReplay() {
+        this.replayTimer.stop();
+        this.playButton.setText("Play");
+    }
+
     private void setComponentEnabled(Component component, boolean enabled) {
         component.setEnabled(enabled);
         if (component instanceof Container) {
@@ -509,39 +672,63 @@ public class SudokuSurface extends JPanel implements ActionListener, KeyListener
                     selectedFile = new File(selectedFile.getPath() + ".json");
                 }
 
-                SaveGame saveGame = new SaveGame(
-                    this.gameState.getCells().stream()
-                        .filter(cell -> nonNull(cell.getInitialValue()))
-                        .map(cell -> new SaveCell(cell.getI(), cell.getJ(), cell.getInitialValue()))
-                        .collect(Collectors.toList()),
-                    buildRules(),
-                    buildLogicStages().stream()
-                        .filter(LogicStageIdentifier::isConstraint)
-                        .collect(Collectors.toList())
-                );
-
-                this.objectWriter.writeValue(selectedFile, saveGame);
+                this.objectWriter.writeValue(selectedFile, buildSaveGame());
             }
         } catch (IOException ex) {
             throw new RuntimeException(ex);
         }
     }
 
+    private SaveGame buildSaveGame() {
+        return new SaveGame(
+            this.gameState.getBoardSize(),
+            this.gameState.getCells().stream()
+                .filter(cell -> nonNull(cell.getInitialValue()))
+                .map(cell -> new SaveCell(cell.getI(), cell.getJ(), cell.getInitialValue()))
+                .collect(Collectors.toList()),
+            buildRules(),
+            buildLogicStages().stream()
+                .filter(LogicStageIdentifier::isConstraint)
+                .collect(Collectors.toList())
+        );
+    }
+
+    // Count solutions up to two, which is enough to tell whether the puzzle entered has none, exactly one, or more than one. A sparse or large puzzle can take a while to
+    // search, so the count runs off the event dispatch thread and the result is logged back on it.
+    private void checkSolutions() {
+        this.gameState.clearLogging();
+        this.gameState.log(INFO, "Checking the puzzle...");
+        this.checking = true;
+        setComponentEnabled(this.checkButton, false);
+
+        SaveGame saveGame = buildSaveGame();
+        CompletableFuture.supplyAsync(() -> ParallelSolutionCounter.countSolutions(saveGame, 2))
+            .whenComplete((numSolutions, throwable) -> SwingUtilities.invokeLater(() -> checkDone(numSolutions, throwable)));
+    }
+
+    private void checkDone(Integer numSolutions, Throwable throwable) {
+        this.checking = false;
+        setComponentEnabled(this.checkButton, !this.gameState.isRunning());
+
+        if (nonNull(throwable)) {
+            this.gameState.log(INFO, "The check failed: {0}", throwable.getMessage());
+        } else if (numSolutions == 0) {
+            this.gameState.log(INFO, "The puzzle has no solutions");
+        } else if (numSolutions == 1) {
+            this.gameState.log(INFO, "The puzzle has exactly one solution");
+        } else {
+            this.gameState.log(INFO, "The puzzle has more than one solution");
+        }
+    }
+
     private void loadSetup() {
         try {
             if (this.fileChooser.showDialog(null, "Ok") == JFileChooser.APPROVE_OPTION) {
                 File selectedFile = this.fileChooser.getSelectedFile();
 
                 SaveGame saveGame = this.objectMapper.readValue(selectedFile, SaveGame.class);
-                this.gameState.getCells().forEach(cell ->
-                    saveGame.getCells().stream()
-                        .filter(parameterCell -> cell.getI() == parameterCell.getI() && cell.getJ() == parameterCell.getJ())
-                        .findFirst()
-                        .ifPresentOrElse(
-                            parameterCell -> cell.setInitialValue(parameterCell.getValue()),
-                            () -> cell.setInitialValue(null)
-                        )
-                );
+                this.boardSizeComboBox.setSelectedItem(saveGame.getBoardSize());
+                this.gameState.setInitialValues(saveGame.getCells());
 
                 List<RuleIdentifier> rules = saveGame.getRules();
                 this.standardRulesCheckbox.setSelected(rules.containsAll(asList(SUDOKU_ROW_RULE, SUDOKU_COLUMN_RULE, SUDOKU_REGION_RULE)));
@@ -563,18 +750,28 @@ public class SudokuSurface extends JPanel implements ActionListener, KeyListener
     @Override
     public void actionPerformed(ActionEvent e) {
         Object source = e.getSource();
-        if (source == this.startButton) {
-            enablePanelsForStarted();
-            this.gameState.start(buildGameParameters());
+        if (source == this.stepBackButton || source == this.stepForwardButton || source == this.playButton) {
+            // The replay shows its own board, so the game's board isn't refreshed over it
+            replayActionPerformed(source);
+            return;
+        }
+
+        if (source == this.boardSizeComboBox) {
+            this.gameState.setBoardSize((BoardSize) this.boardSizeComboBox.getSelectedItem());
+        } else if (source == this.startButton) {
+            startSolve();
         } else if (source == this.pauseButton) {
             if (this.pauseButton.getText().equals("Pause")) {
                 this.pauseButton.setText("Resume");
+                this.snapshotPlayer.setPaused(true);
             } else if (this.pauseButton.getText().equals("Resume")) {
                 this.pauseButton.setText("Pause");
+                this.snapshotPlayer.setPaused(false);
             }
             this.gameState.togglePause();
         } else if (source == this.stopButton) {
             this.gameState.stop();
+            this.snapshotPlayer.skipToLatest();
         } else if (source == this.resetButton) {
             this.gameState.reset();
         } else if (source == this.upButton) {
@@ -589,6 +786,8 @@ public class SudokuSurface extends JPanel implements ActionListener, KeyListener
             this.gameState.getSelectedCells().forEach(cell -> cell.setInitialValue(null));
         } else if (source == this.clearAllButton) {
             this.gameState.clear();
+        } else if (source == this.checkButton) {
+            checkSolutions();
         } else if (source == this.saveSetupButton) {
             saveSetup();
         } else if (source == this.loadSetupButton) {
@@ -596,14 +795,19 @@ public class SudokuSurface extends JPanel implements ActionListener, KeyListener
         } else {
             char[] chars = e.getActionCommand().toCharArray();
             if (chars.length > 0) {
-                char aChar = chars[0];
-                if (aChar >= '1' && aChar <= '9') {
-                    this.gameState.getSelectedCells().forEach(cell -> cell.setInitialValue(Integer.valueOf(String.valueOf(aChar))));
-                }
+                setSelectedCellsInitialValue(chars[0]);
             }
         }
 
-        repaint();
+        this.gameState.refresh();
+    }
+
+    // Values above 9 are typed as letters, as there are only buttons for 1 to 9
+    private void setSelectedCellsInitialValue(char character) {
+        int value = this.gameState.getBoardSize().fromChar(character);
+        if (value > 0) {
+            this.gameState.getSelectedCells().forEach(cell -> cell.setInitialValue(value));
+        }
     }
 
     @Override
@@ -620,26 +824,15 @@ public class SudokuSurface extends JPanel implements ActionListener, KeyListener
             this.gameState.moveSelectedCellLeft();
         } else if (e.getKeyCode() == KeyEvent.VK_RIGHT) {
             this.gameState.moveSelectedCellRight();
-        } else if (e.getKeyChar() >= '1' && e.getKeyChar() <= '9') {
-            this.gameState.getSelectedCells().forEach(cell -> cell.setInitialValue(Integer.valueOf(String.valueOf(e.getKeyChar()))));
+        } else if (this.gameState.getBoardSize().fromChar(e.getKeyChar()) > 0) {
+            setSelectedCellsInitialValue(e.getKeyChar());
         } else if (e.getKeyCode() == KeyEvent.VK_DELETE) {
             this.gameState.getSelectedCells().forEach(cell -> cell.setInitialValue(null));
         }
-        repaint();
+        this.gameState.refresh();
     }
 
     @Override
     public void keyReleased(KeyEvent e) {
     }
-
-    @Override
-    public void update() {
-        repaint();
-    }
-
-    @Override
-    public void done() {
-        enablePanelsForStopped();
-        repaint();
-    }
 }
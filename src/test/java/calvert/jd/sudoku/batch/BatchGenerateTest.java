@@ -0,0 +1,53 @@
+package calvert.jd.sudoku.batch;
+
+import calvert.jd.sudoku.game.BoardSize;
+import calvert.jd.sudoku.game.GameParameters;
+import calvert.jd.sudoku.game.rules.Rule.RuleIdentifier;
+import calvert.jd.sudoku.game.save.LinePuzzleReader;
+import calvert.jd.sudoku.game.solver.SolutionCounter;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+
+import static calvert.jd.sudoku.game.logic.LogicStageIdentifier.SINGLE_CELL_ELIMINATION;
+import static calvert.jd.sudoku.game.rules.Rule.RuleIdentifier.*;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class BatchGenerateTest {
+
+    private static final List<RuleIdentifier> RULES = asList(SUDOKU_ROW_RULE, SUDOKU_COLUMN_RULE, SUDOKU_REGION_RULE);
+    private static final GameParameters GAME_PARAMETERS = new GameParameters(BoardSize.SIX_BY_SIX, RULES, singletonList(SINGLE_CELL_ELIMINATION), false);
+
+    @Test
+    public void generateUniquePuzzles() throws Exception {
+        StringWriter output = new StringWriter();
+        new BatchGenerate(2, output, GAME_PARAMETERS, false).generate(20, 5);
+
+        SolutionCounter counter = new SolutionCounter(BoardSize.SIX_BY_SIX, RULES);
+        int numPuzzles = 0;
+        try (LinePuzzleReader reader = new LinePuzzleReader(new StringReader(output.toString()), BoardSize.SIX_BY_SIX, RULES, emptyList())) {
+            while (reader.hasNext()) {
+                assertThat(counter.countSolutions(reader.next().getCells(), 2), is(1));
+                numPuzzles++;
+            }
+        }
+        assertThat(numPuzzles, is(20));
+    }
+
+    @Test
+    public void sameSeedGivesSamePuzzlesWithAnyNumberOfThreads() throws Exception {
+        StringWriter oneThread = new StringWriter();
+        new BatchGenerate(1, oneThread, GAME_PARAMETERS, false).generate(20, 5);
+
+        StringWriter threeThreads = new StringWriter();
+        new BatchGenerate(3, threeThreads, GAME_PARAMETERS, false).generate(20, 5);
+
+        assertThat(threeThreads.toString(), is(oneThread.toString()));
+    }
+}
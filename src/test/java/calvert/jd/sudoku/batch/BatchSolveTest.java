@@ -0,0 +1,98 @@
+package calvert.jd.sudoku.batch;
+
+import calvert.jd.sudoku.game.save.SaveGame;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+public class BatchSolveTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void solveSavesFolder() throws Exception {
+        StringWriter output = new StringWriter();
+
+        BatchSummary summary = new BatchSolve(2, output).solve(singletonList(Paths.get("src/main/resources/saves")));
+
+        String[] lines = output.toString().split("\\R");
+        assertThat(lines.length, is(summary.getNumPuzzles()));
+        assertThat(Arrays.asList(lines), everyItem(containsString("\tSOLVED\t")));
+
+        assertThat(summary.getNumPuzzles(), is(greaterThan(0)));
+        assertThat(summary.getNumSolved(), is(summary.getNumPuzzles()));
+        assertThat(summary.getLatencyNanos(50), is(lessThanOrEqualTo(summary.getLatencyNanos(100))));
+    }
+
+    @Test
+    public void unreadableFileIsAnError() throws Exception {
+        StringWriter output = new StringWriter();
+
+        BatchSummary summary = new BatchSolve(1, output).solve(singletonList(Paths.get("README.md")));
+
+        assertThat(summary.getNumErrors(), is(1));
+        assertThat(output.toString(), containsString("README.md\tERROR\t"));
+    }
+
+    @Test
+    public void gradeWritesDifficultyAndScore() throws Exception {
+        StringWriter output = new StringWriter();
+
+        BatchSolve batchSolve = new BatchSolve(1, output);
+        batchSolve.setGrading(true);
+        batchSolve.solve(singletonList(Paths.get("src/main/resources/saves/Pocket 121.json")));
+
+        String[] columns = output.toString().trim().split("\t");
+        assertThat(columns.length, is(6));
+        assertThat(columns[4], is("MEDIUM"));
+    }
+
+    @Test
+    public void solveCorpus() throws Exception {
+        Path corpusFile = this.temporaryFolder.getRoot().toPath().resolve("saves.corpus");
+        long numPuzzles = new CorpusConverter().convert(singletonList(Paths.get("src/main/resources/saves")), corpusFile);
+
+        StringWriter output = new StringWriter();
+        BatchSummary summary = new BatchSolve(2, output).solve(singletonList(corpusFile));
+
+        assertThat((long) summary.getNumSolved(), is(numPuzzles));
+        assertThat(output.toString(), containsString("saves.corpus#0\tSOLVED\t"));
+    }
+
+    @Test
+    public void solveLineFile() throws Exception {
+        SaveGame saveGame = new ObjectMapper().readValue(new File("src/main/resources/saves/Knight's Move Sudoku.json"), SaveGame.class);
+        char[] line = new char[81];
+        Arrays.fill(line, '.');
+        saveGame.getCells().forEach(saveCell -> line[saveCell.getJ() * 9 + saveCell.getI()] = (char) ('0' + saveCell.getValue()));
+
+        Path lineFile = this.temporaryFolder.getRoot().toPath().resolve("puzzles.txt");
+        Files.write(lineFile, asList("# Knight's move", new String(line), new String(line)));
+
+        StringWriter output = new StringWriter();
+        BatchSolve batchSolve = new BatchSolve(2, output);
+        batchSolve.setLineFileRules(lineFile, saveGame.getRules(), saveGame.getConstraints());
+        BatchSummary summary = batchSolve.solve(singletonList(lineFile));
+
+        assertThat(summary.getNumSolved(), is(2));
+        assertThat(output.toString(), containsString("puzzles.txt:3\tSOLVED\t"));
+    }
+}
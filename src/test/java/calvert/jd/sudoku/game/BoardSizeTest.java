@@ -0,0 +1,38 @@
+package calvert.jd.sudoku.game;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class BoardSizeTest {
+
+    @Test
+    public void forSize() {
+        assertThat(BoardSize.forSize(16), is(BoardSize.SIXTEEN_BY_SIXTEEN));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void noBoardOfSize() {
+        BoardSize.forSize(8);
+    }
+
+    @Test
+    public void valuesAboveNineAreLetters() {
+        assertThat(BoardSize.toChar(9), is('9'));
+        assertThat(BoardSize.toChar(10), is('A'));
+        assertThat(BoardSize.toChar(25), is('P'));
+        assertThat(BoardSize.toChar(0), is('.'));
+
+        assertThat(BoardSize.TWENTY_FIVE_BY_TWENTY_FIVE.fromChar('p'), is(25));
+        assertThat(BoardSize.TWENTY_FIVE_BY_TWENTY_FIVE.fromChar('A'), is(10));
+        assertThat(BoardSize.NINE_BY_NINE.fromChar('0'), is(0));
+    }
+
+    @Test
+    public void valuesTooLargeForBoardAreInvalid() {
+        assertThat(BoardSize.SIX_BY_SIX.fromChar('7'), is(-1));
+        assertThat(BoardSize.NINE_BY_NINE.fromChar('A'), is(-1));
+        assertThat(BoardSize.SIXTEEN_BY_SIXTEEN.fromChar('?'), is(-1));
+    }
+}
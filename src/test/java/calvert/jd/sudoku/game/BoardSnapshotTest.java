@@ -0,0 +1,66 @@
+package calvert.jd.sudoku.game;
+
+import calvert.jd.sudoku.actioncontrol.GameStateListener;
+import calvert.jd.sudoku.game.save.SaveGame;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class BoardSnapshotTest {
+
+    private final GameState gameState = new GameState();
+    private final List<BoardSnapshot> snapshots = new ArrayList<>();
+
+    @Test(timeout = 5000)
+    public void solvePublishesSnapshotsWithoutWaiting() throws Exception {
+        this.gameState.addGameStateListener(new GameStateListener() {
+            @Override
+            public void update(BoardSnapshot snapshot) {
+                BoardSnapshotTest.this.snapshots.add(snapshot);
+            }
+
+            @Override
+            public void done() {
+            }
+        });
+
+        SaveGame saveGame = new ObjectMapper().readValue(new File("src/main/resources/saves/Pocket 001.json"), SaveGame.class);
+        this.gameState.setInitialValues(saveGame.getCells());
+        this.gameState.solve(GameParameters.forSaveGame(saveGame));
+
+        assertThat(this.snapshots.size(), is(greaterThanOrEqualTo(this.gameState.getNumUpdates())));
+
+        // Earlier snapshots are not changed by the rest of the solve
+        BoardSnapshot first = this.snapshots.get(0);
+        BoardSnapshot last = this.snapshots.get(this.snapshots.size() - 1);
+        assertThat(IntStream.range(0, first.getNumCells()).filter(index -> first.getValue(index) == 0).count(), is(81L));
+        assertThat(IntStream.range(0, last.getNumCells()).filter(index -> last.getValue(index) == 0).count(), is(0L));
+
+        assertThat(this.snapshots.stream().anyMatch(BoardSnapshot::isRunning), is(true));
+        assertThat(last.isRunning(), is(false));
+    }
+
+    @Test
+    public void snapshotIsNotChangedByItsCaller() {
+        int[] values = new int[BoardSize.NINE_BY_NINE.getNumCells()];
+        int[] possibleValues = new int[values.length];
+        BitSet selectedCells = new BitSet();
+        BoardSnapshot snapshot = new BoardSnapshot(BoardSize.NINE_BY_NINE, values, new int[values.length], possibleValues, selectedCells);
+
+        values[0] = 5;
+        possibleValues[0] = 1;
+        selectedCells.set(0);
+
+        assertThat(snapshot.getValue(0), is(0));
+        assertThat(snapshot.getPossibleValues(0), is(0));
+        assertThat(snapshot.isSelectedCell(0), is(false));
+    }
+}
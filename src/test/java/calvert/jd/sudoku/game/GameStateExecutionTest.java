@@ -0,0 +1,189 @@
+package calvert.jd.sudoku.game;
+
+import calvert.jd.sudoku.actioncontrol.GameLoggingListener;
+import calvert.jd.sudoku.game.logic.LogicStageIdentifier;
+import calvert.jd.sudoku.game.metrics.LogicStageMetrics;
+import calvert.jd.sudoku.game.metrics.LogicStageTotals;
+import calvert.jd.sudoku.game.save.SaveGame;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Collections.emptyList;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class GameStateExecutionTest {
+
+    // Runs tasks only when asked, so that the test decides when the solve makes progress
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+    private final GameState gameState = new GameState(this.tasks::add);
+
+    private SaveGame saveGame;
+
+    @Before
+    public void init() throws Exception {
+        this.saveGame = new ObjectMapper().readValue(new File("src/main/resources/saves/Pocket 001.json"), SaveGame.class);
+
+        this.gameState.setDoUpdates(false);
+        this.gameState.setInitialValues(this.saveGame.getCells());
+    }
+
+    @Test
+    public void startCompletesFuture() {
+        CompletableFuture<Void> future = this.gameState.start(GameParameters.forSaveGame(this.saveGame));
+        assertThat(this.gameState.isRunning(), is(true));
+
+        this.tasks.poll().run();
+
+        assertThat(future.isDone(), is(true));
+        assertThat(this.gameState.isRunning(), is(false));
+        assertThat(this.gameState.isComplete(), is(true));
+    }
+
+    @Test
+    public void pauseAndResume() {
+        CompletableFuture<Void> future = this.gameState.start(GameParameters.forSaveGame(this.saveGame));
+
+        assertThat(this.gameState.pause(), is(true));
+        this.tasks.poll().run();
+
+        assertThat(this.gameState.isPaused(), is(true));
+        assertThat(future.isDone(), is(false));
+        assertThat(this.gameState.getNumQueueProcesses(), is(1));
+
+        assertThat(this.gameState.resume(), is(true));
+        this.tasks.poll().run();
+
+        assertThat(future.isDone(), is(true));
+        assertThat(this.gameState.isComplete(), is(true));
+    }
+
+    @Test
+    public void resumeBeforePauseTakesEffect() {
+        // Resume as soon as the solve has stopped processing for the pause, before it marks itself as paused
+        this.gameState.addGameLoggingListener(new GameLoggingListener() {
+            @Override
+            public void clear() {
+            }
+
+            @Override
+            public void log(String text) {
+                if (text.startsWith("Pausing")) {
+                    assertThat(GameStateExecutionTest.this.gameState.resume(), is(true));
+                }
+            }
+        });
+        CompletableFuture<Void> future = this.gameState.start(GameParameters.forSaveGame(this.saveGame));
+
+        assertThat(this.gameState.pause(), is(true));
+        this.tasks.poll().run();
+
+        assertThat(this.gameState.isPaused(), is(false));
+        assertThat(future.isDone(), is(true));
+        assertThat(this.gameState.isComplete(), is(true));
+        assertThat(this.tasks.isEmpty(), is(true));
+    }
+
+    @Test
+    public void pauseWhileSearching() {
+        this.gameState.setInitialValues(emptyList());
+        GameParameters searchParameters = GameParameters.forSaveGame(this.saveGame).withSearch();
+        CompletableFuture<Void> future = this.gameState.start(searchParameters);
+
+        // The logic stages have nothing to do on an empty board, so the search pauses before its first guess
+        assertThat(this.gameState.pause(), is(true));
+        this.tasks.poll().run();
+
+        assertThat(this.gameState.isPaused(), is(true));
+        assertThat(this.gameState.getNumSearchNodes(), is(0));
+
+        assertThat(this.gameState.resume(), is(true));
+        this.tasks.poll().run();
+
+        assertThat(future.isDone(), is(true));
+        assertThat(this.gameState.isComplete(), is(true));
+        assertThat(this.gameState.getNumSearchNodes(), is(greaterThan(0)));
+    }
+
+    @Test
+    public void cancelStops() {
+        CompletableFuture<Void> future = this.gameState.start(GameParameters.forSaveGame(this.saveGame));
+
+        future.cancel(true);
+        this.tasks.poll().run();
+
+        assertThat(this.gameState.isRunning(), is(false));
+        assertThat(this.gameState.isComplete(), is(false));
+        assertThat(this.gameState.getNumQueueProcesses(), is(1));
+    }
+
+    @Test
+    public void stopWhilePaused() {
+        CompletableFuture<Void> future = this.gameState.start(GameParameters.forSaveGame(this.saveGame));
+        this.gameState.pause();
+        this.tasks.poll().run();
+
+        this.gameState.stop();
+
+        assertThat(future.isDone(), is(true));
+        assertThat(this.gameState.isPaused(), is(false));
+    }
+
+    @Test
+    public void stopWhilePausedPublishesMetrics() {
+        long runsBefore = totalRuns();
+
+        this.gameState.start(GameParameters.forSaveGame(this.saveGame));
+        this.gameState.pause();
+        this.tasks.poll().run();
+        this.gameState.stop();
+
+        LogicStageMetrics metrics = this.gameState.getLogicStageMetrics();
+        long runs = Arrays.stream(LogicStageIdentifier.values()).mapToLong(metrics::getRuns).sum();
+        assertThat(runs, is(1L));
+        assertThat(totalRuns() - runsBefore, is(runs));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void cannotStartTwice() {
+        this.gameState.start(GameParameters.forSaveGame(this.saveGame));
+        this.gameState.start(GameParameters.forSaveGame(this.saveGame));
+    }
+
+    @Test(timeout = 10000)
+    public void manyGamesOnSharedExecutor() throws Exception {
+        ExecutorService executor = SolveExecutors.virtualThreads();
+        try {
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[8];
+            GameState[] gameStates = new GameState[futures.length];
+            for (int i = 0; i < futures.length; i++) {
+                gameStates[i] = new GameState(executor);
+                gameStates[i].setDoUpdates(false);
+                gameStates[i].setInitialValues(this.saveGame.getCells());
+                futures[i] = gameStates[i].start(GameParameters.forSaveGame(this.saveGame));
+            }
+
+            CompletableFuture.allOf(futures).get(10, TimeUnit.SECONDS);
+
+            for (GameState gameState : gameStates) {
+                assertThat(gameState.isComplete(), is(true));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static long totalRuns() {
+        return Arrays.stream(LogicStageIdentifier.values()).mapToLong(logicStage -> LogicStageTotals.forStage(logicStage).getRuns()).sum();
+    }
+}
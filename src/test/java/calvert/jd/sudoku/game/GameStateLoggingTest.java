@@ -0,0 +1,94 @@
+package calvert.jd.sudoku.game;
+
+import calvert.jd.sudoku.actioncontrol.GameLoggingListener;
+import calvert.jd.sudoku.actioncontrol.LogLevel;
+import calvert.jd.sudoku.game.save.SaveGame;
+import calvert.jd.sudoku.game.solver.SolveResult;
+import calvert.jd.sudoku.game.solver.SudokuSolver;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class GameStateLoggingTest {
+
+    private final GameState gameState = new GameState();
+
+    @Test
+    public void listenerOnlyReceivesItsLevel() throws Exception {
+        RecordingListener infoListener = new RecordingListener(LogLevel.INFO);
+        this.gameState.addGameLoggingListener(infoListener);
+
+        SaveGame saveGame = solve();
+
+        assertThat(infoListener.lines, hasItem("Initialising..."));
+        assertThat(infoListener.lines, everyItem(not(startsWith("About to process"))));
+        assertThat(this.gameState.isLoggable(LogLevel.DEBUG), is(false));
+
+        // The summary reports the same count as a headless solve of the same puzzle
+        List<String> summaries = infoListener.lines.stream()
+            .filter(line -> line.matches("Total queue entries processed: \\d+"))
+            .collect(Collectors.toList());
+        assertThat(summaries, hasSize(1));
+        SolveResult solveResult = new SudokuSolver().solve(saveGame);
+        assertThat(summaries.get(0), is("Total queue entries processed: " + solveResult.getNumQueueProcesses()));
+    }
+
+    @Test
+    public void mostDetailedListenerSetsLevel() throws Exception {
+        RecordingListener infoListener = new RecordingListener(LogLevel.INFO);
+        RecordingListener traceListener = new RecordingListener(LogLevel.TRACE);
+        this.gameState.addGameLoggingListener(infoListener);
+        this.gameState.addGameLoggingListener(traceListener);
+
+        solve();
+
+        assertThat(traceListener.lines, hasItem(startsWith("About to process logic=")));
+        assertThat(traceListener.lines, hasItem(startsWith("Update cell=")));
+        assertThat(infoListener.lines, everyItem(not(startsWith("Update cell="))));
+    }
+
+    @Test
+    public void nothingLoggableWithoutListeners() {
+        assertThat(this.gameState.isLoggable(LogLevel.INFO), is(false));
+    }
+
+    private SaveGame solve() throws Exception {
+        SaveGame saveGame = new ObjectMapper().readValue(new File("src/main/resources/saves/Pocket 001.json"), SaveGame.class);
+
+        this.gameState.setDoUpdates(false);
+        this.gameState.setInitialValues(saveGame.getCells());
+        this.gameState.solve(GameParameters.forSaveGame(saveGame));
+        return saveGame;
+    }
+
+    private static class RecordingListener implements GameLoggingListener {
+        private final LogLevel logLevel;
+        private final List<String> lines = new ArrayList<>();
+
+        RecordingListener(LogLevel logLevel) {
+            this.logLevel = logLevel;
+        }
+
+        @Override
+        public void clear() {
+            this.lines.clear();
+        }
+
+        @Override
+        public void log(String text) {
+            this.lines.add(text);
+        }
+
+        @Override
+        public LogLevel getLogLevel() {
+            return this.logLevel;
+        }
+    }
+}
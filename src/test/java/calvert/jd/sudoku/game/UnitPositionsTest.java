@@ -0,0 +1,59 @@
+package calvert.jd.sudoku.game;
+
+import calvert.jd.sudoku.game.rules.ConstraintGraph;
+import calvert.jd.sudoku.game.save.SaveGame;
+import calvert.jd.sudoku.game.util.PossibleValues;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+
+import static calvert.jd.sudoku.game.logic.LogicStageIdentifier.SINGLE_CELL_ELIMINATION;
+import static calvert.jd.sudoku.game.rules.Rule.RuleIdentifier.*;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class UnitPositionsTest {
+
+    private final ConstraintGraph constraintGraph = ConstraintGraph.forRules(BoardSize.NINE_BY_NINE, asList(SUDOKU_ROW_RULE, SUDOKU_COLUMN_RULE, SUDOKU_REGION_RULE));
+
+    @Test
+    public void positionsFollowPossibleValues() {
+        List<Cell> cells = new GameState().getCells();
+        cells.forEach(Cell::resetPossibleValues);
+        UnitPositions unitPositions = new UnitPositions(this.constraintGraph, cells);
+
+        int allValues = BoardSize.NINE_BY_NINE.getAllValues();
+        int firstRow = this.constraintGraph.getUnit(SUDOKU_ROW_RULE.getRule(), 0);
+        assertThat(unitPositions.getPositions(firstRow, 5), is(0b111111111));
+
+        unitPositions.update(2, allValues, allValues & ~PossibleValues.of(5));
+        assertThat(unitPositions.getPositions(firstRow, 5), is(0b111111011));
+        assertThat(unitPositions.getPositions(firstRow, 4), is(0b111111111));
+
+        unitPositions.update(2, allValues & ~PossibleValues.of(5), allValues);
+        assertThat(unitPositions.getPositions(firstRow, 5), is(0b111111111));
+    }
+
+    @Test
+    public void positionsAreKeptUpToDateBySolve() throws Exception {
+        SaveGame saveGame = new ObjectMapper().readValue(new File("src/main/resources/saves/7sudoku 20200604.json"), SaveGame.class);
+
+        GameState gameState = new GameState();
+        gameState.setDoUpdates(false);
+        gameState.setInitialValues(saveGame.getCells());
+        gameState.solve(new GameParameters(saveGame.getRules(), singletonList(SINGLE_CELL_ELIMINATION)));
+
+        // The solve gets stuck part way, so some values have places left, which must match the cells
+        ConstraintGraph constraintGraph = gameState.getConstraintGraph();
+        UnitPositions expected = new UnitPositions(constraintGraph, gameState.getCells());
+        for (int unit = 0; unit < constraintGraph.getUnits().length; unit++) {
+            for (int value = 1; value <= 9; value++) {
+                assertThat(gameState.getUnitPositions().getPositions(unit, value), is(expected.getPositions(unit, value)));
+            }
+        }
+    }
+}
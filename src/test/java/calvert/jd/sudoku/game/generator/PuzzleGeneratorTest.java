@@ -0,0 +1,67 @@
+package calvert.jd.sudoku.game.generator;
+
+import calvert.jd.sudoku.game.BoardSize;
+import calvert.jd.sudoku.game.GameParameters;
+import calvert.jd.sudoku.game.logic.LogicStageIdentifier;
+import calvert.jd.sudoku.game.rules.Rule.RuleIdentifier;
+import calvert.jd.sudoku.game.save.SaveGame;
+import calvert.jd.sudoku.game.solver.SolutionCounter;
+import calvert.jd.sudoku.game.solver.SolveStatus;
+import calvert.jd.sudoku.game.solver.SudokuSolver;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static calvert.jd.sudoku.game.logic.LogicStageIdentifier.*;
+import static calvert.jd.sudoku.game.rules.Rule.RuleIdentifier.*;
+import static java.util.Arrays.asList;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class PuzzleGeneratorTest {
+
+    private static final List<LogicStageIdentifier> LOGIC_STAGES = asList(SINGLE_CELL_ELIMINATION, MULTIPLE_CELL_ELIMINATION, SHARED_POSSIBILITIES_ELIMINATION, SAME_POSSIBILITIES_ELIMINATION);
+
+    @Test
+    public void generatedPuzzleIsUnique() {
+        List<RuleIdentifier> rules = asList(SUDOKU_ROW_RULE, SUDOKU_COLUMN_RULE, SUDOKU_REGION_RULE, KNIGHTS_MOVE_RULE);
+        PuzzleGenerator generator = new PuzzleGenerator(new GameParameters(rules, LOGIC_STAGES), false);
+
+        SaveGame saveGame = generator.generate(1);
+
+        assertThat(saveGame.getRules(), is(rules));
+        assertThat(new SolutionCounter(BoardSize.NINE_BY_NINE, rules).countSolutions(saveGame.getCells(), 2), is(1));
+    }
+
+    @Test
+    public void sameSeedGivesSamePuzzle() {
+        GameParameters gameParameters = new GameParameters(BoardSize.SIX_BY_SIX, asList(SUDOKU_ROW_RULE, SUDOKU_COLUMN_RULE, SUDOKU_REGION_RULE), LOGIC_STAGES, false);
+
+        SaveGame saveGame = new PuzzleGenerator(gameParameters, false).generate(42);
+        SaveGame sameSeed = new PuzzleGenerator(gameParameters, false).generate(42);
+
+        assertThat(givens(sameSeed), is(givens(saveGame)));
+        assertThat(saveGame.getBoardSize(), is(BoardSize.SIX_BY_SIX));
+    }
+
+    @Test
+    public void logicSolvesPuzzleWhenRequired() {
+        GameParameters gameParameters = new GameParameters(asList(SUDOKU_ROW_RULE, SUDOKU_COLUMN_RULE, SUDOKU_REGION_RULE), asList(SINGLE_CELL_ELIMINATION, MULTIPLE_CELL_ELIMINATION));
+
+        SaveGame saveGame = new PuzzleGenerator(gameParameters, true).generate(3);
+
+        assertThat(new SudokuSolver().solve(saveGame, gameParameters).getStatus(), is(SolveStatus.SOLVED));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constraintsAreRejected() {
+        new PuzzleGenerator(new GameParameters(asList(SUDOKU_ROW_RULE, SUDOKU_COLUMN_RULE, SUDOKU_REGION_RULE), asList(SINGLE_CELL_ELIMINATION, CENTRE_REGION_MAGIC_SQUARE)), false);
+    }
+
+    private static List<List<Integer>> givens(SaveGame saveGame) {
+        return saveGame.getCells().stream()
+            .map(saveCell -> asList(saveCell.getI(), saveCell.getJ(), saveCell.getValue()))
+            .collect(Collectors.toList());
+    }
+}
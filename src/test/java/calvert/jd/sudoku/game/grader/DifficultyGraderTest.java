@@ -0,0 +1,70 @@
+package calvert.jd.sudoku.game.grader;
+
+import calvert.jd.sudoku.game.GameParameters;
+import calvert.jd.sudoku.game.save.SaveGame;
+import calvert.jd.sudoku.game.solver.SudokuSolver;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static calvert.jd.sudoku.game.logic.LogicStageIdentifier.*;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class DifficultyGraderTest {
+
+    private final SudokuSolver solver = new SudokuSolver();
+
+    @Test
+    public void singlesOnlyIsEasy() throws Exception {
+        Grade grade = DifficultyGrader.grade(this.solver.solve(load("Pocket 001")));
+
+        assertThat(grade.getDifficulty(), is(Difficulty.EASY));
+        assertThat(grade.getHardestLogicStage(), is(SINGLE_CELL_ELIMINATION));
+    }
+
+    @Test
+    public void subsetOfTwoIsMedium() throws Exception {
+        Grade grade = DifficultyGrader.grade(this.solver.solve(load("Pocket 121")));
+
+        assertThat(grade.getDifficulty(), is(Difficulty.MEDIUM));
+        assertThat(grade.getHardestLogicStage(), is(SAME_POSSIBILITIES_ELIMINATION));
+        assertThat(grade.getHardestStepWidth(), is(2));
+    }
+
+    @Test
+    public void harderPuzzleScoresHigher() throws Exception {
+        Grade easy = DifficultyGrader.grade(this.solver.solve(load("Pocket 001")));
+        Grade medium = DifficultyGrader.grade(this.solver.solve(load("Pocket 121")));
+
+        assertThat(medium.getScore(), is(greaterThan(easy.getScore())));
+    }
+
+    @Test
+    public void searchGradesAboveLogic() throws Exception {
+        SaveGame saveGame = load("Pocket 121");
+        GameParameters singleCellOnly = new GameParameters(saveGame.getRules(), singletonList(SINGLE_CELL_ELIMINATION));
+
+        Grade stuck = DifficultyGrader.grade(this.solver.solve(saveGame, singleCellOnly));
+        Grade searched = DifficultyGrader.grade(this.solver.solve(saveGame, singleCellOnly.withSearch()));
+        Grade logic = DifficultyGrader.grade(this.solver.solve(saveGame));
+
+        assertThat(stuck.getDifficulty(), is(Difficulty.UNSOLVED));
+        assertThat(searched.getDifficulty(), is(Difficulty.NEEDS_SEARCH));
+        assertThat(searched.getScore(), is(greaterThan(logic.getScore())));
+    }
+
+    @Test
+    public void subsetRatingGrowsWithWidth() {
+        assertThat(DifficultyGrader.getRating(SHARED_POSSIBILITIES_ELIMINATION, 3), is(greaterThan(DifficultyGrader.getRating(SHARED_POSSIBILITIES_ELIMINATION, 2))));
+        assertThat(DifficultyGrader.getRating(SHARED_POSSIBILITIES_ELIMINATION, 2), is(greaterThan(DifficultyGrader.getRating(SAME_POSSIBILITIES_ELIMINATION, 2))));
+    }
+
+    private static SaveGame load(String name) throws IOException {
+        return new ObjectMapper().readValue(new File("src/main/resources/saves/" + name + ".json"), SaveGame.class);
+    }
+}
@@ -0,0 +1,130 @@
+package calvert.jd.sudoku.game.journal;
+
+import calvert.jd.sudoku.game.GameParameters;
+import calvert.jd.sudoku.game.journal.JournalStep.Kind;
+import calvert.jd.sudoku.game.save.SaveGame;
+import calvert.jd.sudoku.game.solver.SolveResult;
+import calvert.jd.sudoku.game.solver.SolveStatus;
+import calvert.jd.sudoku.game.solver.SudokuSolver;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static calvert.jd.sudoku.game.logic.LogicStageIdentifier.SINGLE_CELL_ELIMINATION;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class JournalReplayTest {
+
+    private final SudokuSolver solver = new SudokuSolver();
+    private final SolveJournal journal = new SolveJournal();
+
+    public JournalReplayTest() {
+        this.solver.setJournal(this.journal);
+    }
+
+    @Test
+    public void replayEndsAtSolution() throws Exception {
+        for (String name : asList("Pocket 001", "Pocket 123", "Knight's Move Sudoku", "Magic Square Sudoku", "The Miracle Sudoku")) {
+            SolveResult result = this.solver.solve(load(name));
+
+            JournalReplay replay = new JournalReplay(this.journal);
+
+            assertThat(name, result.getStatus(), is(SolveStatus.SOLVED));
+            assertThat(name, values(replay), is(result.getValues()));
+        }
+    }
+
+    @Test
+    public void replaySearchWithBacktracks() throws Exception {
+        SaveGame saveGame = load("Pocket 121");
+        GameParameters singleCellOnly = new GameParameters(saveGame.getRules(), singletonList(SINGLE_CELL_ELIMINATION)).withSearch();
+
+        SolveResult result = this.solver.solve(saveGame, singleCellOnly);
+        JournalReplay replay = new JournalReplay(this.journal);
+        replay.seek(replay.getNumSteps());
+
+        assertThat(result.getNumBacktracks(), is(greaterThan(0)));
+        assertThat(IntStream.range(0, replay.getNumSteps()).anyMatch(step -> replay.readStep(step).getKind() == Kind.BACKTRACK), is(true));
+        assertThat(values(replay), is(result.getValues()));
+    }
+
+    @Test
+    public void seekBackwardsMatchesForwards() throws Exception {
+        this.solver.solve(load("Pocket 123"));
+        JournalReplay replay = new JournalReplay(this.journal);
+
+        List<int[]> forwards = new ArrayList<>();
+        for (int step = 0; step <= replay.getNumSteps(); step++) {
+            replay.seek(step);
+            forwards.add(possibleValues(replay));
+        }
+
+        assertThat(replay.getNumSteps(), is(greaterThan(JournalReplay.KEYFRAME_INTERVAL)));
+        for (int step = replay.getNumSteps(); step >= 0; step--) {
+            replay.seek(step);
+            assertThat(possibleValues(replay), is(forwards.get(step)));
+        }
+    }
+
+    @Test
+    public void firstStepStartsFromGivens() throws Exception {
+        SaveGame saveGame = load("Pocket 001");
+        this.solver.solve(saveGame);
+
+        JournalReplay replay = new JournalReplay(this.journal);
+        replay.seek(0);
+
+        assertThat(replay.getLastStep(), is(nullValue()));
+        assertThat((int) IntStream.of(values(replay)).filter(value -> value != 0).count(), is(saveGame.getCells().size()));
+
+        replay.seek(1);
+        assertThat(replay.getLastStep().getKind(), is(Kind.LOGIC_STAGE));
+    }
+
+    @Test
+    public void roundTrip() throws Exception {
+        this.solver.solve(load("Knight's Move Sudoku"));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        this.journal.write(output);
+        SolveJournal read = SolveJournal.read(new ByteArrayInputStream(output.toByteArray()));
+
+        JournalReplay original = new JournalReplay(this.journal);
+        JournalReplay replay = new JournalReplay(read);
+        original.seek(original.getNumSteps());
+        replay.seek(replay.getNumSteps());
+
+        assertThat(replay.getNumSteps(), is(original.getNumSteps()));
+        assertThat(values(replay), is(values(original)));
+        assertThat(replay.readStep(0).toString(), is(original.readStep(0).toString()));
+    }
+
+    @Test(expected = IOException.class)
+    public void notAJournal() throws Exception {
+        SolveJournal.read(new ByteArrayInputStream(new byte[16]));
+    }
+
+    private static int[] values(JournalReplay replay) {
+        return IntStream.range(0, replay.getBoardSize().getNumCells()).map(replay::getValue).toArray();
+    }
+
+    private static int[] possibleValues(JournalReplay replay) {
+        return IntStream.range(0, replay.getBoardSize().getNumCells()).map(replay::getPossibleValues).toArray();
+    }
+
+    private static SaveGame load(String name) throws IOException {
+        return new ObjectMapper().readValue(new File("src/main/resources/saves/" + name + ".json"), SaveGame.class);
+    }
+}
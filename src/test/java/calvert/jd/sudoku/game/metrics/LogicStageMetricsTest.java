@@ -0,0 +1,64 @@
+package calvert.jd.sudoku.game.metrics;
+
+import calvert.jd.sudoku.game.logic.LogicStageIdentifier;
+import calvert.jd.sudoku.game.save.SaveGame;
+import calvert.jd.sudoku.game.solver.SolveResult;
+import calvert.jd.sudoku.game.solver.SudokuSolver;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import static calvert.jd.sudoku.game.logic.LogicStageIdentifier.SINGLE_CELL_ELIMINATION;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class LogicStageMetricsTest {
+
+    private final SudokuSolver solver = new SudokuSolver();
+
+    @Test
+    public void metricsAccountForSolve() throws Exception {
+        SaveGame saveGame = new ObjectMapper().readValue(new File("src/main/resources/saves/Pocket 001.json"), SaveGame.class);
+
+        SolveResult result = this.solver.solve(saveGame);
+        LogicStageMetrics metrics = result.getLogicStageMetrics();
+
+        long runs = Arrays.stream(LogicStageIdentifier.values()).mapToLong(metrics::getRuns).sum();
+        long placements = Arrays.stream(LogicStageIdentifier.values()).mapToLong(metrics::getPlacements).sum();
+
+        assertThat(runs, is((long) result.getNumQueueProcesses()));
+        assertThat(placements, is((long) (81 - saveGame.getCells().size())));
+        assertThat(metrics.getEliminations(SINGLE_CELL_ELIMINATION), is(greaterThan(0L)));
+        assertThat(metrics.getNanos(SINGLE_CELL_ELIMINATION), is(greaterThan(0L)));
+    }
+
+    @Test
+    public void resultKeepsMetricsAfterNextSolve() throws Exception {
+        SaveGame saveGame = new ObjectMapper().readValue(new File("src/main/resources/saves/Pocket 001.json"), SaveGame.class);
+
+        SolveResult result = this.solver.solve(saveGame);
+        long runs = result.getLogicStageMetrics().getRuns(SINGLE_CELL_ELIMINATION);
+        this.solver.solve(saveGame);
+
+        assertThat(result.getLogicStageMetrics().getRuns(SINGLE_CELL_ELIMINATION), is(runs));
+    }
+
+    @Test
+    public void totalsAvailableOverJmx() throws Exception {
+        SaveGame saveGame = new ObjectMapper().readValue(new File("src/main/resources/saves/Pocket 001.json"), SaveGame.class);
+
+        SolveResult result = this.solver.solve(saveGame);
+
+        Object runs = ManagementFactory.getPlatformMBeanServer().getAttribute(
+            new ObjectName("calvert.jd.sudoku:type=LogicStageTotals,name=SINGLE_CELL_ELIMINATION"),
+            "Runs"
+        );
+        assertThat((Long) runs, is(greaterThanOrEqualTo(result.getLogicStageMetrics().getRuns(SINGLE_CELL_ELIMINATION))));
+    }
+}
@@ -1,5 +1,6 @@
 package calvert.jd.sudoku.game.rules;
 
+import calvert.jd.sudoku.game.BoardSize;
 import calvert.jd.sudoku.game.Cell;
 import calvert.jd.sudoku.game.GameState;
 import org.junit.Before;
@@ -8,10 +9,12 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 
-import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.Assert.assertThat;
 import static org.mockito.BDDMockito.given;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -30,11 +33,13 @@ public abstract class AbstractRuleTest<R extends Rule> {
 
     @Before
     public void init() {
+        given(this.gameState.getBoardSize()).willReturn(BoardSize.NINE_BY_NINE);
         this.cells = new Cell[9][9];
 
+        // Cells are listed in index order, as in the game state
         List<Cell> cellsList = new ArrayList<>();
-        for (int i = 0; i < 9; i++) {
-            for (int j = 0; j < 9; j++) {
+        for (int j = 0; j < 9; j++) {
+            for (int i = 0; i < 9; i++) {
                 Cell cell = new Cell(this.gameState, i, j);
                 this.cells[i][j] = cell;
                 cellsList.add(cell);
@@ -47,6 +52,9 @@ public abstract class AbstractRuleTest<R extends Rule> {
     protected abstract R getRule();
 
     protected void assertVisibleCells(Cell processCell, List<Cell> expectedVisibleCells) {
-        assertThat(this.rule.getVisibleCells(this.gameState, processCell), containsInAnyOrder(expectedVisibleCells.toArray()));
+        List<Cell> visibleCells = Arrays.stream(this.rule.getVisibleCellIndices(processCell))
+            .mapToObj(index -> this.gameState.getCells().get(index))
+            .collect(Collectors.toList());
+        assertThat(visibleCells, containsInAnyOrder(expectedVisibleCells.toArray()));
     }
 }
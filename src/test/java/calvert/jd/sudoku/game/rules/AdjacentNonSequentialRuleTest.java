@@ -1,8 +1,11 @@
 package calvert.jd.sudoku.game.rules;
 
+import calvert.jd.sudoku.game.util.PossibleValues;
 import org.junit.Test;
 
 import static java.util.Arrays.asList;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
 
 public class AdjacentNonSequentialRuleTest extends AbstractRuleTest<AdjacentNonSequentialRule> {
 
@@ -34,4 +37,16 @@ public class AdjacentNonSequentialRuleTest extends AbstractRuleTest<AdjacentNonS
             )
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    public void valueEliminatesNeighbouringValues() {
+        assertThat(this.rule.getPossibilitiesToEliminateForValue(5), is(PossibleValues.of(4, 6)));
+        assertThat(this.rule.getPossibilitiesToEliminateForValue(1), is(PossibleValues.of(2)));
+    }
+
+    @Test
+    public void possibleValuesEliminateWhatEveryValueEliminates() {
+        assertThat(this.rule.getPossibilitiesToEliminateForPossibleValues(PossibleValues.of(4, 6)), is(PossibleValues.of(5)));
+        assertThat(this.rule.getPossibilitiesToEliminateForPossibleValues(PossibleValues.of(4, 5)), is(PossibleValues.NONE));
+    }
+}
@@ -0,0 +1,93 @@
+package calvert.jd.sudoku.game.rules;
+
+import calvert.jd.sudoku.game.BoardSize;
+import calvert.jd.sudoku.game.Cell;
+import calvert.jd.sudoku.game.GameState;
+import calvert.jd.sudoku.game.rules.Rule.RuleIdentifier;
+import calvert.jd.sudoku.game.util.PossibleValues;
+import org.junit.Test;
+
+import java.util.List;
+
+import static calvert.jd.sudoku.game.rules.Rule.RuleIdentifier.*;
+import static java.util.Arrays.asList;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class ConstraintGraphTest {
+
+    private static final List<RuleIdentifier> STANDARD_RULES = asList(SUDOKU_ROW_RULE, SUDOKU_COLUMN_RULE, SUDOKU_REGION_RULE);
+
+    @Test
+    public void sameRulesShareGraph() {
+        ConstraintGraph graph = ConstraintGraph.forRules(BoardSize.NINE_BY_NINE, asList(SUDOKU_ROW_RULE, KNIGHTS_MOVE_RULE));
+        ConstraintGraph otherGraph = ConstraintGraph.forRules(BoardSize.NINE_BY_NINE, asList(KNIGHTS_MOVE_RULE, SUDOKU_ROW_RULE));
+
+        assertThat(otherGraph, is(sameInstance(graph)));
+        assertThat(graph.getRules(), contains(SUDOKU_ROW_RULE.getRule(), KNIGHTS_MOVE_RULE.getRule()));
+    }
+
+    @Test
+    public void standardRulesGivePeersAndUnits() {
+        ConstraintGraph graph = ConstraintGraph.forRules(BoardSize.NINE_BY_NINE, STANDARD_RULES);
+
+        assertThat(graph.getPeers(40).length, is(20));
+        assertThat(graph.getRelatedCells(40).length, is(0));
+        assertThat(graph.getUnits().length, is(27));
+        assertThat(graph.getUnits()[0], is(new int[]{0, 1, 2, 3, 4, 5, 6, 7, 8}));
+    }
+
+    @Test
+    public void diagonalOnlyAppliesToCellsOnIt() {
+        ConstraintGraph graph = ConstraintGraph.forRules(BoardSize.NINE_BY_NINE, asList(LEADING_DIAGONAL_DOWN_RULE));
+
+        assertThat(graph.getPeers(0), is(new int[]{10, 20, 30, 40, 50, 60, 70, 80}));
+        assertThat(graph.getPeers(1).length, is(0));
+        assertThat(graph.getUnits().length, is(1));
+    }
+
+    @Test
+    public void adjacentRuleGivesRelatedCells() {
+        ConstraintGraph graph = ConstraintGraph.forRules(BoardSize.NINE_BY_NINE, asList(SUDOKU_ROW_RULE, ADJACENT_SEQUENTIAL_RULE));
+
+        assertThat(graph.getPeers(0).length, is(8));
+        assertThat(graph.getRelatedCells(0), is(new int[]{1, 9}));
+        assertThat(graph.getRelatedEliminations(0)[0][5], is(PossibleValues.of(4, 6)));
+        assertThat(graph.getRelatedEliminations(0)[1][9], is(PossibleValues.of(8)));
+        assertThat(ConstraintGraph.getEliminations(graph.getRelatedEliminations(0)[0], PossibleValues.of(4, 6)), is(PossibleValues.of(5)));
+        assertThat(ConstraintGraph.getEliminations(graph.getRelatedEliminations(0)[0], PossibleValues.of(4, 5)), is(PossibleValues.NONE));
+    }
+
+    @Test
+    public void largeBoardsKeepEliminationTablesSmall() {
+        ConstraintGraph graph = ConstraintGraph.forRules(BoardSize.TWENTY_FIVE_BY_TWENTY_FIVE, asList(SUDOKU_ROW_RULE, ADJACENT_SEQUENTIAL_RULE));
+
+        assertThat(graph.getRelatedEliminations(0)[0].length, is(26));
+        assertThat(graph.getRelatedEliminations(0)[0][25], is(PossibleValues.of(24)));
+    }
+
+    @Test
+    public void visibleCellsIncludePeersAndRelatedCells() {
+        ConstraintGraph graph = ConstraintGraph.forRules(BoardSize.NINE_BY_NINE, asList(SUDOKU_ROW_RULE, ADJACENT_SEQUENTIAL_RULE));
+
+        assertThat(graph.getVisibleCells(0), is(new int[]{1, 2, 3, 4, 5, 6, 7, 8, 9}));
+    }
+
+    @Test
+    public void visibleCellsByRule() {
+        ConstraintGraph graph = ConstraintGraph.forRules(BoardSize.NINE_BY_NINE, asList(SUDOKU_ROW_RULE, LEADING_DIAGONAL_DOWN_RULE));
+
+        assertThat(graph.getVisibleCells(SUDOKU_ROW_RULE.getRule(), 1), is(new int[]{0, 2, 3, 4, 5, 6, 7, 8}));
+        assertThat(graph.getVisibleCells(LEADING_DIAGONAL_DOWN_RULE.getRule(), 0), is(new int[]{10, 20, 30, 40, 50, 60, 70, 80}));
+        assertThat(graph.getVisibleCells(LEADING_DIAGONAL_DOWN_RULE.getRule(), 1), is(nullValue()));
+    }
+
+    @Test
+    public void cellsVisibleToAll() {
+        ConstraintGraph graph = ConstraintGraph.forRules(BoardSize.NINE_BY_NINE, asList(SUDOKU_ROW_RULE, SUDOKU_COLUMN_RULE));
+        List<Cell> cells = new GameState().getCells();
+
+        // The top left and bottom right cells can both see only the top right and bottom left cells
+        assertThat(graph.getCellsVisibleToAll(asList(cells.get(0), cells.get(80))).stream().boxed().toArray(), arrayContaining(8, 72));
+    }
+}
@@ -0,0 +1,66 @@
+package calvert.jd.sudoku.game.save;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static calvert.jd.sudoku.game.rules.Rule.RuleIdentifier.*;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class LinePuzzleReaderTest {
+
+    private static final String PUZZLE = "4.....8.5.3..........7......2.....6.....8.4......1.......6.3.7.5..2.....1.4......";
+
+    @Test
+    public void readPuzzles() {
+        String text = "# A comment\n"
+            + PUZZLE + "\r\n"
+            + "\n"
+            + PUZZLE.replace('.', '0') + " 1.2 rating\n"
+            + PUZZLE;
+
+        List<SaveGame> saveGames = reader(text).stream().collect(Collectors.toList());
+
+        assertThat(saveGames.size(), is(3));
+        for (SaveGame saveGame : saveGames) {
+            assertThat(saveGame.getCells().size(), is(17));
+            assertThat(saveGame.getRules(), is(asList(SUDOKU_ROW_RULE, SUDOKU_COLUMN_RULE, SUDOKU_REGION_RULE)));
+
+            SaveCell first = saveGame.getCells().get(0);
+            assertThat(asList(first.getI(), first.getJ(), first.getValue()), is(asList(0, 0, 4)));
+
+            SaveCell last = saveGame.getCells().get(16);
+            assertThat(asList(last.getI(), last.getJ(), last.getValue()), is(asList(2, 8, 4)));
+        }
+    }
+
+    @Test
+    public void lineNumbers() {
+        LinePuzzleReader reader = reader("# Header\n\n" + PUZZLE + "\n" + PUZZLE + "\n");
+
+        reader.next();
+        assertThat(reader.getLineNumber(), is(3L));
+        reader.next();
+        assertThat(reader.getLineNumber(), is(4L));
+        assertThat(reader.hasNext(), is(false));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shortLine() {
+        reader(PUZZLE.substring(1)).next();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void badCharacter() {
+        reader(PUZZLE.replaceFirst("4", "x")).next();
+    }
+
+    private static LinePuzzleReader reader(String text) {
+        return new LinePuzzleReader(new StringReader(text), asList(SUDOKU_ROW_RULE, SUDOKU_COLUMN_RULE, SUDOKU_REGION_RULE), emptyList());
+    }
+}
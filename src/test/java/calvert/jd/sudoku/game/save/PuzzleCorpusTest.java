@@ -0,0 +1,107 @@
+package calvert.jd.sudoku.game.save;
+
+import calvert.jd.sudoku.game.BoardSize;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static calvert.jd.sudoku.game.rules.Rule.RuleIdentifier.*;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class PuzzleCorpusTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void roundTripSaves() throws Exception {
+        File[] files = new File("src/main/resources/saves").listFiles((dir, name) -> name.endsWith(".json"));
+        Arrays.sort(files);
+
+        List<SaveGame> saveGames = new ArrayList<>();
+        for (File file : files) {
+            saveGames.add(new ObjectMapper().readValue(file, SaveGame.class));
+        }
+
+        Path corpusFile = this.temporaryFolder.newFile("saves.corpus").toPath();
+        try (PuzzleCorpusWriter writer = new PuzzleCorpusWriter(corpusFile)) {
+            for (SaveGame saveGame : saveGames) {
+                writer.write(saveGame);
+            }
+        }
+
+        try (PuzzleCorpus corpus = PuzzleCorpus.open(corpusFile)) {
+            assertThat(corpus.size(), is((long) saveGames.size()));
+            assertThat(corpus.getBoardSize(), is(BoardSize.NINE_BY_NINE));
+
+            // Read in reverse to check that access doesn't depend on reading in order
+            for (int puzzle = saveGames.size() - 1; puzzle >= 0; puzzle--) {
+                SaveGame saveGame = saveGames.get(puzzle);
+
+                assertThat(corpus.getRules(puzzle), is(saveGame.getRules()));
+                assertThat(corpus.getConstraints(puzzle), is(saveGame.getConstraints()));
+                assertThat(corpus.getCells(puzzle).size(), is(saveGame.getCells().size()));
+                for (SaveCell saveCell : saveGame.getCells()) {
+                    assertThat(corpus.getValue(puzzle, saveCell.getJ() * 9 + saveCell.getI()), is(saveCell.getValue()));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void roundTripLargeBoard() throws Exception {
+        List<SaveCell> cells = asList(new SaveCell(0, 0, 16), new SaveCell(15, 15, 1), new SaveCell(7, 3, 10));
+        SaveGame saveGame = new SaveGame(BoardSize.SIXTEEN_BY_SIXTEEN, cells, asList(SUDOKU_ROW_RULE, SUDOKU_COLUMN_RULE, SUDOKU_REGION_RULE), emptyList());
+
+        Path corpusFile = this.temporaryFolder.newFile("large.corpus").toPath();
+        try (PuzzleCorpusWriter writer = new PuzzleCorpusWriter(corpusFile, BoardSize.SIXTEEN_BY_SIXTEEN)) {
+            writer.write(saveGame);
+        }
+
+        try (PuzzleCorpus corpus = PuzzleCorpus.open(corpusFile)) {
+            assertThat(corpus.getBoardSize(), is(BoardSize.SIXTEEN_BY_SIXTEEN));
+            assertThat(corpus.getSaveGame(0).getBoardSize(), is(BoardSize.SIXTEEN_BY_SIXTEEN));
+            for (SaveCell saveCell : cells) {
+                assertThat(corpus.getValue(0, saveCell.getJ() * 16 + saveCell.getI()), is(saveCell.getValue()));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wrongBoardSize() throws Exception {
+        Path corpusFile = this.temporaryFolder.newFile("wrong.corpus").toPath();
+        try (PuzzleCorpusWriter writer = new PuzzleCorpusWriter(corpusFile, BoardSize.SIX_BY_SIX)) {
+            writer.write(new SaveGame(emptyList(), emptyList(), emptyList()));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void notACorpus() throws Exception {
+        Path file = this.temporaryFolder.newFile("not.corpus").toPath();
+        Files.write(file, new byte[64]);
+
+        PuzzleCorpus.open(file);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void puzzleOutOfRange() throws Exception {
+        Path corpusFile = this.temporaryFolder.newFile("empty.corpus").toPath();
+        new PuzzleCorpusWriter(corpusFile).close();
+
+        try (PuzzleCorpus corpus = PuzzleCorpus.open(corpusFile)) {
+            corpus.getValue(0, 0);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package calvert.jd.sudoku.game.solver;
+
+import calvert.jd.sudoku.game.BoardSize;
+import calvert.jd.sudoku.game.rules.Rule.RuleIdentifier;
+import calvert.jd.sudoku.game.save.SaveGame;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static calvert.jd.sudoku.game.rules.Rule.RuleIdentifier.*;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class ParallelSolutionCounterTest {
+
+    private static final List<RuleIdentifier> STANDARD_RULES = asList(SUDOKU_ROW_RULE, SUDOKU_COLUMN_RULE, SUDOKU_REGION_RULE);
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+    private final ParallelSolutionCounter parallelCounter = new ParallelSolutionCounter(BoardSize.NINE_BY_NINE, STANDARD_RULES, emptyList(), this.pool, 3);
+    private final SolutionCounter counter = new SolutionCounter(BoardSize.NINE_BY_NINE, STANDARD_RULES);
+
+    @After
+    public void shutdown() {
+        this.pool.shutdownNow();
+    }
+
+    @Test
+    public void combinesCountsOfSubtrees() throws Exception {
+        int[] givens = this.counter.toValues(load("Pocket 001.json").getCells().subList(0, 22));
+
+        int numSolutions = this.counter.countSolutions(givens, 100_000);
+
+        assertThat(numSolutions, is(lessThan(100_000)));
+        assertThat(this.parallelCounter.countSolutions(givens, 100_000), is(numSolutions));
+    }
+
+    @Test
+    public void countStopsAtLimit() {
+        assertThat(this.parallelCounter.countSolutions(new int[81], 1000), is(1000));
+    }
+
+    @Test
+    public void savedPuzzlesAreUnique() throws Exception {
+        for (String fileName : asList("Pocket 001.json", "Knight's Move Sudoku.json", "Magic Square Sudoku.json", "The Miracle Sudoku.json")) {
+            assertThat(fileName, ParallelSolutionCounter.countSolutions(load(fileName), 2), is(1));
+        }
+    }
+
+    @Test
+    public void findSolutionOfUniquePuzzle() throws Exception {
+        int[] givens = this.counter.toValues(load("Pocket 001.json").getCells());
+
+        int[] solution = this.parallelCounter.findSolution(givens);
+
+        assertThat(solution, is(not(nullValue())));
+        assertThat(this.counter.countSolutions(solution, 2), is(1));
+        assertThat(solution, is(this.counter.findSolution(givens, new Random(0))));
+    }
+
+    @Test
+    public void findSolutionWithNoSolution() {
+        int[] givens = new int[81];
+        givens[0] = 5;
+        givens[1] = 5;
+
+        assertThat(this.parallelCounter.findSolution(givens), is(nullValue()));
+        assertThat(this.parallelCounter.countSolutions(givens, 2), is(0));
+    }
+
+    private static SaveGame load(String fileName) throws Exception {
+        return new ObjectMapper().readValue(new File("src/main/resources/saves/" + fileName), SaveGame.class);
+    }
+}
@@ -0,0 +1,117 @@
+package calvert.jd.sudoku.game.solver;
+
+import calvert.jd.sudoku.game.BoardSize;
+import calvert.jd.sudoku.game.GameParameters;
+import calvert.jd.sudoku.game.logic.LogicStageIdentifier;
+import calvert.jd.sudoku.game.rules.Rule.RuleIdentifier;
+import calvert.jd.sudoku.game.save.SaveCell;
+import calvert.jd.sudoku.game.save.SaveGame;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+import static calvert.jd.sudoku.game.logic.LogicStageIdentifier.*;
+import static calvert.jd.sudoku.game.rules.Rule.RuleIdentifier.*;
+import static java.util.Arrays.asList;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class SolutionCacheTest {
+
+    private static final List<LogicStageIdentifier> LOGIC_STAGES = asList(SINGLE_CELL_ELIMINATION, MULTIPLE_CELL_ELIMINATION, SHARED_POSSIBILITIES_ELIMINATION, SAME_POSSIBILITIES_ELIMINATION);
+
+    private final SudokuSolver solver = new SudokuSolver();
+    private final SolutionCache cache = new SolutionCache(10);
+
+    @Test
+    public void rotatedAndRelabelledCopyIsHit() throws Exception {
+        SaveGame saveGame = load("Pocket 001.json");
+        GameParameters gameParameters = GameParameters.forSaveGame(saveGame);
+
+        // Rotate a quarter turn, and swap every value for the next one
+        List<SaveCell> copy = transform(saveGame.getCells(), saveCell -> new SaveCell(8 - saveCell.getJ(), saveCell.getI(), saveCell.getValue() % 9 + 1));
+
+        this.cache.solve(saveGame, gameParameters, this.solver);
+        SolveResult result = this.cache.solve(copy, gameParameters, this.solver);
+
+        assertThat(this.cache.getHits(), is(1L));
+        assertThat(this.cache.getMisses(), is(1L));
+        assertThat(result.getStatus(), is(SolveStatus.SOLVED));
+        assertThat(result.getValues(), is(this.solver.solve(copy, gameParameters).getValues()));
+    }
+
+    @Test
+    public void swappedBandsAreHit() throws Exception {
+        SaveGame saveGame = load("Pocket 121.json");
+        GameParameters gameParameters = GameParameters.forSaveGame(saveGame);
+
+        List<SaveCell> copy = transform(saveGame.getCells(), saveCell -> new SaveCell(saveCell.getI(), (saveCell.getJ() + 3) % 9, saveCell.getValue()));
+
+        this.cache.solve(saveGame, gameParameters, this.solver);
+        SolveResult result = this.cache.solve(copy, gameParameters, this.solver);
+
+        assertThat(this.cache.getHits(), is(1L));
+        assertThat(result.getValues(), is(this.solver.solve(copy, gameParameters).getValues()));
+    }
+
+    @Test
+    public void diagonalRuleLimitsSymmetries() throws Exception {
+        SaveGame saveGame = load("Pocket 001.json");
+        GameParameters gameParameters = new GameParameters(asList(SUDOKU_ROW_RULE, SUDOKU_COLUMN_RULE, SUDOKU_REGION_RULE, LEADING_DIAGONAL_DOWN_RULE), LOGIC_STAGES);
+
+        // A half turn keeps the diagonal in place, but a quarter turn moves it onto the other diagonal
+        List<SaveCell> halfTurn = transform(saveGame.getCells(), saveCell -> new SaveCell(8 - saveCell.getI(), 8 - saveCell.getJ(), saveCell.getValue()));
+        List<SaveCell> quarterTurn = transform(saveGame.getCells(), saveCell -> new SaveCell(8 - saveCell.getJ(), saveCell.getI(), saveCell.getValue()));
+
+        this.cache.solve(saveGame, gameParameters, this.solver);
+        this.cache.solve(halfTurn, gameParameters, this.solver);
+        this.cache.solve(quarterTurn, gameParameters, this.solver);
+
+        assertThat(this.cache.getHits(), is(1L));
+        assertThat(this.cache.getMisses(), is(2L));
+    }
+
+    @Test
+    public void numSymmetries() {
+        assertThat(SolutionCache.getNumSymmetries(new GameParameters(asList(SUDOKU_ROW_RULE, SUDOKU_COLUMN_RULE, SUDOKU_REGION_RULE), LOGIC_STAGES)), is(288));
+        assertThat(SolutionCache.getNumSymmetries(new GameParameters(asList(SUDOKU_ROW_RULE, SUDOKU_COLUMN_RULE, SUDOKU_REGION_RULE, KNIGHTS_MOVE_RULE), LOGIC_STAGES)), is(8));
+        assertThat(SolutionCache.getNumSymmetries(new GameParameters(asList(SUDOKU_ROW_RULE, SUDOKU_COLUMN_RULE, SUDOKU_REGION_RULE, LEADING_DIAGONAL_DOWN_RULE), LOGIC_STAGES)), is(24));
+    }
+
+    @Test
+    public void numSymmetriesForOtherSizes() {
+        List<RuleIdentifier> standardRules = asList(SUDOKU_ROW_RULE, SUDOKU_COLUMN_RULE, SUDOKU_REGION_RULE);
+
+        // 6x6 regions aren't square, so transposing isn't allowed, but the three bands and two stacks can be reordered
+        assertThat(SolutionCache.getNumSymmetries(new GameParameters(BoardSize.SIX_BY_SIX, standardRules, LOGIC_STAGES, false)), is(48));
+        assertThat(SolutionCache.getNumSymmetries(new GameParameters(BoardSize.SIXTEEN_BY_SIXTEEN, standardRules, LOGIC_STAGES, false)), is(8));
+    }
+
+    @Test
+    public void leastRecentlyUsedIsEvicted() {
+        SolutionCache smallCache = new SolutionCache(1);
+        GameParameters gameParameters = new GameParameters(asList(SUDOKU_ROW_RULE, SUDOKU_COLUMN_RULE, SUDOKU_REGION_RULE), LOGIC_STAGES);
+        List<SaveCell> first = asList(new SaveCell(0, 0, 1));
+        List<SaveCell> second = asList(new SaveCell(0, 0, 1), new SaveCell(1, 0, 2));
+
+        smallCache.solve(first, gameParameters, this.solver);
+        smallCache.solve(second, gameParameters, this.solver);
+        smallCache.solve(first, gameParameters, this.solver);
+
+        assertThat(smallCache.getMisses(), is(3L));
+        assertThat(smallCache.getEvictions(), is(2L));
+        assertThat(smallCache.size(), is(1));
+    }
+
+    private static SaveGame load(String fileName) throws Exception {
+        return new ObjectMapper().readValue(new File("src/main/resources/saves/" + fileName), SaveGame.class);
+    }
+
+    private static List<SaveCell> transform(List<SaveCell> cells, UnaryOperator<SaveCell> transformation) {
+        return cells.stream().map(transformation).collect(Collectors.toList());
+    }
+}
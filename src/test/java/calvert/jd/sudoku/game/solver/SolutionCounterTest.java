@@ -0,0 +1,85 @@
+package calvert.jd.sudoku.game.solver;
+
+import calvert.jd.sudoku.game.BoardSize;
+import calvert.jd.sudoku.game.save.SaveCell;
+import calvert.jd.sudoku.game.save.SaveGame;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+import java.util.Random;
+
+import static calvert.jd.sudoku.game.rules.Rule.RuleIdentifier.*;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class SolutionCounterTest {
+
+    private final SolutionCounter standardCounter = new SolutionCounter(BoardSize.NINE_BY_NINE, asList(SUDOKU_ROW_RULE, SUDOKU_COLUMN_RULE, SUDOKU_REGION_RULE));
+
+    @Test
+    public void savedPuzzlesAreUnique() throws Exception {
+        for (String fileName : asList("Pocket 001.json", "7sudoku 20200608.json", "Knight's Move Sudoku.json", "The Miracle Sudoku.json")) {
+            SaveGame saveGame = load(fileName);
+            SolutionCounter counter = new SolutionCounter(saveGame.getBoardSize(), saveGame.getRules());
+
+            assertThat(fileName, counter.countSolutions(saveGame.getCells(), 2), is(1));
+        }
+    }
+
+    @Test
+    public void magicSquareConstraintIsChecked() throws Exception {
+        SaveGame saveGame = load("Magic Square Sudoku.json");
+
+        assertThat(SolutionCounter.countSolutions(saveGame, 2), is(1));
+        assertThat(new SolutionCounter(saveGame.getBoardSize(), saveGame.getRules()).countSolutions(saveGame.getCells(), 2), is(2));
+    }
+
+    @Test
+    public void countStopsAtLimit() {
+        assertThat(this.standardCounter.countSolutions(emptyList(), 2), is(2));
+        assertThat(this.standardCounter.countSolutions(emptyList(), 5), is(5));
+    }
+
+    @Test
+    public void contradictionHasNoSolutions() {
+        assertThat(this.standardCounter.countSolutions(asList(new SaveCell(0, 0, 5), new SaveCell(8, 0, 5)), 2), is(0));
+    }
+
+    @Test
+    public void missingGivenGivesManySolutions() throws Exception {
+        SaveGame saveGame = load("Pocket 001.json");
+        List<SaveCell> cells = saveGame.getCells().subList(1, saveGame.getCells().size());
+
+        // Removing a single given from a minimal puzzle may leave it unique, but removing all but one can't
+        assertThat(this.standardCounter.countSolutions(cells.subList(0, 1), 2), is(2));
+    }
+
+    @Test
+    public void findSolutionIsRepeatable() {
+        int[] solution = this.standardCounter.findSolution(new int[81], new Random(7));
+        int[] sameSeed = this.standardCounter.findSolution(new int[81], new Random(7));
+
+        assertThat(solution, is(not(nullValue())));
+        assertThat(sameSeed, is(solution));
+        assertThat(this.standardCounter.countSolutions(solution, 2), is(1));
+    }
+
+    @Test
+    public void findSolutionWithNoSolution() {
+        int[] givens = new int[81];
+        givens[0] = 5;
+        givens[1] = 5;
+
+        assertThat(this.standardCounter.findSolution(givens, new Random(7)), is(nullValue()));
+    }
+
+    private static SaveGame load(String fileName) throws Exception {
+        return new ObjectMapper().readValue(new File("src/main/resources/saves/" + fileName), SaveGame.class);
+    }
+}
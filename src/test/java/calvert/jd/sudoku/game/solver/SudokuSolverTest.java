@@ -0,0 +1,171 @@
+package calvert.jd.sudoku.game.solver;
+
+import calvert.jd.sudoku.game.BoardSize;
+import calvert.jd.sudoku.game.GameParameters;
+import calvert.jd.sudoku.game.logic.LogicStageIdentifier;
+import calvert.jd.sudoku.game.save.SaveCell;
+import calvert.jd.sudoku.game.save.SaveGame;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static calvert.jd.sudoku.game.logic.LogicStageIdentifier.SINGLE_CELL_ELIMINATION;
+import static calvert.jd.sudoku.game.rules.Rule.RuleIdentifier.*;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+public class SudokuSolverTest {
+
+    private static final GameParameters STANDARD_PARAMETERS = new GameParameters(
+        asList(SUDOKU_ROW_RULE, SUDOKU_COLUMN_RULE, SUDOKU_REGION_RULE),
+        asList(LogicStageIdentifier.values())
+    );
+
+    private final SudokuSolver solver = new SudokuSolver();
+
+    @Test
+    public void solveSaveGame() throws Exception {
+        SaveGame saveGame = new ObjectMapper().readValue(new File("src/main/resources/saves/Pocket 001.json"), SaveGame.class);
+
+        SolveResult result = this.solver.solve(saveGame);
+
+        assertThat(result.getStatus(), is(SolveStatus.SOLVED));
+        assertThat(Arrays.stream(result.getValues()).anyMatch(value -> value == 0), is(false));
+        saveGame.getCells().forEach(saveCell -> assertThat(result.getValue(saveCell.getI(), saveCell.getJ()), is(saveCell.getValue())));
+        assertThat(result.getNumQueueProcesses(), is(not(0)));
+    }
+
+    @Test
+    public void solveContradiction() {
+        SolveResult result = this.solver.solve(asList(new SaveCell(0, 0, 5), new SaveCell(1, 0, 5)), STANDARD_PARAMETERS);
+
+        assertThat(result.getStatus(), is(SolveStatus.CONTRADICTION));
+    }
+
+    @Test
+    public void solveContradictionForNonUniqueRule() {
+        GameParameters parameters = new GameParameters(asList(SUDOKU_ROW_RULE, SUDOKU_COLUMN_RULE, SUDOKU_REGION_RULE, ADJACENT_SEQUENTIAL_RULE), asList(LogicStageIdentifier.values()));
+
+        SolveResult result = this.solver.solve(asList(new SaveCell(0, 0, 5), new SaveCell(1, 0, 6)), parameters);
+
+        assertThat(result.getStatus(), is(SolveStatus.CONTRADICTION));
+    }
+
+    @Test
+    public void solveStuck() {
+        SolveResult result = this.solver.solve(emptyList(), STANDARD_PARAMETERS);
+
+        assertThat(result.getStatus(), is(SolveStatus.STUCK));
+    }
+
+    @Test
+    public void solverIsReusable() {
+        this.solver.solve(asList(new SaveCell(0, 0, 5), new SaveCell(1, 0, 5)), STANDARD_PARAMETERS);
+
+        SolveResult result = this.solver.solve(emptyList(), STANDARD_PARAMETERS);
+
+        assertThat(result.getStatus(), is(SolveStatus.STUCK));
+        assertThat(result.getValue(0, 0), is(0));
+    }
+
+    @Test
+    public void searchWhenStuck() throws Exception {
+        SaveGame saveGame = new ObjectMapper().readValue(new File("src/main/resources/saves/7sudoku 20200608.json"), SaveGame.class);
+        GameParameters singleCellOnly = new GameParameters(saveGame.getRules(), singletonList(SINGLE_CELL_ELIMINATION));
+
+        assertThat(this.solver.solve(saveGame, singleCellOnly).getStatus(), is(SolveStatus.STUCK));
+
+        SolveResult result = this.solver.solve(saveGame, singleCellOnly.withSearch());
+
+        assertThat(result.getStatus(), is(SolveStatus.SOLVED));
+        assertThat(result.getNumSearchNodes(), is(greaterThan(0)));
+        saveGame.getCells().forEach(saveCell -> assertThat(result.getValue(saveCell.getI(), saveCell.getJ()), is(saveCell.getValue())));
+    }
+
+    @Test
+    public void searchEmptyBoard() {
+        SolveResult result = this.solver.solve(emptyList(), STANDARD_PARAMETERS.withSearch());
+
+        assertThat(result.getStatus(), is(SolveStatus.SOLVED));
+        assertThat(Arrays.stream(result.getValues()).anyMatch(value -> value == 0), is(false));
+    }
+
+    @Test
+    public void searchGivesUpAtNodeLimit() {
+        SolveResult result = this.solver.solve(emptyList(), STANDARD_PARAMETERS.withSearch().withSearchNodeLimit(1));
+
+        assertThat(result.getStatus(), is(SolveStatus.SEARCH_NODE_LIMIT));
+        assertThat(result.getNumSearchNodes(), is(1));
+        // The board is put back to where the logic stages got stuck
+        assertThat(Arrays.stream(result.getValues()).allMatch(value -> value == 0), is(true));
+
+        assertThat(this.solver.solve(emptyList(), STANDARD_PARAMETERS.withSearch().withSearchNodeLimit(1000)).getStatus(), is(SolveStatus.SOLVED));
+    }
+
+    @Test
+    public void searchEmptyBoardOfEverySize() {
+        for (BoardSize boardSize : BoardSize.values()) {
+            GameParameters parameters = new GameParameters(boardSize, STANDARD_PARAMETERS.getRules(), STANDARD_PARAMETERS.getLogicStages(), true);
+
+            SolveResult result = this.solver.solve(emptyList(), parameters);
+
+            assertThat(result.getStatus(), is(SolveStatus.SOLVED));
+            assertThat(result.getValues().length, is(boardSize.getNumCells()));
+            assertValid(result, boardSize);
+        }
+    }
+
+    @Test
+    public void solveSixteenBySixteenWithLogic() {
+        GameParameters searchParameters = new GameParameters(BoardSize.SIXTEEN_BY_SIXTEEN, STANDARD_PARAMETERS.getRules(), STANDARD_PARAMETERS.getLogicStages(), true);
+        SolveResult solution = this.solver.solve(emptyList(), searchParameters);
+
+        // Blank one cell in every row, column and region, which leaves a single value for each
+        List<SaveCell> givens = new ArrayList<>();
+        for (int j = 0; j < 16; j++) {
+            for (int i = 0; i < 16; i++) {
+                if (i != (j % 4) * 4 + j / 4) {
+                    givens.add(new SaveCell(i, j, solution.getValue(i, j)));
+                }
+            }
+        }
+
+        SolveResult result = this.solver.solve(givens, new GameParameters(BoardSize.SIXTEEN_BY_SIXTEEN, STANDARD_PARAMETERS.getRules(), STANDARD_PARAMETERS.getLogicStages(), false));
+
+        assertThat(result.getStatus(), is(SolveStatus.SOLVED));
+        assertThat(result.getNumSearchNodes(), is(0));
+        assertThat(result.getValues(), is(solution.getValues()));
+    }
+
+    private static void assertValid(SolveResult result, BoardSize boardSize) {
+        int size = boardSize.getSize();
+        for (int line = 0; line < size; line++) {
+            Set<Integer> row = new HashSet<>();
+            Set<Integer> column = new HashSet<>();
+            Set<Integer> region = new HashSet<>();
+            for (int position = 0; position < size; position++) {
+                row.add(result.getValue(position, line));
+                column.add(result.getValue(line, position));
+
+                int regionI = (line % (size / boardSize.getRegionWidth())) * boardSize.getRegionWidth() + position % boardSize.getRegionWidth();
+                int regionJ = (line / (size / boardSize.getRegionWidth())) * boardSize.getRegionHeight() + position / boardSize.getRegionWidth();
+                region.add(result.getValue(regionI, regionJ));
+            }
+
+            assertThat(row.size(), is(size));
+            assertThat(column.size(), is(size));
+            assertThat(region.size(), is(size));
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package calvert.jd.sudoku.game.util;
 
+import calvert.jd.sudoku.game.BoardSize;
 import calvert.jd.sudoku.game.Cell;
 import calvert.jd.sudoku.game.GameState;
 import calvert.jd.sudoku.game.logic.LogicConstraint;
@@ -14,7 +15,10 @@ import org.mockito.junit.MockitoJUnitRunner;
 import static calvert.jd.sudoku.game.logic.LogicStageIdentifier.MULTIPLE_CELL_ELIMINATION;
 import static calvert.jd.sudoku.game.logic.LogicStageIdentifier.SINGLE_CELL_ELIMINATION;
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
+import static org.mockito.BDDMockito.given;
 
 @RunWith(MockitoJUnitRunner.class)
 public class LogicQueueTest {
@@ -26,6 +30,7 @@ public class LogicQueueTest {
 
     @Before
     public void init() {
+        given(this.gameState.getBoardSize()).willReturn(BoardSize.NINE_BY_NINE);
         this.logicQueue = new LogicQueue();
     }
 
@@ -53,6 +58,43 @@ public class LogicQueueTest {
         assertThat(this.logicQueue, contains(queueEntry1, queueEntry3, queueEntry2));
     }
 
+    @Test
+    public void addDuplicate() {
+        Cell cell = new Cell(this.gameState, 0, 0);
+        LogicQueueEntry queueEntry1 = new LogicQueueEntry(SINGLE_CELL_ELIMINATION, LogicConstraint.builder().cell(cell).build());
+        LogicQueueEntry queueEntry2 = new LogicQueueEntry(SINGLE_CELL_ELIMINATION, LogicConstraint.builder().cell(cell).build());
+
+        assertThat(this.logicQueue.add(queueEntry1), is(true));
+        assertThat(this.logicQueue.add(queueEntry2), is(false));
+
+        assertThat(this.logicQueue, contains(queueEntry1));
+    }
+
+    @Test
+    public void addAgainAfterPoll() {
+        LogicQueueEntry queueEntry = buildQueueEntry(SINGLE_CELL_ELIMINATION, 0, 0);
+
+        this.logicQueue.add(queueEntry);
+        assertThat(this.logicQueue.poll(), is(queueEntry));
+        assertThat(this.logicQueue.isEmpty(), is(true));
+
+        assertThat(this.logicQueue.add(queueEntry), is(true));
+        assertThat(this.logicQueue, contains(queueEntry));
+    }
+
+    @Test
+    public void pollByLogicStage() {
+        LogicQueueEntry queueEntry1 = buildQueueEntry(MULTIPLE_CELL_ELIMINATION, 0, 0);
+        LogicQueueEntry queueEntry2 = buildQueueEntry(SINGLE_CELL_ELIMINATION, 0, 0);
+
+        this.logicQueue.add(queueEntry1);
+        this.logicQueue.add(queueEntry2);
+
+        assertThat(this.logicQueue.poll(), is(queueEntry2));
+        assertThat(this.logicQueue.poll(), is(queueEntry1));
+        assertThat(this.logicQueue.poll(), is(nullValue()));
+    }
+
     private LogicQueueEntry buildQueueEntry(LogicStageIdentifier logicStage, int i, int j) {
         return new LogicQueueEntry(logicStage, LogicConstraint.builder().cell(new Cell(this.gameState, i, j)).build());
     }
@@ -0,0 +1,48 @@
+package calvert.jd.sudoku.game.util;
+
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class PossibleValuesTest {
+
+    @Test
+    public void allContainsEveryValue() {
+        assertThat(PossibleValues.toList(PossibleValues.all(9)), is(asList(1, 2, 3, 4, 5, 6, 7, 8, 9)));
+    }
+
+    @Test
+    public void ofBuildsMaskFromValues() {
+        int mask = PossibleValues.of(2, 5, 9);
+
+        assertThat(PossibleValues.count(mask), is(3));
+        assertThat(PossibleValues.contains(mask, 5), is(true));
+        assertThat(PossibleValues.contains(mask, 4), is(false));
+        assertThat(PossibleValues.toString(mask), is("[2, 5, 9]"));
+    }
+
+    @Test
+    public void singleValueExtraction() {
+        int mask = PossibleValues.of(7);
+
+        assertThat(PossibleValues.isSingle(mask), is(true));
+        assertThat(PossibleValues.lowest(mask), is(7));
+        assertThat(PossibleValues.isSingle(PossibleValues.of(3, 7)), is(false));
+        assertThat(PossibleValues.isSingle(PossibleValues.NONE), is(false));
+    }
+
+    @Test
+    public void iterateWithoutLowest() {
+        int mask = PossibleValues.of(1, 4, 8);
+
+        assertThat(PossibleValues.lowest(mask), is(1));
+        mask = PossibleValues.withoutLowest(mask);
+        assertThat(PossibleValues.lowest(mask), is(4));
+        mask = PossibleValues.withoutLowest(mask);
+        assertThat(PossibleValues.lowest(mask), is(8));
+        mask = PossibleValues.withoutLowest(mask);
+        assertThat(PossibleValues.isEmpty(mask), is(true));
+    }
+}
@@ -0,0 +1,59 @@
+package calvert.jd.sudoku.game.util;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class SumLineTest {
+
+    private final SumLine magicSquareLine = new SumLine(3, 15, 9);
+
+    @Test
+    public void valuesInCombinationsOfMagicSquare() {
+        assertThat(this.magicSquareLine.getValuesInCombinations(4), is(PossibleValues.of(5)));
+        assertThat(this.magicSquareLine.getValuesInCombinations(3), is(PossibleValues.of(2, 4, 6, 8)));
+        assertThat(this.magicSquareLine.getValuesInCombinations(2), is(PossibleValues.of(1, 3, 7, 9)));
+        assertThat(this.magicSquareLine.getValuesInCombinations(5), is(PossibleValues.NONE));
+    }
+
+    @Test
+    public void pairTableGivesValuesMakingTheTotal() {
+        assertThat(this.magicSquareLine.getPossibleValues(PossibleValues.of(5), PossibleValues.of(1)), is(PossibleValues.of(9)));
+        assertThat(this.magicSquareLine.getPossibleValues(PossibleValues.of(5), PossibleValues.of(1, 2)), is(PossibleValues.of(8, 9)));
+        assertThat(this.magicSquareLine.getPossibleValues(PossibleValues.of(1), PossibleValues.of(2)), is(PossibleValues.NONE));
+        assertThat(this.magicSquareLine.getPossibleValues(PossibleValues.NONE, PossibleValues.of(2)), is(PossibleValues.NONE));
+    }
+
+    @Test
+    public void pairTableMatchesAddingUpTotals() {
+        for (int first = 0; first <= PossibleValues.all(9); first += 7) {
+            for (int second = 0; second <= PossibleValues.all(9); second += 5) {
+                assertThat(this.magicSquareLine.getPossibleValues(first, second), is(addUp(first, second)));
+            }
+        }
+    }
+
+    @Test
+    public void longerLinesAddUpTotals() {
+        SumLine line = new SumLine(4, 10, 9);
+
+        assertThat(line.getPossibleValues(PossibleValues.of(1), PossibleValues.of(2), PossibleValues.of(3)), is(PossibleValues.of(4)));
+        assertThat(line.getPossibleValues(PossibleValues.of(1, 2), PossibleValues.of(2), PossibleValues.of(3)), is(PossibleValues.of(3, 4)));
+        assertThat(line.getValuesInCombinations(1), is(PossibleValues.of(1, 2, 3, 4)));
+    }
+
+    private static int addUp(int first, int second) {
+        int possibleValues = PossibleValues.NONE;
+        for (int value = 1; value <= 9; value++) {
+            for (int a = 1; a <= 9; a++) {
+                for (int b = 1; b <= 9; b++) {
+                    if (PossibleValues.contains(first, a) && PossibleValues.contains(second, b) && a + b + value == 15) {
+                        possibleValues |= PossibleValues.of(value);
+                    }
+                }
+            }
+        }
+        return possibleValues;
+    }
+}